@@ -0,0 +1,93 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.impl.config.ConfigurationImpl;
+import com.anaptecs.jeaf.xfun.impl.config.PropertiesConfigurationResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading configuration values through {@link ConfigurationImpl}. The values are read from
+ * Benchmark.properties of this module and converted into different types.
+ *
+ * @author JEAF Development Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationBenchmark {
+  /**
+   * Name of the properties file that contains the configuration values.
+   */
+  public static final String CONFIGURATION_RESOURCE = "Benchmark.properties";
+
+  /**
+   * Configuration that is benchmarked.
+   */
+  private ConfigurationImpl configuration;
+
+  /**
+   * Method initializes the configuration before the benchmarks are executed.
+   */
+  @Setup
+  public void setup( ) {
+    configuration = new ConfigurationImpl(new PropertiesConfigurationResource(CONFIGURATION_RESOURCE));
+  }
+
+  /**
+   * Benchmark reads a string value.
+   *
+   * @return String Configuration value.
+   */
+  @Benchmark
+  public String getStringValue( ) {
+    return configuration.getConfigurationValue("stringValue", String.class);
+  }
+
+  /**
+   * Benchmark reads a value that is converted into an integer.
+   *
+   * @return Integer Configuration value.
+   */
+  @Benchmark
+  public Integer getIntegerValue( ) {
+    return configuration.getConfigurationValue("intValue", Integer.class);
+  }
+
+  /**
+   * Benchmark reads a value that is converted into a boolean.
+   *
+   * @return Boolean Configuration value.
+   */
+  @Benchmark
+  public Boolean getBooleanValue( ) {
+    return configuration.getConfigurationValue("booleanValue", Boolean.class);
+  }
+
+  /**
+   * Benchmark reads a value that is not defined so that the default value is returned.
+   *
+   * @return Integer Default value.
+   */
+  @Benchmark
+  public Integer getDefaultValue( ) {
+    return configuration.getConfigurationValue("undefinedValue", 42, Integer.class);
+  }
+}
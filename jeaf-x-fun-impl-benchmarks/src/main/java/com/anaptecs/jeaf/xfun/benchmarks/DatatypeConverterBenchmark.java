@@ -0,0 +1,132 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.datatypeconverter.DatatypeConverter;
+import com.anaptecs.jeaf.xfun.api.datatypeconverter.DatatypeConverterRegistry;
+import com.anaptecs.jeaf.xfun.impl.datatypeconverter.DatatypeConverterRegistryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link DatatypeConverterRegistryImpl} and the data type converters that are registered by default.
+ * The lookup of a converter and the conversion itself are measured separately as well as in combination as it is done
+ * e.g. when configuration values are read.
+ *
+ * @author JEAF Development Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatatypeConverterBenchmark {
+  /**
+   * Registry that is benchmarked.
+   */
+  private DatatypeConverterRegistry registry;
+
+  /**
+   * Converter from string to integer.
+   */
+  private DatatypeConverter<String, Integer> stringToInteger;
+
+  /**
+   * Converter from integer to string.
+   */
+  private DatatypeConverter<Integer, String> integerToString;
+
+  /**
+   * Converter from big decimal to double.
+   */
+  private DatatypeConverter<BigDecimal, Double> bigDecimalToDouble;
+
+  /**
+   * Integer value that is converted.
+   */
+  private Integer integerValue;
+
+  /**
+   * Big decimal value that is converted.
+   */
+  private BigDecimal bigDecimalValue;
+
+  /**
+   * Method resolves the converters before the benchmarks are executed.
+   */
+  @Setup
+  public void setup( ) {
+    registry = XFun.getDatatypeConverterRegistry();
+    stringToInteger = registry.getConverter(String.class, Integer.class);
+    integerToString = registry.getConverter(Integer.class, String.class);
+    bigDecimalToDouble = registry.getConverter(BigDecimal.class, Double.class);
+    integerValue = 4711;
+    bigDecimalValue = new BigDecimal("4711.0815");
+  }
+
+  /**
+   * Benchmark looks up a converter.
+   *
+   * @return {@link DatatypeConverter} Resolved converter.
+   */
+  @Benchmark
+  public DatatypeConverter<String, Integer> getConverter( ) {
+    return registry.getConverter(String.class, Integer.class);
+  }
+
+  /**
+   * Benchmark converts a string into an integer.
+   *
+   * @return Integer Converted value.
+   */
+  @Benchmark
+  public Integer convertStringToInteger( ) {
+    return stringToInteger.convert("4711");
+  }
+
+  /**
+   * Benchmark converts an integer into a string.
+   *
+   * @return String Converted value.
+   */
+  @Benchmark
+  public String convertIntegerToString( ) {
+    return integerToString.convert(integerValue);
+  }
+
+  /**
+   * Benchmark converts a big decimal into a double.
+   *
+   * @return Double Converted value.
+   */
+  @Benchmark
+  public Double convertBigDecimalToDouble( ) {
+    return bigDecimalToDouble.convert(bigDecimalValue);
+  }
+
+  /**
+   * Benchmark looks up a converter and converts a string into an integer.
+   *
+   * @return Integer Converted value.
+   */
+  @Benchmark
+  public Integer getConverterAndConvert( ) {
+    return registry.getConverter(String.class, Integer.class).convert("4711");
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for resolving messages through {@link MessageRepositoryImpl}. Besides messages in the current locale also
+ * messages for a locale are resolved for which no localization exists so that the whole fallback chain is walked.
+ *
+ * @author JEAF Development Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageRepositoryBenchmark {
+  /**
+   * Locale for which no localization is defined. Messages for this locale have to be resolved using locale fallback.
+   */
+  private static final Locale FALLBACK_LOCALE = new Locale("xx", "YY", "benchmark");
+
+  /**
+   * Message repository that is benchmarked.
+   */
+  private MessageRepositoryImpl messageRepository;
+
+  /**
+   * Message without parameters.
+   */
+  private ErrorCode message;
+
+  /**
+   * Message with parameters.
+   */
+  private ErrorCode parameterizedMessage;
+
+  /**
+   * Locale in which messages are requested directly.
+   */
+  private Locale locale;
+
+  /**
+   * Method initializes the message repository before the benchmarks are executed.
+   */
+  @Setup
+  public void setup( ) {
+    messageRepository = MessageRepositoryImpl.getInstance();
+    message = MessageRepositoryImpl.VERSION_DETAIL_NOT_DEFINED;
+    parameterizedMessage = MessageRepositoryImpl.UNKNOWN_MESSAGE_CODE;
+    locale = Locale.ENGLISH;
+  }
+
+  /**
+   * Benchmark resolves a message without parameters in the current locale.
+   *
+   * @return String Resolved message.
+   */
+  @Benchmark
+  public String getMessage( ) {
+    return messageRepository.getMessage(message);
+  }
+
+  /**
+   * Benchmark resolves a message with parameters in the current locale.
+   *
+   * @return String Resolved message.
+   */
+  @Benchmark
+  public String getParameterizedMessage( ) {
+    return messageRepository.getMessage(parameterizedMessage, "4711");
+  }
+
+  /**
+   * Benchmark resolves a message with parameters for an explicitly passed locale.
+   *
+   * @return String Resolved message.
+   */
+  @Benchmark
+  public String getMessageForLocale( ) {
+    return messageRepository.getMessage(parameterizedMessage, locale, "4711");
+  }
+
+  /**
+   * Benchmark resolves a message with parameters for a locale that requires locale fallback.
+   *
+   * @return String Resolved message.
+   */
+  @Benchmark
+  public String getMessageWithLocaleFallback( ) {
+    return messageRepository.getMessage(parameterizedMessage, FALLBACK_LOCALE, "4711");
+  }
+
+  /**
+   * Benchmark resolves a trace message with parameters.
+   *
+   * @return String Resolved trace message.
+   */
+  @Benchmark
+  public String getTraceMessage( ) {
+    return messageRepository.getTraceMessage(parameterizedMessage, "4711");
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode;
+import com.anaptecs.jeaf.xfun.api.trace.TraceConfiguration;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceBackendType;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing traces through {@link TraceImpl}. Traces are written to loggers with enabled and disabled
+ * level. The loggers are configured in log4j2.xml of this module and discard all output, so that only the trace path of
+ * JEAF X-Fun is measured and not any I/O.
+ *
+ * Parameterized messages on a disabled level are discarded before the message is rendered, so
+ * {@link #writeMessageDisabled()} should only cost a few nanoseconds. Traces are written through Apache Commons Logging
+ * and directly through Log4J2.
+ *
+ * @author JEAF Development Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraceBenchmark {
+  /**
+   * Name of the logger for which level DEBUG is enabled.
+   */
+  public static final String ENABLED_LOGGER = "com.anaptecs.jeaf.xfun.benchmarks.enabled";
+
+  /**
+   * Name of the logger for which only level ERROR is enabled.
+   */
+  public static final String DISABLED_LOGGER = "com.anaptecs.jeaf.xfun.benchmarks.disabled";
+
+  /**
+   * Trace whose level DEBUG is enabled.
+   */
+  private TraceImpl enabledTrace;
+
+  /**
+   * Trace whose level DEBUG is disabled.
+   */
+  private TraceImpl disabledTrace;
+
+  /**
+   * Trace whose level DEBUG is enabled and that writes directly to Log4J2.
+   */
+  private TraceImpl enabledLog4j2Trace;
+
+  /**
+   * Trace whose level DEBUG is disabled and that writes directly to Log4J2.
+   */
+  private TraceImpl disabledLog4j2Trace;
+
+  /**
+   * Message that is traced.
+   */
+  private ErrorCode message;
+
+  /**
+   * Method initializes the traces before the benchmarks are executed.
+   */
+  @Setup
+  public void setup( ) {
+    enabledTrace = new TraceImpl(ENABLED_LOGGER);
+    disabledTrace = new TraceImpl(DISABLED_LOGGER);
+    TraceConfiguration lConfiguration = TraceConfiguration.getInstance();
+    enabledLog4j2Trace = new TraceImpl(ENABLED_LOGGER, lConfiguration, null, TraceBackendType.LOG4J2);
+    disabledLog4j2Trace = new TraceImpl(DISABLED_LOGGER, lConfiguration, null, TraceBackendType.LOG4J2);
+    message = MessageRepositoryImpl.UNKNOWN_MESSAGE_CODE;
+  }
+
+  /**
+   * Benchmark writes a plain string on an enabled level.
+   */
+  @Benchmark
+  public void writeStringEnabled( ) {
+    enabledTrace.debug("Benchmark trace message");
+  }
+
+  /**
+   * Benchmark writes a plain string on a disabled level.
+   */
+  @Benchmark
+  public void writeStringDisabled( ) {
+    disabledTrace.debug("Benchmark trace message");
+  }
+
+  /**
+   * Benchmark writes a parameterized message on an enabled level.
+   */
+  @Benchmark
+  public void writeMessageEnabled( ) {
+    enabledTrace.debug(message, "4711");
+  }
+
+  /**
+   * Benchmark writes a parameterized message on a disabled level.
+   */
+  @Benchmark
+  public void writeMessageDisabled( ) {
+    disabledTrace.debug(message, "4711");
+  }
+
+  /**
+   * Benchmark writes a parameterized message on an enabled level directly to Log4J2.
+   */
+  @Benchmark
+  public void writeMessageEnabledLog4j2( ) {
+    enabledLog4j2Trace.debug(message, "4711");
+  }
+
+  /**
+   * Benchmark writes a parameterized message on a disabled level directly to Log4J2.
+   */
+  @Benchmark
+  public void writeMessageDisabledLog4j2( ) {
+    disabledLog4j2Trace.debug(message, "4711");
+  }
+
+  /**
+   * Benchmark checks if a trace level is enabled.
+   *
+   * @return boolean Result of the check.
+   */
+  @Benchmark
+  public boolean isLevelEnabled( ) {
+    return disabledTrace.isLevelEnabled(TraceLevel.DEBUG);
+  }
+}
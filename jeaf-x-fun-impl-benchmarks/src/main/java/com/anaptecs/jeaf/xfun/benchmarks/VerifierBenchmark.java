@@ -0,0 +1,138 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Verifier;
+import com.anaptecs.jeaf.xfun.api.errorhandling.FailureMessage;
+import com.anaptecs.jeaf.xfun.impl.checks.VerifierImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the checks of {@link VerifierImpl}. Successful checks are the common case. Failing checks are
+ * benchmarked as well as they create a failure message.
+ *
+ * @author JEAF Development Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifierBenchmark {
+  /**
+   * Verifier that is benchmarked.
+   */
+  private Verifier verifier;
+
+  /**
+   * Object that is checked.
+   */
+  private Object object;
+
+  /**
+   * String that is checked.
+   */
+  private String string;
+
+  /**
+   * Email address that is checked.
+   */
+  private String eMailAddress;
+
+  /**
+   * Method initializes the verifier before the benchmarks are executed.
+   */
+  @Setup
+  public void setup( ) {
+    verifier = XFun.getVerifier();
+    object = new Object();
+    string = "JEAF X-Fun";
+    eMailAddress = "jeaf@anaptecs.de";
+  }
+
+  /**
+   * Benchmark checks that an object is not null.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage isNotNull( ) {
+    return verifier.isNotNull(object, "object");
+  }
+
+  /**
+   * Benchmark checks that an object is not null for an object that is null.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage isNotNullFailed( ) {
+    return verifier.isNotNull(null, "object");
+  }
+
+  /**
+   * Benchmark checks that a string is a real string.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage isRealString( ) {
+    return verifier.isRealString(string, "string");
+  }
+
+  /**
+   * Benchmark checks the maximum length of a string.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage verifyMaxStringLength( ) {
+    return verifier.verifyMaxStringLength(string, 32, "string");
+  }
+
+  /**
+   * Benchmark checks that a value is part of a set.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage isPartOfSet( ) {
+    return verifier.isPartOfSet(0, 100, 42);
+  }
+
+  /**
+   * Benchmark checks a string against a regular expression.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage verifyPattern( ) {
+    return verifier.verifyPattern(string, "[A-Z]+ [A-Z]-[A-Za-z]+");
+  }
+
+  /**
+   * Benchmark checks an email address.
+   *
+   * @return {@link FailureMessage} Result of the check.
+   */
+  @Benchmark
+  public FailureMessage verifyEMailAddress( ) {
+    return verifier.verifyEMailAddress(eMailAddress);
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class runs all benchmarks of JEAF X-Fun Impl. Every benchmark is executed single-threaded and contended with as many
+ * threads as processors are available. As allocation is as important as execution time for these hot paths the GC
+ * profiler is always active so that allocation rates and GC counts are reported for every benchmark.
+ *
+ * Benchmarks can be selected by passing regular expressions as arguments. For all other options the JMH command line
+ * is available through <code>org.openjdk.jmh.Main</code>, e.g. <code>java -cp benchmarks.jar org.openjdk.jmh.Main
+ * TraceBenchmark -t 8 -prof gc</code>.
+ *
+ * @author JEAF Development Team
+ */
+public final class XFunBenchmarks {
+  /**
+   * Class is not intended to be instantiated.
+   */
+  private XFunBenchmarks( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method runs the benchmarks.
+   *
+   * @param pArgs Regular expressions to select the benchmarks that should be executed. If no expression is passed then
+   * all benchmarks of this module are executed.
+   * @throws RunnerException if the benchmarks can not be executed.
+   */
+  public static void main( String[] pArgs ) throws RunnerException {
+    int lContendedThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    for (int lThreads : new int[] { 1, lContendedThreads }) {
+      ChainedOptionsBuilder lBuilder = new OptionsBuilder();
+      if (pArgs.length > 0) {
+        for (String lNextPattern : pArgs) {
+          lBuilder.include(lNextPattern);
+        }
+      }
+      else {
+        lBuilder.include(XFunBenchmarks.class.getPackage().getName() + ".*");
+      }
+      lBuilder.threads(lThreads);
+      lBuilder.addProfiler(GCProfiler.class);
+      new Runner(lBuilder.build()).run();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.anaptecs.jeaf.junit.tools;
+
+import com.anaptecs.jeaf.xfun.annotations.MessageResource;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode;
+import com.anaptecs.jeaf.xfun.api.messages.LocalizedString;
+import com.anaptecs.jeaf.xfun.api.messages.MessageID;
+import com.anaptecs.jeaf.xfun.api.messages.MessageRepository;
+
+/**
+ * Test class for message constants that are generated by the message catalog compiler.
+ *
+ * @author JEAF Development Team
+ * @version 1.0
+ */
+@MessageResource(path = "CatalogTestMessageData.xml")
+public final class CatalogTestMessages {
+  /**
+   * Constant for XML file that contains all messages that are defined within this class.
+   */
+  private static final String MESSAGE_RESOURCE = "CatalogTestMessageData.xml";
+
+  /**
+   * Error message that is loaded from a precompiled message catalog.
+   */
+  public static final ErrorCode CATALOG_ERROR;
+
+  /**
+   * Info message that is loaded from a precompiled message catalog.
+   */
+  public static final MessageID CATALOG_INFO;
+
+  /**
+   * Localized string that is loaded from a precompiled message catalog.
+   */
+  public static final LocalizedString CATALOG_TEXT;
+
+  /**
+   * Static initializer contains initialization for all generated constants.
+   */
+  static {
+    MessageRepository lRepository = XFun.getMessageRepository();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    CATALOG_ERROR = lRepository.getErrorCode(30001);
+    CATALOG_INFO = lRepository.getMessageID(30002);
+    CATALOG_TEXT = lRepository.getLocalizedString(30003);
+  }
+
+  /**
+   * Constructor is private to ensure that no instances of this class will be created.
+   */
+  private CatalogTestMessages( ) {
+    // Nothing to do.
+  }
+}
@@ -0,0 +1,427 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+
+/**
+ * Class implements reading and writing of precompiled binary message catalogs. A binary message catalog contains the
+ * same information as a message resource XML file but can be loaded without any XML parsing.
+ *
+ * The binary format is defined as follows (all values big endian):
+ * <ol>
+ * <li>Header: magic number ({@link #MAGIC}), format version ({@link #FORMAT_VERSION}) and checksum of the XML message
+ * resource the catalog was compiled from (see {@link #checksum(byte[])}).</li>
+ * <li>String pool: number of strings followed by all strings as length prefixed UTF-8 bytes. All texts, types and
+ * trace levels are referenced by their index in the pool so that identical strings are only stored once.</li>
+ * <li>Locale table: number of locales followed by the pool indexes of language, country and variant of every
+ * locale.</li>
+ * <li>ID index: number of messages followed by localization ID, type, trace level and default text of every message.
+ * The index is sorted by localization ID.</li>
+ * <li>Locale string tables: for every locale of the locale table the number of localized texts followed by pairs of
+ * message index and pool index of the localized text.</li>
+ * </ol>
+ *
+ * Binary message catalogs are created at build time by {@link MessageCatalogCompiler}. As the checksum of the XML
+ * message resource is part of the header, a catalog that is outdated compared to the XML file on the classpath can be
+ * detected when it is loaded.
+ *
+ * @author JEAF Development Team
+ */
+public final class BinaryMessageCatalog {
+  /**
+   * Magic number that identifies binary message catalogs ("JMC" followed by 0x01).
+   */
+  public static final int MAGIC = 0x4A4D4301;
+
+  /**
+   * Current version of the binary format.
+   */
+  public static final short FORMAT_VERSION = 2;
+
+  /**
+   * Checksum of catalogs that were not compiled from an XML message resource (e.g. exported messages).
+   */
+  public static final long NO_SOURCE_CHECKSUM = -1L;
+
+  /**
+   * Size of a count or index value in bytes.
+   */
+  private static final int INT_SIZE = 4;
+
+  /**
+   * Size of an entry of the locale table in bytes (pool indexes of language, country and variant).
+   */
+  private static final int LOCALE_ENTRY_SIZE = 3 * INT_SIZE;
+
+  /**
+   * Size of an entry of the ID index in bytes (localization ID and pool indexes of type, trace level and default text).
+   */
+  private static final int MESSAGE_ENTRY_SIZE = 4 * INT_SIZE;
+
+  /**
+   * Size of an entry of a locale string table in bytes (message index and pool index of the text).
+   */
+  private static final int TEXT_ENTRY_SIZE = 2 * INT_SIZE;
+
+  /**
+   * File extension of binary message catalogs.
+   */
+  public static final String CATALOG_EXTENSION = ".jmc";
+
+  /**
+   * File extension of XML message resources.
+   */
+  private static final String XML_EXTENSION = ".xml";
+
+  /**
+   * Constructor is private to prevent that instances of this class will be created.
+   */
+  private BinaryMessageCatalog( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method returns the name of the binary catalog that belongs to the passed message resource. The name of the catalog
+   * is the name of the message resource where the extension ".xml" is replaced by {@link #CATALOG_EXTENSION}.
+   *
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link String} Name of the binary catalog. The method never returns null.
+   */
+  public static String getCatalogResourceName( String pMessageResource ) {
+    // Check parameter.
+    Assert.assertNotNull(pMessageResource, "pMessageResource");
+
+    String lBaseName;
+    if (pMessageResource.toLowerCase(Locale.ROOT).endsWith(XML_EXTENSION)) {
+      lBaseName = pMessageResource.substring(0, pMessageResource.length() - XML_EXTENSION.length());
+    }
+    else {
+      lBaseName = pMessageResource;
+    }
+    return lBaseName + CATALOG_EXTENSION;
+  }
+
+  /**
+   * Method opens the binary catalog at the passed location. If the catalog is located in the file system then it will
+   * be memory mapped. Otherwise (e.g. if it is located inside a JAR file) its content will be read into the heap.
+   *
+   * @param pCatalogURL Location of the catalog. The parameter must not be null.
+   * @return {@link ByteBuffer} Buffer with the content of the catalog. The method never returns null.
+   * @throws IOException if the catalog can not be read.
+   */
+  public static ByteBuffer open( URL pCatalogURL ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pCatalogURL, "pCatalogURL");
+
+    ByteBuffer lBuffer;
+    if ("file".equals(pCatalogURL.getProtocol())) {
+      File lFile;
+      try {
+        lFile = new File(pCatalogURL.toURI());
+      }
+      catch (URISyntaxException | IllegalArgumentException e) {
+        throw new IOException("Invalid location of message catalog " + pCatalogURL, e);
+      }
+      try (FileChannel lChannel = FileChannel.open(lFile.toPath(), StandardOpenOption.READ)) {
+        lBuffer = lChannel.map(FileChannel.MapMode.READ_ONLY, 0, lChannel.size());
+      }
+    }
+    // Catalog is not located in the file system, so we have to read it.
+    else {
+      try (InputStream lInputStream = pCatalogURL.openStream()) {
+        lBuffer = ByteBuffer.wrap(lInputStream.readAllBytes());
+      }
+    }
+    return lBuffer;
+  }
+
+  /**
+   * Method calculates the checksum of the passed content of an XML message resource. The checksum consists of the size
+   * of the content and its CRC32 value.
+   *
+   * @param pContent Content of the message resource. The parameter must not be null.
+   * @return long Checksum of the content.
+   */
+  public static long checksum( byte[] pContent ) {
+    // Check parameter.
+    Assert.assertNotNull(pContent, "pContent");
+
+    CRC32 lCRC = new CRC32();
+    lCRC.update(pContent);
+    return ((long) pContent.length << 32) | lCRC.getValue();
+  }
+
+  /**
+   * Method reads the checksum of the XML message resource from which the passed catalog was compiled.
+   *
+   * @param pCatalog Buffer with the content of a binary catalog. The parameter must not be null.
+   * @return long Checksum of the XML message resource (see {@link #checksum(byte[])}) or {@link #NO_SOURCE_CHECKSUM}
+   * if the catalog was not compiled from an XML message resource.
+   * @throws IOException if the passed buffer does not contain a valid binary catalog.
+   */
+  public static long readSourceChecksum( ByteBuffer pCatalog ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pCatalog, "pCatalog");
+
+    ByteBuffer lBuffer = pCatalog.duplicate();
+    try {
+      return BinaryMessageCatalog.readHeader(lBuffer);
+    }
+    catch (BufferUnderflowException e) {
+      throw new IOException("Binary message catalog is corrupt.", e);
+    }
+  }
+
+  /**
+   * Method reads and checks the header of a binary catalog.
+   *
+   * @param pBuffer Buffer that is positioned at the beginning of the catalog. The parameter must not be null.
+   * @return long Checksum of the XML message resource from which the catalog was compiled.
+   * @throws IOException if the buffer does not contain a binary catalog of the supported version.
+   */
+  private static long readHeader( ByteBuffer pBuffer ) throws IOException {
+    if (pBuffer.getInt() != MAGIC) {
+      throw new IOException("Buffer does not contain a binary message catalog.");
+    }
+    short lVersion = pBuffer.getShort();
+    if (lVersion != FORMAT_VERSION) {
+      throw new IOException("Unsupported version " + lVersion + " of binary message catalog.");
+    }
+    return pBuffer.getLong();
+  }
+
+  /**
+   * Method reads all message entries from the passed binary catalog.
+   *
+   * @param pCatalog Buffer with the content of a binary catalog. The parameter must not be null.
+   * @return {@link List} List with all message entries of the catalog sorted by their localization ID. The method
+   * never returns null.
+   * @throws IOException if the passed buffer does not contain a valid binary catalog.
+   */
+  public static List<MessageEntry> read( ByteBuffer pCatalog ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pCatalog, "pCatalog");
+
+    ByteBuffer lBuffer = pCatalog.duplicate();
+    try {
+      // Check header
+      BinaryMessageCatalog.readHeader(lBuffer);
+
+      // Read string pool. Every string consists at least of its length.
+      String[] lStrings = new String[BinaryMessageCatalog.readCount(lBuffer, INT_SIZE)];
+      for (int i = 0; i < lStrings.length; i++) {
+        byte[] lBytes = new byte[BinaryMessageCatalog.readCount(lBuffer, 1)];
+        lBuffer.get(lBytes);
+        lStrings[i] = new String(lBytes, StandardCharsets.UTF_8);
+      }
+
+      // Read locale table.
+      Locale[] lLocales = new Locale[BinaryMessageCatalog.readCount(lBuffer, LOCALE_ENTRY_SIZE)];
+      for (int i = 0; i < lLocales.length; i++) {
+        String lLanguage = lStrings[lBuffer.getInt()];
+        String lCountry = lStrings[lBuffer.getInt()];
+        String lVariant = lStrings[lBuffer.getInt()];
+        lLocales[i] = new Locale(lLanguage, lCountry, lVariant);
+      }
+
+      // Read ID index.
+      int lMessageCount = BinaryMessageCatalog.readCount(lBuffer, MESSAGE_ENTRY_SIZE);
+      int[] lIDs = new int[lMessageCount];
+      String[] lTypes = new String[lMessageCount];
+      String[] lTraceLevels = new String[lMessageCount];
+      String[] lDefaultTexts = new String[lMessageCount];
+      List<List<Locale>> lMessageLocales = new ArrayList<>(lMessageCount);
+      List<List<String>> lMessageTexts = new ArrayList<>(lMessageCount);
+      for (int i = 0; i < lMessageCount; i++) {
+        lIDs[i] = lBuffer.getInt();
+        lTypes[i] = lStrings[lBuffer.getInt()];
+        lTraceLevels[i] = lStrings[lBuffer.getInt()];
+        lDefaultTexts[i] = lStrings[lBuffer.getInt()];
+        lMessageLocales.add(new ArrayList<>(0));
+        lMessageTexts.add(new ArrayList<>(0));
+      }
+
+      // Read locale string tables.
+      for (Locale lNextLocale : lLocales) {
+        int lEntryCount = BinaryMessageCatalog.readCount(lBuffer, TEXT_ENTRY_SIZE);
+        for (int i = 0; i < lEntryCount; i++) {
+          int lMessageIndex = lBuffer.getInt();
+          lMessageLocales.get(lMessageIndex).add(lNextLocale);
+          lMessageTexts.get(lMessageIndex).add(lStrings[lBuffer.getInt()]);
+        }
+      }
+
+      // Create message entries.
+      List<MessageEntry> lEntries = new ArrayList<>(lMessageCount);
+      for (int i = 0; i < lMessageCount; i++) {
+        lEntries.add(new MessageEntry(lIDs[i], lTypes[i], lTraceLevels[i], lDefaultTexts[i], lMessageLocales.get(i),
+            lMessageTexts.get(i)));
+      }
+      return lEntries;
+    }
+    // Catalog is truncated or references do not point to valid entries.
+    catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Binary message catalog is corrupt.", e);
+    }
+  }
+
+  /**
+   * Method reads a count value from the passed buffer and ensures that it is not negative and that the buffer is large
+   * enough to contain the counted elements. This way a corrupt catalog can not cause huge allocations.
+   *
+   * @param pBuffer Buffer from which the value should be read. The parameter must not be null.
+   * @param pElementSize Minimum size of every counted element in bytes. The value must be greater than zero.
+   * @return int Read count value.
+   * @throws IOException if the read value is negative or exceeds the remaining content of the buffer.
+   */
+  private static int readCount( ByteBuffer pBuffer, int pElementSize ) throws IOException {
+    int lCount = pBuffer.getInt();
+    if (lCount < 0) {
+      throw new IOException("Binary message catalog is corrupt. Negative count " + lCount + " at position "
+          + (pBuffer.position() - INT_SIZE) + ".");
+    }
+    int lRemaining = pBuffer.remaining();
+    if (lCount > lRemaining / pElementSize) {
+      throw new IOException("Binary message catalog is corrupt. Count " + lCount + " at position "
+          + (pBuffer.position() - INT_SIZE) + " requires at least " + (long) lCount * pElementSize
+          + " bytes but only " + lRemaining + " bytes are left.");
+    }
+    return lCount;
+  }
+
+  /**
+   * Method writes the passed message entries as binary catalog to the passed output stream. The catalog is not
+   * associated with an XML message resource (see {@link #NO_SOURCE_CHECKSUM}).
+   *
+   * @param pEntries Message entries that should be written. The parameter must not be null and localization IDs of the
+   * entries must be unique.
+   * @param pOutputStream Stream to which the catalog should be written. The parameter must not be null. The stream
+   * will not be closed by this method.
+   * @throws IOException if an error occurs when writing to the stream.
+   */
+  public static void write( List<MessageEntry> pEntries, OutputStream pOutputStream ) throws IOException {
+    BinaryMessageCatalog.write(pEntries, NO_SOURCE_CHECKSUM, pOutputStream);
+  }
+
+  /**
+   * Method writes the passed message entries as binary catalog to the passed output stream.
+   *
+   * @param pEntries Message entries that should be written. The parameter must not be null and localization IDs of the
+   * entries must be unique.
+   * @param pSourceChecksum Checksum of the XML message resource from which the entries were read (see
+   * {@link #checksum(byte[])}).
+   * @param pOutputStream Stream to which the catalog should be written. The parameter must not be null. The stream
+   * will not be closed by this method.
+   * @throws IOException if an error occurs when writing to the stream.
+   */
+  public static void write( List<MessageEntry> pEntries, long pSourceChecksum, OutputStream pOutputStream )
+    throws IOException {
+    // Check parameters.
+    Assert.assertNotNull(pEntries, "pEntries");
+    Assert.assertNotNull(pOutputStream, "pOutputStream");
+
+    // Sort entries by their localization ID to build up ID index.
+    MessageEntry[] lEntries = pEntries.toArray(new MessageEntry[pEntries.size()]);
+    Arrays.sort(lEntries, Comparator.comparingInt(MessageEntry::getLocalizationID));
+
+    // Build string pool, locale table and locale string tables.
+    Map<String, Integer> lStringPool = new LinkedHashMap<>();
+    Map<Locale, List<int[]>> lLocaleTables = new LinkedHashMap<>();
+    int[][] lMessageIndex = new int[lEntries.length][];
+    for (int i = 0; i < lEntries.length; i++) {
+      MessageEntry lEntry = lEntries[i];
+      lMessageIndex[i] = new int[] { lEntry.getLocalizationID(), pool(lStringPool, lEntry.getType()),
+        pool(lStringPool, lEntry.getTraceLevel()), pool(lStringPool, lEntry.getDefaultText()) };
+
+      List<Locale> lLocales = lEntry.getLocales();
+      List<String> lTexts = lEntry.getLocalizedTexts();
+      for (int j = 0; j < lLocales.size(); j++) {
+        Locale lLocale = lLocales.get(j);
+        pool(lStringPool, lLocale.getLanguage());
+        pool(lStringPool, lLocale.getCountry());
+        pool(lStringPool, lLocale.getVariant());
+        int[] lTableEntry = new int[] { i, pool(lStringPool, lTexts.get(j)) };
+        lLocaleTables.computeIfAbsent(lLocale, l -> new ArrayList<>()).add(lTableEntry);
+      }
+    }
+
+    // Write catalog into a buffer first so that a failure does not leave a partially written catalog behind.
+    ByteArrayOutputStream lBytes = new ByteArrayOutputStream();
+    DataOutputStream lOut = new DataOutputStream(lBytes);
+    lOut.writeInt(MAGIC);
+    lOut.writeShort(FORMAT_VERSION);
+    lOut.writeLong(pSourceChecksum);
+
+    // String pool
+    lOut.writeInt(lStringPool.size());
+    for (String lNextString : lStringPool.keySet()) {
+      byte[] lUTF8 = lNextString.getBytes(StandardCharsets.UTF_8);
+      lOut.writeInt(lUTF8.length);
+      lOut.write(lUTF8);
+    }
+
+    // Locale table
+    lOut.writeInt(lLocaleTables.size());
+    for (Locale lNextLocale : lLocaleTables.keySet()) {
+      lOut.writeInt(lStringPool.get(lNextLocale.getLanguage()));
+      lOut.writeInt(lStringPool.get(lNextLocale.getCountry()));
+      lOut.writeInt(lStringPool.get(lNextLocale.getVariant()));
+    }
+
+    // ID index
+    lOut.writeInt(lMessageIndex.length);
+    for (int[] lNextMessage : lMessageIndex) {
+      for (int lNextValue : lNextMessage) {
+        lOut.writeInt(lNextValue);
+      }
+    }
+
+    // Locale string tables
+    for (List<int[]> lNextTable : lLocaleTables.values()) {
+      lOut.writeInt(lNextTable.size());
+      for (int[] lNextEntry : lNextTable) {
+        lOut.writeInt(lNextEntry[0]);
+        lOut.writeInt(lNextEntry[1]);
+      }
+    }
+    lOut.flush();
+    lBytes.writeTo(pOutputStream);
+  }
+
+  /**
+   * Method adds the passed string to the string pool if it is not already part of it.
+   *
+   * @param pStringPool String pool to which the string should be added. The parameter must not be null.
+   * @param pString String that should be added. The parameter must not be null.
+   * @return int Index of the string inside the pool.
+   */
+  private static int pool( Map<String, Integer> pStringPool, String pString ) {
+    return pStringPool.computeIfAbsent(pString, s -> pStringPool.size());
+  }
+}
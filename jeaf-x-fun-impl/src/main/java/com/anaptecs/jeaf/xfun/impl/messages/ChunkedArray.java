@@ -0,0 +1,137 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+/**
+ * Class implements an array that is split into chunks of fixed size. Copies of a chunked array share all chunks with
+ * the original. A chunk is only copied when it is changed the first time through the copy. This way creating the next
+ * version of a {@link MessageCatalog} only copies the chunk directory and the chunks that really change instead of all
+ * elements.
+ *
+ * A chunked array is mutable until {@link #freeze()} is called. Afterwards it must not be changed any longer and may be
+ * shared by any number of threads. Elements that were never set are null.
+ *
+ * @author JEAF Development Team
+ */
+final class ChunkedArray<E> {
+  /**
+   * Number of bits of an index that address an element within a chunk.
+   */
+  static final int CHUNK_SHIFT = 8;
+
+  /**
+   * Number of elements per chunk.
+   */
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  /**
+   * Mask to get the position of an element within its chunk.
+   */
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /**
+   * Empty chunk directory.
+   */
+  private static final Object[][] NO_CHUNKS = new Object[0][];
+
+  /**
+   * Chunks of the array. Chunks that were never written are null.
+   */
+  private Object[][] chunks;
+
+  /**
+   * Flags by chunk that define if the chunk was created by this array and thus may be changed. The attribute is null
+   * if the array is frozen.
+   */
+  private boolean[] ownedChunks;
+
+  /**
+   * Initialize empty mutable array.
+   */
+  ChunkedArray( ) {
+    chunks = NO_CHUNKS;
+    ownedChunks = new boolean[0];
+  }
+
+  /**
+   * Initialize mutable array that shares all chunks with the passed one.
+   *
+   * @param pArray Array whose content should be shared. The parameter must not be null.
+   */
+  private ChunkedArray( ChunkedArray<E> pArray ) {
+    chunks = pArray.chunks.clone();
+    ownedChunks = new boolean[chunks.length];
+  }
+
+  /**
+   * Method returns the element at the passed index.
+   *
+   * @param pIndex Index of the element. The value must not be negative.
+   * @return E Element at the passed index or null if the element was never set.
+   */
+  @SuppressWarnings("unchecked")
+  E get( int pIndex ) {
+    Object[][] lChunks = chunks;
+    int lChunk = pIndex >>> CHUNK_SHIFT;
+    E lElement;
+    if (lChunk < lChunks.length && lChunks[lChunk] != null) {
+      lElement = (E) lChunks[lChunk][pIndex & CHUNK_MASK];
+    }
+    else {
+      lElement = null;
+    }
+    return lElement;
+  }
+
+  /**
+   * Method sets the element at the passed index. If the chunk of the element is shared with another array then it will
+   * be copied first.
+   *
+   * @param pIndex Index of the element. The value must not be negative.
+   * @param pElement Element that should be set. The parameter may be null.
+   */
+  void set( int pIndex, E pElement ) {
+    int lChunk = pIndex >>> CHUNK_SHIFT;
+    if (lChunk >= chunks.length) {
+      int lLength = Math.max(lChunk + 1, chunks.length * 2);
+      Object[][] lChunks = new Object[lLength][];
+      System.arraycopy(chunks, 0, lChunks, 0, chunks.length);
+      boolean[] lOwnedChunks = new boolean[lLength];
+      System.arraycopy(ownedChunks, 0, lOwnedChunks, 0, ownedChunks.length);
+      chunks = lChunks;
+      ownedChunks = lOwnedChunks;
+    }
+    if (ownedChunks[lChunk] == false) {
+      if (chunks[lChunk] == null) {
+        chunks[lChunk] = new Object[CHUNK_SIZE];
+      }
+      else {
+        chunks[lChunk] = chunks[lChunk].clone();
+      }
+      ownedChunks[lChunk] = true;
+    }
+    chunks[lChunk][pIndex & CHUNK_MASK] = pElement;
+  }
+
+  /**
+   * Method creates a mutable copy of this array. The copy shares all chunks with this array.
+   *
+   * @return {@link ChunkedArray} Mutable copy of this array. The method never returns null.
+   */
+  ChunkedArray<E> copy( ) {
+    return new ChunkedArray<>(this);
+  }
+
+  /**
+   * Method freezes this array. Afterwards the array must not be changed any longer.
+   *
+   * @return {@link ChunkedArray} This array. The method never returns null.
+   */
+  ChunkedArray<E> freeze( ) {
+    ownedChunks = null;
+    return this;
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class caches formatter instances per thread and locale. {@link Format} objects are not thread-safe and rather
+ * expensive to create. Keeping one instance per thread and locale allows to render typed message parameters without
+ * any locking and without creating garbage for every rendered message.
+ *
+ * Besides the default number and date formats, the cache also holds the formats of message templates whose explicit
+ * format types (e.g. <code>{0,number,#.##}</code>) are rendered for a locale other than the template's own locale. This
+ * part of the cache is limited to the most recently used templates.
+ *
+ * @author JEAF Development Team
+ */
+final class FormatCache {
+  /**
+   * Maximum number of template specific format arrays that are cached per thread.
+   */
+  private static final int MAX_TEMPLATE_FORMATS = 128;
+
+  /**
+   * Cache instance of the current thread.
+   */
+  private static final ThreadLocal<FormatCache> CACHE = ThreadLocal.withInitial(FormatCache::new);
+
+  /**
+   * Default number formats by locale as they are used by {@link MessageFormat} for numbers without explicit format.
+   */
+  private final Map<Locale, NumberFormat> numberFormats = new HashMap<>();
+
+  /**
+   * Default date formats by locale as they are used by {@link MessageFormat} for dates without explicit format.
+   */
+  private final Map<Locale, DateFormat> dateTimeFormats = new HashMap<>();
+
+  /**
+   * Formats of message templates by template and locale. Least recently used entries are removed.
+   */
+  private final Map<TemplateKey, Format[]> templateFormats =
+      new LinkedHashMap<TemplateKey, Format[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<TemplateKey, Format[]> pEldest ) {
+          return this.size() > MAX_TEMPLATE_FORMATS;
+        }
+      };
+
+  /**
+   * Constructor is private as instances are only created through {@link #getInstance()}.
+   */
+  private FormatCache( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method returns the cache of the current thread. The returned object must not be passed to other threads.
+   *
+   * @return {@link FormatCache} Cache of the current thread. The method never returns null.
+   */
+  static FormatCache getInstance( ) {
+    return CACHE.get();
+  }
+
+  /**
+   * Method returns the number format that {@link MessageFormat} uses for numbers without explicit format.
+   *
+   * @param pLocale Locale of the format. The parameter must not be null.
+   * @return {@link NumberFormat} Number format of the current thread. The method never returns null.
+   */
+  NumberFormat getNumberFormat( Locale pLocale ) {
+    NumberFormat lNumberFormat = numberFormats.get(pLocale);
+    if (lNumberFormat == null) {
+      lNumberFormat = NumberFormat.getInstance(pLocale);
+      numberFormats.put(pLocale, lNumberFormat);
+    }
+    return lNumberFormat;
+  }
+
+  /**
+   * Method returns the date format that {@link MessageFormat} uses for dates without explicit format.
+   *
+   * @param pLocale Locale of the format. The parameter must not be null.
+   * @return {@link DateFormat} Date format of the current thread. The method never returns null.
+   */
+  DateFormat getDateTimeFormat( Locale pLocale ) {
+    DateFormat lDateFormat = dateTimeFormats.get(pLocale);
+    if (lDateFormat == null) {
+      lDateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, pLocale);
+      dateTimeFormats.put(pLocale, lDateFormat);
+    }
+    return lDateFormat;
+  }
+
+  /**
+   * Method returns the formats of the argument slots of the passed template for the passed locale.
+   *
+   * @param pTemplate Template whose formats are required. The parameter must not be null.
+   * @param pLocale Locale of the formats. The parameter must not be null.
+   * @return {@link Format} Formats of the argument slots in the order in which they appear in the pattern. Elements are
+   * null for argument slots without explicit format type. The method never returns null.
+   */
+  Format[] getFormats( MessageTemplate pTemplate, Locale pLocale ) {
+    TemplateKey lKey = new TemplateKey(pTemplate, pLocale);
+    Format[] lFormats = templateFormats.get(lKey);
+    if (lFormats == null) {
+      lFormats = new MessageFormat(pTemplate.getPattern(), pLocale).getFormats();
+      templateFormats.put(lKey, lFormats);
+    }
+    return lFormats;
+  }
+
+  /**
+   * Class is used as key for the formats of a template. Templates are compared by identity.
+   */
+  private static final class TemplateKey {
+    /**
+     * Template of the key.
+     */
+    private final MessageTemplate template;
+
+    /**
+     * Locale of the key.
+     */
+    private final Locale locale;
+
+    /**
+     * Initialize object.
+     *
+     * @param pTemplate Template of the key. The parameter must not be null.
+     * @param pLocale Locale of the key. The parameter must not be null.
+     */
+    TemplateKey( MessageTemplate pTemplate, Locale pLocale ) {
+      template = pTemplate;
+      locale = pLocale;
+    }
+
+    @Override
+    public int hashCode( ) {
+      return System.identityHashCode(template) * 31 + locale.hashCode();
+    }
+
+    @Override
+    public boolean equals( Object pObject ) {
+      boolean lEquals;
+      if (pObject instanceof TemplateKey) {
+        TemplateKey lOther = (TemplateKey) pObject;
+        lEquals = template == lOther.template && locale.equals(lOther.locale);
+      }
+      else {
+        lEquals = false;
+      }
+      return lEquals;
+    }
+  }
+}
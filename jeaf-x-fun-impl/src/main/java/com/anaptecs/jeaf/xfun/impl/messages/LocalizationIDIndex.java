@@ -0,0 +1,213 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+/**
+ * Class implements an open addressing hash map from localization IDs to slot numbers. Keys and values are stored in
+ * primitive arrays so that lookups do not require any boxing. Localization IDs are often dense ranges but may also be
+ * sparse (e.g. 1234567890), so a plain array indexed by the ID itself is not an option.
+ *
+ * The hash table is split into chunks. Copies of an index share all chunks with the original and only copy a chunk when
+ * it is changed the first time. This way adding a few localization IDs to the next version of a {@link MessageCatalog}
+ * does not copy the whole index.
+ *
+ * The index is not thread-safe. It is only changed while the next version of a {@link MessageCatalog} is built and
+ * treated as immutable afterwards.
+ *
+ * @author JEAF Development Team
+ */
+final class LocalizationIDIndex {
+  /**
+   * Value that marks an empty position of the hash table.
+   */
+  static final int NO_SLOT = -1;
+
+  /**
+   * Initial capacity of an index. The capacity is always a power of two.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * Number of bits of a position that address an entry within a chunk.
+   */
+  private static final int CHUNK_SHIFT = 8;
+
+  /**
+   * Mask to get the position of an entry within its chunk.
+   */
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+  /**
+   * Chunks of the hash table. Every position of the hash table uses two elements of its chunk, the localization ID
+   * followed by its slot. Empty positions are marked with {@link #NO_SLOT}.
+   */
+  private int[][] chunks;
+
+  /**
+   * Flags by chunk that define if the chunk was created by this index and thus may be changed.
+   */
+  private boolean[] ownedChunks;
+
+  /**
+   * Number of positions of the hash table. The capacity is always a power of two.
+   */
+  private int capacity;
+
+  /**
+   * Number of entries in the index.
+   */
+  private int size;
+
+  /**
+   * Initialize empty index.
+   */
+  LocalizationIDIndex( ) {
+    this.allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Initialize index that shares all chunks with the passed one. The passed index must not be changed afterwards.
+   *
+   * @param pIndex Index whose content should be copied. The parameter must not be null.
+   */
+  LocalizationIDIndex( LocalizationIDIndex pIndex ) {
+    chunks = pIndex.chunks.clone();
+    ownedChunks = new boolean[chunks.length];
+    capacity = pIndex.capacity;
+    size = pIndex.size;
+  }
+
+  /**
+   * Method returns the slot of the passed localization ID.
+   *
+   * @param pLocalizationID Localization ID whose slot should be returned.
+   * @return int Slot of the localization ID or {@link #NO_SLOT} if the ID is unknown.
+   */
+  int get( int pLocalizationID ) {
+    int[][] lChunks = chunks;
+    int lMask = capacity - 1;
+    int lPosition = LocalizationIDIndex.hash(pLocalizationID) & lMask;
+    while (true) {
+      int[] lChunk = lChunks[lPosition >>> CHUNK_SHIFT];
+      int lOffset = (lPosition & CHUNK_MASK) << 1;
+      int lSlot = lChunk[lOffset + 1];
+      if (lSlot == NO_SLOT) {
+        return NO_SLOT;
+      }
+      if (lChunk[lOffset] == pLocalizationID) {
+        return lSlot;
+      }
+      lPosition = (lPosition + 1) & lMask;
+    }
+  }
+
+  /**
+   * Method adds the passed localization ID with the passed slot to the index. If the ID is already part of the index
+   * then its slot will be replaced.
+   *
+   * @param pLocalizationID Localization ID that should be added.
+   * @param pSlot Slot of the localization ID. The value must not be negative.
+   */
+  void put( int pLocalizationID, int pSlot ) {
+    // Keep load factor below 50% to ensure short probe sequences.
+    if ((size + 1) * 2 > capacity) {
+      this.resize(capacity * 2);
+    }
+    int lMask = capacity - 1;
+    int lPosition = LocalizationIDIndex.hash(pLocalizationID) & lMask;
+    while (true) {
+      int[] lChunk = chunks[lPosition >>> CHUNK_SHIFT];
+      int lOffset = (lPosition & CHUNK_MASK) << 1;
+      if (lChunk[lOffset + 1] == NO_SLOT) {
+        lChunk = this.getWritableChunk(lPosition >>> CHUNK_SHIFT);
+        lChunk[lOffset] = pLocalizationID;
+        lChunk[lOffset + 1] = pSlot;
+        size++;
+        return;
+      }
+      if (lChunk[lOffset] == pLocalizationID) {
+        this.getWritableChunk(lPosition >>> CHUNK_SHIFT)[lOffset + 1] = pSlot;
+        return;
+      }
+      lPosition = (lPosition + 1) & lMask;
+    }
+  }
+
+  /**
+   * Method returns the number of entries in the index.
+   *
+   * @return int Number of entries.
+   */
+  int size( ) {
+    return size;
+  }
+
+  /**
+   * Method returns the chunk with the passed number so that it can be changed. If the chunk is shared with another
+   * index then it will be copied first.
+   *
+   * @param pChunk Number of the chunk.
+   * @return int[] Chunk that may be changed. The method never returns null.
+   */
+  private int[] getWritableChunk( int pChunk ) {
+    if (ownedChunks[pChunk] == false) {
+      chunks[pChunk] = chunks[pChunk].clone();
+      ownedChunks[pChunk] = true;
+    }
+    return chunks[pChunk];
+  }
+
+  /**
+   * Method allocates a new empty hash table with the passed capacity.
+   *
+   * @param pCapacity Capacity of the hash table. The value must be a power of two.
+   */
+  private void allocate( int pCapacity ) {
+    int lChunkPositions = Math.min(pCapacity, 1 << CHUNK_SHIFT);
+    int lChunkCount = pCapacity / lChunkPositions;
+    chunks = new int[lChunkCount][];
+    ownedChunks = new boolean[lChunkCount];
+    for (int i = 0; i < lChunkCount; i++) {
+      int[] lChunk = new int[lChunkPositions * 2];
+      for (int j = 1; j < lChunk.length; j += 2) {
+        lChunk[j] = NO_SLOT;
+      }
+      chunks[i] = lChunk;
+      ownedChunks[i] = true;
+    }
+    capacity = pCapacity;
+    size = 0;
+  }
+
+  /**
+   * Method changes the capacity of the index. All chunks are created again, so afterwards no chunk is shared.
+   *
+   * @param pCapacity New capacity. The value must be a power of two.
+   */
+  private void resize( int pCapacity ) {
+    int[][] lOldChunks = chunks;
+    this.allocate(pCapacity);
+    for (int[] lNextChunk : lOldChunks) {
+      for (int i = 0; i < lNextChunk.length; i += 2) {
+        if (lNextChunk[i + 1] != NO_SLOT) {
+          this.put(lNextChunk[i], lNextChunk[i + 1]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Method spreads the bits of the passed localization ID so that dense ranges of IDs are distributed over the whole
+   * table.
+   *
+   * @param pLocalizationID Localization ID whose hash should be calculated.
+   * @return int Hash of the localization ID.
+   */
+  private static int hash( int pLocalizationID ) {
+    int lHash = pLocalizationID * 0x9E3779B9;
+    return lHash ^ (lHash >>> 16);
+  }
+}
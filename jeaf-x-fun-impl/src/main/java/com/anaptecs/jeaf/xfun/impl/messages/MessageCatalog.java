@@ -0,0 +1,876 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.anaptecs.jeaf.xfun.api.messages.LocalizedObject;
+
+/**
+ * Class represents an immutable snapshot of all messages of a message repository. Snapshots are never changed after
+ * they were created. Instead changes are applied to a {@link Builder} that creates the next version of the snapshot.
+ * This way readers can access a snapshot without any locking and will never see partially applied changes.
+ *
+ * Every localized object is assigned to a slot. The slot of a localization ID is resolved using a primitive
+ * {@link LocalizationIDIndex}. All other information about a message is stored in arrays that are indexed by the slot.
+ * Slots are never reused or moved, so the slot of a localization ID is stable across all versions of a catalog. The
+ * index as well as all arrays are chunked (see {@link ChunkedArray}). A new version of a catalog shares all chunks that
+ * were not changed with its predecessor, so loading a message resource only copies what it touches.
+ *
+ * For every requested locale the catalog lazily creates a resolved message table. It contains the effective message
+ * template of every slot after the locale fallback (variant, country, language, default message) was applied. This way
+ * resolving the message for a localization ID and a locale requires only one lookup of the table. The number of cached
+ * tables is limited. If the limit is reached the least recently used table is evicted. When the next version of a
+ * catalog is built, the cached tables of its predecessor are taken over and only the changed slots are resolved again.
+ *
+ * Besides the version of the last change of every slot the catalog also keeps the slots that were changed by its most
+ * recent versions (see {@link SlotChanges}). This way exporting the changes since a recent version only has to visit
+ * the changed slots instead of all slots.
+ *
+ * @author JEAF Development Team
+ */
+final class MessageCatalog {
+  /**
+   * Empty catalog that is used as starting point of every message repository.
+   */
+  static final MessageCatalog EMPTY = new MessageCatalog(0, new LocalizationIDIndex(), 0,
+      new ChunkedArray<LocalizedObject>().freeze(), new ChunkedArray<MessageTemplate>().freeze(), new HashMap<>(),
+      new ChunkedArray<Boolean>().freeze(), new ChunkedArray<Long>().freeze(), new SlotChanges[0], new HashSet<>());
+
+  /**
+   * Maximum number of locales for which resolved message tables are cached. The limit protects against unbounded memory
+   * consumption if applications request messages for a large number of different locales.
+   */
+  private static final int MAX_RESOLVED_TABLES = 64;
+
+  /**
+   * Maximum number of versions whose changed slots are kept by a catalog. Exports since older versions have to check
+   * the version of every slot.
+   */
+  private static final int MAX_CHANGE_HISTORY = 64;
+
+  /**
+   * Version of the catalog. Every change of a message repository creates a new catalog with a higher version.
+   */
+  private final long version;
+
+  /**
+   * Index that maps localization IDs to slots.
+   */
+  private final LocalizationIDIndex index;
+
+  /**
+   * Number of used slots.
+   */
+  private final int size;
+
+  /**
+   * Localized objects by slot.
+   */
+  private final ChunkedArray<LocalizedObject> localizedObjects;
+
+  /**
+   * Default message templates by slot.
+   */
+  private final ChunkedArray<MessageTemplate> defaultMessages;
+
+  /**
+   * Localized message templates. The map contains an array with the templates by slot for every supported locale.
+   * Slots without a template for a locale are null.
+   */
+  private final Map<Locale, ChunkedArray<MessageTemplate>> localizedMessages;
+
+  /**
+   * Flags by slot that define if the localization ID of the slot was used to create a localized object from a message
+   * resource.
+   */
+  private final ChunkedArray<Boolean> usedLocalizationIDs;
+
+  /**
+   * Versions of the catalog in which the messages of a slot were changed the last time by slot.
+   */
+  private final ChunkedArray<Long> slotVersions;
+
+  /**
+   * Slots that were changed by the most recent versions of the catalog ordered by version. The last element contains
+   * the changes of this version.
+   */
+  private final SlotChanges[] changeHistory;
+
+  /**
+   * Set contains the names of all resources that have already been loaded.
+   */
+  private final Set<String> loadedResources;
+
+  /**
+   * Cache with the resolved message tables by requested locale. As catalogs are immutable the tables never have to be
+   * invalidated. Tables are added and evicted while holding the lock of the map.
+   */
+  private final Map<Locale, ResolvedTable> resolvedTables = new ConcurrentHashMap<>();
+
+  /**
+   * Logical clock that is increased whenever a resolved table is added to the cache. Every table remembers the value of
+   * the clock when it was used the last time (see {@link ResolvedTable#lastUse}).
+   */
+  private volatile long accessClock;
+
+  /**
+   * Initialize object. The passed objects must not be changed afterwards.
+   *
+   * @param pVersion Version of the catalog.
+   * @param pIndex Index that maps localization IDs to slots. The parameter must not be null.
+   * @param pSize Number of used slots.
+   * @param pLocalizedObjects Localized objects by slot. The parameter must not be null.
+   * @param pDefaultMessages Default message templates by slot. The parameter must not be null.
+   * @param pLocalizedMessages Localized message templates by locale. The parameter must not be null.
+   * @param pUsedLocalizationIDs Flags by slot that define if the localization ID is used. The parameter must not be
+   * null.
+   * @param pSlotVersions Versions of the last change by slot. The parameter must not be null.
+   * @param pChangeHistory Slots that were changed by the most recent versions. The parameter must not be null.
+   * @param pLoadedResources Names of all loaded resources. The parameter must not be null.
+   */
+  private MessageCatalog( long pVersion, LocalizationIDIndex pIndex, int pSize,
+      ChunkedArray<LocalizedObject> pLocalizedObjects, ChunkedArray<MessageTemplate> pDefaultMessages,
+      Map<Locale, ChunkedArray<MessageTemplate>> pLocalizedMessages, ChunkedArray<Boolean> pUsedLocalizationIDs,
+      ChunkedArray<Long> pSlotVersions, SlotChanges[] pChangeHistory, Set<String> pLoadedResources ) {
+    version = pVersion;
+    index = pIndex;
+    size = pSize;
+    localizedObjects = pLocalizedObjects;
+    defaultMessages = pDefaultMessages;
+    localizedMessages = pLocalizedMessages;
+    usedLocalizationIDs = pUsedLocalizationIDs;
+    slotVersions = pSlotVersions;
+    changeHistory = pChangeHistory;
+    loadedResources = pLoadedResources;
+  }
+
+  /**
+   * Method returns the version of the catalog.
+   *
+   * @return long Version of the catalog.
+   */
+  long getVersion( ) {
+    return version;
+  }
+
+  /**
+   * Method returns the number of used slots.
+   *
+   * @return int Number of used slots. Valid slots are in the range from 0 to size - 1.
+   */
+  int getSize( ) {
+    return size;
+  }
+
+  /**
+   * Method returns the slot of the passed localization ID.
+   *
+   * @param pLocalizationID Localization ID whose slot should be returned.
+   * @return int Slot of the localization ID or {@link LocalizationIDIndex#NO_SLOT} if the ID is unknown.
+   */
+  int getSlot( int pLocalizationID ) {
+    return index.get(pLocalizationID);
+  }
+
+  /**
+   * Method returns the localized object with the passed localization ID.
+   *
+   * @param pLocalizationID Localization ID of the requested object.
+   * @return {@link LocalizedObject} Localized object with the passed ID or null if the ID is unknown.
+   */
+  LocalizedObject getLocalizedObject( int pLocalizationID ) {
+    int lSlot = index.get(pLocalizationID);
+    LocalizedObject lLocalizedObject;
+    if (lSlot != LocalizationIDIndex.NO_SLOT) {
+      lLocalizedObject = localizedObjects.get(lSlot);
+    }
+    else {
+      lLocalizedObject = null;
+    }
+    return lLocalizedObject;
+  }
+
+  /**
+   * Method returns the version of the catalog in which the messages of the passed slot were changed the last time.
+   *
+   * @param pSlot Slot whose version should be returned. The slot must be valid.
+   * @return long Version of the last change of the slot.
+   */
+  long getVersionAt( int pSlot ) {
+    return slotVersions.get(pSlot);
+  }
+
+  /**
+   * Method returns all slots that were changed after the passed version of the catalog.
+   *
+   * @param pSinceVersion Version since which changes are requested. The value must not be greater than the version of
+   * this catalog.
+   * @return int[] Changed slots in ascending order or null if the catalog does not keep the changes of all versions
+   * since the passed one. In this case the version of every slot has to be checked (see {@link #getVersionAt(int)}).
+   */
+  int[] getChangedSlots( long pSinceVersion ) {
+    int[] lChangedSlots;
+    int lVersionCount = (int) Math.min(version - pSinceVersion, Integer.MAX_VALUE);
+    if (lVersionCount <= changeHistory.length) {
+      BitSet lSlots = new BitSet(size);
+      for (int i = changeHistory.length - lVersionCount; i < changeHistory.length; i++) {
+        for (int lNextSlot : changeHistory[i].slots) {
+          lSlots.set(lNextSlot);
+        }
+      }
+      lChangedSlots = lSlots.stream().toArray();
+    }
+    else {
+      lChangedSlots = null;
+    }
+    return lChangedSlots;
+  }
+
+  /**
+   * Method returns the localized object of the passed slot.
+   *
+   * @param pSlot Slot whose object should be returned. The slot must be valid.
+   * @return {@link LocalizedObject} Localized object of the slot. The method never returns null.
+   */
+  LocalizedObject getLocalizedObjectAt( int pSlot ) {
+    return localizedObjects.get(pSlot);
+  }
+
+  /**
+   * Method checks if the passed localization ID is known.
+   *
+   * @param pLocalizationID Localization ID that should be checked.
+   * @return boolean Method returns true if a localized object with the passed ID exists and false otherwise.
+   */
+  boolean containsLocalizationID( int pLocalizationID ) {
+    return index.get(pLocalizationID) != LocalizationIDIndex.NO_SLOT;
+  }
+
+  /**
+   * Method checks if the resource with the passed name was already loaded.
+   *
+   * @param pMessageResource Name of the resource. The parameter must not be null.
+   * @return boolean Method returns true if the resource was already loaded and false otherwise.
+   */
+  boolean isResourceLoaded( String pMessageResource ) {
+    return loadedResources.contains(pMessageResource);
+  }
+
+  /**
+   * Method returns the default message template of the passed slot.
+   *
+   * @param pSlot Slot whose default template should be returned. The slot must be valid.
+   * @return {@link MessageTemplate} Default template of the slot. The method never returns null.
+   */
+  MessageTemplate getDefaultMessageAt( int pSlot ) {
+    return defaultMessages.get(pSlot);
+  }
+
+  /**
+   * Method returns the localized message templates of the passed locale.
+   *
+   * @param pLocale Locale whose templates should be returned. The parameter must not be null.
+   * @return {@link ChunkedArray} Templates by slot or null if there are no templates for the passed locale. The array
+   * must not be changed.
+   */
+  ChunkedArray<MessageTemplate> getLocalizedMessages( Locale pLocale ) {
+    return localizedMessages.get(pLocale);
+  }
+
+  /**
+   * Method returns the message template of the passed slot for exactly the passed locale.
+   *
+   * @param pSlot Slot whose template should be returned. The slot must be valid.
+   * @param pLocale Locale of the template. The parameter must not be null.
+   * @return {@link MessageTemplate} Template or null if no template exists for exactly the passed locale.
+   */
+  MessageTemplate getLocalizedMessageAt( int pSlot, Locale pLocale ) {
+    ChunkedArray<MessageTemplate> lMessages = localizedMessages.get(pLocale);
+    MessageTemplate lMessageTemplate;
+    if (lMessages != null) {
+      lMessageTemplate = lMessages.get(pSlot);
+    }
+    else {
+      lMessageTemplate = null;
+    }
+    return lMessageTemplate;
+  }
+
+  /**
+   * Method returns the effective message template of the passed slot for the passed locale. If no template exists for
+   * exactly the passed locale then the locale is reduced step by step (variant, country) and if this also does not lead
+   * to a template then the default message will be returned.
+   *
+   * @param pSlot Slot whose template should be returned. The slot must be valid.
+   * @param pLocale Requested locale. The parameter must not be null.
+   * @return {@link MessageTemplate} Effective template of the slot. The method never returns null.
+   */
+  MessageTemplate getEffectiveMessageAt( int pSlot, Locale pLocale ) {
+    return this.getEffectiveMessages(pLocale).getMessageAt(pSlot);
+  }
+
+  /**
+   * Method checks if the default message of the passed slot is used for the passed locale as neither the locale nor
+   * any of its reductions provide a localized message.
+   *
+   * @param pSlot Slot that should be checked. The slot must be valid.
+   * @param pLocale Requested locale. The parameter must not be null.
+   * @return boolean Method returns true if the default message is used and false otherwise.
+   */
+  boolean isFallbackAt( int pSlot, Locale pLocale ) {
+    return this.getEffectiveMessages(pLocale).isFallbackAt(pSlot);
+  }
+
+  /**
+   * Method returns the effective message templates of all slots for the passed locale. The fallback chain of the locale
+   * is resolved only once for all slots (see {@link #getEffectiveMessageAt(int, Locale)}).
+   *
+   * @param pLocale Requested locale. The parameter must not be null.
+   * @return {@link ResolvedTable} Effective templates by slot. The method never returns null.
+   */
+  ResolvedTable getEffectiveMessages( Locale pLocale ) {
+    ResolvedTable lResolvedTable = resolvedTables.get(pLocale);
+    if (lResolvedTable == null) {
+      lResolvedTable = this.resolveTable(pLocale);
+    }
+    // The clock only changes when a table is added, so usually the table is already marked as recently used.
+    else if (lResolvedTable.lastUse != accessClock) {
+      lResolvedTable.lastUse = accessClock;
+    }
+    return lResolvedTable;
+  }
+
+  /**
+   * Method returns the number of locales for which resolved message tables are currently cached.
+   *
+   * @return int Number of cached tables. The value is never greater than {@link #MAX_RESOLVED_TABLES}.
+   */
+  int getResolvedTableCount( ) {
+    return resolvedTables.size();
+  }
+
+  /**
+   * Method creates the resolved message table for the passed locale and adds it to the cache.
+   *
+   * @param pLocale Locale for which the table should be created. The parameter must not be null.
+   * @return {@link ResolvedTable} Resolved message table. The method never returns null.
+   */
+  private ResolvedTable resolveTable( Locale pLocale ) {
+    List<ChunkedArray<MessageTemplate>> lChainTables = this.getChainTables(pLocale);
+    MessageTemplate[] lMessageTemplates = new MessageTemplate[size];
+    BitSet lFallbacks = new BitSet(size);
+    for (int lSlot = 0; lSlot < size; lSlot++) {
+      this.resolveSlot(lSlot, lChainTables, lMessageTemplates, lFallbacks);
+    }
+    ResolvedTable lResolvedTable = new ResolvedTable(lMessageTemplates, lFallbacks);
+
+    // Add table to the cache. If the cache is full the table that was not used for the longest time is evicted.
+    synchronized (resolvedTables) {
+      ResolvedTable lExistingTable = resolvedTables.get(pLocale);
+      if (lExistingTable == null) {
+        if (resolvedTables.size() >= MAX_RESOLVED_TABLES) {
+          this.evictLeastRecentlyUsedTable();
+        }
+        accessClock++;
+        lResolvedTable.lastUse = accessClock;
+        resolvedTables.put(pLocale, lResolvedTable);
+      }
+      else {
+        lResolvedTable = lExistingTable;
+      }
+    }
+    return lResolvedTable;
+  }
+
+  /**
+   * Method removes the resolved message table that was not used for the longest time from the cache. The caller has to
+   * hold the lock of the cache.
+   */
+  private void evictLeastRecentlyUsedTable( ) {
+    Locale lEvictedLocale = null;
+    long lOldestUse = Long.MAX_VALUE;
+    for (Entry<Locale, ResolvedTable> lNextEntry : resolvedTables.entrySet()) {
+      if (lNextEntry.getValue().lastUse < lOldestUse) {
+        lOldestUse = lNextEntry.getValue().lastUse;
+        lEvictedLocale = lNextEntry.getKey();
+      }
+    }
+    if (lEvictedLocale != null) {
+      resolvedTables.remove(lEvictedLocale);
+    }
+  }
+
+  /**
+   * Method takes over the resolved message tables of the passed predecessor of this catalog. Only the passed changed
+   * slots are resolved again. The method has to be called before the catalog is published.
+   *
+   * @param pPredecessor Catalog from which this catalog was built. The parameter must not be null.
+   * @param pChangedSlots Slots that were changed compared to the predecessor. New slots are always changed slots. The
+   * parameter must not be null.
+   */
+  private void inheritResolvedTables( MessageCatalog pPredecessor, BitSet pChangedSlots ) {
+    for (Entry<Locale, ResolvedTable> lNextEntry : pPredecessor.resolvedTables.entrySet()) {
+      ResolvedTable lPreviousTable = lNextEntry.getValue();
+      MessageTemplate[] lMessageTemplates;
+      BitSet lFallbacks;
+      // Tables are immutable, so unchanged tables can be shared.
+      if (pChangedSlots.isEmpty() == true) {
+        lMessageTemplates = lPreviousTable.messageTemplates;
+        lFallbacks = lPreviousTable.fallbacks;
+      }
+      else {
+        lMessageTemplates = Arrays.copyOf(lPreviousTable.messageTemplates, size);
+        lFallbacks = (BitSet) lPreviousTable.fallbacks.clone();
+        List<ChunkedArray<MessageTemplate>> lChainTables = this.getChainTables(lNextEntry.getKey());
+        for (int lSlot = pChangedSlots.nextSetBit(0); lSlot >= 0; lSlot = pChangedSlots.nextSetBit(lSlot + 1)) {
+          this.resolveSlot(lSlot, lChainTables, lMessageTemplates, lFallbacks);
+        }
+      }
+      // Tables that are added to the predecessor concurrently might exceed the limit.
+      if (resolvedTables.size() < MAX_RESOLVED_TABLES) {
+        resolvedTables.put(lNextEntry.getKey(), new ResolvedTable(lMessageTemplates, lFallbacks));
+      }
+    }
+  }
+
+  /**
+   * Method returns the localized message templates of all locales of the fallback chain of the passed locale.
+   *
+   * @param pLocale Requested locale. The parameter must not be null.
+   * @return {@link List} Localized templates in the order of the fallback chain. Locales without any templates are
+   * skipped. The method never returns null.
+   */
+  private List<ChunkedArray<MessageTemplate>> getChainTables( Locale pLocale ) {
+    List<ChunkedArray<MessageTemplate>> lChainTables = new ArrayList<>(3);
+    for (Locale lNextLocale : MessageCatalog.getFallbackChain(pLocale)) {
+      ChunkedArray<MessageTemplate> lNextTable = localizedMessages.get(lNextLocale);
+      if (lNextTable != null) {
+        lChainTables.add(lNextTable);
+      }
+    }
+    return lChainTables;
+  }
+
+  /**
+   * Method determines the effective message template of the passed slot.
+   *
+   * @param pSlot Slot that should be resolved. The slot must be valid.
+   * @param pChainTables Localized templates of the fallback chain (see {@link #getChainTables(Locale)}). The parameter
+   * must not be null.
+   * @param pMessageTemplates Effective templates by slot in which the template of the slot will be stored. The
+   * parameter must not be null.
+   * @param pFallbacks Slots that use their default message. The flag of the slot will be updated. The parameter must
+   * not be null.
+   */
+  private void resolveSlot( int pSlot, List<ChunkedArray<MessageTemplate>> pChainTables,
+      MessageTemplate[] pMessageTemplates, BitSet pFallbacks ) {
+    MessageTemplate lMessageTemplate = null;
+    for (ChunkedArray<MessageTemplate> lNextTable : pChainTables) {
+      lMessageTemplate = lNextTable.get(pSlot);
+      if (lMessageTemplate != null) {
+        break;
+      }
+    }
+    if (lMessageTemplate == null) {
+      lMessageTemplate = defaultMessages.get(pSlot);
+      pFallbacks.set(pSlot);
+    }
+    else {
+      pFallbacks.clear(pSlot);
+    }
+    pMessageTemplates[pSlot] = lMessageTemplate;
+  }
+
+  /**
+   * Method returns the fallback chain of the passed locale. The chain starts with the passed locale itself and is
+   * followed by its reductions. Reduction means that a locale "de_CH_JEAF" is reduced to "de_CH" and then to "de".
+   *
+   * @param pLocale Locale whose fallback chain should be returned. The parameter must not be null.
+   * @return {@link List} Fallback chain of the locale. The method never returns null.
+   */
+  static List<Locale> getFallbackChain( Locale pLocale ) {
+    List<Locale> lChain = new ArrayList<>(3);
+    Locale lLocale = pLocale;
+    while (lLocale != null) {
+      lChain.add(lLocale);
+
+      // Reduce variant if set.
+      if (lLocale.getVariant().length() > 0) {
+        lLocale = new Locale(lLocale.getLanguage(), lLocale.getCountry());
+      }
+      // Reduce country if set
+      else if (lLocale.getCountry().length() > 0) {
+        lLocale = new Locale(lLocale.getLanguage());
+      }
+      // Locale only consists of a language. Thus we can not reduce it any more.
+      else {
+        lLocale = null;
+      }
+    }
+    return lChain;
+  }
+
+  /**
+   * Method returns all locales for which localized messages exist.
+   *
+   * @return {@link Set} Unmodifiable set with all locales. The method never returns null.
+   */
+  Set<Locale> getLocales( ) {
+    return Collections.unmodifiableSet(localizedMessages.keySet());
+  }
+
+  /**
+   * Method creates a new builder that can be used to create the next version of this catalog.
+   *
+   * @return {@link Builder} Builder that is initialized with the content of this catalog. The method never returns
+   * null.
+   */
+  Builder toBuilder( ) {
+    return new Builder(this);
+  }
+
+  /**
+   * Class contains the effective message templates of all slots for a requested locale. Besides the templates the table
+   * also knows which slots fell back to their default message. This can not be derived from the templates themselves as
+   * equal templates may be shared between locales (see {@link MessagePatternPool}).
+   */
+  static final class ResolvedTable {
+    /**
+     * Effective message templates by slot.
+     */
+    private final MessageTemplate[] messageTemplates;
+
+    /**
+     * Slots that use their default message as no localized message exists in the fallback chain of the locale.
+     */
+    private final BitSet fallbacks;
+
+    /**
+     * Value of the access clock of the catalog when the table was used the last time. Concurrent updates are not
+     * synchronized as they can only affect which table is evicted.
+     */
+    private long lastUse;
+
+    /**
+     * Initialize object. The passed objects must not be changed afterwards.
+     *
+     * @param pMessageTemplates Effective message templates by slot. The parameter must not be null.
+     * @param pFallbacks Slots that use their default message. The parameter must not be null.
+     */
+    private ResolvedTable( MessageTemplate[] pMessageTemplates, BitSet pFallbacks ) {
+      messageTemplates = pMessageTemplates;
+      fallbacks = pFallbacks;
+    }
+
+    /**
+     * Method returns the effective message template of the passed slot.
+     *
+     * @param pSlot Slot whose template should be returned. The slot must be valid.
+     * @return {@link MessageTemplate} Effective template of the slot. The method never returns null.
+     */
+    MessageTemplate getMessageAt( int pSlot ) {
+      return messageTemplates[pSlot];
+    }
+
+    /**
+     * Method checks if the passed slot uses its default message.
+     *
+     * @param pSlot Slot that should be checked. The slot must be valid.
+     * @return boolean Method returns true if the default message is used and false otherwise.
+     */
+    boolean isFallbackAt( int pSlot ) {
+      return fallbacks.get(pSlot);
+    }
+  }
+
+  /**
+   * Class contains the slots that were changed by a single version of a catalog.
+   */
+  private static final class SlotChanges {
+    /**
+     * Changed slots in ascending order.
+     */
+    private final int[] slots;
+
+    /**
+     * Initialize object.
+     *
+     * @param pSlots Changed slots in ascending order. The parameter must not be null.
+     */
+    private SlotChanges( int[] pSlots ) {
+      slots = pSlots;
+    }
+  }
+
+  /**
+   * Class is used to create a new version of a catalog. Builders are not thread-safe.
+   */
+  static final class Builder {
+    /**
+     * Version of the catalog that will be created.
+     */
+    private final long version;
+
+    /**
+     * Index that maps localization IDs to slots.
+     */
+    private final LocalizationIDIndex index;
+
+    /**
+     * Number of used slots.
+     */
+    private int size;
+
+    /**
+     * Version of the catalog that will be created as object. All changed slots share the same object.
+     */
+    private final Long slotVersion;
+
+    /**
+     * Localized objects by slot.
+     */
+    private final ChunkedArray<LocalizedObject> localizedObjects;
+
+    /**
+     * Default message templates by slot.
+     */
+    private final ChunkedArray<MessageTemplate> defaultMessages;
+
+    /**
+     * Localized message templates by locale.
+     */
+    private final Map<Locale, ChunkedArray<MessageTemplate>> localizedMessages;
+
+    /**
+     * Flags by slot that define if the localization ID of the slot is used.
+     */
+    private final ChunkedArray<Boolean> usedLocalizationIDs;
+
+    /**
+     * Versions of the last change by slot.
+     */
+    private final ChunkedArray<Long> slotVersions;
+
+    /**
+     * Slots that were changed by the previous versions of the catalog.
+     */
+    private final SlotChanges[] changeHistory;
+
+    /**
+     * Slots that are changed by the catalog that will be created.
+     */
+    private final BitSet changedSlots = new BitSet();
+
+    /**
+     * Catalog from which the builder was created.
+     */
+    private final MessageCatalog predecessor;
+
+    /**
+     * Names of all loaded resources.
+     */
+    private final Set<String> loadedResources;
+
+    /**
+     * Initialize object with the content of the passed catalog. The builder shares all chunks with the catalog and only
+     * copies the ones that are changed.
+     *
+     * @param pCatalog Catalog whose content should be copied. The parameter must not be null.
+     */
+    private Builder( MessageCatalog pCatalog ) {
+      predecessor = pCatalog;
+      version = pCatalog.version + 1;
+      slotVersion = version;
+      index = new LocalizationIDIndex(pCatalog.index);
+      size = pCatalog.size;
+      localizedObjects = pCatalog.localizedObjects.copy();
+      defaultMessages = pCatalog.defaultMessages.copy();
+      localizedMessages = new HashMap<>();
+      for (Entry<Locale, ChunkedArray<MessageTemplate>> lNextEntry : pCatalog.localizedMessages.entrySet()) {
+        localizedMessages.put(lNextEntry.getKey(), lNextEntry.getValue().copy());
+      }
+      usedLocalizationIDs = pCatalog.usedLocalizationIDs.copy();
+      slotVersions = pCatalog.slotVersions.copy();
+      changeHistory = pCatalog.changeHistory;
+      loadedResources = new HashSet<>(pCatalog.loadedResources);
+    }
+
+    /**
+     * Method returns the slot of the passed localization ID. If the ID does not have a slot yet then a new one will be
+     * assigned.
+     *
+     * @param pLocalizationID Localization ID whose slot should be returned.
+     * @return int Slot of the localization ID.
+     */
+    private int resolveSlot( int pLocalizationID ) {
+      int lSlot = index.get(pLocalizationID);
+      if (lSlot == LocalizationIDIndex.NO_SLOT) {
+        lSlot = size;
+        size++;
+        index.put(pLocalizationID, lSlot);
+      }
+      return lSlot;
+    }
+
+    /**
+     * Method marks the passed slot as changed by the catalog that will be created.
+     *
+     * @param pSlot Slot that was changed. The slot must be valid.
+     */
+    private void markSlotChanged( int pSlot ) {
+      slotVersions.set(pSlot, slotVersion);
+      changedSlots.set(pSlot);
+    }
+
+    /**
+     * Method checks if the passed localization ID was already used to create a localized object from a message
+     * resource.
+     *
+     * @param pLocalizationID Localization ID that should be checked.
+     * @return boolean Method returns true if the ID is already used and false otherwise.
+     */
+    boolean isLocalizationIDUsed( int pLocalizationID ) {
+      int lSlot = index.get(pLocalizationID);
+      return lSlot != LocalizationIDIndex.NO_SLOT && usedLocalizationIDs.get(lSlot) != null;
+    }
+
+    /**
+     * Method marks the passed localization ID as used. The ID must already have been added using
+     * {@link #putMessage(LocalizedObject, MessageTemplate)}.
+     *
+     * @param pLocalizationID Localization ID that is used.
+     */
+    void markLocalizationIDUsed( int pLocalizationID ) {
+      usedLocalizationIDs.set(index.get(pLocalizationID), Boolean.TRUE);
+    }
+
+    /**
+     * Method marks the resource with the passed name as loaded.
+     *
+     * @param pMessageResource Name of the resource. The parameter must not be null.
+     */
+    void markResourceLoaded( String pMessageResource ) {
+      loadedResources.add(pMessageResource);
+    }
+
+    /**
+     * Method adds the passed localized object together with its default message template. Existing entries with the
+     * same localization ID will be replaced.
+     *
+     * @param pLocalizedObject Localized object that should be added. The parameter must not be null.
+     * @param pDefaultMessage Default message template. The parameter must not be null.
+     */
+    void putMessage( LocalizedObject pLocalizedObject, MessageTemplate pDefaultMessage ) {
+      int lSlot = this.resolveSlot(pLocalizedObject.getLocalizationID());
+      localizedObjects.set(lSlot, pLocalizedObject);
+      defaultMessages.set(lSlot, pDefaultMessage);
+      this.markSlotChanged(lSlot);
+    }
+
+    /**
+     * Method adds the passed localized message template. The localized object must already have been added using
+     * {@link #putMessage(LocalizedObject, MessageTemplate)}.
+     *
+     * @param pLocalizedObject Localized object the template belongs to. The parameter must not be null.
+     * @param pLocale Locale of the template. The parameter must not be null.
+     * @param pMessageTemplate Localized template. The parameter must not be null.
+     */
+    void putLocalizedMessage( LocalizedObject pLocalizedObject, Locale pLocale, MessageTemplate pMessageTemplate ) {
+      int lSlot = index.get(pLocalizedObject.getLocalizationID());
+      ChunkedArray<MessageTemplate> lMessages = localizedMessages.get(pLocale);
+      if (lMessages == null) {
+        lMessages = new ChunkedArray<>();
+        localizedMessages.put(pLocale, lMessages);
+      }
+      lMessages.set(lSlot, pMessageTemplate);
+      this.markSlotChanged(lSlot);
+    }
+
+    /**
+     * Method returns the localized object with the passed localization ID.
+     *
+     * @param pLocalizationID Localization ID of the object.
+     * @return {@link LocalizedObject} Localized object or null if the ID is unknown.
+     */
+    LocalizedObject getLocalizedObject( int pLocalizationID ) {
+      int lSlot = index.get(pLocalizationID);
+      LocalizedObject lLocalizedObject;
+      if (lSlot != LocalizationIDIndex.NO_SLOT) {
+        lLocalizedObject = localizedObjects.get(lSlot);
+      }
+      else {
+        lLocalizedObject = null;
+      }
+      return lLocalizedObject;
+    }
+
+    /**
+     * Method removes all localized message templates of the passed localized object. The default message template is
+     * not affected.
+     *
+     * @param pLocalizedObject Localized object whose localized templates should be removed. The parameter must not be
+     * null.
+     */
+    void removeLocalizedMessages( LocalizedObject pLocalizedObject ) {
+      int lSlot = index.get(pLocalizedObject.getLocalizationID());
+      if (lSlot != LocalizationIDIndex.NO_SLOT) {
+        for (ChunkedArray<MessageTemplate> lNextMessages : localizedMessages.values()) {
+          if (lNextMessages.get(lSlot) != null) {
+            lNextMessages.set(lSlot, null);
+          }
+        }
+        this.markSlotChanged(lSlot);
+      }
+    }
+
+    /**
+     * Method checks if a localized template exists for the passed object and locale.
+     *
+     * @param pLocalizedObject Localized object that should be checked. The parameter must not be null.
+     * @param pLocale Locale that should be checked. The parameter must not be null.
+     * @return boolean Method returns true if a template exists and false otherwise.
+     */
+    boolean containsLocalizedMessage( LocalizedObject pLocalizedObject, Locale pLocale ) {
+      int lSlot = index.get(pLocalizedObject.getLocalizationID());
+      ChunkedArray<MessageTemplate> lMessages = localizedMessages.get(pLocale);
+      return lSlot != LocalizationIDIndex.NO_SLOT && lMessages != null && lMessages.get(lSlot) != null;
+    }
+
+    /**
+     * Method creates the new version of the catalog. The builder must not be used afterwards.
+     *
+     * @return {@link MessageCatalog} New immutable catalog. The method never returns null.
+     */
+    MessageCatalog build( ) {
+      for (ChunkedArray<MessageTemplate> lNextMessages : localizedMessages.values()) {
+        lNextMessages.freeze();
+      }
+      // Add changes of the new version to the history and drop the oldest version if the history is full.
+      int lRetainedVersions = Math.min(changeHistory.length, MAX_CHANGE_HISTORY - 1);
+      SlotChanges[] lChangeHistory = new SlotChanges[lRetainedVersions + 1];
+      System.arraycopy(changeHistory, changeHistory.length - lRetainedVersions, lChangeHistory, 0, lRetainedVersions);
+      lChangeHistory[lRetainedVersions] = new SlotChanges(changedSlots.stream().toArray());
+
+      MessageCatalog lCatalog = new MessageCatalog(version, index, size, localizedObjects.freeze(),
+          defaultMessages.freeze(), localizedMessages, usedLocalizationIDs.freeze(), slotVersions.freeze(),
+          lChangeHistory, loadedResources);
+      lCatalog.inheritResolvedTables(predecessor, changedSlots);
+      return lCatalog;
+    }
+  }
+}
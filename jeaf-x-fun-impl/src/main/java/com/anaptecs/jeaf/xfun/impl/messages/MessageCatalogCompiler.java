@@ -0,0 +1,358 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.anaptecs.jeaf.tools.api.Tools;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.anaptecs.jeaf.xfun.api.messages.MessageDataDTD;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+
+/**
+ * Class compiles message resources (XML files) into binary message catalogs (see {@link BinaryMessageCatalog}). The
+ * compiler is intended to be executed at build time. All messages are validated during compilation so that invalid
+ * message patterns, unknown trace levels and duplicate localization IDs (also across different message resources)
+ * already break the build.
+ *
+ * Optionally the compiler also generates message constant classes (see {@link MessageConstantsGenerator}) for all
+ * message resources that define a <code>ClassInfo</code>. Duplicate class and constant names are detected at build
+ * time as well.
+ *
+ * Message resources are read from the source directory. Resources that do not exist there are loaded from the
+ * classpath of the compiler. This way also message resources of dependencies can be compiled. The checksum of every
+ * message resource is stored in its catalog so that outdated catalogs are ignored at runtime (see
+ * {@link MessageResourceLoader#loadResource(String, ClassLoader)}).
+ *
+ * The compiler can be executed using the exec-maven-plugin. As the compiler itself has to be compiled first,
+ * catalogs of the main resources are compiled in phase "process-classes":
+ *
+ * <pre>
+ * &lt;plugin&gt;
+ *   &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *   &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *   &lt;executions&gt;
+ *     &lt;execution&gt;
+ *       &lt;id&gt;compile-message-catalogs&lt;/id&gt;
+ *       &lt;phase&gt;process-classes&lt;/phase&gt;
+ *       &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *       &lt;configuration&gt;
+ *         &lt;mainClass&gt;com.anaptecs.jeaf.xfun.impl.messages.MessageCatalogCompiler&lt;/mainClass&gt;
+ *         &lt;arguments&gt;
+ *           &lt;argument&gt;${project.basedir}/src/main/resources&lt;/argument&gt;
+ *           &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *           &lt;argument&gt;MyMessages.xml&lt;/argument&gt;
+ *         &lt;/arguments&gt;
+ *       &lt;/configuration&gt;
+ *     &lt;/execution&gt;
+ *   &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * Constant classes (option <code>--constants=dir</code>) have to be generated before the sources that use them are
+ * compiled. Thus message resources of tests are compiled in phase "generate-test-sources" together with their
+ * constant classes (see pom.xml of this module).
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageCatalogCompiler {
+  /**
+   * System's line separator.
+   */
+  private static final String LINE_SEPERATOR = System.getProperty("line.separator");
+
+  /**
+   * Command line option that defines the directory to which message constant classes are generated.
+   */
+  private static final String CONSTANTS_OPTION = "--constants=";
+
+  /**
+   * Directory that contains the message resources.
+   */
+  private final File sourceDirectory;
+
+  /**
+   * Directory to which the binary catalogs will be written.
+   */
+  private final File outputDirectory;
+
+  /**
+   * Directory to which message constant classes are generated. The attribute is null if no constant classes should be
+   * generated.
+   */
+  private final File constantsDirectory;
+
+  /**
+   * Names of all generated constant classes together with the name of the resource that defines them.
+   */
+  private final Map<String, String> generatedClasses = new HashMap<>();
+
+  /**
+   * Localization IDs of all messages that were compiled by this compiler instance together with the name of the
+   * resource that defines them. The map is used to detect duplicate localization IDs across message resources.
+   */
+  private final Map<Integer, String> compiledLocalizationIDs = new HashMap<>();
+
+  /**
+   * Initialize object.
+   *
+   * @param pSourceDirectory Directory that contains the message resources. The parameter must not be null.
+   * @param pOutputDirectory Directory to which the binary catalogs will be written. The parameter must not be null.
+   */
+  public MessageCatalogCompiler( File pSourceDirectory, File pOutputDirectory ) {
+    this(pSourceDirectory, pOutputDirectory, null);
+  }
+
+  /**
+   * Initialize object.
+   *
+   * @param pSourceDirectory Directory that contains the message resources. The parameter must not be null.
+   * @param pOutputDirectory Directory to which the binary catalogs will be written. The parameter must not be null.
+   * @param pConstantsDirectory Directory to which message constant classes should be generated. The parameter may be
+   * null. In this case no constant classes will be generated.
+   */
+  public MessageCatalogCompiler( File pSourceDirectory, File pOutputDirectory, File pConstantsDirectory ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pSourceDirectory, "pSourceDirectory");
+    Check.checkInvalidParameterNull(pOutputDirectory, "pOutputDirectory");
+
+    sourceDirectory = pSourceDirectory;
+    outputDirectory = pOutputDirectory;
+    constantsDirectory = pConstantsDirectory;
+  }
+
+  /**
+   * Method compiles the passed message resources.
+   *
+   * @param pArguments Arguments of the compiler. The first argument is the directory that contains the message
+   * resources, the second one is the output directory. It may be followed by the option <code>--constants=dir</code>
+   * that defines the directory to which message constant classes should be generated. All further arguments are the
+   * names of the message resources relative to the source directory or the classpath.
+   * @throws IOException if a message resource can not be read or a catalog can not be written.
+   */
+  public static void main( String[] pArguments ) throws IOException {
+    int lFirstResource = 2;
+    File lConstantsDirectory = null;
+    if (pArguments.length > 2 && pArguments[2].startsWith(CONSTANTS_OPTION)) {
+      lConstantsDirectory = new File(pArguments[2].substring(CONSTANTS_OPTION.length()));
+      lFirstResource++;
+    }
+    if (pArguments.length <= lFirstResource) {
+      throw new IllegalArgumentException("Usage: MessageCatalogCompiler <source directory> <output directory> "
+          + "[" + CONSTANTS_OPTION + "<constants directory>] <message resource>...");
+    }
+    MessageCatalogCompiler lCompiler =
+        new MessageCatalogCompiler(new File(pArguments[0]), new File(pArguments[1]), lConstantsDirectory);
+    for (int i = lFirstResource; i < pArguments.length; i++) {
+      lCompiler.compile(pArguments[i]);
+    }
+  }
+
+  /**
+   * Method compiles the passed message resource into a binary catalog. The catalog is written to the output directory
+   * using the name as defined by {@link BinaryMessageCatalog#getCatalogResourceName(String)}. If a constants directory
+   * is defined and the resource defines a constant class then the class is generated as well.
+   *
+   * @param pMessageResource Name of the message resource relative to the source directory. If the resource does not
+   * exist in the source directory then it is loaded from the classpath. The parameter must not be null.
+   * @return {@link File} Written binary catalog. The method never returns null.
+   * @throws IOException if the message resource can not be read, contains invalid messages or the catalog can not be
+   * written.
+   */
+  public File compile( String pMessageResource ) throws IOException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pMessageResource, "pMessageResource");
+
+    // Read and validate all messages.
+    byte[] lContent = this.readMessageResource(pMessageResource);
+    Document lDocument = MessageCatalogCompiler.parse(new ByteArrayInputStream(lContent), pMessageResource);
+    List<MessageEntry> lEntries = MessageCatalogCompiler.readMessageEntries(lDocument, pMessageResource);
+    this.validate(lEntries, pMessageResource);
+
+    // Generate constant class whose catalog index uses the same order as the binary catalog.
+    if (constantsDirectory != null) {
+      String lClassName = MessageConstantsGenerator.getClassName(lDocument);
+      if (lClassName != null) {
+        String lDefiningResource = generatedClasses.putIfAbsent(lClassName, pMessageResource);
+        if (lDefiningResource != null) {
+          throw new IOException("Constant class " + lClassName + " of message resource " + pMessageResource
+              + " is already defined by message resource " + lDefiningResource);
+        }
+        List<MessageEntry> lSortedEntries = new ArrayList<>(lEntries);
+        lSortedEntries.sort(Comparator.comparingInt(MessageEntry::getLocalizationID));
+        MessageConstantsGenerator.generate(lDocument, lSortedEntries, pMessageResource, constantsDirectory);
+      }
+    }
+
+    // Write binary catalog.
+    File lCatalogFile = new File(outputDirectory, BinaryMessageCatalog.getCatalogResourceName(pMessageResource));
+    File lParent = lCatalogFile.getParentFile();
+    if (lParent != null && lParent.isDirectory() == false && lParent.mkdirs() == false) {
+      throw new IOException("Unable to create directory " + lParent.getAbsolutePath());
+    }
+    try (OutputStream lOutputStream = new FileOutputStream(lCatalogFile)) {
+      BinaryMessageCatalog.write(lEntries, BinaryMessageCatalog.checksum(lContent), lOutputStream);
+    }
+    return lCatalogFile;
+  }
+
+  /**
+   * Method reads the content of the passed message resource either from the source directory or from the classpath.
+   *
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return byte[] Content of the message resource. The method never returns null.
+   * @throws IOException if the message resource can not be found or read.
+   */
+  private byte[] readMessageResource( String pMessageResource ) throws IOException {
+    byte[] lContent;
+    File lSourceFile = new File(sourceDirectory, pMessageResource);
+    if (lSourceFile.isFile() == true) {
+      lContent = Files.readAllBytes(lSourceFile.toPath());
+    }
+    // Message resource is not part of the source directory, so it might be provided by a dependency.
+    else {
+      ClassLoader lClassLoader = Thread.currentThread().getContextClassLoader();
+      if (lClassLoader == null) {
+        lClassLoader = MessageCatalogCompiler.class.getClassLoader();
+      }
+      lContent = MessageResourceLoader.readResource(pMessageResource, lClassLoader);
+      if (lContent == null) {
+        throw new IOException("Message resource " + pMessageResource + " neither exists in directory "
+            + sourceDirectory.getAbsolutePath() + " nor within the classpath.");
+      }
+    }
+    return lContent;
+  }
+
+  /**
+   * Method reads all message entries from the passed XML message resource.
+   *
+   * @param pInputStream Stream with the content of the message resource. The parameter must not be null.
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link List} List with all message entries. The method never returns null.
+   * @throws IOException if the message resource can not be read.
+   */
+  public static List<MessageEntry> readMessageEntries( InputStream pInputStream, String pMessageResource )
+    throws IOException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+    Check.checkInvalidParameterNull(pMessageResource, "pMessageResource");
+
+    Document lDocument = MessageCatalogCompiler.parse(pInputStream, pMessageResource);
+    return MessageCatalogCompiler.readMessageEntries(lDocument, pMessageResource);
+  }
+
+  /**
+   * Method parses the passed XML message resource.
+   *
+   * @param pInputStream Stream with the content of the message resource. The parameter must not be null.
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link Document} Parsed message resource. The method never returns null.
+   * @throws IOException if the message resource can not be read.
+   */
+  private static Document parse( InputStream pInputStream, String pMessageResource ) throws IOException {
+    return Tools.getXMLTools().parseInputStream(pInputStream, true, MessageDataDTD.SYSTEM_ID, pMessageResource);
+  }
+
+  /**
+   * Method reads all message entries from the passed parsed message resource.
+   *
+   * @param pDocument Parsed message resource. The parameter must not be null.
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link List} List with all message entries. The method never returns null.
+   * @throws IOException if the message resource contains invalid message IDs.
+   */
+  private static List<MessageEntry> readMessageEntries( Document pDocument, String pMessageResource )
+    throws IOException {
+    NodeList lMessageNodeList = pDocument.getElementsByTagName(MessageDataDTD.MESSAGE);
+    List<MessageEntry> lEntries = new ArrayList<>(lMessageNodeList.getLength());
+    for (int i = 0; i < lMessageNodeList.getLength(); i++) {
+      try {
+        lEntries.add(MessageEntry.fromElement((Element) lMessageNodeList.item(i)));
+      }
+      catch (NumberFormatException e) {
+        throw new IOException("Invalid message ID in message resource " + pMessageResource, e);
+      }
+    }
+    return lEntries;
+  }
+
+  /**
+   * Method validates the passed message entries.
+   *
+   * @param pEntries Entries that should be validated. The parameter must not be null.
+   * @param pMessageResource Name of the message resource that contains the entries. The parameter must not be null.
+   * @throws IOException if one of the entries is invalid.
+   */
+  private void validate( List<MessageEntry> pEntries, String pMessageResource ) throws IOException {
+    for (MessageEntry lNextEntry : pEntries) {
+      // Check for duplicate localization IDs.
+      int lLocalizationID = lNextEntry.getLocalizationID();
+      String lDefiningResource = compiledLocalizationIDs.putIfAbsent(lLocalizationID, pMessageResource);
+      if (lDefiningResource != null) {
+        throw new IOException("Localization ID " + lLocalizationID + " of message resource " + pMessageResource
+            + " is already used in message resource " + lDefiningResource);
+      }
+
+      // Check trace level.
+      String lTraceLevel = lNextEntry.getTraceLevel();
+      if (lTraceLevel.trim().length() > 0) {
+        try {
+          TraceLevel.valueOf(lTraceLevel);
+        }
+        catch (IllegalArgumentException e) {
+          throw new IOException("Invalid trace level '" + lTraceLevel + "' for localization ID " + lLocalizationID, e);
+        }
+      }
+
+      // Check message patterns.
+      this.validatePattern(lLocalizationID, lNextEntry.getDefaultText().replace("\\\\n", LINE_SEPERATOR));
+      Set<Locale> lLocales = new HashSet<>();
+      List<String> lLocalizedTexts = lNextEntry.getLocalizedTexts();
+      for (int i = 0; i < lLocalizedTexts.size(); i++) {
+        Locale lLocale = lNextEntry.getLocales().get(i);
+        if (lLocales.add(lLocale) == false) {
+          throw new IOException("Localization ID " + lLocalizationID + " defines locale " + lLocale + " twice.");
+        }
+        this.validatePattern(lLocalizationID, lLocalizedTexts.get(i).replace("\\n", LINE_SEPERATOR));
+      }
+    }
+  }
+
+  /**
+   * Method checks if the passed pattern is a valid message pattern.
+   *
+   * @param pLocalizationID Localization ID of the message the pattern belongs to.
+   * @param pPattern Pattern that should be checked. The parameter must not be null.
+   * @throws IOException if the passed pattern is not valid.
+   */
+  private void validatePattern( int pLocalizationID, String pPattern ) throws IOException {
+    try {
+      new MessageTemplate(pPattern);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IOException("Invalid message pattern '" + pPattern + "' for localization ID " + pLocalizationID, e);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+
+/**
+ * Class represents an export of the messages of a message repository. An export either contains all messages of the
+ * repository or only the messages that were changed since a specific version of its catalog. This way clients can keep
+ * their messages in sync with a repository by transferring one small payload.
+ *
+ * The binary format is defined as follows (all values big endian):
+ * <ol>
+ * <li>Header: magic number ({@link #MAGIC}) and format version ({@link #FORMAT_VERSION}).</li>
+ * <li>Source ID of the exporting repository, catalog version of the export and base version since which changes are
+ * contained. A base version of 0 marks a full export.</li>
+ * <li>Length of the message data followed by the messages in the format of a {@link BinaryMessageCatalog}. Message
+ * patterns are stored as they are used by the repository.</li>
+ * </ol>
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageCatalogExport {
+  /**
+   * Magic number that identifies message catalog exports ("JMX" followed by 0x01).
+   */
+  public static final int MAGIC = 0x4A4D5801;
+
+  /**
+   * Current version of the export format.
+   */
+  public static final short FORMAT_VERSION = 1;
+
+  /**
+   * ID of the repository instance that created the export.
+   */
+  private final long sourceID;
+
+  /**
+   * Catalog version of the export.
+   */
+  private final long version;
+
+  /**
+   * Version since which changes are contained in the export. 0 means that the export contains all messages.
+   */
+  private final long baseVersion;
+
+  /**
+   * Messages of the export.
+   */
+  private final List<MessageEntry> entries;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSourceID ID of the repository instance that created the export.
+   * @param pVersion Catalog version of the export.
+   * @param pBaseVersion Version since which changes are contained in the export. 0 means that the export contains all
+   * messages.
+   * @param pEntries Messages of the export. The parameter must not be null.
+   */
+  MessageCatalogExport( long pSourceID, long pVersion, long pBaseVersion, List<MessageEntry> pEntries ) {
+    // Check parameter.
+    Assert.assertNotNull(pEntries, "pEntries");
+
+    sourceID = pSourceID;
+    version = pVersion;
+    baseVersion = pBaseVersion;
+    entries = pEntries;
+  }
+
+  /**
+   * Method returns the ID of the repository instance that created the export. Catalog versions are only comparable
+   * between exports of the same source.
+   *
+   * @return long ID of the repository instance that created the export.
+   */
+  public long getSourceID( ) {
+    return sourceID;
+  }
+
+  /**
+   * Method returns the catalog version of the export.
+   *
+   * @return long Catalog version of the export.
+   */
+  public long getVersion( ) {
+    return version;
+  }
+
+  /**
+   * Method returns the version since which changes are contained in the export.
+   *
+   * @return long Version since which changes are contained. 0 means that the export contains all messages.
+   */
+  public long getBaseVersion( ) {
+    return baseVersion;
+  }
+
+  /**
+   * Method checks if the export contains all messages of the exporting repository.
+   *
+   * @return boolean Method returns true if the export is a full export and false if it only contains changes.
+   */
+  public boolean isFullExport( ) {
+    return baseVersion == 0;
+  }
+
+  /**
+   * Method returns the messages of the export.
+   *
+   * @return {@link List} Messages of the export. The method never returns null.
+   */
+  public List<MessageEntry> getEntries( ) {
+    return entries;
+  }
+
+  /**
+   * Method writes the export to the passed stream.
+   *
+   * @param pOutputStream Stream to which the export should be written. The parameter must not be null. The stream will
+   * not be closed by this method.
+   * @throws IOException if an error occurs when writing to the stream.
+   */
+  public void write( OutputStream pOutputStream ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pOutputStream, "pOutputStream");
+
+    ByteArrayOutputStream lMessageData = new ByteArrayOutputStream();
+    BinaryMessageCatalog.write(entries, lMessageData);
+
+    DataOutputStream lOutputStream = new DataOutputStream(pOutputStream);
+    lOutputStream.writeInt(MAGIC);
+    lOutputStream.writeShort(FORMAT_VERSION);
+    lOutputStream.writeLong(sourceID);
+    lOutputStream.writeLong(version);
+    lOutputStream.writeLong(baseVersion);
+    lOutputStream.writeInt(lMessageData.size());
+    lMessageData.writeTo(lOutputStream);
+    lOutputStream.flush();
+  }
+
+  /**
+   * Method reads an export from the passed stream.
+   *
+   * @param pInputStream Stream from which the export should be read. The parameter must not be null. The stream will
+   * not be closed by this method.
+   * @return {@link MessageCatalogExport} Read export. The method never returns null.
+   * @throws IOException if the stream can not be read or does not contain a valid export.
+   */
+  public static MessageCatalogExport read( InputStream pInputStream ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pInputStream, "pInputStream");
+
+    // Check header
+    DataInputStream lInputStream = new DataInputStream(pInputStream);
+    if (lInputStream.readInt() != MAGIC) {
+      throw new IOException("Stream does not contain a message catalog export.");
+    }
+    short lFormatVersion = lInputStream.readShort();
+    if (lFormatVersion != FORMAT_VERSION) {
+      throw new IOException("Unsupported version " + lFormatVersion + " of message catalog export.");
+    }
+    long lSourceID = lInputStream.readLong();
+    long lVersion = lInputStream.readLong();
+    long lBaseVersion = lInputStream.readLong();
+    if (lVersion < 0 || lBaseVersion < 0 || lBaseVersion > lVersion) {
+      throw new IOException("Invalid versions " + lBaseVersion + " and " + lVersion + " of message catalog export.");
+    }
+
+    // Read messages.
+    int lLength = lInputStream.readInt();
+    if (lLength < 0) {
+      throw new IOException("Invalid length " + lLength + " of message catalog export.");
+    }
+    byte[] lMessageData = new byte[lLength];
+    lInputStream.readFully(lMessageData);
+    List<MessageEntry> lEntries = BinaryMessageCatalog.read(ByteBuffer.wrap(lMessageData));
+    return new MessageCatalogExport(lSourceID, lVersion, lBaseVersion, lEntries);
+  }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+import com.anaptecs.jeaf.xfun.api.messages.MessageDataDTD;
+
+/**
+ * Class generates message constant classes from message resources. Generated classes only use the public
+ * {@link com.anaptecs.jeaf.xfun.api.messages.MessageRepository} API. Their static initializer loads the message
+ * resource and binds every constant with a single lookup. As the messages of a resource are merged into consecutive
+ * slots of the repository, resolving these lookups is left to the repository.
+ *
+ * Name, package and documentation of the generated class are taken from the <code>ClassInfo</code> element of the
+ * message resource. The names of the constants are defined by the <code>name</code> attribute of every message.
+ * Missing or duplicate constant names break the build.
+ *
+ * @author JEAF Development Team
+ */
+final class MessageConstantsGenerator {
+  /**
+   * Name of the element that describes the generated class.
+   */
+  private static final String CLASS_INFO = "ClassInfo";
+
+  /**
+   * Attribute with the name of the generated class.
+   */
+  private static final String CLASS_NAME = "className";
+
+  /**
+   * Attribute with the package of the generated class.
+   */
+  private static final String PACKAGE = "package";
+
+  /**
+   * Attribute with the description of the generated class or a message.
+   */
+  private static final String DESCRIPTION = "description";
+
+  /**
+   * Attribute with the author of the generated class.
+   */
+  private static final String AUTHOR = "author";
+
+  /**
+   * Attribute with the version of the generated class.
+   */
+  private static final String VERSION = "version";
+
+  /**
+   * Attribute with the name of the constant of a message.
+   */
+  private static final String NAME = "name";
+
+  /**
+   * Constructor is private to prevent that instances of this class will be created.
+   */
+  private MessageConstantsGenerator( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method returns the fully qualified name of the constant class that is defined by the passed message resource.
+   *
+   * @param pDocument Parsed message resource. The parameter must not be null.
+   * @return {@link String} Fully qualified class name or null if the resource does not define a constant class.
+   */
+  static String getClassName( Document pDocument ) {
+    // Check parameter.
+    Assert.assertNotNull(pDocument, "pDocument");
+
+    Element lClassInfo = MessageConstantsGenerator.getClassInfo(pDocument);
+    String lClassName;
+    if (lClassInfo != null && lClassInfo.getAttribute(CLASS_NAME).length() > 0) {
+      String lPackage = lClassInfo.getAttribute(PACKAGE);
+      if (lPackage.length() > 0) {
+        lClassName = lPackage + '.' + lClassInfo.getAttribute(CLASS_NAME);
+      }
+      else {
+        lClassName = lClassInfo.getAttribute(CLASS_NAME);
+      }
+    }
+    else {
+      lClassName = null;
+    }
+    return lClassName;
+  }
+
+  /**
+   * Method generates the constant class of the passed message resource.
+   *
+   * @param pDocument Parsed message resource. The resource has to define a constant class. The parameter must not be
+   * null.
+   * @param pEntries Entries of the message resource sorted by their localization ID. The order defines the order of the
+   * generated constants. The parameter must not be null.
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @param pSourceDirectory Root directory of the generated sources. The parameter must not be null.
+   * @return {@link File} Generated source file. The method never returns null.
+   * @throws IOException if a constant name is missing or used twice or if the file can not be written.
+   */
+  static File generate( Document pDocument, List<MessageEntry> pEntries, String pMessageResource,
+      File pSourceDirectory ) throws IOException {
+    // Check parameters.
+    Assert.assertNotNull(pDocument, "pDocument");
+    Assert.assertNotNull(pEntries, "pEntries");
+    Assert.assertNotNull(pMessageResource, "pMessageResource");
+    Assert.assertNotNull(pSourceDirectory, "pSourceDirectory");
+
+    // Resolve names and descriptions of all constants.
+    Map<Integer, Element> lMessageElements = new HashMap<>();
+    NodeList lMessageNodeList = pDocument.getElementsByTagName(MessageDataDTD.MESSAGE);
+    for (int i = 0; i < lMessageNodeList.getLength(); i++) {
+      Element lNextElement = (Element) lMessageNodeList.item(i);
+      lMessageElements.put(Integer.valueOf(lNextElement.getAttribute(MessageDataDTD.MESSAGE_ID)), lNextElement);
+    }
+    String[] lNames = new String[pEntries.size()];
+    String[] lDescriptions = new String[pEntries.size()];
+    Set<String> lUsedNames = new TreeSet<>();
+    for (int i = 0; i < lNames.length; i++) {
+      int lLocalizationID = pEntries.get(i).getLocalizationID();
+      Element lMessageElement = lMessageElements.get(lLocalizationID);
+      lNames[i] = lMessageElement.getAttribute(NAME);
+      lDescriptions[i] = lMessageElement.getAttribute(DESCRIPTION);
+      if (lNames[i].length() == 0) {
+        throw new IOException("Localization ID " + lLocalizationID + " of message resource " + pMessageResource
+            + " does not define a constant name.");
+      }
+      if (lUsedNames.add(lNames[i]) == false) {
+        throw new IOException("Constant name " + lNames[i] + " of localization ID " + lLocalizationID
+            + " is used more than once in message resource " + pMessageResource);
+      }
+    }
+
+    // Write source file.
+    Element lClassInfo = MessageConstantsGenerator.getClassInfo(pDocument);
+    String lClassName = MessageConstantsGenerator.getClassName(pDocument);
+    File lSourceFile = new File(pSourceDirectory, lClassName.replace('.', File.separatorChar) + ".java");
+    File lParent = lSourceFile.getParentFile();
+    if (lParent.isDirectory() == false && lParent.mkdirs() == false) {
+      throw new IOException("Unable to create directory " + lParent.getAbsolutePath());
+    }
+    try (Writer lWriter = new OutputStreamWriter(new FileOutputStream(lSourceFile), StandardCharsets.UTF_8)) {
+      lWriter.write(MessageConstantsGenerator.createSource(lClassInfo, pEntries, lNames, lDescriptions,
+          pMessageResource));
+    }
+    return lSourceFile;
+  }
+
+  /**
+   * Method creates the source code of a constant class.
+   *
+   * @param pClassInfo Element describing the class. The parameter must not be null.
+   * @param pEntries Entries of the message resource in the order of the constants. The parameter must not be null.
+   * @param pNames Names of the constants in the order of the constants. The parameter must not be null.
+   * @param pDescriptions Descriptions of the constants in the order of the constants. The parameter must not be null.
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link String} Source code of the class. The method never returns null.
+   */
+  private static String createSource( Element pClassInfo, List<MessageEntry> pEntries, String[] pNames,
+      String[] pDescriptions, String pMessageResource ) {
+    // Resolve types of all constants.
+    String[] lTypes = new String[pEntries.size()];
+    Set<String> lImports = new TreeSet<>();
+    lImports.add("com.anaptecs.jeaf.xfun.annotations.MessageResource");
+    lImports.add("com.anaptecs.jeaf.xfun.api.XFun");
+    lImports.add("com.anaptecs.jeaf.xfun.api.messages.MessageRepository");
+    for (int i = 0; i < lTypes.length; i++) {
+      String lType = pEntries.get(i).getType();
+      if (MessageDataDTD.TYPE_INFO.equals(lType)) {
+        lTypes[i] = "MessageID";
+        lImports.add("com.anaptecs.jeaf.xfun.api.messages.MessageID");
+      }
+      else if (MessageDataDTD.TYPE_ERROR.equals(lType)) {
+        lTypes[i] = "ErrorCode";
+        lImports.add("com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode");
+      }
+      else {
+        lTypes[i] = "LocalizedString";
+        lImports.add("com.anaptecs.jeaf.xfun.api.messages.LocalizedString");
+      }
+    }
+
+    // Package, imports and class comment.
+    StringBuilder lSource = new StringBuilder();
+    String lPackage = pClassInfo.getAttribute(PACKAGE);
+    if (lPackage.length() > 0) {
+      lSource.append("package ").append(lPackage).append(";\n\n");
+    }
+    for (String lNextImport : lImports) {
+      lSource.append("import ").append(lNextImport).append(";\n");
+    }
+    lSource.append("\n/**\n");
+    lSource.append(" * ").append(MessageConstantsGenerator.escape(pClassInfo.getAttribute(DESCRIPTION))).append('\n');
+    lSource.append(" *\n");
+    lSource.append(" * @author ").append(MessageConstantsGenerator.escape(pClassInfo.getAttribute(AUTHOR)));
+    lSource.append('\n');
+    lSource.append(" * @version ").append(MessageConstantsGenerator.escape(pClassInfo.getAttribute(VERSION)));
+    lSource.append("\n */\n");
+    String lResource = MessageConstantsGenerator.toJavaString(pMessageResource);
+    lSource.append("@MessageResource(path = ").append(lResource).append(")\n");
+    String lSimpleName = pClassInfo.getAttribute(CLASS_NAME);
+    lSource.append("public final class ").append(lSimpleName).append(" {\n");
+
+    // Constant for the message resource.
+    lSource.append("  /**\n");
+    lSource.append("   * Constant for XML file that contains all messages that are defined within this class.\n");
+    lSource.append("   */\n");
+    lSource.append("  private static final String MESSAGE_RESOURCE = ").append(lResource).append(";\n");
+
+    // Message constants.
+    for (int i = 0; i < lTypes.length; i++) {
+      lSource.append("\n  /**\n");
+      lSource.append("   * ").append(MessageConstantsGenerator.escape(pDescriptions[i])).append('\n');
+      lSource.append("   */\n");
+      lSource.append("  public static final ").append(lTypes[i]).append(' ').append(pNames[i]).append(";\n");
+    }
+
+    // Static initializer binds constants to their messages.
+    lSource.append("\n  /**\n");
+    lSource.append("   * Static initializer contains initialization for all generated constants.\n");
+    lSource.append("   */\n");
+    lSource.append("  static {\n");
+    lSource.append("    MessageRepository lRepository = XFun.getMessageRepository();\n");
+    lSource.append("    lRepository.loadResource(MESSAGE_RESOURCE);\n");
+    for (int i = 0; i < lTypes.length; i++) {
+      lSource.append("    ").append(pNames[i]).append(" = lRepository.get").append(lTypes[i]).append('(');
+      lSource.append(pEntries.get(i).getLocalizationID()).append(");\n");
+    }
+    lSource.append("  }\n\n");
+
+    // Private constructor.
+    lSource.append("  /**\n");
+    lSource.append("   * Constructor is private to ensure that no instances of this class will be created.\n");
+    lSource.append("   */\n");
+    lSource.append("  private ").append(lSimpleName).append("( ) {\n");
+    lSource.append("    // Nothing to do.\n");
+    lSource.append("  }\n");
+    lSource.append("}\n");
+    return lSource.toString();
+  }
+
+  /**
+   * Method returns the element describing the constant class of the passed message resource.
+   *
+   * @param pDocument Parsed message resource. The parameter must not be null.
+   * @return {@link Element} Class info element or null if the resource does not contain one.
+   */
+  private static Element getClassInfo( Document pDocument ) {
+    NodeList lClassInfos = pDocument.getElementsByTagName(CLASS_INFO);
+    Element lClassInfo;
+    if (lClassInfos.getLength() > 0) {
+      lClassInfo = (Element) lClassInfos.item(0);
+    }
+    else {
+      lClassInfo = null;
+    }
+    return lClassInfo;
+  }
+
+  /**
+   * Method escapes the passed text so that it can be used inside a Javadoc comment.
+   *
+   * @param pText Text that should be escaped. The parameter must not be null.
+   * @return {@link String} Escaped text. The method never returns null.
+   */
+  private static String escape( String pText ) {
+    return pText.replace("*/", "*&#47;").replace('\n', ' ').replace('\r', ' ');
+  }
+
+  /**
+   * Method converts the passed text into a Java string literal.
+   *
+   * @param pText Text that should be converted. The parameter must not be null.
+   * @return {@link String} Java string literal. The method never returns null.
+   */
+  private static String toJavaString( String pText ) {
+    return '"' + pText.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+  }
+}
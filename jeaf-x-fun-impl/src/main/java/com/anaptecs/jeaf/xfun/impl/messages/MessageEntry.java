@@ -0,0 +1,175 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+import com.anaptecs.jeaf.xfun.api.messages.MessageDataDTD;
+
+/**
+ * Class represents the raw data of one message as it is defined inside a message resource. Message entries are
+ * independent of the source they were read from (XML file or precompiled binary catalog) and contain the attribute
+ * values exactly as they are defined inside the message resource. Interpretation of the values (e.g. creation of
+ * message templates) is done by the message repository.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageEntry {
+  /**
+   * Localization ID of the message.
+   */
+  private final int localizationID;
+
+  /**
+   * Type of the message as defined in {@link MessageDataDTD#TYPE}.
+   */
+  private final String type;
+
+  /**
+   * Trace level of the message as defined in {@link MessageDataDTD#MESSAGE_TRACE_LEVEL}. The value may be empty.
+   */
+  private final String traceLevel;
+
+  /**
+   * Default text of the message as it is defined in the message resource.
+   */
+  private final String defaultText;
+
+  /**
+   * Locales for which localized texts are defined. The list has the same order as {@link #localizedTexts}.
+   */
+  private final List<Locale> locales;
+
+  /**
+   * Localized texts of the message. The list has the same order as {@link #locales}.
+   */
+  private final List<String> localizedTexts;
+
+  /**
+   * Initialize object.
+   *
+   * @param pLocalizationID Localization ID of the message.
+   * @param pType Type of the message. The parameter must not be null.
+   * @param pTraceLevel Trace level of the message. The parameter must not be null but may be empty.
+   * @param pDefaultText Default text of the message. The parameter must not be null.
+   * @param pLocales Locales of the localized texts. The parameter must not be null.
+   * @param pLocalizedTexts Localized texts in the same order as pLocales. The parameter must not be null.
+   */
+  public MessageEntry( int pLocalizationID, String pType, String pTraceLevel, String pDefaultText,
+      List<Locale> pLocales, List<String> pLocalizedTexts ) {
+    // Check parameters
+    Assert.assertNotNull(pType, "pType");
+    Assert.assertNotNull(pTraceLevel, "pTraceLevel");
+    Assert.assertNotNull(pDefaultText, "pDefaultText");
+    Assert.assertNotNull(pLocales, "pLocales");
+    Assert.assertNotNull(pLocalizedTexts, "pLocalizedTexts");
+
+    localizationID = pLocalizationID;
+    type = pType;
+    traceLevel = pTraceLevel;
+    defaultText = pDefaultText;
+    locales = Collections.unmodifiableList(pLocales);
+    localizedTexts = Collections.unmodifiableList(pLocalizedTexts);
+  }
+
+  /**
+   * Method creates a new message entry from the passed DOM element.
+   *
+   * @param pMessageElement DOM element describing the message. The parameter must not be null.
+   * @return {@link MessageEntry} Message entry with the data of the passed element. The method never returns null.
+   * @throws NumberFormatException if the message id of the element is not a valid integer value.
+   */
+  public static MessageEntry fromElement( Element pMessageElement ) {
+    // Check parameter.
+    Assert.assertNotNull(pMessageElement, "pMessageElement");
+
+    // Read attributes of message element.
+    int lLocalizationID = Integer.parseInt(pMessageElement.getAttribute(MessageDataDTD.MESSAGE_ID));
+    String lType = pMessageElement.getAttribute(MessageDataDTD.TYPE);
+    String lTraceLevel = pMessageElement.getAttribute(MessageDataDTD.MESSAGE_TRACE_LEVEL);
+    String lDefaultText = pMessageElement.getAttribute(MessageDataDTD.MESSAGE_DEFAULT_TEXT);
+
+    // Read all localized message texts.
+    NodeList lLocalizedMessageElements = pMessageElement.getElementsByTagName(MessageDataDTD.LOCALIZED_MESSAGE);
+    int lLength = lLocalizedMessageElements.getLength();
+    List<Locale> lLocales = new ArrayList<>(lLength);
+    List<String> lLocalizedTexts = new ArrayList<>(lLength);
+    for (int i = 0; i < lLength; i++) {
+      Element lNextLocalizedMessageElement = (Element) lLocalizedMessageElements.item(i);
+      String lNextLanguage = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.LANGUAGE);
+      String lNextCountry = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.COUNTRY);
+      String lNextVariant = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.VARIANT);
+      lLocales.add(new Locale(lNextLanguage, lNextCountry, lNextVariant));
+      lLocalizedTexts.add(lNextLocalizedMessageElement.getAttribute(MessageDataDTD.LOCALIZED_TEXT));
+    }
+    return new MessageEntry(lLocalizationID, lType, lTraceLevel, lDefaultText, lLocales, lLocalizedTexts);
+  }
+
+  /**
+   * Method returns the localization ID of the message.
+   *
+   * @return int Localization ID of the message.
+   */
+  public int getLocalizationID( ) {
+    return localizationID;
+  }
+
+  /**
+   * Method returns the type of the message.
+   *
+   * @return {@link String} Type of the message as defined in the message resource. The method never returns null.
+   */
+  public String getType( ) {
+    return type;
+  }
+
+  /**
+   * Method returns the trace level of the message.
+   *
+   * @return {@link String} Trace level of the message as defined in the message resource. The method never returns
+   * null but the returned string may be empty.
+   */
+  public String getTraceLevel( ) {
+    return traceLevel;
+  }
+
+  /**
+   * Method returns the default text of the message.
+   *
+   * @return {@link String} Default text of the message exactly as it is defined in the message resource. The method
+   * never returns null.
+   */
+  public String getDefaultText( ) {
+    return defaultText;
+  }
+
+  /**
+   * Method returns all locales for which the message has a localized text.
+   *
+   * @return {@link List} Unmodifiable list with all locales. The list has the same order as
+   * {@link #getLocalizedTexts()}. The method never returns null.
+   */
+  public List<Locale> getLocales( ) {
+    return locales;
+  }
+
+  /**
+   * Method returns all localized texts of the message.
+   *
+   * @return {@link List} Unmodifiable list with all localized texts. The list has the same order as
+   * {@link #getLocales()}. The method never returns null.
+   */
+  public List<String> getLocalizedTexts( ) {
+    return localizedTexts;
+  }
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+
+/**
+ * Class implements the compact storage of message patterns. Identical patterns are interned so that all messages with
+ * the same pattern share one template, no matter if the pattern is used as default text or for several locales. The
+ * patterns themselves are stored UTF-8 encoded in large shared byte arrays. Templates only reference their pattern by
+ * offset and length and are compiled on first use (see {@link MessageTemplate#compile()}).
+ *
+ * In off-heap mode patterns are stored in direct byte buffers instead. This way neither the patterns nor their compiled
+ * structures have to be scanned by the garbage collector. Only the small template objects and the index of this pool
+ * stay on the heap.
+ *
+ * The pool is not thread-safe. It is only used while the message repository is changed which is always done
+ * synchronized.
+ *
+ * @author JEAF Development Team
+ */
+final class MessagePatternPool {
+  /**
+   * Size of a single chunk of shared pattern storage. Patterns that are larger than a chunk get their own array.
+   */
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Size of a single chunk of off-heap pattern storage. Direct buffers are expensive to allocate so larger chunks are
+   * used.
+   */
+  private static final int OFF_HEAP_CHUNK_SIZE = 1024 * 1024;
+
+  /**
+   * Attribute defines if patterns are stored off-heap.
+   */
+  private final boolean offHeap;
+
+  /**
+   * Interned templates by the hash code of their pattern. In case of hash collisions several templates are stored per
+   * hash code. Patterns themselves are intentionally not used as keys as this would keep them as strings in memory.
+   */
+  private final Map<Integer, List<MessageTemplate>> templates = new HashMap<>();
+
+  /**
+   * Chunk of shared storage into which new patterns are written. The attribute is null in off-heap mode.
+   */
+  private byte[] currentChunk;
+
+  /**
+   * Chunk of off-heap storage into which new patterns are written. The attribute is null if patterns are stored on the
+   * heap.
+   */
+  private ByteBuffer currentBuffer;
+
+  /**
+   * Number of used bytes within {@link #currentChunk}.
+   */
+  private int currentChunkPosition;
+
+  /**
+   * Total number of bytes that are allocated for pattern storage.
+   */
+  private long allocatedBytes;
+
+  /**
+   * Total number of bytes that are used to store patterns.
+   */
+  private long usedBytes;
+
+  /**
+   * Number of distinct templates of the pool.
+   */
+  private int distinctTemplates;
+
+  /**
+   * Number of requests for templates.
+   */
+  private long requests;
+
+  /**
+   * Initialize object.
+   *
+   * @param pOffHeap Defines if patterns should be stored off-heap in direct byte buffers.
+   */
+  MessagePatternPool( boolean pOffHeap ) {
+    offHeap = pOffHeap;
+    if (pOffHeap == true) {
+      currentBuffer = ByteBuffer.allocateDirect(OFF_HEAP_CHUNK_SIZE);
+      allocatedBytes = OFF_HEAP_CHUNK_SIZE;
+    }
+    else {
+      currentChunk = new byte[CHUNK_SIZE];
+      allocatedBytes = CHUNK_SIZE;
+    }
+  }
+
+  /**
+   * Method returns the template for the passed pattern and locale. If the pool already contains such a template then
+   * it will be returned. Otherwise a new one will be created.
+   *
+   * @param pPattern Message pattern. The parameter must not be null.
+   * @param pLocale Locale of the template. The parameter must not be null.
+   * @return {@link MessageTemplate} Template for the passed pattern. The method never returns null. The template is not
+   * compiled yet.
+   */
+  MessageTemplate intern( String pPattern, Locale pLocale ) {
+    // Check parameters.
+    Assert.assertNotNull(pPattern, "pPattern");
+    Assert.assertNotNull(pLocale, "pLocale");
+
+    requests++;
+    Integer lHash = pPattern.hashCode();
+    List<MessageTemplate> lCandidates = templates.get(lHash);
+    if (lCandidates != null) {
+      for (MessageTemplate lNextCandidate : lCandidates) {
+        if (lNextCandidate.getLocale().equals(pLocale) && lNextCandidate.getPattern().equals(pPattern)) {
+          return lNextCandidate;
+        }
+      }
+    }
+    else {
+      lCandidates = new ArrayList<>(1);
+      templates.put(lHash, lCandidates);
+    }
+
+    // Store pattern in shared storage and create new template.
+    byte[] lBytes = pPattern.getBytes(StandardCharsets.UTF_8);
+    MessageTemplate lTemplate;
+    if (offHeap == true) {
+      lTemplate = this.storeOffHeap(lBytes, pLocale);
+    }
+    else if (lBytes.length > CHUNK_SIZE) {
+      allocatedBytes = allocatedBytes + lBytes.length;
+      lTemplate = new MessageTemplate(lBytes, 0, lBytes.length, pLocale);
+    }
+    else {
+      if (currentChunkPosition + lBytes.length > CHUNK_SIZE) {
+        currentChunk = new byte[CHUNK_SIZE];
+        currentChunkPosition = 0;
+        allocatedBytes = allocatedBytes + CHUNK_SIZE;
+      }
+      System.arraycopy(lBytes, 0, currentChunk, currentChunkPosition, lBytes.length);
+      lTemplate = new MessageTemplate(currentChunk, currentChunkPosition, lBytes.length, pLocale);
+      currentChunkPosition = currentChunkPosition + lBytes.length;
+    }
+    usedBytes = usedBytes + lBytes.length;
+    lCandidates.add(lTemplate);
+    distinctTemplates++;
+    return lTemplate;
+  }
+
+  /**
+   * Method stores the passed pattern off-heap and creates a template for it.
+   *
+   * @param pBytes UTF-8 encoded pattern. The parameter must not be null.
+   * @param pLocale Locale of the template. The parameter must not be null.
+   * @return {@link MessageTemplate} Off-heap template for the passed pattern. The method never returns null.
+   */
+  private MessageTemplate storeOffHeap( byte[] pBytes, Locale pLocale ) {
+    MessageTemplate lTemplate;
+    if (pBytes.length > OFF_HEAP_CHUNK_SIZE) {
+      ByteBuffer lBuffer = ByteBuffer.allocateDirect(pBytes.length);
+      lBuffer.put(pBytes);
+      allocatedBytes = allocatedBytes + pBytes.length;
+      lTemplate = new MessageTemplate(lBuffer, 0, pBytes.length, pLocale);
+    }
+    else {
+      if (currentBuffer.remaining() < pBytes.length) {
+        currentBuffer = ByteBuffer.allocateDirect(OFF_HEAP_CHUNK_SIZE);
+        allocatedBytes = allocatedBytes + OFF_HEAP_CHUNK_SIZE;
+      }
+      // Templates only read through duplicates, so the position of the chunk is only changed here.
+      int lOffset = currentBuffer.position();
+      currentBuffer.put(pBytes);
+      lTemplate = new MessageTemplate(currentBuffer, lOffset, pBytes.length, pLocale);
+    }
+    return lTemplate;
+  }
+
+  /**
+   * Method checks if patterns are stored off-heap.
+   *
+   * @return boolean Method returns true if patterns are stored off-heap and false otherwise.
+   */
+  boolean isOffHeap( ) {
+    return offHeap;
+  }
+
+  /**
+   * Method returns the number of distinct templates of the pool.
+   *
+   * @return int Number of distinct templates.
+   */
+  int getDistinctTemplates( ) {
+    return distinctTemplates;
+  }
+
+  /**
+   * Method returns how often templates were requested from the pool.
+   *
+   * @return long Number of requests.
+   */
+  long getRequests( ) {
+    return requests;
+  }
+
+  /**
+   * Method returns the number of bytes that are allocated for pattern storage.
+   *
+   * @return long Number of allocated bytes.
+   */
+  long getAllocatedBytes( ) {
+    return allocatedBytes;
+  }
+
+  /**
+   * Method returns the number of bytes that are used to store patterns.
+   *
+   * @return long Number of used bytes.
+   */
+  long getUsedBytes( ) {
+    return usedBytes;
+  }
+
+  /**
+   * Method returns the estimated number of bytes that are retained by the pool itself on the heap. Templates and
+   * off-heap storage are not included.
+   *
+   * @return long Estimated size of the pool in bytes.
+   */
+  long estimateSize( ) {
+    // Pattern storage, hash map entries and candidate lists.
+    long lSize = templates.size() * 96L + distinctTemplates * 4L;
+    if (offHeap == false) {
+      lSize = lSize + allocatedBytes;
+    }
+    return lSize;
+  }
+}
@@ -0,0 +1,431 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.File;
+
+/**
+ * Class represents the configuration of the message repository. As the message repository is one of the first
+ * components that is initialized during the startup of JEAF X-Fun, its optional features are configured using system
+ * properties. The system properties are read only once (see {@link #getInstance()}). Repositories that should use a
+ * different configuration, e.g. in tests, can be created with a configuration that is created using a {@link Builder}.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageRepositoryConfiguration {
+  /**
+   * Name of the system property that enables lazy compilation of message templates. If lazy compilation is enabled
+   * then message patterns are only compiled when a message is rendered for the first time. Invalid message patterns
+   * will then also only be detected at this point of time.
+   */
+  public static final String LAZY_TEMPLATE_COMPILATION = "jeaf.xfun.messages.lazyTemplateCompilation";
+
+  /**
+   * Name of the system property that defines the maximum number of threads that are used to parse message resources
+   * during the bootstrap of the message repository. Setting the value to 1 disables parallel parsing. By default the
+   * number of available processors is used.
+   */
+  public static final String BOOTSTRAP_PARALLELISM = "jeaf.xfun.messages.bootstrapParallelism";
+
+  /**
+   * Name of the system property that enables compact storage of message templates. In compact storage mode identical
+   * message patterns are shared across all messages and locales and patterns are stored in shared byte arrays. Their
+   * templates are compiled on first use. This significantly reduces the memory footprint of large multilingual message
+   * repositories.
+   */
+  public static final String COMPACT_STORAGE = "jeaf.xfun.messages.compactStorage";
+
+  /**
+   * Name of the system property that enables off-heap storage of message patterns. Off-heap storage is a variant of
+   * compact storage where patterns are stored in direct byte buffers outside of the Java heap. Templates do not keep
+   * their compiled structure but decode and compile their pattern when they are rendered. This keeps very large
+   * message repositories out of the old generation at the price of slower rendering of rarely used messages.
+   */
+  public static final String OFF_HEAP_STORAGE = "jeaf.xfun.messages.offHeapStorage";
+
+  /**
+   * Name of the system property that enables reloading of message resources. If reloading is enabled then all message
+   * resources that are available as files (e.g. in exploded deployments) are watched for changes. Changed resources
+   * are parsed again in the background and their messages are replaced. Reloading is intended for development only.
+   */
+  public static final String RELOAD_ENABLED = "jeaf.xfun.messages.reloadEnabled";
+
+  /**
+   * Name of the system property that defines an optional directory that contains the message resources that should
+   * be watched in reload mode. If a message resource exists in this directory then it will be used instead of the
+   * one on the classpath.
+   */
+  public static final String RELOAD_DIRECTORY = "jeaf.xfun.messages.reloadDirectory";
+
+  /**
+   * Name of the system property that controls the collection of usage statistics of messages. Usage statistics count
+   * how often every message is rendered per locale and are exposed via JMX. They are cheap enough to be enabled in
+   * production and thus enabled by default. Setting the property to false disables them.
+   */
+  public static final String USAGE_STATISTICS = "jeaf.xfun.messages.usageStatistics";
+
+  /**
+   * Name of the system property that enables the asynchronous bootstrap of the message repository. In this mode only
+   * the messages that are required by the repository itself are loaded synchronously. All other message resources are
+   * loaded by a background thread. Callers only have to wait if they request a message whose resource is not loaded
+   * yet.
+   */
+  public static final String ASYNC_BOOTSTRAP = "jeaf.xfun.messages.asyncBootstrap";
+
+  /**
+   * Name of the system property that defines the maximum time in milliseconds a caller waits for a message that is not
+   * loaded yet during an asynchronous bootstrap. By default callers wait for at most 60 seconds.
+   */
+  public static final String ASYNC_BOOTSTRAP_TIMEOUT = "jeaf.xfun.messages.asyncBootstrapTimeout";
+
+  /**
+   * Default time in milliseconds a caller waits for a message during an asynchronous bootstrap.
+   */
+  private static final long DEFAULT_ASYNC_BOOTSTRAP_TIMEOUT = 60000;
+
+  /**
+   * Configuration as it is defined by the system properties. The system properties are only read once.
+   */
+  private static final MessageRepositoryConfiguration INSTANCE = MessageRepositoryConfiguration.newBuilder().build();
+
+  /**
+   * Attribute defines if lazy compilation of message templates is enabled.
+   */
+  private final boolean lazyTemplateCompilation;
+
+  /**
+   * Maximum number of threads that are used to parse message resources during the bootstrap.
+   */
+  private final int bootstrapParallelism;
+
+  /**
+   * Attribute defines if compact storage of message templates is enabled.
+   */
+  private final boolean compactStorage;
+
+  /**
+   * Attribute defines if off-heap storage of message patterns is enabled.
+   */
+  private final boolean offHeapStorage;
+
+  /**
+   * Attribute defines if reloading of message resources is enabled.
+   */
+  private final boolean reloadEnabled;
+
+  /**
+   * Directory that contains the message resources that should be watched in reload mode. The attribute may be null.
+   */
+  private final File reloadDirectory;
+
+  /**
+   * Attribute defines if usage statistics of messages are collected.
+   */
+  private final boolean usageStatistics;
+
+  /**
+   * Attribute defines if the asynchronous bootstrap of the message repository is enabled.
+   */
+  private final boolean asyncBootstrap;
+
+  /**
+   * Maximum time in milliseconds a caller waits for a message during an asynchronous bootstrap.
+   */
+  private final long asyncBootstrapTimeout;
+
+  /**
+   * Initialize object using the passed builder.
+   *
+   * @param pBuilder Builder that contains the values of the configuration. The parameter must not be null.
+   */
+  private MessageRepositoryConfiguration( Builder pBuilder ) {
+    lazyTemplateCompilation = pBuilder.lazyTemplateCompilation;
+    bootstrapParallelism = Math.max(1, pBuilder.bootstrapParallelism);
+    compactStorage = pBuilder.compactStorage;
+    offHeapStorage = pBuilder.offHeapStorage;
+    reloadEnabled = pBuilder.reloadEnabled;
+    reloadDirectory = pBuilder.reloadDirectory;
+    usageStatistics = pBuilder.usageStatistics;
+    asyncBootstrap = pBuilder.asyncBootstrap;
+    asyncBootstrapTimeout = Math.max(0, pBuilder.asyncBootstrapTimeout);
+  }
+
+  /**
+   * Method returns the configuration of the message repository as it is defined by the system properties.
+   *
+   * @return {@link MessageRepositoryConfiguration} Configuration of the message repository. The method never returns
+   * null.
+   */
+  public static MessageRepositoryConfiguration getInstance( ) {
+    return INSTANCE;
+  }
+
+  /**
+   * Method creates a new builder for a configuration. The builder is initialized with the values that are defined by
+   * the system properties.
+   *
+   * @return {@link Builder} New builder. The method never returns null.
+   */
+  public static Builder newBuilder( ) {
+    return new Builder();
+  }
+
+  /**
+   * Method checks if lazy compilation of message templates is enabled.
+   *
+   * @return boolean Method returns true if lazy compilation is enabled and false otherwise. By default lazy compilation
+   * is disabled.
+   */
+  public boolean isLazyTemplateCompilationEnabled( ) {
+    return lazyTemplateCompilation;
+  }
+
+  /**
+   * Method returns the maximum number of threads that are used to parse message resources during the bootstrap of the
+   * message repository.
+   *
+   * @return int Maximum number of threads. The method always returns a value greater than zero.
+   */
+  public int getBootstrapParallelism( ) {
+    return bootstrapParallelism;
+  }
+
+  /**
+   * Method checks if compact storage of message templates is enabled.
+   *
+   * @return boolean Method returns true if compact storage is enabled and false otherwise. By default compact storage
+   * is disabled.
+   */
+  public boolean isCompactStorageEnabled( ) {
+    return compactStorage;
+  }
+
+  /**
+   * Method checks if off-heap storage of message patterns is enabled.
+   *
+   * @return boolean Method returns true if off-heap storage is enabled and false otherwise. By default off-heap storage
+   * is disabled.
+   */
+  public boolean isOffHeapStorageEnabled( ) {
+    return offHeapStorage;
+  }
+
+  /**
+   * Method checks if reloading of message resources is enabled.
+   *
+   * @return boolean Method returns true if reloading is enabled and false otherwise. By default reloading is disabled.
+   */
+  public boolean isReloadEnabled( ) {
+    return reloadEnabled;
+  }
+
+  /**
+   * Method returns the directory that contains the message resources that should be watched in reload mode.
+   *
+   * @return {@link File} Directory with message resources or null if no directory is configured.
+   */
+  public File getReloadDirectory( ) {
+    return reloadDirectory;
+  }
+
+  /**
+   * Method checks if usage statistics of messages are collected.
+   *
+   * @return boolean Method returns true if usage statistics are collected and false otherwise. By default usage
+   * statistics are collected.
+   */
+  public boolean isUsageStatisticsEnabled( ) {
+    return usageStatistics;
+  }
+
+  /**
+   * Method checks if the asynchronous bootstrap of the message repository is enabled.
+   *
+   * @return boolean Method returns true if the asynchronous bootstrap is enabled and false otherwise. By default the
+   * message repository is loaded synchronously.
+   */
+  public boolean isAsyncBootstrapEnabled( ) {
+    return asyncBootstrap;
+  }
+
+  /**
+   * Method returns the maximum time a caller waits for a message that is not loaded yet during an asynchronous
+   * bootstrap.
+   *
+   * @return long Maximum waiting time in milliseconds. The method never returns a negative value.
+   */
+  public long getAsyncBootstrapTimeout( ) {
+    return asyncBootstrapTimeout;
+  }
+
+  /**
+   * Class is used to create configurations of the message repository, e.g. for repositories that are not configured
+   * through system properties. Builders are not thread-safe.
+   */
+  public static final class Builder {
+    /**
+     * Attribute defines if lazy compilation of message templates is enabled.
+     */
+    private boolean lazyTemplateCompilation;
+
+    /**
+     * Maximum number of threads that are used to parse message resources during the bootstrap.
+     */
+    private int bootstrapParallelism;
+
+    /**
+     * Attribute defines if compact storage of message templates is enabled.
+     */
+    private boolean compactStorage;
+
+    /**
+     * Attribute defines if off-heap storage of message patterns is enabled.
+     */
+    private boolean offHeapStorage;
+
+    /**
+     * Attribute defines if reloading of message resources is enabled.
+     */
+    private boolean reloadEnabled;
+
+    /**
+     * Directory that contains the message resources that should be watched in reload mode.
+     */
+    private File reloadDirectory;
+
+    /**
+     * Attribute defines if usage statistics of messages are collected.
+     */
+    private boolean usageStatistics;
+
+    /**
+     * Attribute defines if the asynchronous bootstrap of the message repository is enabled.
+     */
+    private boolean asyncBootstrap;
+
+    /**
+     * Maximum time in milliseconds a caller waits for a message during an asynchronous bootstrap.
+     */
+    private long asyncBootstrapTimeout;
+
+    /**
+     * Initialize object with the values that are defined by the system properties.
+     */
+    private Builder( ) {
+      lazyTemplateCompilation = Boolean.getBoolean(LAZY_TEMPLATE_COMPILATION);
+      bootstrapParallelism = Integer.getInteger(BOOTSTRAP_PARALLELISM, Runtime.getRuntime().availableProcessors());
+      compactStorage = Boolean.getBoolean(COMPACT_STORAGE);
+      offHeapStorage = Boolean.getBoolean(OFF_HEAP_STORAGE);
+      reloadEnabled = Boolean.getBoolean(RELOAD_ENABLED);
+      String lDirectory = System.getProperty(RELOAD_DIRECTORY);
+      if (lDirectory != null && lDirectory.trim().length() > 0) {
+        reloadDirectory = new File(lDirectory.trim());
+      }
+      usageStatistics = Boolean.parseBoolean(System.getProperty(USAGE_STATISTICS, Boolean.TRUE.toString()));
+      asyncBootstrap = Boolean.getBoolean(ASYNC_BOOTSTRAP);
+      asyncBootstrapTimeout = Long.getLong(ASYNC_BOOTSTRAP_TIMEOUT, DEFAULT_ASYNC_BOOTSTRAP_TIMEOUT);
+    }
+
+    /**
+     * Method sets if lazy compilation of message templates is enabled (see
+     * {@link MessageRepositoryConfiguration#LAZY_TEMPLATE_COMPILATION}).
+     *
+     * @param pLazyTemplateCompilation Flag that defines if lazy compilation is enabled.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setLazyTemplateCompilation( boolean pLazyTemplateCompilation ) {
+      lazyTemplateCompilation = pLazyTemplateCompilation;
+      return this;
+    }
+
+    /**
+     * Method sets the maximum number of threads that are used to parse message resources during the bootstrap (see
+     * {@link MessageRepositoryConfiguration#BOOTSTRAP_PARALLELISM}).
+     *
+     * @param pBootstrapParallelism Maximum number of threads. Values less than 1 are treated as 1.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setBootstrapParallelism( int pBootstrapParallelism ) {
+      bootstrapParallelism = pBootstrapParallelism;
+      return this;
+    }
+
+    /**
+     * Method sets if compact storage of message templates is enabled (see
+     * {@link MessageRepositoryConfiguration#COMPACT_STORAGE}).
+     *
+     * @param pCompactStorage Flag that defines if compact storage is enabled.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setCompactStorage( boolean pCompactStorage ) {
+      compactStorage = pCompactStorage;
+      return this;
+    }
+
+    /**
+     * Method sets if off-heap storage of message patterns is enabled (see
+     * {@link MessageRepositoryConfiguration#OFF_HEAP_STORAGE}).
+     *
+     * @param pOffHeapStorage Flag that defines if off-heap storage is enabled.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setOffHeapStorage( boolean pOffHeapStorage ) {
+      offHeapStorage = pOffHeapStorage;
+      return this;
+    }
+
+    /**
+     * Method sets if reloading of message resources is enabled (see
+     * {@link MessageRepositoryConfiguration#RELOAD_ENABLED}).
+     *
+     * @param pReloadEnabled Flag that defines if reloading is enabled.
+     * @param pReloadDirectory Directory that contains the message resources that should be watched. The parameter may
+     * be null.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setReload( boolean pReloadEnabled, File pReloadDirectory ) {
+      reloadEnabled = pReloadEnabled;
+      reloadDirectory = pReloadDirectory;
+      return this;
+    }
+
+    /**
+     * Method sets if usage statistics of messages are collected (see
+     * {@link MessageRepositoryConfiguration#USAGE_STATISTICS}).
+     *
+     * @param pUsageStatistics Flag that defines if usage statistics are collected.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setUsageStatistics( boolean pUsageStatistics ) {
+      usageStatistics = pUsageStatistics;
+      return this;
+    }
+
+    /**
+     * Method sets if the asynchronous bootstrap of the message repository is enabled (see
+     * {@link MessageRepositoryConfiguration#ASYNC_BOOTSTRAP}).
+     *
+     * @param pAsyncBootstrap Flag that defines if the asynchronous bootstrap is enabled.
+     * @param pAsyncBootstrapTimeout Maximum time in milliseconds a caller waits for a message that is not loaded yet.
+     * Negative values are treated as 0.
+     * @return {@link Builder} This builder. The method never returns null.
+     */
+    public Builder setAsyncBootstrap( boolean pAsyncBootstrap, long pAsyncBootstrapTimeout ) {
+      asyncBootstrap = pAsyncBootstrap;
+      asyncBootstrapTimeout = pAsyncBootstrapTimeout;
+      return this;
+    }
+
+    /**
+     * Method creates a new configuration with the values of this builder.
+     *
+     * @return {@link MessageRepositoryConfiguration} New configuration. The method never returns null.
+     */
+    public MessageRepositoryConfiguration build( ) {
+      return new MessageRepositoryConfiguration(this);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+/**
+ * Class describes the memory footprint of the message repository at a certain point of time. All sizes are estimations
+ * as the real size of objects depends on the used JVM and its settings.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageRepositoryFootprint {
+  /**
+   * Number of messages in the repository.
+   */
+  private final int messages;
+
+  /**
+   * Number of references to message templates (default and localized messages).
+   */
+  private final int templateReferences;
+
+  /**
+   * Number of distinct message template objects.
+   */
+  private final int distinctTemplates;
+
+  /**
+   * Number of templates that are already compiled.
+   */
+  private final int compiledTemplates;
+
+  /**
+   * Number of locales for which resolved message tables are cached.
+   */
+  private final int resolvedTables;
+
+  /**
+   * Number of bytes that are used to store patterns in compact storage.
+   */
+  private final long pooledPatternBytes;
+
+  /**
+   * Number of bytes that are allocated outside of the Java heap to store patterns.
+   */
+  private final long offHeapBytes;
+
+  /**
+   * Estimated number of bytes that are retained by the repository.
+   */
+  private final long estimatedBytes;
+
+  /**
+   * Initialize object.
+   *
+   * @param pMessages Number of messages in the repository.
+   * @param pTemplateReferences Number of references to message templates.
+   * @param pDistinctTemplates Number of distinct message template objects.
+   * @param pCompiledTemplates Number of templates that are already compiled.
+   * @param pResolvedTables Number of locales for which resolved message tables are cached.
+   * @param pPooledPatternBytes Number of bytes that are used to store patterns in compact storage.
+   * @param pOffHeapBytes Number of bytes that are allocated outside of the Java heap to store patterns.
+   * @param pEstimatedBytes Estimated number of bytes that are retained by the repository.
+   */
+  MessageRepositoryFootprint( int pMessages, int pTemplateReferences, int pDistinctTemplates, int pCompiledTemplates,
+      int pResolvedTables, long pPooledPatternBytes, long pOffHeapBytes, long pEstimatedBytes ) {
+    messages = pMessages;
+    templateReferences = pTemplateReferences;
+    distinctTemplates = pDistinctTemplates;
+    compiledTemplates = pCompiledTemplates;
+    resolvedTables = pResolvedTables;
+    pooledPatternBytes = pPooledPatternBytes;
+    offHeapBytes = pOffHeapBytes;
+    estimatedBytes = pEstimatedBytes;
+  }
+
+  /**
+   * Method returns the number of messages in the repository.
+   *
+   * @return int Number of messages.
+   */
+  public int getMessages( ) {
+    return messages;
+  }
+
+  /**
+   * Method returns the number of references to message templates. Every message has one reference for its default
+   * message and one for every localization.
+   *
+   * @return int Number of template references.
+   */
+  public int getTemplateReferences( ) {
+    return templateReferences;
+  }
+
+  /**
+   * Method returns the number of distinct message template objects. In compact storage mode identical patterns share
+   * one template, so the value is usually much smaller than {@link #getTemplateReferences()}.
+   *
+   * @return int Number of distinct templates.
+   */
+  public int getDistinctTemplates( ) {
+    return distinctTemplates;
+  }
+
+  /**
+   * Method returns the number of templates that are already compiled.
+   *
+   * @return int Number of compiled templates.
+   */
+  public int getCompiledTemplates( ) {
+    return compiledTemplates;
+  }
+
+  /**
+   * Method returns the number of locales for which resolved message tables are cached. The number of cached tables is
+   * limited, so tables of rarely used locales are evicted if messages are requested for many different locales.
+   *
+   * @return int Number of cached resolved message tables.
+   */
+  public int getResolvedTables( ) {
+    return resolvedTables;
+  }
+
+  /**
+   * Method returns the number of bytes that are used to store patterns in compact storage.
+   *
+   * @return long Number of bytes. If compact storage is not enabled then the method returns 0.
+   */
+  public long getPooledPatternBytes( ) {
+    return pooledPatternBytes;
+  }
+
+  /**
+   * Method returns the number of bytes that are allocated outside of the Java heap to store patterns.
+   *
+   * @return long Number of bytes. If off-heap storage is not enabled then the method returns 0.
+   */
+  public long getOffHeapBytes( ) {
+    return offHeapBytes;
+  }
+
+  /**
+   * Method returns the estimated number of bytes that are retained by the repository on the Java heap.
+   *
+   * @return long Estimated size of the repository in bytes.
+   */
+  public long getEstimatedBytes( ) {
+    return estimatedBytes;
+  }
+
+  /**
+   * Method returns a string representation of this object.
+   *
+   * @return {@link String} String representation of this object.
+   */
+  @Override
+  public String toString( ) {
+    StringBuilder lBuilder = new StringBuilder();
+    lBuilder.append("Messages: ").append(messages);
+    lBuilder.append(", template references: ").append(templateReferences);
+    lBuilder.append(", distinct templates: ").append(distinctTemplates);
+    lBuilder.append(", compiled templates: ").append(compiledTemplates);
+    lBuilder.append(", resolved tables: ").append(resolvedTables);
+    lBuilder.append(", pooled pattern bytes: ").append(pooledPatternBytes);
+    lBuilder.append(", off-heap bytes: ").append(offHeapBytes);
+    lBuilder.append(", estimated size: ").append(estimatedBytes / 1024).append(" KB");
+    return lBuilder.toString();
+  }
+}
@@ -7,28 +7,38 @@ package com.anaptecs.jeaf.xfun.impl.messages;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Locale.Category;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
-import javax.xml.parsers.ParserConfigurationException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import com.anaptecs.jeaf.tools.api.Tools;
 import com.anaptecs.jeaf.xfun.annotations.MessageResource;
 import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Assert;
@@ -105,6 +115,22 @@ public final class MessageRepositoryImpl implements MessageRepository {
    */
   private static final String MESSAGE_RESOURCE = "BasicMessages.xml";
 
+  /**
+   * Type of localized strings in message resources.
+   */
+  private static final String LOCALIZED_STRING_TYPE = "LOCALIZED_STRING";
+
+  /**
+   * Name under which the message repository is registered as MBean.
+   */
+  public static final String MBEAN_NAME = "com.anaptecs.jeaf.xfun.messages:type=MessageRepository";
+
+  /**
+   * Minimum number of messages of a batch that are rendered in parallel if parallel rendering is requested. Smaller
+   * batches are always rendered by the calling thread as the overhead of parallelization would exceed its benefit.
+   */
+  public static final int PARALLEL_BATCH_THRESHOLD = 2048;
+
   /**
    * Static initializer is used to initialize ErrorCode objects that are used within this class, since these constants
    * can not be defined in a special class with constant definitions in order to avoid circular loops.
@@ -112,10 +138,11 @@ public final class MessageRepositoryImpl implements MessageRepository {
   static {
     try {
       // Load resource file that contains the messages of this class.
-      Collection<Element> lMessageElements = MessageRepositoryImpl.internalLoadResource(MESSAGE_RESOURCE);
+      List<MessageEntry> lMessageEntries = MessageRepositoryImpl.internalLoadResource(MESSAGE_RESOURCE);
 
-      // Create only instance of the message repository with the loaded elements as initial message content.
-      MessageRepositoryImpl lMessageRepository = new MessageRepositoryImpl(lMessageElements);
+      // Create only instance of the message repository with the loaded entries as initial message content.
+      MessageRepositoryImpl lMessageRepository =
+          new MessageRepositoryImpl(lMessageEntries, MessageRepositoryConfiguration.getInstance());
       INSTANCE = lMessageRepository;
 
       // Create ErrorCode objects for constants defined in this class.
@@ -129,8 +156,22 @@ public final class MessageRepositoryImpl implements MessageRepository {
       INVALID_CREATION_DATE_FORMAT = lMessageRepository.getErrorCode(12);
       INVALID_MESSAGE_FORMAT = lMessageRepository.getErrorCode(13);
 
-      // Load all other message resources from classpath.
-      lMessageRepository.loadResourcesFromClasspath();
+      // Load all other message resources from classpath. In asynchronous mode this is done by a background thread.
+      if (lMessageRepository.configuration.isAsyncBootstrapEnabled() == true) {
+        lMessageRepository.startAsyncBootstrap(( ) -> {
+          lMessageRepository.loadResourcesFromClasspath();
+          lMessageRepository.startResourceWatcher();
+        });
+      }
+      else {
+        lMessageRepository.loadResourcesFromClasspath();
+
+        // Watch message resources for changes if reloading is enabled.
+        lMessageRepository.startResourceWatcher();
+      }
+
+      // Usage statistics are made available via JMX.
+      lMessageRepository.registerManagementBean();
     }
     catch (IOException e) {
       throw new RuntimeException(e.getLocalizedMessage(), e);
@@ -138,39 +179,83 @@ public final class MessageRepositoryImpl implements MessageRepository {
   }
 
   /**
-   * Map contains all message IDs that are loaded within this message repository.
+   * Current snapshot with all messages of the repository. Snapshots are immutable. Changes to the repository create a
+   * new snapshot that replaces the current one with a single write. This way the read path never requires any locking.
+   * Writers synchronize on the repository.
+   */
+  private volatile MessageCatalog catalog;
+
+  /**
+   * Configuration of this repository.
+   */
+  private final MessageRepositoryConfiguration configuration;
+
+  /**
+   * In order to avoid useless requests to JEAF properties we cache the trace message format. The format is compiled
+   * once into a layout so that it does not have to be parsed for every trace message.
+   */
+  private final TraceMessageLayout traceMessageLayout;
+
+  /**
+   * Attribute defines if message templates are compiled lazily on first use or eagerly when they are loaded.
+   */
+  private final boolean lazyTemplateCompilation;
+
+  /**
+   * Pool that is used to store message patterns in compact storage mode. The attribute is null if compact storage is
+   * not enabled.
+   */
+  private final MessagePatternPool patternPool;
+
+  /**
+   * Message resources that were already parsed in parallel during the bootstrap of the repository but not yet merged
+   * into the repository. Resources are removed from the map as soon as they are merged.
+   */
+  private final Map<String, List<MessageEntry>> prefetchedResources = new ConcurrentHashMap<>();
+
+  /**
+   * Localization IDs of all messages by the name of the message resource that defines them. The information is
+   * required to reload message resources.
    */
-  private final Map<Integer, LocalizedObject> localizationIDs;
+  private final Map<String, Set<Integer>> resourceLocalizationIDs = new ConcurrentHashMap<>();
 
   /**
-   * Map contains all default messages that were added to the repository. Within the map the MessageID object is used as
-   * key and a MessageFormat object as value. Messages are taken from this map whenever no localized message for a
-   * specific locale and the default locale can be found.
+   * Watcher that reloads changed message resources. The attribute is null if reloading of message resources is not
+   * enabled.
    */
-  private final Map<LocalizedObject, MessageFormat> defaultMessages;
+  private volatile MessageResourceWatcher resourceWatcher;
 
   /**
-   * Map contains maps that contain localized messages that were added to the repository. The map contains a map for
-   * every supported locale. Within the map a Locale object is used as key and a Map object as value.
+   * Thread that loads the message resources during an asynchronous bootstrap. The attribute is null if no asynchronous
+   * bootstrap is running.
    */
-  private final Map<Locale, Map<LocalizedObject, MessageFormat>> localizedMessageMaps;
+  private volatile Thread bootstrapThread;
 
   /**
-   * Set contains the names of all resource that have already been loaded, in order to avoid loading a message resource
-   * twice.
+   * Lock that is used to notify callers that are waiting for messages during an asynchronous bootstrap.
    */
-  private final Set<String> loadedResources;
+  private final Object bootstrapLock = new Object();
 
   /**
-   * Set contains all localization IDs that were already used to create a localized object. All localization IDs are
-   * stored within this object as instances of java.lang.Integer.
+   * Usage statistics of all messages. The attribute is null if usage statistics are disabled.
    */
-  private final Set<Integer> usedLocalizationIDs = new HashSet<>();
+  private final MessageUsageStatistics usageStatistics;
 
   /**
-   * In order to avoid useless requests to JEAF properties we cache the trace message format.
+   * Random ID of this repository instance. The ID is part of all exports so that versions of different instances are
+   * never mixed up.
    */
-  private final String traceMessageFormat;
+  private final long sourceID = UUID.randomUUID().getLeastSignificantBits();
+
+  /**
+   * Source ID of the last imported export. The attribute is guarded by the repository.
+   */
+  private long importedSourceID;
+
+  /**
+   * Catalog version of the last imported export. The attribute is guarded by the repository.
+   */
+  private long importedVersion;
 
   /**
    * Attribute defines if name of the current user should be shown in traces or not.
@@ -194,21 +279,80 @@ public final class MessageRepositoryImpl implements MessageRepository {
    * repository. The parameter must not be null.
    */
   public MessageRepositoryImpl( Collection<Element> pInitialMessageElements ) {
-    // Check parameter.
-    Assert.assertNotNull(pInitialMessageElements, "pInitialMessageElements");
+    this(pInitialMessageElements, MessageRepositoryConfiguration.getInstance());
+  }
+
+  /**
+   * Initialize MessageRepositoryImpl with the passed configuration.
+   * 
+   * @param pInitialMessageElements Collection containing all DOM elements that are used initial message content of the
+   * repository. The parameter must not be null.
+   * @param pConfiguration Configuration of the repository. The parameter must not be null.
+   */
+  public MessageRepositoryImpl( Collection<Element> pInitialMessageElements,
+      MessageRepositoryConfiguration pConfiguration ) {
+    this(MessageResourceLoader.toMessageEntries(pInitialMessageElements), pConfiguration);
+  }
+
+  /**
+   * Initialize MessageRepositoryImpl.
+   * 
+   * @param pInitialMessageEntries List containing all message entries that are used as initial message content of the
+   * repository. The parameter must not be null.
+   * @param pConfiguration Configuration of the repository. The parameter must not be null.
+   */
+  private MessageRepositoryImpl( List<MessageEntry> pInitialMessageEntries,
+      MessageRepositoryConfiguration pConfiguration ) {
+    // Check parameters.
+    Assert.assertNotNull(pInitialMessageEntries, "pInitialMessageEntries");
+    Assert.assertNotNull(pConfiguration, "pConfiguration");
 
     // Initialize attributes.
-    localizationIDs = new HashMap<>();
-    defaultMessages = new HashMap<>();
-    localizedMessageMaps = new HashMap<>();
-    loadedResources = new HashSet<>();
+    configuration = pConfiguration;
     TraceConfiguration lTraceConfiguration = TraceConfiguration.getInstance();
-    traceMessageFormat = lTraceConfiguration.getTraceMessageFormat();
+    traceMessageLayout = new TraceMessageLayout(lTraceConfiguration.getTraceMessageFormat());
     showCurrentUserInTraces = lTraceConfiguration.showCurrentUserInTraces();
     traceLocale = this.resolveTraceLocale();
+    lazyTemplateCompilation = pConfiguration.isLazyTemplateCompilationEnabled();
+    boolean lOffHeapStorage = pConfiguration.isOffHeapStorageEnabled();
+    if (pConfiguration.isCompactStorageEnabled() == true || lOffHeapStorage == true) {
+      patternPool = new MessagePatternPool(lOffHeapStorage);
+    }
+    else {
+      patternPool = null;
+    }
+    if (pConfiguration.isUsageStatisticsEnabled() == true) {
+      usageStatistics = new MessageUsageStatistics();
+    }
+    else {
+      usageStatistics = null;
+    }
 
     // Add initial message content.
-    this.addMessageElements(pInitialMessageElements);
+    MessageCatalog.Builder lBuilder = MessageCatalog.EMPTY.toBuilder();
+    this.addMessageEntries(lBuilder, pInitialMessageEntries);
+    this.publish(lBuilder);
+  }
+
+  /**
+   * Method publishes a new snapshot of the repository that is created from the passed builder. Usage counters for new
+   * messages are created before the snapshot becomes visible to readers.
+   * 
+   * @param pBuilder Builder from which the new snapshot should be created. The parameter must not be null.
+   */
+  private void publish( MessageCatalog.Builder pBuilder ) {
+    MessageCatalog lCatalog = pBuilder.build();
+    if (usageStatistics != null) {
+      usageStatistics.ensureCapacity(lCatalog.getSize());
+    }
+    catalog = lCatalog;
+
+    // Callers might wait for new messages during an asynchronous bootstrap.
+    if (bootstrapThread != null) {
+      synchronized (bootstrapLock) {
+        bootstrapLock.notifyAll();
+      }
+    }
   }
 
   /**
@@ -228,22 +372,36 @@ public final class MessageRepositoryImpl implements MessageRepository {
    * @throws SystemException if the message resource pMessageResource was already loaded or an error occurs during the
    * parsing process of the message resource.
    */
-  public void loadResource( String pMessageResource ) throws SystemException {
+  public synchronized void loadResource( String pMessageResource ) throws SystemException {
     // Check pMessageResource for null.
     Check.checkInvalidParameterNull(pMessageResource, "pMessageResource");
 
     // Check if resource is already loaded.
     Trace lTrace = XFun.getTrace();
     lTrace.debug("Loading message resource " + pMessageResource);
-    if (loadedResources.contains(pMessageResource) == false) {
+    MessageCatalog lCatalog = catalog;
+    if (lCatalog.isResourceLoaded(pMessageResource) == false) {
       // Parse XML file containing the messages.
       try {
-        // Call internal method to load message resource and
-        Collection<Element> lReadMessageElements = MessageRepositoryImpl.internalLoadResource(pMessageResource);
-        this.addMessageElements(lReadMessageElements);
-
-        // Mark resource as loaded.
-        loadedResources.add(pMessageResource);
+        // Call internal method to load message resource and add its messages to the next snapshot. If anything goes
+        // wrong the new snapshot will not be published.
+        List<MessageEntry> lReadMessageEntries = prefetchedResources.remove(pMessageResource);
+        if (lReadMessageEntries == null) {
+          lReadMessageEntries = MessageRepositoryImpl.internalLoadResource(pMessageResource);
+        }
+        MessageCatalog.Builder lBuilder = lCatalog.toBuilder();
+        this.addMessageEntries(lBuilder, lReadMessageEntries);
+
+        // Mark resource as loaded and publish new snapshot.
+        lBuilder.markResourceLoaded(pMessageResource);
+        this.publish(lBuilder);
+        resourceLocalizationIDs.put(pMessageResource, MessageRepositoryImpl.getLocalizationIDs(lReadMessageEntries));
+
+        // Changes of the resource should be detected in reload mode.
+        MessageResourceWatcher lResourceWatcher = resourceWatcher;
+        if (lResourceWatcher != null) {
+          lResourceWatcher.watch(pMessageResource);
+        }
       }
       // No XML parser available.
       // Error during file access.
@@ -260,12 +418,327 @@ public final class MessageRepositoryImpl implements MessageRepository {
     }
   }
 
+  /**
+   * Method reloads the message resource with the passed name from the passed file. The file is parsed by the calling
+   * thread without holding any lock. Afterwards all messages of the resource are replaced with a single atomic update
+   * of the repository. Readers never block and either see all old or all new messages of the resource.
+   * 
+   * Existing {@link LocalizedObject}s keep their identity so that constants referring to them stay valid. Only their
+   * messages are replaced. Changes of the type or the trace level of an existing message therefore require a restart.
+   * Messages that were removed from the resource stay available. New messages are added. If the resource was not
+   * loaded before then it will be loaded.
+   * 
+   * @param pMessageResource Name of the resource that should be reloaded. The parameter must not be null.
+   * @param pFile File with the new content of the message resource. The parameter must not be null.
+   * @throws SystemException if the file can not be parsed or contains invalid messages. In this case the repository
+   * remains unchanged.
+   */
+  public void reloadResource( String pMessageResource, Path pFile ) throws SystemException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pMessageResource, "pMessageResource");
+    Check.checkInvalidParameterNull(pFile, "pFile");
+
+    // Parse new content of the resource.
+    List<MessageEntry> lMessageEntries;
+    try (InputStream lInputStream = Files.newInputStream(pFile)) {
+      lMessageEntries = MessageCatalogCompiler.readMessageEntries(lInputStream, pMessageResource);
+    }
+    catch (IOException e) {
+      XFun.getTrace().error(UNABLE_TO_PARSE_XML_FILE, e, pFile.toString());
+      throw new JEAFSystemException(UNABLE_TO_PARSE_XML_FILE, e, pFile.toString());
+    }
+
+    // Apply changes and publish new snapshot.
+    synchronized (this) {
+      Set<Integer> lOwnLocalizationIDs = resourceLocalizationIDs.get(pMessageResource);
+      if (lOwnLocalizationIDs == null) {
+        lOwnLocalizationIDs = Collections.emptySet();
+      }
+      MessageCatalog.Builder lBuilder = catalog.toBuilder();
+      Set<Integer> lReloadedLocalizationIDs = new HashSet<>();
+      for (MessageEntry lNextEntry : lMessageEntries) {
+        int lLocalizationID = lNextEntry.getLocalizationID();
+        LocalizedObject lLocalizedObject = lBuilder.getLocalizedObject(lLocalizationID);
+
+        // Message is already defined by this resource, so we just replace its messages.
+        if (lOwnLocalizationIDs.contains(lLocalizationID) == true && lLocalizedObject != null
+            && lReloadedLocalizationIDs.contains(lLocalizationID) == false) {
+          lBuilder.putMessage(lLocalizedObject, this.createDefaultMessageTemplate(lNextEntry));
+          lBuilder.removeLocalizedMessages(lLocalizedObject);
+          this.addLocalizedMessages(lBuilder, lLocalizedObject, lNextEntry);
+        }
+        // New message. ID collisions with other resources are detected as usual.
+        else {
+          this.createLocalizedObject(lBuilder, lNextEntry);
+        }
+        lReloadedLocalizationIDs.add(lLocalizationID);
+      }
+      lBuilder.markResourceLoaded(pMessageResource);
+      this.publish(lBuilder);
+
+      // Removed messages are still available and thus still belong to the resource.
+      lReloadedLocalizationIDs.addAll(lOwnLocalizationIDs);
+      resourceLocalizationIDs.put(pMessageResource, Collections.unmodifiableSet(lReloadedLocalizationIDs));
+    }
+    XFun.getTrace().info("Reloaded message resource " + pMessageResource + " from " + pFile);
+  }
+
+  /**
+   * Method returns the localization IDs of all passed message entries.
+   * 
+   * @param pMessageEntries Message entries. The parameter must not be null.
+   * @return {@link Set} Localization IDs of all entries. The method never returns null.
+   */
+  private static Set<Integer> getLocalizationIDs( List<MessageEntry> pMessageEntries ) {
+    Set<Integer> lLocalizationIDs = new HashSet<>();
+    for (MessageEntry lNextEntry : pMessageEntries) {
+      lLocalizationIDs.add(lNextEntry.getLocalizationID());
+    }
+    return Collections.unmodifiableSet(lLocalizationIDs);
+  }
+
+  /**
+   * Method starts watching all loaded message resources for changes if reloading of message resources is enabled (see
+   * {@link MessageRepositoryConfiguration#RELOAD_ENABLED}).
+   */
+  private void startResourceWatcher( ) {
+    if (configuration.isReloadEnabled() == true) {
+      try {
+        MessageResourceWatcher lResourceWatcher = new MessageResourceWatcher(this, configuration.getReloadDirectory());
+        for (String lNextResource : resourceLocalizationIDs.keySet()) {
+          lResourceWatcher.watch(lNextResource);
+        }
+        lResourceWatcher.start();
+        resourceWatcher = lResourceWatcher;
+      }
+      // Reloading is a development feature. If it can not be activated we just continue without it.
+      catch (IOException e) {
+        XFun.getTrace().error("Unable to start watching message resources for changes.", e);
+      }
+    }
+  }
+
+  /**
+   * Method stops watching message resources for changes. The watcher is also stopped automatically when the JVM shuts
+   * down. If reloading of message resources is not enabled then the call has no effect.
+   */
+  public void stopResourceWatcher( ) {
+    MessageResourceWatcher lResourceWatcher;
+    synchronized (this) {
+      lResourceWatcher = resourceWatcher;
+      resourceWatcher = null;
+    }
+    if (lResourceWatcher != null) {
+      lResourceWatcher.stop();
+    }
+  }
+
   /**
    * Method loads all message resources from classpath. It therefore checks for annotation {@link MessageResource}
+   * 
+   * Parsing of the message resources is done in parallel on a fork-join pool before the resource classes are accessed
+   * (see {@link MessageRepositoryConfiguration#BOOTSTRAP_PARALLELISM}). Merging the parsed resources into the
+   * repository still happens when the resource classes are loaded and thus in the configured order. This way the
+   * content of the repository as well as the detection of duplicate localization IDs is exactly the same as with
+   * sequential loading.
    */
   private void loadResourcesFromClasspath( ) {
-    // Resolve additional message resources that were configured. By accessing these classes they will be loaded.
-    XFun.getConfiguration().getMessageResourceClasses();
+    // Parse all configured message resources in parallel.
+    try {
+      ClassLoader lClassLoader = MessageRepositoryImpl.class.getClassLoader();
+      this.prefetchResources(MessageResourceLoader.resolveConfiguredResources(lClassLoader));
+    }
+    // Parallel loading is only an optimization. If it fails all resources will be loaded sequentially.
+    catch (IOException e) {
+      XFun.getTrace().warn("Unable to prepare parallel loading of message resources. " + e.getMessage());
+    }
+
+    try {
+      // Resolve additional message resources that were configured. By accessing these classes they will be loaded.
+      XFun.getConfiguration().getMessageResourceClasses();
+    }
+    finally {
+      // Release resources that were parsed but not requested by any resource class.
+      prefetchedResources.clear();
+    }
+  }
+
+  /**
+   * Method loads the passed message resources into the repository. The resources are parsed in parallel (see
+   * {@link MessageRepositoryConfiguration#BOOTSTRAP_PARALLELISM}) but always merged in the passed order, so that the
+   * content of the repository is exactly the same as if {@link #loadResource(String)} would be called for every
+   * resource.
+   * 
+   * If an asynchronous bootstrap is configured (see {@link MessageRepositoryConfiguration#ASYNC_BOOTSTRAP}) then the
+   * resources are loaded by a background thread and the method returns immediately. Callers that request a message
+   * that is not loaded yet wait until it was merged by the background thread. The method must not be called while
+   * another asynchronous bootstrap is still running.
+   * 
+   * @param pMessageResources Names of the message resources that should be loaded. The parameter must not be null.
+   * @throws SystemException if a message resource can not be loaded. In case of an asynchronous bootstrap the error is
+   * traced and all further resources are not loaded.
+   */
+  public void loadResources( List<String> pMessageResources ) throws SystemException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pMessageResources, "pMessageResources");
+
+    List<String> lMessageResources = new ArrayList<>(pMessageResources);
+    if (configuration.isAsyncBootstrapEnabled() == true) {
+      this.startAsyncBootstrap(( ) -> this.loadResourcesInOrder(lMessageResources));
+    }
+    else {
+      this.loadResourcesInOrder(lMessageResources);
+    }
+  }
+
+  /**
+   * Method parses the passed message resources in parallel and then merges them in the passed order.
+   * 
+   * @param pMessageResources Names of the message resources that should be loaded. The parameter must not be null.
+   */
+  private void loadResourcesInOrder( List<String> pMessageResources ) {
+    this.prefetchResources(new LinkedHashSet<>(pMessageResources));
+    try {
+      for (String lNextResource : pMessageResources) {
+        this.loadResource(lNextResource);
+      }
+    }
+    finally {
+      prefetchedResources.clear();
+    }
+  }
+
+  /**
+   * Method parses the passed message resources in parallel if this is configured (see
+   * {@link MessageRepositoryConfiguration#BOOTSTRAP_PARALLELISM}). Parsed resources are merged by
+   * {@link #loadResource(String)} when they are requested.
+   * 
+   * @param pMessageResources Names of the message resources that should be parsed. The parameter must not be null.
+   */
+  private void prefetchResources( Set<String> pMessageResources ) {
+    int lParallelism = configuration.getBootstrapParallelism();
+    if (lParallelism > 1) {
+      ClassLoader lClassLoader = MessageRepositoryImpl.class.getClassLoader();
+      prefetchedResources.putAll(MessageResourceLoader.loadResources(pMessageResources, lClassLoader, lParallelism));
+    }
+  }
+
+  /**
+   * Method starts the asynchronous bootstrap of the repository (see
+   * {@link MessageRepositoryConfiguration#ASYNC_BOOTSTRAP}). The passed task is executed by a background thread.
+   * Until it is finished callers that request unknown messages wait for them.
+   * 
+   * @param pBootstrapTask Task that loads the message resources. The parameter must not be null.
+   */
+  private void startAsyncBootstrap( Runnable pBootstrapTask ) {
+    Thread lThread = new Thread(new Runnable() {
+      @Override
+      public void run( ) {
+        try {
+          pBootstrapTask.run();
+        }
+        catch (RuntimeException e) {
+          XFun.getTrace().error("Unable to load message resources.", e);
+        }
+        finally {
+          MessageRepositoryImpl.this.finishAsyncBootstrap();
+        }
+      }
+    }, "JEAF X-Fun Message Repository Bootstrap");
+    lThread.setDaemon(true);
+    bootstrapThread = lThread;
+    lThread.start();
+  }
+
+  /**
+   * Method marks the asynchronous bootstrap as finished and releases all waiting callers.
+   */
+  private void finishAsyncBootstrap( ) {
+    synchronized (bootstrapLock) {
+      bootstrapThread = null;
+      bootstrapLock.notifyAll();
+    }
+  }
+
+  /**
+   * Method checks if the bootstrap of the repository is completed. Unless an asynchronous bootstrap is used (see
+   * {@link MessageRepositoryConfiguration#ASYNC_BOOTSTRAP}) this is always the case.
+   * 
+   * @return boolean Method returns true if all message resources from the classpath are loaded and false otherwise.
+   */
+  public boolean isBootstrapCompleted( ) {
+    return bootstrapThread == null;
+  }
+
+  /**
+   * Method waits until the bootstrap of the repository is completed. Callers that only require single messages never
+   * have to call this method as they automatically wait for a message if required. However, functions that operate on
+   * all messages (e.g. {@link #getAllMessages()}) only see the messages that are already loaded.
+   * 
+   * @return boolean Method returns true if the bootstrap is completed and false if the timeout for waiting (see
+   * {@link MessageRepositoryConfiguration#ASYNC_BOOTSTRAP_TIMEOUT}) elapsed or the calling thread was interrupted.
+   */
+  public boolean awaitBootstrap( ) {
+    return this.awaitBootstrap(null);
+  }
+
+  /**
+   * Method waits until either the localization ID is known or the bootstrap of the repository is completed. Message
+   * resources are only merged by the bootstrap thread. This way they are always merged in the configured order, no
+   * matter which messages are requested first.
+   * 
+   * @param pLocalizationID Localization ID for which the caller waits. The parameter may be null. In this case the
+   * method waits for the completion of the bootstrap.
+   * @return boolean Method returns true if the localization ID is known or the bootstrap is completed and false if the
+   * timeout for waiting elapsed or the calling thread was interrupted.
+   */
+  private boolean awaitBootstrap( Integer pLocalizationID ) {
+    boolean lAvailable;
+    Thread lBootstrapThread = bootstrapThread;
+    if (lBootstrapThread == null) {
+      lAvailable = true;
+    }
+    // The bootstrap thread itself must never wait for the bootstrap.
+    else if (lBootstrapThread == Thread.currentThread()) {
+      lAvailable = false;
+    }
+    else {
+      lAvailable = this.waitForBootstrap(pLocalizationID);
+    }
+    return lAvailable;
+  }
+
+  /**
+   * Method waits until either the localization ID is known or the bootstrap of the repository is completed.
+   * 
+   * @param pLocalizationID Localization ID for which the caller waits. The parameter may be null. In this case the
+   * method waits for the completion of the bootstrap.
+   * @return boolean Method returns true if the localization ID is known or the bootstrap is completed and false if the
+   * timeout for waiting elapsed or the calling thread was interrupted.
+   */
+  private boolean waitForBootstrap( Integer pLocalizationID ) {
+    long lDeadline = System.currentTimeMillis() + configuration.getAsyncBootstrapTimeout();
+    boolean lAvailable = true;
+    synchronized (bootstrapLock) {
+      while (lAvailable == true && bootstrapThread != null
+          && (pLocalizationID == null || catalog.containsLocalizationID(pLocalizationID) == false)) {
+        long lRemaining = lDeadline - System.currentTimeMillis();
+        if (lRemaining > 0) {
+          try {
+            bootstrapLock.wait(lRemaining);
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lAvailable = false;
+          }
+        }
+        else {
+          XFun.getTrace().warn("Timeout while waiting for bootstrap of message repository.");
+          lAvailable = false;
+        }
+      }
+    }
+    return lAvailable;
   }
 
   /**
@@ -274,85 +747,52 @@ public final class MessageRepositoryImpl implements MessageRepository {
    * 
    * @param pMessageResource Name of the resource file that should be loaded. The parameter must point to a file
    * containing the message data. The parameter must not be null. A message resource must not be loaded twice.
-   * @return Collection All DOM elements that contain information about a message. The method never returns null.
-   * @throws ParserConfigurationException if no XML parser is available.
-   * @throws SAXException if an error occurs during the parsing process.
-   * @throws IOException if an error occurs during the file access.
-   */
-  private static Collection<Element> internalLoadResource( String pMessageResource ) throws IOException {
-    // Load resource with the passed name from application class path.
-    ClassLoader lClassLoader = MessageRepositoryImpl.class.getClassLoader();
-    InputStream lResourceStream = lClassLoader.getResourceAsStream(pMessageResource);
-
-    // Check if passed resource could be loaded.
-    if (lResourceStream != null) {
-      // Load passed resource as XML file.
-      Document lDocument =
-          Tools.getXMLTools().parseInputStream(lResourceStream, true, MessageDataDTD.SYSTEM_ID, pMessageResource);
-
-      // Get all elements with name MESSAGE and add them to the repository.
-      NodeList lMessageNodeList = lDocument.getElementsByTagName(MessageDataDTD.MESSAGE);
-      Assert.assertNotNull(lMessageNodeList, "lMessageNodeList");
-
-      Collection<Element> lMessageElements = new ArrayList<>(lMessageNodeList.getLength());
-      for (int i = 0; i < lMessageNodeList.getLength(); i++) {
-        // Get next element and add it to the repository.
-        Element lElement = (Element) lMessageNodeList.item(i);
-        lMessageElements.add(lElement);
-      }
-      // Return Collection with message elements.
-      return lMessageElements;
-    }
-    // Resource could not be found within the application class path.
-    else {
-      String lMessage = "Resource '" + pMessageResource + "' could not be found within the application class path.";
-      throw new IOException(lMessage);
-    }
+   * @return {@link List} All message entries of the resource. The method never returns null.
+   * @throws IOException if an error occurs during the file access or the parsing process.
+   * @see MessageResourceLoader#loadResource(String, ClassLoader)
+   */
+  private static List<MessageEntry> internalLoadResource( String pMessageResource ) throws IOException {
+    return MessageResourceLoader.loadResource(pMessageResource, MessageRepositoryImpl.class.getClassLoader());
   }
 
   /**
-   * Method adds all passed DOM elements as message elements to the repository.
+   * Method adds all passed message entries to the passed builder.
    * 
-   * @param pMessageElements Collection with all message elements that should be added to the message repository. The
-   * parameter must not be null.
+   * @param pBuilder Builder of the next snapshot to which the messages should be added. The parameter must not be null.
+   * @param pMessageEntries List with all message entries that should be added to the message repository. The parameter
+   * must not be null.
    */
-  private void addMessageElements( Collection<Element> pMessageElements ) {
-    // Add all DOM elements as message elements.
-    Iterator<Element> lIterator = pMessageElements.iterator();
-    while (lIterator.hasNext()) {
-      // Get next message element and add it to repository.
-      Element lMessageElement = lIterator.next();
-      LocalizedObject lLocalizedObject = this.createLocalizedObject(lMessageElement);
-      localizationIDs.put(lLocalizedObject.getLocalizationID(), lLocalizedObject);
+  private void addMessageEntries( MessageCatalog.Builder pBuilder, List<MessageEntry> pMessageEntries ) {
+    // Add all message entries.
+    for (MessageEntry lNextEntry : pMessageEntries) {
+      this.createLocalizedObject(pBuilder, lNextEntry);
     }
   }
 
   /**
-   * Method adds the passed MessageFormat object to the list of available messages for the passed message id and locale.
+   * Method adds the passed MessageTemplate object to the list of available messages for the passed message id and
+   * locale.
    * 
-   * @param pLocalizedObject Message id that is used to identify the passed MessageFormat object. The parameter must not
-   * be null and no other MessageFormat object must be configured using pMessageID as message id and pLocale as locale.
-   * @param pMessageFormat MessageFormat object that is used to create parameterized and localized messages. The
+   * @param pBuilder Builder of the next snapshot to which the message should be added. The parameter must not be null.
+   * @param pLocalizedObject Message id that is used to identify the passed MessageTemplate object. The parameter must
+   * not be null and no other MessageTemplate object must be configured using pMessageID as message id and pLocale as
+   * locale.
+   * @param pMessageTemplate MessageTemplate object that is used to create parameterized and localized messages. The
    * parameter must not be null.
    * @param pLocale Locale for which the passed message should be used. The parameter must not be null.
-   * @throws SystemException if a MessageFormat object for the passed message id and locale is already available.
+   * @throws SystemException if a MessageTemplate object for the passed message id and locale is already available.
    */
-  private void addLocalizedMessage( LocalizedObject pLocalizedObject, MessageFormat pMessageFormat, Locale pLocale )
-    throws SystemException {
+  private void addLocalizedMessage( MessageCatalog.Builder pBuilder, LocalizedObject pLocalizedObject,
+      MessageTemplate pMessageTemplate, Locale pLocale ) throws SystemException {
     // Check parameters for null.
     Assert.assertNotNull(pLocalizedObject, "pMessageID");
-    Assert.assertNotNull(pMessageFormat, "pMessageFormat");
+    Assert.assertNotNull(pMessageTemplate, "pMessageTemplate");
     Assert.assertNotNull(pLocale, "pLocale");
 
-    // Get get message map for used locale. If no appropriate map is created
-    // yet then create it now.
-    Map<LocalizedObject, MessageFormat> lLocalizedMap =
-        localizedMessageMaps.computeIfAbsent(pLocale, f -> new HashMap<>());
-
     // Check if message id is already used for this locale.
-    if (lLocalizedMap.containsKey(pLocalizedObject) == false) {
-      // Add message id and MessageFormat object.
-      lLocalizedMap.put(pLocalizedObject, pMessageFormat);
+    if (pBuilder.containsLocalizedMessage(pLocalizedObject, pLocale) == false) {
+      // Add message id and MessageTemplate object.
+      pBuilder.putLocalizedMessage(pLocalizedObject, pLocale, pMessageTemplate);
     }
     // Message id must not be used more than once per locale.
     else {
@@ -393,7 +833,12 @@ public final class MessageRepositoryImpl implements MessageRepository {
    * @throws SystemException if no LocalizedObject exists for the passed localization ID.
    */
   public LocalizedObject getLocalizedObject( int pLocalizationID ) throws SystemException {
-    final LocalizedObject lLocalizedObject = localizationIDs.get(pLocalizationID);
+    LocalizedObject lLocalizedObject = catalog.getLocalizedObject(pLocalizationID);
+
+    // During an asynchronous bootstrap the message might not be loaded yet.
+    if (lLocalizedObject == null && bootstrapThread != null && this.awaitBootstrap(pLocalizationID) == true) {
+      lLocalizedObject = catalog.getLocalizedObject(pLocalizationID);
+    }
     if (lLocalizedObject != null) {
       return lLocalizedObject;
     }
@@ -423,7 +868,13 @@ public final class MessageRepositoryImpl implements MessageRepository {
    */
   @Override
   public boolean existsMessage( int pMessageCode ) {
-    return localizationIDs.containsKey(pMessageCode);
+    boolean lExists = catalog.containsLocalizationID(pMessageCode);
+
+    // During an asynchronous bootstrap the message might not be loaded yet.
+    if (lExists == false && bootstrapThread != null && this.awaitBootstrap(pMessageCode) == true) {
+      lExists = catalog.containsLocalizationID(pMessageCode);
+    }
+    return lExists;
   }
 
   /**
@@ -449,87 +900,89 @@ public final class MessageRepositoryImpl implements MessageRepository {
   }
 
   /**
-   * Method creates new message from the passed DOM element.
+   * Method resolves a catalog index (see {@link MessageCatalogCompiler}) to the localized objects of its slots. All
+   * localized objects are resolved with one pass over the current snapshot of the repository. Usually only the first
+   * localization ID has to be looked up in the index. The method does not load any message resource. During an
+   * asynchronous bootstrap it waits until the messages of the index were merged by the bootstrap thread.
+   * 
+   * @param pLocalizationIDs Localization IDs of the catalog index in the order of their slots. The parameter must not
+   * be null.
+   * @return {@link LocalizedObject} Dense table with the localized objects of all slots of the catalog index. The
+   * object at position i belongs to the localization ID at position i. The method never returns null.
+   * @throws SystemException if one of the passed localization IDs is unknown.
+   */
+  public LocalizedObject[] resolveCatalogIndex( int[] pLocalizationIDs ) throws SystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pLocalizationIDs, "pLocalizationIDs");
+
+    // Message resources are only merged by the bootstrap thread. Thus we have to wait for it instead of loading.
+    if (pLocalizationIDs.length > 0 && bootstrapThread != null) {
+      this.awaitBootstrap(pLocalizationIDs[0]);
+    }
+
+    // Resolve all slots from the same snapshot.
+    MessageCatalog lCatalog = catalog;
+    LocalizedObject[] lLocalizedObjects = new LocalizedObject[pLocalizationIDs.length];
+
+    // Catalogs store their messages in the order of the catalog index and a resource is merged into consecutive slots.
+    // Thus only the slot of the first localization ID has to be looked up. All others are just checked.
+    int lFirstSlot = LocalizationIDIndex.NO_SLOT;
+    if (pLocalizationIDs.length > 0) {
+      lFirstSlot = lCatalog.getSlot(pLocalizationIDs[0]);
+    }
+    int lSize = lCatalog.getSize();
+    for (int i = 0; i < pLocalizationIDs.length; i++) {
+      LocalizedObject lLocalizedObject = null;
+      if (lFirstSlot != LocalizationIDIndex.NO_SLOT && lFirstSlot + i < lSize) {
+        lLocalizedObject = lCatalog.getLocalizedObjectAt(lFirstSlot + i);
+        if (lLocalizedObject.getLocalizationID() != pLocalizationIDs[i]) {
+          lLocalizedObject = null;
+        }
+      }
+      // Slots are not consecutive e.g. if the resource was loaded from XML or reloaded with new messages.
+      if (lLocalizedObject == null) {
+        lLocalizedObject = this.getLocalizedObject(pLocalizationIDs[i]);
+      }
+      lLocalizedObjects[i] = lLocalizedObject;
+    }
+    return lLocalizedObjects;
+  }
+
+  /**
+   * Method creates new message from the passed message entry.
    * 
-   * @param pMessageElement DOM element describing the message object that should be created. The parameter must not be
+   * @param pBuilder Builder of the next snapshot to which the message should be added. The parameter must not be null.
+   * @param pMessageEntry Message entry describing the message object that should be created. The parameter must not be
    * null.
    * @return MessageID ID of the created message object. The method never returns null.
    * @throws SystemException if a message with the same message code was already created.
    */
-  private LocalizedObject createLocalizedObject( Element pMessageElement ) throws SystemException {
-    // The passed DOM element contains all information that are required to create an MessageFormat object that can be
-    // used to create an message.
-    String lMessageCodeString = pMessageElement.getAttribute(MessageDataDTD.MESSAGE_ID);
-    Integer lLocalizationID = Integer.valueOf(lMessageCodeString);
+  private LocalizedObject createLocalizedObject( MessageCatalog.Builder pBuilder, MessageEntry pMessageEntry )
+    throws SystemException {
+    // The passed message entry contains all information that are required to create an MessageTemplate object that can
+    // be used to create an message.
+    Integer lLocalizationID = pMessageEntry.getLocalizationID();
 
     // Check if localization id is already in use.
-    if (this.isLocalizationIDUsed(lLocalizationID) == false) {
-      // Get value of attribute MESSAGE_DEFAULT_TEXT which is used as message pattern for the MessageFormat object.
-      MessageFormat lMessageFormat;
-      String lMessagePattern = null;
-      try {
-        lMessagePattern = pMessageElement.getAttribute(MessageDataDTD.MESSAGE_DEFAULT_TEXT);
-        lMessagePattern = lMessagePattern.replace("\\\\n", LINE_SEPERATOR);
-        lMessageFormat = new MessageFormat(lMessagePattern);
-      }
-      catch (IllegalArgumentException e) {
-        throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, lLocalizationID.toString(), lMessagePattern);
-      }
+    if (pBuilder.isLocalizationIDUsed(lLocalizationID) == false) {
+      // Get value of attribute MESSAGE_DEFAULT_TEXT which is used as message pattern for the MessageTemplate object.
+      MessageTemplate lMessageTemplate = this.createDefaultMessageTemplate(pMessageEntry);
 
-      // Get trace level from XML element and convert it the used enumeration.
-      String lTraceLevelString = pMessageElement.getAttribute(MessageDataDTD.MESSAGE_TRACE_LEVEL);
+      // Get trace level from message entry and convert it the used enumeration.
+      String lTraceLevelString = pMessageEntry.getTraceLevel();
       TraceLevel lTraceLevel = this.getTraceLevel(lTraceLevelString);
 
-      // Get type of localized object.
-      String lType = pMessageElement.getAttribute(MessageDataDTD.TYPE);
-
       // Create new LocalizedObject subclass depending on the defined type.
-      LocalizedObject lLocalizedObject;
-      if (MessageDataDTD.TYPE_INFO.equals(lType)) {
-        // Create new MessageID with the passed message code. If the message code was already used to create an
-        // MessageID
-        // object a SystemException will be thrown.
-        lLocalizedObject = new MessageID(lLocalizationID, lTraceLevel);
-      }
-      else if (MessageDataDTD.TYPE_ERROR.equals(lType)) {
-        // Create new ErrorCode.
-        lLocalizedObject = new ErrorCode(lLocalizationID, lTraceLevel);
-      }
-      else {
-        lLocalizedObject = new LocalizedString(lLocalizationID);
-      }
+      LocalizedObject lLocalizedObject = this.newLocalizedObject(lLocalizationID, pMessageEntry.getType(), lTraceLevel);
 
       // Add default message to repository.
-      defaultMessages.put(lLocalizedObject, lMessageFormat);
-
-      // Get all localized message texts.
-      NodeList lLocalizedMessageElements = pMessageElement.getElementsByTagName(MessageDataDTD.LOCALIZED_MESSAGE);
-      for (int i = 0; i < lLocalizedMessageElements.getLength(); i++) {
-        // Get next element and create localized message.
-        Element lNextLocalizedMessageElement = (Element) lLocalizedMessageElements.item(i);
-
-        // Create Locale object for defined locale.
-        String lNextLanguage = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.LANGUAGE);
-        String lNextCountry = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.COUNTRY);
-        String lNextVariant = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.VARIANT);
-        Locale lNextLocale = new Locale(lNextLanguage, lNextCountry, lNextVariant);
-
-        // Create message format object.
-        String lNextMessagePattern = lNextLocalizedMessageElement.getAttribute(MessageDataDTD.LOCALIZED_TEXT);
-        lNextMessagePattern = lNextMessagePattern.replace("\\n", LINE_SEPERATOR);
-        MessageFormat lNextMessageFormat;
-        try {
-          lNextMessageFormat = new MessageFormat(lNextMessagePattern);
-        }
-        catch (IllegalArgumentException e) {
-          throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, lLocalizationID.toString(), lMessagePattern);
-        }
+      pBuilder.putMessage(lLocalizedObject, lMessageTemplate);
+
+      // Add all localized message texts.
+      this.addLocalizedMessages(pBuilder, lLocalizedObject, pMessageEntry);
 
-        // Add localized message for current locale.
-        this.addLocalizedMessage(lLocalizedObject, lNextMessageFormat, lNextLocale);
-      }
       // Register localization ID and assign it to attribute localizationID
-      usedLocalizationIDs.add(lLocalizationID);
+      pBuilder.markLocalizationIDUsed(lLocalizationID);
 
       // Return created message id.
       return lLocalizedObject;
@@ -542,39 +995,408 @@ public final class MessageRepositoryImpl implements MessageRepository {
   }
 
   /**
-   * Method returns a parameterized message for the passed message id. The method uses the current default locale to
-   * localize the message text.
+   * Method creates a new localized object of the passed type.
    * 
-   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
-   * parameter must not be null.
-   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
-   * does not need any parameters pMessageParameters may also be null.
-   * @return String Message that was created using the passed message id and the message parameters and the current
-   * default locale. The method never returns null.
-   * @see #getMessage(MessageID, Locale, String[])
+   * @param pLocalizationID Localization ID of the object.
+   * @param pType Type of the object as defined in message resources. The parameter must not be null.
+   * @param pTraceLevel Trace level of the object. The parameter must not be null.
+   * @return {@link LocalizedObject} Created object. The method never returns null.
    */
-  public String getMessage( LocalizedObject pLocalizedObject, String... pMessageParameters ) {
-    return this.getMessage(pLocalizedObject, XFun.getLocaleProvider().getCurrentLocale(), pMessageParameters);
+  private LocalizedObject newLocalizedObject( int pLocalizationID, String pType, TraceLevel pTraceLevel ) {
+    LocalizedObject lLocalizedObject;
+    if (MessageDataDTD.TYPE_INFO.equals(pType)) {
+      // Create new MessageID with the passed message code.
+      lLocalizedObject = new MessageID(pLocalizationID, pTraceLevel);
+    }
+    else if (MessageDataDTD.TYPE_ERROR.equals(pType)) {
+      // Create new ErrorCode.
+      lLocalizedObject = new ErrorCode(pLocalizationID, pTraceLevel);
+    }
+    else {
+      lLocalizedObject = new LocalizedString(pLocalizationID);
+    }
+    return lLocalizedObject;
   }
 
   /**
-   * Method returns a parameterized trace message for the passed message id. The difference between a "normal" message
-   * and a trace message is that in case of the trace message the locale that is defined for tracing will be used. A
-   * trace message locale is especially helpful for application with several languages.
-   * 
-   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
-   * parameter must not be null.
-   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
-   * does not need any parameters pMessageParameters may also be null.
-   * @return String Message that was created using the passed message id and the message parameters and the current
-   * default locale. The method never returns null.
+   * Method creates the template for the default message of the passed message entry.
+   * 
+   * @param pMessageEntry Message entry whose default message template should be created. The parameter must not be
+   * null.
+   * @return {@link MessageTemplate} Created template. The method never returns null.
+   * @throws SystemException if the default message is not a valid message pattern.
+   */
+  private MessageTemplate createDefaultMessageTemplate( MessageEntry pMessageEntry ) throws SystemException {
+    String lMessagePattern = pMessageEntry.getDefaultText().replace("\\\\n", LINE_SEPERATOR);
+    try {
+      return this.createMessageTemplate(lMessagePattern);
+    }
+    catch (IllegalArgumentException e) {
+      String lLocalizationID = Integer.toString(pMessageEntry.getLocalizationID());
+      throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, lLocalizationID, lMessagePattern);
+    }
+  }
+
+  /**
+   * Method adds all localized messages of the passed message entry to the passed builder.
+   * 
+   * @param pBuilder Builder of the next snapshot to which the messages should be added. The parameter must not be
+   * null.
+   * @param pLocalizedObject Localized object to which the messages belong. The parameter must not be null.
+   * @param pMessageEntry Message entry containing the localized messages. The parameter must not be null.
+   * @throws SystemException if one of the localized messages is invalid or a locale is defined more than once.
+   */
+  private void addLocalizedMessages( MessageCatalog.Builder pBuilder, LocalizedObject pLocalizedObject,
+      MessageEntry pMessageEntry ) throws SystemException {
+    // Get all localized message texts.
+    List<Locale> lLocales = pMessageEntry.getLocales();
+    List<String> lLocalizedTexts = pMessageEntry.getLocalizedTexts();
+    for (int i = 0; i < lLocales.size(); i++) {
+      // Get locale of next localized message.
+      Locale lNextLocale = lLocales.get(i);
+
+      // Create message template object.
+      String lNextMessagePattern = lLocalizedTexts.get(i);
+      lNextMessagePattern = lNextMessagePattern.replace("\\n", LINE_SEPERATOR);
+      MessageTemplate lNextMessageTemplate;
+      try {
+        lNextMessageTemplate = this.createMessageTemplate(lNextMessagePattern);
+      }
+      catch (IllegalArgumentException e) {
+        String lLocalizationID = Integer.toString(pLocalizedObject.getLocalizationID());
+        String lMessagePattern = pMessageEntry.getDefaultText().replace("\\\\n", LINE_SEPERATOR);
+        throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, lLocalizationID, lMessagePattern);
+      }
+
+      // Add localized message for current locale.
+      this.addLocalizedMessage(pBuilder, pLocalizedObject, lNextMessageTemplate, lNextLocale);
+    }
+  }
+
+  /**
+   * Method creates a new message template for the passed pattern. Depending on the configuration of the repository the
+   * template is either compiled immediately or on first use. In compact and off-heap storage mode templates with
+   * identical patterns are shared and always compiled on first use. Their patterns are still validated immediately
+   * unless lazy template compilation is enabled.
+   * 
+   * @param pPattern Message pattern for which a template should be created. The parameter must not be null.
+   * @return {@link MessageTemplate} Created template. The method never returns null.
+   * @throws IllegalArgumentException if templates are compiled eagerly and the passed pattern is invalid.
+   */
+  private MessageTemplate createMessageTemplate( String pPattern ) {
+    MessageTemplate lMessageTemplate;
+    if (patternPool != null) {
+      // Pooled templates are compiled on first use, so we just check that the pattern is valid.
+      if (lazyTemplateCompilation == false) {
+        new MessageFormat(pPattern);
+      }
+      lMessageTemplate = patternPool.intern(pPattern, Locale.getDefault(Category.FORMAT));
+    }
+    else if (lazyTemplateCompilation == true) {
+      lMessageTemplate = MessageTemplate.createLazy(pPattern);
+    }
+    else {
+      lMessageTemplate = new MessageTemplate(pPattern);
+    }
+    return lMessageTemplate;
+  }
+
+  /**
+   * Method returns the current memory footprint of the repository.
+   * 
+   * @return {@link MessageRepositoryFootprint} Current memory footprint. The method never returns null.
+   */
+  public synchronized MessageRepositoryFootprint getFootprint( ) {
+    MessageCatalog lCatalog = catalog;
+    int lSize = lCatalog.getSize();
+    Set<Locale> lLocales = lCatalog.getLocales();
+
+    // Collect all distinct templates.
+    Set<MessageTemplate> lDistinctTemplates = Collections.newSetFromMap(new IdentityHashMap<>());
+    int lTemplateReferences = 0;
+    for (int lSlot = 0; lSlot < lSize; lSlot++) {
+      lDistinctTemplates.add(lCatalog.getDefaultMessageAt(lSlot));
+      lTemplateReferences++;
+      for (Locale lNextLocale : lLocales) {
+        MessageTemplate lMessageTemplate = lCatalog.getLocalizedMessageAt(lSlot, lNextLocale);
+        if (lMessageTemplate != null) {
+          lDistinctTemplates.add(lMessageTemplate);
+          lTemplateReferences++;
+        }
+      }
+    }
+
+    // Estimate size of catalog. Every slot requires an index entry, array elements and its localized object.
+    long lEstimatedBytes = lSize * (16L + 4 + 4 + 1 + 24 + lLocales.size() * 4L);
+    int lCompiledTemplates = 0;
+    for (MessageTemplate lNextTemplate : lDistinctTemplates) {
+      lEstimatedBytes = lEstimatedBytes + lNextTemplate.estimateSize();
+      if (lNextTemplate.isCompiled() == true) {
+        lCompiledTemplates++;
+      }
+    }
+    // Every resolved table contains one reference and one fallback flag per slot.
+    int lResolvedTables = lCatalog.getResolvedTableCount();
+    lEstimatedBytes = lEstimatedBytes + lResolvedTables * (lSize * 4L + lSize / 8 + 64);
+    long lPooledPatternBytes;
+    long lOffHeapBytes;
+    if (patternPool != null) {
+      lEstimatedBytes = lEstimatedBytes + patternPool.estimateSize();
+      lPooledPatternBytes = patternPool.getUsedBytes();
+      if (patternPool.isOffHeap() == true) {
+        lOffHeapBytes = patternPool.getAllocatedBytes();
+      }
+      else {
+        lOffHeapBytes = 0;
+      }
+    }
+    else {
+      lPooledPatternBytes = 0;
+      lOffHeapBytes = 0;
+    }
+    return new MessageRepositoryFootprint(lSize, lTemplateReferences, lDistinctTemplates.size(), lCompiledTemplates,
+        lResolvedTables, lPooledPatternBytes, lOffHeapBytes, lEstimatedBytes);
+  }
+
+  /**
+   * Method registers the management bean of the repository if usage statistics are enabled.
+   */
+  private void registerManagementBean( ) {
+    if (usageStatistics != null) {
+      try {
+        MBeanServer lMBeanServer = ManagementFactory.getPlatformMBeanServer();
+        lMBeanServer.registerMBean(new MessageRepositoryManagement(this), new ObjectName(MBEAN_NAME));
+      }
+      catch (JMException e) {
+        XFun.getTrace().error(e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Method checks if usage statistics of messages are collected (see
+   * {@link MessageRepositoryConfiguration#USAGE_STATISTICS}).
+   * 
+   * @return boolean Method returns true if usage statistics are collected and false otherwise.
+   */
+  public boolean isUsageStatisticsEnabled( ) {
+    return usageStatistics != null;
+  }
+
+  /**
+   * Method returns the number of messages in the repository.
+   * 
+   * @return int Number of messages.
+   */
+  int getMessageCount( ) {
+    return catalog.getSize();
+  }
+
+  /**
+   * Method returns the usage of all messages of the repository.
+   * 
+   * @return {@link List} Usage of all messages. The method never returns null. If usage statistics are disabled then
+   * all counters are 0.
+   */
+  public List<MessageUsage> getAllMessageUsages( ) {
+    MessageCatalog lCatalog = catalog;
+    int lSize = lCatalog.getSize();
+    List<MessageUsage> lUsages = new ArrayList<>(lSize);
+    for (int lSlot = 0; lSlot < lSize; lSlot++) {
+      lUsages.add(this.getMessageUsage(lCatalog, lSlot));
+    }
+    return lUsages;
+  }
+
+  /**
+   * Method returns the most frequently rendered messages. Messages that were never rendered are not returned.
+   * 
+   * @param pCount Maximum number of messages that should be returned.
+   * @return {@link List} Usage of the most frequently rendered messages ordered by the number of times they were
+   * rendered as message or trace message, starting with the most frequently used one. The method never returns null.
+   */
+  public List<MessageUsage> getTopMessages( int pCount ) {
+    // Keep the top messages in a min heap so that the whole repository does not have to be sorted.
+    Comparator<MessageUsage> lComparator = Comparator.comparingLong(MessageUsage::getUsageCount);
+    PriorityQueue<MessageUsage> lTopMessages = new PriorityQueue<>(Math.max(1, pCount), lComparator);
+    if (pCount > 0) {
+      MessageCatalog lCatalog = catalog;
+      int lSize = lCatalog.getSize();
+      for (int lSlot = 0; lSlot < lSize; lSlot++) {
+        MessageUsage lUsage = this.getMessageUsage(lCatalog, lSlot);
+        if (lUsage.getUsageCount() > 0) {
+          if (lTopMessages.size() < pCount) {
+            lTopMessages.add(lUsage);
+          }
+          else if (lUsage.getUsageCount() > lTopMessages.peek().getUsageCount()) {
+            lTopMessages.poll();
+            lTopMessages.add(lUsage);
+          }
+        }
+      }
+    }
+    List<MessageUsage> lResult = new ArrayList<>(lTopMessages);
+    lResult.sort(lComparator.reversed());
+    return lResult;
+  }
+
+  /**
+   * Method returns the localization IDs of all messages that were never rendered.
+   * 
+   * @return int[] Localization IDs of all unused messages. The method never returns null. If usage statistics are
+   * disabled then all localization IDs are returned.
+   */
+  public int[] getUnusedLocalizationIDs( ) {
+    MessageCatalog lCatalog = catalog;
+    int lSize = lCatalog.getSize();
+    int[] lUnusedIDs = new int[lSize];
+    int lCount = 0;
+    for (int lSlot = 0; lSlot < lSize; lSlot++) {
+      MessageUsage lUsage = this.getMessageUsage(lCatalog, lSlot);
+      if (lUsage.getUsageCount() == 0) {
+        lUnusedIDs[lCount] = lUsage.getLocalizationID();
+        lCount++;
+      }
+    }
+    return Arrays.copyOf(lUnusedIDs, lCount);
+  }
+
+  /**
+   * Method returns how often messages were requested per locale.
+   * 
+   * @return {@link Map} Number of requests by locale. The method never returns null.
+   */
+  public Map<Locale, Long> getLocaleUsage( ) {
+    Map<Locale, Long> lLocaleUsage;
+    if (usageStatistics != null) {
+      lLocaleUsage = usageStatistics.getLocaleUsage();
+    }
+    else {
+      lLocaleUsage = Collections.emptyMap();
+    }
+    return lLocaleUsage;
+  }
+
+  /**
+   * Method resets all usage statistics.
+   */
+  public void resetUsageStatistics( ) {
+    if (usageStatistics != null) {
+      usageStatistics.reset();
+    }
+  }
+
+  /**
+   * Method returns the usage of the message with the passed slot.
+   * 
+   * @param pCatalog Snapshot of the repository that should be used. The parameter must not be null.
+   * @param pSlot Slot of the message.
+   * @return {@link MessageUsage} Usage of the message. The method never returns null.
+   */
+  private MessageUsage getMessageUsage( MessageCatalog pCatalog, int pSlot ) {
+    int lLocalizationID = pCatalog.getLocalizedObjectAt(pSlot).getLocalizationID();
+    MessageUsage lUsage;
+    if (usageStatistics != null) {
+      lUsage = usageStatistics.getUsage(pSlot, lLocalizationID);
+    }
+    else {
+      lUsage = new MessageUsage(lLocalizationID, 0, 0, 0);
+    }
+    return lUsage;
+  }
+
+  /**
+   * Method returns a parameterized message for the passed message id. The method uses the current default locale to
+   * localize the message text.
+   * 
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
+   * parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   * @return String Message that was created using the passed message id and the message parameters and the current
+   * default locale. The method never returns null.
+   * @see #getMessage(MessageID, Locale, String[])
+   */
+  public String getMessage( LocalizedObject pLocalizedObject, String... pMessageParameters ) {
+    return this.getMessage(pLocalizedObject, XFun.getLocaleProvider().getCurrentLocale(), pMessageParameters);
+  }
+
+  /**
+   * Method returns a parameterized trace message for the passed message id. The difference between a "normal" message
+   * and a trace message is that in case of the trace message the locale that is defined for tracing will be used. A
+   * trace message locale is especially helpful for application with several languages.
+   * 
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
+   * parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   * @return String Message that was created using the passed message id and the message parameters and the current
+   * default locale. The method never returns null.
    * 
    * @see #getMessage(MessageID, Locale, String[])
    */
   public String getTraceMessage( LocalizedObject pLocalizedObject, String... pMessageParameters ) {
-    // Get default message.
-    String lMessage = this.getMessage(pLocalizedObject, traceLocale, pMessageParameters);
+    return this.appendTraceMessage(new StringBuilder(), pLocalizedObject, pMessageParameters).toString();
+  }
+
+  /**
+   * Method appends a parameterized trace message for the passed message id to the passed string builder. The appended
+   * message is exactly the same as the one that is returned by {@link #getTraceMessage(LocalizedObject, String...)}.
+   * 
+   * @param pBuilder String builder to which the trace message will be appended. The parameter must not be null.
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be appended. The
+   * parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  public StringBuilder appendTraceMessage( StringBuilder pBuilder, LocalizedObject pLocalizedObject,
+      String... pMessageParameters ) {
+    return this.appendTraceMessageForUser(pBuilder, this.getCurrentUserForTrace(), pLocalizedObject,
+        pMessageParameters);
+  }
+
+  /**
+   * Method appends a parameterized trace message for the passed message id to the passed string builder. Instead of
+   * the current user of the current thread the passed user is shown. This way trace messages can be rendered by other
+   * threads than the one that wrote the trace.
+   * 
+   * @param pBuilder String builder to which the trace message will be appended. The parameter must not be null.
+   * @param pCurrentUser Name of the user as it should be shown in the trace message (see
+   * {@link #getCurrentUserForTrace()}). The parameter must not be null.
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be appended. The
+   * parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  public StringBuilder appendTraceMessageForUser( StringBuilder pBuilder, String pCurrentUser,
+      LocalizedObject pLocalizedObject, String... pMessageParameters ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pBuilder, "pBuilder");
+    Check.checkInvalidParameterNull(pCurrentUser, "pCurrentUser");
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+
+    // The default message can be adapted by using an optional format string defined in JEAF configuration. The message
+    // itself is rendered directly at its position within the trace message.
+    int lLocalizationID = pLocalizedObject.getLocalizationID();
+    MessageTemplate lMessageTemplate = this.getTraceMessageTemplate(catalog, pLocalizedObject);
+    if (lMessageTemplate != null) {
+      traceMessageLayout.render(pBuilder, lLocalizationID, lMessageTemplate, pMessageParameters, pCurrentUser);
+    }
+    else {
+      traceMessageLayout.render(pBuilder, lLocalizationID, this.getUnknownMessage(pLocalizedObject), pCurrentUser);
+    }
+    return pBuilder;
+  }
 
+  /**
+   * Method returns the name of the current user as it is shown in trace messages.
+   * 
+   * @return {@link String} Name of the current user or a blank if it is not shown or not known. The method never
+   * returns null.
+   */
+  public String getCurrentUserForTrace( ) {
     // Determine current user if possible.
     String lCurrentUser;
     if (showCurrentUserInTraces == true) {
@@ -589,9 +1411,39 @@ public final class MessageRepositoryImpl implements MessageRepository {
     else {
       lCurrentUser = " ";
     }
+    return lCurrentUser;
+  }
 
-    // The default message can be adapted by using an optional format string defined in JEAF configuration.
-    return String.format(traceMessageFormat, pLocalizedObject.getLocalizationID(), lMessage, lCurrentUser);
+  /**
+   * Method appends a parameterized trace message for the passed message id to the passed appendable.
+   * 
+   * @param pAppendable Appendable to which the trace message will be appended. The parameter must not be null.
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be appended. The
+   * parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   * @return {@link Appendable} Passed appendable. The method never returns null.
+   * @throws IOException if the message can not be appended.
+   * @see #appendTraceMessage(StringBuilder, LocalizedObject, String...)
+   */
+  public <T extends Appendable> T appendTraceMessage( T pAppendable, LocalizedObject pLocalizedObject,
+      String... pMessageParameters ) throws IOException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pAppendable, "pAppendable");
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+
+    // Trace message is written through to the appendable.
+    int lLocalizationID = pLocalizedObject.getLocalizationID();
+    MessageTemplate lMessageTemplate = this.getTraceMessageTemplate(catalog, pLocalizedObject);
+    String lCurrentUser = this.getCurrentUserForTrace();
+    if (lMessageTemplate != null) {
+      traceMessageLayout.render(pAppendable, lLocalizationID, lMessageTemplate, pMessageParameters, lCurrentUser);
+    }
+    else {
+      String lMessage = this.getUnknownMessage(pLocalizedObject);
+      pAppendable.append(traceMessageLayout.render(new StringBuilder(), lLocalizationID, lMessage, lCurrentUser));
+    }
+    return pAppendable;
   }
 
   /**
@@ -622,87 +1474,341 @@ public final class MessageRepositoryImpl implements MessageRepository {
     Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
     Check.checkInvalidParameterNull(pLocale, "pLocale");
 
-    // Get MessageFormat object for the passed message id and create message string using the passed parameters.
+    // Get MessageTemplate object for the passed message id and create message string using the passed parameters.
     String lMessage;
-    MessageFormat lMessageFormat = this.getMessageFormat(pLocalizedObject, pLocale);
-    if (lMessageFormat != null) {
-      lMessage = lMessageFormat.format(pMessageParameters);
+    MessageTemplate lMessageTemplate = this.getMessageTemplate(catalog, pLocalizedObject, pLocale);
+    if (lMessageTemplate != null) {
+      lMessage = lMessageTemplate.format((Object[]) pMessageParameters);
     }
     // No message could be found. In order to ease to location of an problem, we provide as much information as possible
     else {
-      lMessage = "[ID-" + pLocalizedObject.getLocalizationID() + "] Unable to return real message. ID is unknown";
-      RuntimeException lRuntimeException = new RuntimeException(lMessage);
-      XFun.getTrace().error(lMessage, lRuntimeException);
+      lMessage = this.getUnknownMessage(pLocalizedObject);
     }
     return lMessage;
   }
 
   /**
-   * Method returns the best fitting message format object for the passed localized object and locale. If there is no
-   * message format object in the passed locale then the locale will be returned until a message format is found.
+   * Method appends a parameterized and localized message for the passed message id to the passed string builder. The
+   * message is rendered directly into the builder without creating any intermediate strings. The appended message is
+   * exactly the same as the one that is returned by {@link #getMessage(LocalizedObject, Locale, String...)}.
    * 
-   * @param pLocalizedObject Localized object for which a message format object should be returned.
-   * @param pLocale Locale of the returned message format object.
-   * @return {@link MessageFormat} Message format object for the passed localized object. The method returns null if no
-   * matching message format exists in any locale.
+   * @param pBuilder String builder to which the message will be appended. The parameter must not be null.
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be appended. The
+   * parameter must not be null.
+   * @param pLocale Information about the locale for which the message should be created. The parameter must not be
+   * null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters can also be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
    */
-  private MessageFormat getMessageFormat( LocalizedObject pLocalizedObject, Locale pLocale ) {
-    // Get message for passed locale.
-    MessageFormat lMessageFormat = null;
+  public StringBuilder appendMessage( StringBuilder pBuilder, LocalizedObject pLocalizedObject, Locale pLocale,
+      String... pMessageParameters ) {
+    // Check parameters for null.
+    Check.checkInvalidParameterNull(pBuilder, "pBuilder");
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+    Check.checkInvalidParameterNull(pLocale, "pLocale");
 
-    // Try to find message map for the passed locale.
-    Map<LocalizedObject, MessageFormat> lMessageMap = localizedMessageMaps.get(pLocale);
-    if (lMessageMap != null) {
-      lMessageFormat = lMessageMap.get(pLocalizedObject);
+    // Render message directly into the passed builder.
+    MessageTemplate lMessageTemplate = this.getMessageTemplate(catalog, pLocalizedObject, pLocale);
+    if (lMessageTemplate != null) {
+      lMessageTemplate.render(pBuilder, (Object[]) pMessageParameters);
+    }
+    else {
+      pBuilder.append(this.getUnknownMessage(pLocalizedObject));
     }
+    return pBuilder;
+  }
 
-    // If no message format object exits in the found message map or we did not find a appropriate message map than we
-    // have to reduce the locale and try again.
-    if (lMessageFormat == null) {
-      // Reduce locale.
-      Locale lReducedLocale = this.reduceLocale(pLocale);
+  /**
+   * Method appends a parameterized and localized message for the passed message id to the passed appendable.
+   * 
+   * @param pAppendable Appendable to which the message will be appended. The parameter must not be null.
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be appended. The
+   * parameter must not be null.
+   * @param pLocale Information about the locale for which the message should be created. The parameter must not be
+   * null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters can also be null.
+   * @return {@link Appendable} Passed appendable. The method never returns null.
+   * @throws IOException if the message can not be appended.
+   * @see #appendMessage(StringBuilder, LocalizedObject, Locale, String...)
+   */
+  public <T extends Appendable> T appendMessage( T pAppendable, LocalizedObject pLocalizedObject, Locale pLocale,
+      String... pMessageParameters ) throws IOException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pAppendable, "pAppendable");
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+    Check.checkInvalidParameterNull(pLocale, "pLocale");
+
+    // Message is written through to the appendable.
+    MessageTemplate lMessageTemplate = this.getMessageTemplate(catalog, pLocalizedObject, pLocale);
+    if (lMessageTemplate != null) {
+      lMessageTemplate.render(pAppendable, (Object[]) pMessageParameters);
+    }
+    else {
+      pAppendable.append(this.getUnknownMessage(pLocalizedObject));
+    }
+    return pAppendable;
+  }
+
+  /**
+   * Method returns a localized message with typed parameters for the passed message id. The method uses the current
+   * locale to localize the message text and to format its parameters.
+   * 
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
+   * parameter must not be null.
+   * @param pMessageParameters Typed parameter values that should be used to create the parameterized message. If the
+   * message does not need any parameters pMessageParameters may also be null.
+   * @return String Message that was created using the passed message id and the message parameters. The method never
+   * returns null.
+   * @see #formatMessage(LocalizedObject, Locale, Object...)
+   */
+  public String formatMessage( LocalizedObject pLocalizedObject, Object... pMessageParameters ) {
+    return this.formatMessage(pLocalizedObject, XFun.getLocaleProvider().getCurrentLocale(), pMessageParameters);
+  }
+
+  /**
+   * Method returns a localized message with typed parameters for the passed message id. In contrast to
+   * {@link #getMessage(LocalizedObject, Locale, String...)} parameters do not have to be formatted by the caller.
+   * Numbers, dates and java.time values are formatted for the passed locale following the format types and styles of
+   * the message pattern (e.g. <code>{0,number,integer}</code> or <code>{1,date,long}</code>) as {@link MessageFormat}
+   * does. Parameters without explicit format type are formatted like {@link MessageFormat} does it as well. Formatter
+   * instances are cached per thread and locale (see {@link MessageTemplate#renderLocalized(StringBuilder, Locale,
+   * Object...)}).
+   * 
+   * @param pLocalizedObject Localized object to identify the parameterized message that should be returned. The
+   * parameter must not be null.
+   * @param pLocale Locale for which the message should be created and its parameters should be formatted. The
+   * parameter must not be null.
+   * @param pMessageParameters Typed parameter values that should be used to create the parameterized message. If the
+   * message does not need any parameters pMessageParameters may also be null.
+   * @return String Message that was created using the passed message id, message parameters and locale. The method
+   * never returns null.
+   */
+  public String formatMessage( LocalizedObject pLocalizedObject, Locale pLocale, Object... pMessageParameters ) {
+    // Check parameters for null.
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+    Check.checkInvalidParameterNull(pLocale, "pLocale");
+
+    String lMessage;
+    MessageTemplate lMessageTemplate = this.getMessageTemplate(catalog, pLocalizedObject, pLocale);
+    if (lMessageTemplate != null) {
+      lMessage = lMessageTemplate.formatLocalized(pLocale, pMessageParameters);
+    }
+    else {
+      lMessage = this.getUnknownMessage(pLocalizedObject);
+    }
+    return lMessage;
+  }
+
+  /**
+   * Method returns the message that is used if no message exists for the passed localized object. In order to ease to
+   * location of an problem, the message also gets traced as error.
+   * 
+   * @param pLocalizedObject Localized object for which no message exists. The parameter must not be null.
+   * @return {@link String} Message for an unknown localized object. The method never returns null.
+   */
+  private String getUnknownMessage( LocalizedObject pLocalizedObject ) {
+    String lMessage = "[ID-" + pLocalizedObject.getLocalizationID() + "] Unable to return real message. ID is unknown";
+    RuntimeException lRuntimeException = new RuntimeException(lMessage);
+    XFun.getTrace().error(lMessage, lRuntimeException);
+    return lMessage;
+  }
+
+  /**
+   * Method returns the best fitting message template object for the passed localized object and locale. If there is no
+   * message template object in the passed locale then the locale will be reduced until a message template is found.
+   * Fallback chains are resolved only once per locale and snapshot (see {@link MessageCatalog}). If usage statistics
+   * are enabled then the usage of the message is counted.
+   * 
+   * @param pCatalog Snapshot of the repository that should be used. The parameter must not be null.
+   * @param pLocalizedObject Localized object for which a message template object should be returned.
+   * @param pLocale Locale of the returned message template object.
+   * @return {@link MessageTemplate} Message template object for the passed localized object. The method returns null if
+   * no matching message template exists in any locale.
+   */
+  private MessageTemplate getMessageTemplate( MessageCatalog pCatalog, LocalizedObject pLocalizedObject,
+      Locale pLocale ) {
+    return this.getMessageTemplate(pCatalog, null, pLocalizedObject, pLocale, false);
+  }
+
+  /**
+   * Method returns the best fitting message template object for the passed localized object and the trace locale. If
+   * usage statistics are enabled then the usage is only counted as trace message.
+   * 
+   * @param pCatalog Snapshot of the repository that should be used. The parameter must not be null.
+   * @param pLocalizedObject Localized object for which a message template object should be returned.
+   * @return {@link MessageTemplate} Message template object for the passed localized object. The method returns null if
+   * no matching message template exists in any locale.
+   */
+  private MessageTemplate getTraceMessageTemplate( MessageCatalog pCatalog, LocalizedObject pLocalizedObject ) {
+    return this.getMessageTemplate(pCatalog, null, pLocalizedObject, traceLocale, true);
+  }
 
-      if (lReducedLocale != null) {
-        // Make recursive call with reduced locale.
-        lMessageFormat = this.getMessageFormat(pLocalizedObject, lReducedLocale);
+  /**
+   * Method returns the best fitting message template object for the passed localized object and locale using the
+   * passed resolved message table.
+   * 
+   * @param pCatalog Snapshot of the repository that should be used. The parameter must not be null.
+   * @param pResolvedTable Effective message templates of the snapshot for the passed locale (see
+   * {@link MessageCatalog#getEffectiveMessages(Locale)}). The parameter may be null. In this case the template is
+   * resolved through the fallback chain of the locale.
+   * @param pLocalizedObject Localized object for which a message template object should be returned.
+   * @param pLocale Locale of the returned message template object.
+   * @param pTrace Defines whether the message is rendered as trace message. Trace messages are only counted as traces
+   * and not as messages by the usage statistics.
+   * @return {@link MessageTemplate} Message template object for the passed localized object. The method returns null if
+   * no matching message template exists in any locale.
+   */
+  private MessageTemplate getMessageTemplate( MessageCatalog pCatalog, MessageCatalog.ResolvedTable pResolvedTable,
+      LocalizedObject pLocalizedObject, Locale pLocale, boolean pTrace ) {
+    // Resolve slot of the localized object. All further lookups are simple array accesses.
+    int lSlot = pCatalog.getSlot(pLocalizedObject.getLocalizationID());
+    MessageTemplate lMessageTemplate;
+    if (lSlot != LocalizationIDIndex.NO_SLOT) {
+      if (pResolvedTable != null) {
+        lMessageTemplate = pResolvedTable.getMessageAt(lSlot);
       }
-      // Locale can not be reduced any more thus we use the default message format object.
       else {
-        lMessageFormat = defaultMessages.get(pLocalizedObject);
+        lMessageTemplate = pCatalog.getEffectiveMessageAt(lSlot, pLocale);
+      }
+      if (usageStatistics != null) {
+        if (pTrace == true) {
+          usageStatistics.recordTrace(lSlot);
+        }
+        // Only the default message is a fallback. Messages of a reduced locale are still localized. As templates may be
+        // shared this is taken from the resolution of the fallback chain and not from the template itself.
+        else if (pResolvedTable != null) {
+          usageStatistics.recordMessage(lSlot, pLocale, pResolvedTable.isFallbackAt(lSlot));
+        }
+        else {
+          usageStatistics.recordMessage(lSlot, pLocale, pCatalog.isFallbackAt(lSlot, pLocale));
+        }
       }
-    }
 
-    // Return found message format object.
-    return lMessageFormat;
+      // In case of lazy template compilation invalid patterns are detected when the template is used the first time.
+      if (lMessageTemplate.isCompiled() == false) {
+        try {
+          lMessageTemplate.compile();
+        }
+        catch (IllegalArgumentException e) {
+          // Writing a trace must never fail (traces may even be rendered by another thread), so the raw pattern is
+          // traced instead.
+          if (pTrace == true) {
+            lMessageTemplate = MessageTemplate.createLiteral(lMessageTemplate.getPattern());
+          }
+          else {
+            String lLocalizationID = Integer.toString(pLocalizedObject.getLocalizationID());
+            throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, lLocalizationID, lMessageTemplate.getPattern());
+          }
+        }
+      }
+    }
+    else {
+      lMessageTemplate = null;
+    }
+    return lMessageTemplate;
   }
 
   /**
-   * Method reduces the passed locale so that it get less specific. Reduction means that a locale "en_GB" is reduced to
-   * "en". The method starts with removing the variant then the country and at last the language. Locales will be
-   * reduced by one level.
+   * Method returns the parameterized and localized messages for all passed requests. In contrast to calling
+   * {@link #getMessage(LocalizedObject, Locale, String...)} for every single message, the fallback chain of the locale
+   * is only resolved once for the whole batch. The messages are exactly the same as the ones that are returned by
+   * {@link #getMessage(LocalizedObject, Locale, String...)}.
    * 
-   * @param pLocale Locale that should be reduced. The parameter must not be null.
-   * @return {@link Locale} Result of the reduction of the locale. The method returns null if the passed locale only
-   * consists of a language as it can not be reduced any more.
+   * @param pLocale Information about the locale for which the messages should be created. The parameter must not be
+   * null.
+   * @param pRequests Messages that should be rendered. The parameter must not be null and must not contain null.
+   * @param pParallel Defines whether the batch may be rendered by several threads. Only batches with at least
+   * {@link #PARALLEL_BATCH_THRESHOLD} messages are rendered in parallel.
+   * @return {@link List} Rendered messages in the order of the passed requests. The method never returns null.
    */
-  private Locale reduceLocale( Locale pLocale ) {
-    // Check parameter.
-    Assert.assertNotNull(pLocale, "pLocale");
+  public List<String> getMessages( Locale pLocale, List<MessageRequest> pRequests, boolean pParallel ) {
+    // Check parameters for null.
+    Check.checkInvalidParameterNull(pLocale, "pLocale");
+    Check.checkInvalidParameterNull(pRequests, "pRequests");
+
+    // Resolve snapshot and fallback chain only once for the whole batch.
+    MessageCatalog lCatalog = catalog;
+    MessageCatalog.ResolvedTable lResolvedTable = lCatalog.getEffectiveMessages(pLocale);
+    MessageRequest[] lRequests = pRequests.toArray(new MessageRequest[pRequests.size()]);
+    String[] lMessages = new String[lRequests.length];
+    if (pParallel == true && lRequests.length >= PARALLEL_BATCH_THRESHOLD) {
+      IntStream.range(0, lRequests.length).parallel().forEach(
+          i -> lMessages[i] = this.renderMessage(lCatalog, lResolvedTable, pLocale, lRequests[i]));
+    }
+    else {
+      for (int i = 0; i < lRequests.length; i++) {
+        lMessages[i] = this.renderMessage(lCatalog, lResolvedTable, pLocale, lRequests[i]);
+      }
+    }
+    return Arrays.asList(lMessages);
+  }
 
-    // Reduce variant if set.
-    Locale lReducedLocale;
-    if (pLocale.getVariant().length() > 0) {
-      lReducedLocale = new Locale(pLocale.getLanguage(), pLocale.getCountry());
+  /**
+   * Method appends the parameterized and localized messages for all passed requests to the passed string builder. The
+   * fallback chain of the locale is only resolved once for the whole batch and all messages are rendered directly into
+   * the builder.
+   * 
+   * @param pBuilder String builder to which the messages will be appended. The parameter must not be null.
+   * @param pLocale Information about the locale for which the messages should be created. The parameter must not be
+   * null.
+   * @param pRequests Messages that should be rendered. The parameter must not be null and must not contain null.
+   * @param pSeparator Separator that is appended between two messages. The parameter must not be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  public StringBuilder appendMessages( StringBuilder pBuilder, Locale pLocale, List<MessageRequest> pRequests,
+      String pSeparator ) {
+    // Check parameters for null.
+    Check.checkInvalidParameterNull(pBuilder, "pBuilder");
+    Check.checkInvalidParameterNull(pLocale, "pLocale");
+    Check.checkInvalidParameterNull(pRequests, "pRequests");
+    Check.checkInvalidParameterNull(pSeparator, "pSeparator");
+
+    // Resolve snapshot and fallback chain only once for the whole batch.
+    MessageCatalog lCatalog = catalog;
+    MessageCatalog.ResolvedTable lResolvedTable = lCatalog.getEffectiveMessages(pLocale);
+    boolean lFirst = true;
+    for (MessageRequest lNextRequest : pRequests) {
+      if (lFirst == false) {
+        pBuilder.append(pSeparator);
+      }
+      lFirst = false;
+      LocalizedObject lLocalizedObject = lNextRequest.getLocalizedObject();
+      MessageTemplate lMessageTemplate =
+          this.getMessageTemplate(lCatalog, lResolvedTable, lLocalizedObject, pLocale, false);
+      if (lMessageTemplate != null) {
+        lMessageTemplate.render(pBuilder, (Object[]) lNextRequest.getMessageParameters());
+      }
+      else {
+        pBuilder.append(this.getUnknownMessage(lLocalizedObject));
+      }
     }
-    // Reduce country if set
-    else if (pLocale.getCountry().length() > 0) {
-      lReducedLocale = new Locale(pLocale.getLanguage());
+    return pBuilder;
+  }
+
+  /**
+   * Method renders the message of the passed request.
+   * 
+   * @param pCatalog Snapshot of the repository that should be used. The parameter must not be null.
+   * @param pResolvedTable Effective message templates of the snapshot for the passed locale. The parameter may be null.
+   * @param pLocale Locale for which the message should be created. The parameter must not be null.
+   * @param pRequest Message that should be rendered. The parameter must not be null.
+   * @return {@link String} Rendered message. The method never returns null.
+   */
+  private String renderMessage( MessageCatalog pCatalog, MessageCatalog.ResolvedTable pResolvedTable, Locale pLocale,
+      MessageRequest pRequest ) {
+    LocalizedObject lLocalizedObject = pRequest.getLocalizedObject();
+    MessageTemplate lMessageTemplate =
+        this.getMessageTemplate(pCatalog, pResolvedTable, lLocalizedObject, pLocale, false);
+    String lMessage;
+    if (lMessageTemplate != null) {
+      lMessage = lMessageTemplate.format((Object[]) pRequest.getMessageParameters());
     }
-    // Locale only consists of a language. Thus we can not reduce it any more and return null.
     else {
-      lReducedLocale = null;
+      lMessage = this.getUnknownMessage(lLocalizedObject);
     }
-    return lReducedLocale;
+    return lMessage;
   }
 
   /**
@@ -712,36 +1818,25 @@ public final class MessageRepositoryImpl implements MessageRepository {
    * @param pMessages List with all message that should be added to the repository. The parameter must not be null.
    */
   @Override
-  public void addAllMessages( List<MessageDefinition> pMessages ) {
+  public synchronized void addAllMessages( List<MessageDefinition> pMessages ) {
     // Check parameter
     Check.checkInvalidParameterNull(pMessages, "pMessages");
 
     // Process all messages.
+    MessageCatalog.Builder lBuilder = catalog.toBuilder();
     for (MessageDefinition lNextMessage : pMessages) {
       // Add new message
       LocalizedObject lLocalizedObject = lNextMessage.getLocalizedObject();
-      localizationIDs.put(lLocalizedObject.getLocalizationID(), lLocalizedObject);
-      defaultMessages.put(lLocalizedObject, lNextMessage.getDefaultMessage());
+      lBuilder.putMessage(lLocalizedObject, new MessageTemplate(lNextMessage.getDefaultMessage()));
 
       // Merge localizations of the message with existing ones.
       Set<Entry<Locale, MessageFormat>> lEntrySet = lNextMessage.getLocalizedMessages().entrySet();
       for (Entry<Locale, MessageFormat> lNextEntry : lEntrySet) {
-
-        // Check if message map for the next locale exists.
-        Locale lLocale = lNextEntry.getKey();
-        Map<LocalizedObject, MessageFormat> lExistingMap = localizedMessageMaps.get(lLocale);
-        if (lExistingMap != null) {
-          // Merge existing messages with the new ones for the current locale
-          lExistingMap.put(lLocalizedObject, lNextEntry.getValue());
-        }
-        // No message map exists thus we will use the new one.
-        else {
-          Map<LocalizedObject, MessageFormat> lNewMap = new HashMap<>();
-          lNewMap.put(lLocalizedObject, lNextEntry.getValue());
-          localizedMessageMaps.put(lLocale, lNewMap);
-        }
+        lBuilder.putLocalizedMessage(lLocalizedObject, lNextEntry.getKey(), new MessageTemplate(lNextEntry.getValue()));
       }
     }
+    // Publish new snapshot with all added messages.
+    this.publish(lBuilder);
   }
 
   /**
@@ -752,23 +1847,23 @@ public final class MessageRepositoryImpl implements MessageRepository {
   @Override
   public List<MessageDefinition> getAllMessages( ) {
     // Create new list for result.
-    List<MessageDefinition> lAllMessage = new ArrayList<>(defaultMessages.size());
+    MessageCatalog lCatalog = catalog;
+    int lSize = lCatalog.getSize();
+    List<MessageDefinition> lAllMessage = new ArrayList<>(lSize);
 
     // Process all messages.
-    for (Entry<LocalizedObject, MessageFormat> lNextEntry : defaultMessages.entrySet()) {
-      LocalizedObject lKey = lNextEntry.getKey();
-      MessageFormat lDefaultMessage = lNextEntry.getValue();
+    Set<Locale> lLocales = lCatalog.getLocales();
+    for (int lSlot = 0; lSlot < lSize; lSlot++) {
+      LocalizedObject lKey = lCatalog.getLocalizedObjectAt(lSlot);
+      MessageFormat lDefaultMessage = lCatalog.getDefaultMessageAt(lSlot).toMessageFormat();
 
       // Resolve all localize messages.
       Map<Locale, MessageFormat> lLocalizations = new HashMap<>();
-      for (Entry<Locale, Map<LocalizedObject, MessageFormat>> lEntry : localizedMessageMaps.entrySet()) {
+      for (Locale lLocale : lLocales) {
         // Resolve localized message
-        Locale lLocale = lEntry.getKey();
-        Map<LocalizedObject, MessageFormat> lValues = lEntry.getValue();
-        MessageFormat lMessageFormat = lValues.get(lKey);
-
-        if (lMessageFormat != null) {
-          lLocalizations.put(lLocale, lMessageFormat);
+        MessageTemplate lMessageTemplate = lCatalog.getLocalizedMessageAt(lSlot, lLocale);
+        if (lMessageTemplate != null) {
+          lLocalizations.put(lLocale, lMessageTemplate.toMessageFormat());
         }
       }
 
@@ -781,6 +1876,230 @@ public final class MessageRepositoryImpl implements MessageRepository {
     return lAllMessage;
   }
 
+  /**
+   * Method returns the current version of the message catalog. The version changes with every change of the messages
+   * of the repository.
+   * 
+   * @return long Current version of the message catalog.
+   */
+  public long getCatalogVersion( ) {
+    return catalog.getVersion();
+  }
+
+  /**
+   * Method exports the messages of the repository that were changed since the passed catalog version. If the passed
+   * version is 0 or is not a version of the current catalog then all messages are exported.
+   * 
+   * @param pSinceVersion Catalog version since which changes should be exported. Usually this is the version of the
+   * last export a client imported.
+   * @return {@link MessageCatalogExport} Export with all changed messages. The method never returns null.
+   */
+  public MessageCatalogExport exportMessages( long pSinceVersion ) {
+    MessageCatalog lCatalog = catalog;
+    long lVersion = lCatalog.getVersion();
+    long lBaseVersion;
+    if (pSinceVersion > 0 && pSinceVersion <= lVersion) {
+      lBaseVersion = pSinceVersion;
+    }
+    else {
+      lBaseVersion = 0;
+    }
+
+    // Resolve the tables of all locales once so that every slot only requires array accesses.
+    Set<Locale> lLocales = lCatalog.getLocales();
+    Locale[] lLocaleArray = lLocales.toArray(new Locale[lLocales.size()]);
+    List<ChunkedArray<MessageTemplate>> lLocaleTables = new ArrayList<>(lLocaleArray.length);
+    for (Locale lNextLocale : lLocaleArray) {
+      lLocaleTables.add(lCatalog.getLocalizedMessages(lNextLocale));
+    }
+
+    // Export all changed messages with their patterns as they are used by the repository. Recent changes are known by
+    // the catalog. Otherwise the version of every slot has to be checked.
+    List<MessageEntry> lEntries = new ArrayList<>();
+    int[] lChangedSlots;
+    if (lBaseVersion > 0) {
+      lChangedSlots = lCatalog.getChangedSlots(lBaseVersion);
+    }
+    else {
+      lChangedSlots = null;
+    }
+    if (lChangedSlots != null) {
+      for (int lNextSlot : lChangedSlots) {
+        this.exportSlot(lCatalog, lNextSlot, lLocaleArray, lLocaleTables, lEntries);
+      }
+    }
+    else {
+      int lSize = lCatalog.getSize();
+      for (int lSlot = 0; lSlot < lSize; lSlot++) {
+        if (lCatalog.getVersionAt(lSlot) > lBaseVersion) {
+          this.exportSlot(lCatalog, lSlot, lLocaleArray, lLocaleTables, lEntries);
+        }
+      }
+    }
+    return new MessageCatalogExport(sourceID, lVersion, lBaseVersion, lEntries);
+  }
+
+  /**
+   * Method adds the messages of the passed slot to the passed export entries. Slots without a default message are
+   * ignored.
+   *
+   * @param pCatalog Catalog that should be exported. The parameter must not be null.
+   * @param pSlot Slot that should be exported. The slot must be valid.
+   * @param pLocales All locales of the catalog. The parameter must not be null.
+   * @param pLocaleTables Localized message templates of the locales in the same order as the locales. The parameter
+   * must not be null.
+   * @param pEntries List to which the messages of the slot will be added. The parameter must not be null.
+   */
+  private void exportSlot( MessageCatalog pCatalog, int pSlot, Locale[] pLocales,
+      List<ChunkedArray<MessageTemplate>> pLocaleTables, List<MessageEntry> pEntries ) {
+    MessageTemplate lDefaultMessage = pCatalog.getDefaultMessageAt(pSlot);
+    if (lDefaultMessage != null) {
+      List<Locale> lMessageLocales = new ArrayList<>();
+      List<String> lMessageTexts = new ArrayList<>();
+      for (int i = 0; i < pLocaleTables.size(); i++) {
+        MessageTemplate lMessageTemplate = pLocaleTables.get(i).get(pSlot);
+        if (lMessageTemplate != null) {
+          lMessageLocales.add(pLocales[i]);
+          lMessageTexts.add(lMessageTemplate.getPattern());
+        }
+      }
+      LocalizedObject lLocalizedObject = pCatalog.getLocalizedObjectAt(pSlot);
+      String lType;
+      String lTraceLevel;
+      if (lLocalizedObject instanceof ErrorCode) {
+        lType = MessageDataDTD.TYPE_ERROR;
+        lTraceLevel = ((ErrorCode) lLocalizedObject).getTraceLevel().name();
+      }
+      else if (lLocalizedObject instanceof MessageID) {
+        lType = MessageDataDTD.TYPE_INFO;
+        lTraceLevel = ((MessageID) lLocalizedObject).getTraceLevel().name();
+      }
+      else {
+        lType = LOCALIZED_STRING_TYPE;
+        lTraceLevel = "";
+      }
+      pEntries.add(new MessageEntry(lLocalizedObject.getLocalizationID(), lType, lTraceLevel, lDefaultMessage
+          .getPattern(), lMessageLocales, lMessageTexts));
+    }
+  }
+
+  /**
+   * Method writes an export of the messages of the repository that were changed since the passed catalog version to
+   * the passed stream.
+   * 
+   * @param pOutputStream Stream to which the export should be written. The parameter must not be null. The stream will
+   * not be closed by this method.
+   * @param pSinceVersion Catalog version since which changes should be exported. If the version is 0 or is not a
+   * version of the current catalog then all messages are exported.
+   * @return long Catalog version of the export.
+   * @throws IOException if an error occurs when writing to the stream.
+   * @see #exportMessages(long)
+   */
+  public long exportMessages( OutputStream pOutputStream, long pSinceVersion ) throws IOException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pOutputStream, "pOutputStream");
+
+    MessageCatalogExport lExport = this.exportMessages(pSinceVersion);
+    lExport.write(pOutputStream);
+    return lExport.getVersion();
+  }
+
+  /**
+   * Method reads an export from the passed stream and imports it into this repository.
+   * 
+   * @param pInputStream Stream from which the export should be read. The parameter must not be null. The stream will
+   * not be closed by this method.
+   * @return boolean Method returns true if the export was imported and false if it only contains changes that do not
+   * fit to the last import. In this case a full export has to be imported.
+   * @throws IOException if the stream can not be read or does not contain a valid export.
+   * @see #importMessages(MessageCatalogExport)
+   */
+  public boolean importMessages( InputStream pInputStream ) throws IOException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+
+    return this.importMessages(MessageCatalogExport.read(pInputStream));
+  }
+
+  /**
+   * Method imports the passed export into this repository. All messages of the export are merged with a single update
+   * of the repository. Existing {@link LocalizedObject}s keep their identity and only their messages are replaced.
+   * 
+   * An export that only contains changes can only be imported if it was created by the same repository instance as the
+   * last imported export and if its base version is not newer than the version of the last imported export.
+   * 
+   * @param pExport Export that should be imported. The parameter must not be null.
+   * @return boolean Method returns true if the export was imported and false if it only contains changes that do not
+   * fit to the last import. In this case a full export has to be imported.
+   * @throws SystemException if the export contains invalid message patterns. In this case the repository remains
+   * unchanged.
+   */
+  public synchronized boolean importMessages( MessageCatalogExport pExport ) throws SystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pExport, "pExport");
+
+    boolean lImported;
+    if (pExport.isFullExport() == true || (pExport.getSourceID() == importedSourceID
+        && pExport.getBaseVersion() <= importedVersion && pExport.getVersion() >= importedVersion)) {
+      MessageCatalog.Builder lBuilder = catalog.toBuilder();
+      for (MessageEntry lNextEntry : pExport.getEntries()) {
+        int lLocalizationID = lNextEntry.getLocalizationID();
+        LocalizedObject lLocalizedObject = lBuilder.getLocalizedObject(lLocalizationID);
+        if (lLocalizedObject == null) {
+          TraceLevel lTraceLevel = this.getTraceLevel(lNextEntry.getTraceLevel());
+          lLocalizedObject = this.newLocalizedObject(lLocalizationID, lNextEntry.getType(), lTraceLevel);
+        }
+
+        // Exported patterns are already in the form in which they are used by the repository.
+        lBuilder.putMessage(lLocalizedObject, this.createImportedMessageTemplate(lLocalizationID, lNextEntry
+            .getDefaultText()));
+        lBuilder.removeLocalizedMessages(lLocalizedObject);
+        List<Locale> lLocales = lNextEntry.getLocales();
+        List<String> lLocalizedTexts = lNextEntry.getLocalizedTexts();
+        for (int i = 0; i < lLocales.size(); i++) {
+          MessageTemplate lTemplate = this.createImportedMessageTemplate(lLocalizationID, lLocalizedTexts.get(i));
+          lBuilder.putLocalizedMessage(lLocalizedObject, lLocales.get(i), lTemplate);
+        }
+      }
+      this.publish(lBuilder);
+      importedSourceID = pExport.getSourceID();
+      importedVersion = pExport.getVersion();
+      lImported = true;
+    }
+    else {
+      lImported = false;
+    }
+    return lImported;
+  }
+
+  /**
+   * Method returns the catalog version of the last imported export. The version has to be passed to
+   * {@link #exportMessages(long)} of the exporting repository to get all later changes.
+   * 
+   * @return long Catalog version of the last imported export or 0 if no export was imported yet.
+   */
+  public synchronized long getImportedVersion( ) {
+    return importedVersion;
+  }
+
+  /**
+   * Method creates the template for an imported message pattern.
+   * 
+   * @param pLocalizationID Localization ID of the message.
+   * @param pPattern Imported message pattern. The parameter must not be null.
+   * @return {@link MessageTemplate} Created template. The method never returns null.
+   * @throws SystemException if the passed pattern is invalid.
+   */
+  private MessageTemplate createImportedMessageTemplate( int pLocalizationID, String pPattern )
+    throws SystemException {
+    try {
+      return this.createMessageTemplate(pPattern);
+    }
+    catch (IllegalArgumentException e) {
+      throw new JEAFSystemException(INVALID_MESSAGE_FORMAT, e, Integer.toString(pLocalizationID), pPattern);
+    }
+  }
+
   /**
    * Method returns the locale that is currently used for tracing.
    * 
@@ -839,17 +2158,4 @@ public final class MessageRepositoryImpl implements MessageRepository {
     }
     return lTraceLocale;
   }
-
-  /**
-   * Method checks whether the passed localization ID was already used to create a localized object.
-   * 
-   * @param pLocalizationID Integer value of the localization ID, for which this method should check if it is already
-   * used.
-   * @return boolean The method returns true if the localization ID is not used yet. Otherwise the method returns false.
-   */
-  private synchronized boolean isLocalizationIDUsed( Integer pLocalizationID ) {
-    // Check if localization ID is already used.
-    return usedLocalizationIDs.contains(pLocalizationID);
-  }
-
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+/**
+ * Class implements JMX MBean to monitor the usage of messages of the JEAF X-Fun message repository.
+ *
+ * Therefore this class wraps the message repository and adds JMX capabilities.
+ *
+ * @author JEAF Development Team
+ */
+public class MessageRepositoryManagement implements MessageRepositoryManagementMBean {
+  /**
+   * Reference to message repository that is wrapped by this class.
+   */
+  private final MessageRepositoryImpl repository;
+
+  /**
+   * Initialize object.
+   *
+   * @param pRepository Message repository that is made accessible via JMX by this class. The parameter must not be
+   * null.
+   */
+  public MessageRepositoryManagement( MessageRepositoryImpl pRepository ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pRepository, "pRepository");
+
+    repository = pRepository;
+  }
+
+  /**
+   * Method returns the number of messages in the repository.
+   *
+   * @return int Number of messages.
+   */
+  @Override
+  public int getMessageCount( ) {
+    return repository.getMessageCount();
+  }
+
+  /**
+   * Method returns the most frequently rendered messages.
+   *
+   * @param pCount Maximum number of messages that should be returned.
+   * @return String[] Description of the most frequently rendered messages ordered by their usage. The method never
+   * returns null.
+   */
+  @Override
+  public String[] getTopMessages( int pCount ) {
+    List<MessageUsage> lTopMessages = repository.getTopMessages(pCount);
+    String[] lResult = new String[lTopMessages.size()];
+    for (int i = 0; i < lResult.length; i++) {
+      lResult[i] = lTopMessages.get(i).toString();
+    }
+    return lResult;
+  }
+
+  /**
+   * Method returns the localization IDs of all messages that were never rendered.
+   *
+   * @return int[] Localization IDs of all unused messages. The method never returns null.
+   */
+  @Override
+  public int[] getUnusedLocalizationIDs( ) {
+    return repository.getUnusedLocalizationIDs();
+  }
+
+  /**
+   * Method returns how often messages were requested per locale.
+   *
+   * @return String[] Number of requests per locale. The method never returns null.
+   */
+  @Override
+  public String[] getLocaleUsage( ) {
+    Map<Locale, Long> lLocaleUsage = repository.getLocaleUsage();
+    String[] lResult = new String[lLocaleUsage.size()];
+    int i = 0;
+    for (Entry<Locale, Long> lNextEntry : lLocaleUsage.entrySet()) {
+      lResult[i] = lNextEntry.getKey().toString() + "=" + lNextEntry.getValue();
+      i++;
+    }
+    return lResult;
+  }
+
+  /**
+   * Method resets all usage statistics.
+   */
+  @Override
+  public void resetUsageStatistics( ) {
+    repository.resetUsageStatistics();
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+/**
+ * Interface defines possibilities that can be used to monitor the usage of messages of the JEAF X-Fun message
+ * repository via JMX.
+ *
+ * @author JEAF Development Team
+ */
+public interface MessageRepositoryManagementMBean {
+  /**
+   * Method returns the number of messages in the repository.
+   *
+   * @return int Number of messages.
+   */
+  int getMessageCount( );
+
+  /**
+   * Method returns the most frequently rendered messages.
+   *
+   * @param pCount Maximum number of messages that should be returned.
+   * @return String[] Description of the most frequently rendered messages ordered by their usage. The method never
+   * returns null.
+   */
+  String[] getTopMessages( int pCount );
+
+  /**
+   * Method returns the localization IDs of all messages that were never rendered.
+   *
+   * @return int[] Localization IDs of all unused messages. The method never returns null.
+   */
+  int[] getUnusedLocalizationIDs( );
+
+  /**
+   * Method returns how often messages were requested per locale.
+   *
+   * @return String[] Number of requests per locale. The method never returns null.
+   */
+  String[] getLocaleUsage( );
+
+  /**
+   * Method resets all usage statistics.
+   */
+  void resetUsageStatistics( );
+}
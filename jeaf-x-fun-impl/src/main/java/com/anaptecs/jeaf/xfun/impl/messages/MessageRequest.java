@@ -0,0 +1,60 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.anaptecs.jeaf.xfun.api.messages.LocalizedObject;
+
+/**
+ * Class describes a single message that should be rendered as part of a batch (see
+ * {@link MessageRepositoryImpl#getMessages(java.util.Locale, java.util.List, boolean)}).
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageRequest {
+  /**
+   * Localized object that identifies the message.
+   */
+  private final LocalizedObject localizedObject;
+
+  /**
+   * Parameters of the message. The attribute may be null.
+   */
+  private final String[] messageParameters;
+
+  /**
+   * Initialize object.
+   *
+   * @param pLocalizedObject Localized object that identifies the message. The parameter must not be null.
+   * @param pMessageParameters Parameter values that should be used to create the parameterized message. If the message
+   * does not need any parameters pMessageParameters may also be null.
+   */
+  public MessageRequest( LocalizedObject pLocalizedObject, String... pMessageParameters ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pLocalizedObject, "pLocalizedObject");
+
+    localizedObject = pLocalizedObject;
+    messageParameters = pMessageParameters;
+  }
+
+  /**
+   * Method returns the localized object that identifies the message.
+   *
+   * @return {@link LocalizedObject} Localized object of the message. The method never returns null.
+   */
+  public LocalizedObject getLocalizedObject( ) {
+    return localizedObject;
+  }
+
+  /**
+   * Method returns the parameters of the message.
+   *
+   * @return {@link String} Parameters of the message. The method may return null.
+   */
+  public String[] getMessageParameters( ) {
+    return messageParameters;
+  }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.anaptecs.jeaf.tools.api.Tools;
+import com.anaptecs.jeaf.xfun.annotations.MessageResource;
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.anaptecs.jeaf.xfun.api.messages.MessageDataDTD;
+
+/**
+ * Class reads message resources from the classpath. Besides loading a single message resource the class is also able
+ * to read a set of independent message resources in parallel. This is used during the bootstrap of the message
+ * repository to parse all configured message resources on a fork-join pool before they are merged into the repository.
+ *
+ * The class intentionally does not depend on {@link MessageRepositoryImpl}. Loading in parallel is done while the
+ * repository class is still being initialized and worker threads must not touch a class whose initialization is in
+ * progress.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageResourceLoader {
+  /**
+   * Name of the resource file that lists all classes that define message resources (see {@link MessageResource}).
+   */
+  public static final String MESSAGE_RESOURCES_FILE = "META-INF/JEAF/XFun/MessageResources";
+
+  /**
+   * Prefix of comment lines inside {@link #MESSAGE_RESOURCES_FILE}.
+   */
+  private static final String COMMENT_PREFIX = "#";
+
+  /**
+   * Constructor is private to prevent that instances of this class will be created.
+   */
+  private MessageResourceLoader( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method loads the message resource with the passed resource name. Since this is the internal part of the message
+   * loading process no exception handling is done within this method. Exceptions have to be handled by the caller.
+   *
+   * If a precompiled binary catalog (see {@link BinaryMessageCatalog}) exists for the message resource then the catalog
+   * will be loaded instead of parsing the XML file. If the XML file is also available then the catalog is only used if
+   * it was compiled from exactly this XML file. Otherwise the catalog is outdated and the XML file will be parsed.
+   *
+   * @param pMessageResource Name of the resource file that should be loaded. The parameter must point to a file
+   * containing the message data. The parameter must not be null.
+   * @param pClassLoader Class loader that should be used to load the resource. The parameter must not be null.
+   * @return {@link List} All message entries of the resource. The method never returns null.
+   * @throws IOException if an error occurs during the file access or the parsing process.
+   */
+  public static List<MessageEntry> loadResource( String pMessageResource, ClassLoader pClassLoader )
+    throws IOException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pMessageResource, "pMessageResource");
+    Check.checkInvalidParameterNull(pClassLoader, "pClassLoader");
+
+    // Read XML file and try to find precompiled binary catalog for the passed resource.
+    byte[] lXMLContent = MessageResourceLoader.readResource(pMessageResource, pClassLoader);
+    URL lCatalogURL = pClassLoader.getResource(BinaryMessageCatalog.getCatalogResourceName(pMessageResource));
+    ByteBuffer lCatalog;
+    if (lCatalogURL != null) {
+      lCatalog = BinaryMessageCatalog.open(lCatalogURL);
+    }
+    else {
+      lCatalog = null;
+    }
+
+    List<MessageEntry> lMessageEntries;
+    if (lCatalog != null && (lXMLContent == null
+        || BinaryMessageCatalog.readSourceChecksum(lCatalog) == BinaryMessageCatalog.checksum(lXMLContent))) {
+      lMessageEntries = BinaryMessageCatalog.read(lCatalog);
+    }
+    // No catalog available or catalog does not match the XML file, so we have to parse the XML file.
+    else if (lXMLContent != null) {
+      lMessageEntries = MessageResourceLoader.parseResource(pMessageResource, lXMLContent);
+    }
+    // Resource could not be found within the application class path.
+    else {
+      String lMessage = "Resource '" + pMessageResource + "' could not be found within the application class path.";
+      throw new IOException(lMessage);
+    }
+    // Return list with message entries.
+    return lMessageEntries;
+  }
+
+  /**
+   * Method reads the content of the passed resource.
+   *
+   * @param pResource Name of the resource that should be read. The parameter must not be null.
+   * @param pClassLoader Class loader that should be used to load the resource. The parameter must not be null.
+   * @return byte[] Content of the resource or null if the resource could not be found.
+   * @throws IOException if an error occurs when reading the resource.
+   */
+  static byte[] readResource( String pResource, ClassLoader pClassLoader ) throws IOException {
+    byte[] lContent;
+    InputStream lResourceStream = pClassLoader.getResourceAsStream(pResource);
+    if (lResourceStream != null) {
+      try {
+        lContent = lResourceStream.readAllBytes();
+      }
+      finally {
+        lResourceStream.close();
+      }
+    }
+    else {
+      lContent = null;
+    }
+    return lContent;
+  }
+
+  /**
+   * Method parses the passed content of an XML message resource.
+   *
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @param pXMLContent Content of the message resource. The parameter must not be null.
+   * @return {@link List} All message entries of the resource. The method never returns null.
+   * @throws IOException if an error occurs during the parsing process.
+   */
+  private static List<MessageEntry> parseResource( String pMessageResource, byte[] pXMLContent ) throws IOException {
+    // Load passed resource as XML file.
+    Document lDocument = Tools.getXMLTools().parseInputStream(new ByteArrayInputStream(pXMLContent), true,
+        MessageDataDTD.SYSTEM_ID, pMessageResource);
+
+    // Get all elements with name MESSAGE and convert them to message entries.
+    NodeList lMessageNodeList = lDocument.getElementsByTagName(MessageDataDTD.MESSAGE);
+    Assert.assertNotNull(lMessageNodeList, "lMessageNodeList");
+
+    Collection<Element> lMessageElements = new ArrayList<>(lMessageNodeList.getLength());
+    for (int i = 0; i < lMessageNodeList.getLength(); i++) {
+      lMessageElements.add((Element) lMessageNodeList.item(i));
+    }
+    return MessageResourceLoader.toMessageEntries(lMessageElements);
+  }
+
+  /**
+   * Method loads all passed message resources in parallel using a fork-join pool with the passed parallelism. Message
+   * resources that can not be loaded are not part of the result. It's up to the caller to load them again in order to
+   * get a proper error.
+   *
+   * @param pMessageResources Names of all message resources that should be loaded. The parameter must not be null.
+   * @param pClassLoader Class loader that should be used to load the resources. The parameter must not be null.
+   * @param pParallelism Maximum number of threads that are used to load the resources. The value must be greater than
+   * zero.
+   * @return {@link Map} Map with the message entries of all resources that could be loaded. The key of the map is the
+   * name of the message resource. The method never returns null.
+   */
+  public static Map<String, List<MessageEntry>> loadResources( Collection<String> pMessageResources,
+      ClassLoader pClassLoader, int pParallelism ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pMessageResources, "pMessageResources");
+    Check.checkInvalidParameterNull(pClassLoader, "pClassLoader");
+
+    // Make sure that XML tools are initialized by the calling thread. Otherwise their initialization would be triggered
+    // concurrently by the worker threads.
+    Tools.getXMLTools();
+
+    // Create one task per message resource.
+    List<String> lMessageResources = new ArrayList<>(new LinkedHashSet<>(pMessageResources));
+    List<Callable<List<MessageEntry>>> lTasks = new ArrayList<>(lMessageResources.size());
+    for (String lNextResource : lMessageResources) {
+      lTasks.add(( ) -> MessageResourceLoader.loadResource(lNextResource, pClassLoader));
+    }
+
+    // Execute all tasks and collect their results.
+    Map<String, List<MessageEntry>> lLoadedResources = new HashMap<>();
+    int lParallelism = Math.max(1, Math.min(pParallelism, lTasks.size()));
+    ForkJoinPool lPool = new ForkJoinPool(lParallelism);
+    try {
+      List<Future<List<MessageEntry>>> lResults = lPool.invokeAll(lTasks);
+      for (int i = 0; i < lResults.size(); i++) {
+        try {
+          lLoadedResources.put(lMessageResources.get(i), lResults.get(i).get());
+        }
+        // Resource could not be loaded. It will be loaded again by the caller who also takes care about error handling.
+        catch (ExecutionException e) {
+          // Nothing to do.
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      lPool.shutdown();
+    }
+    return lLoadedResources;
+  }
+
+  /**
+   * Method resolves the names of all message resources that are defined by the classes that are listed in all
+   * {@link #MESSAGE_RESOURCES_FILE} files on the classpath. The classes will not be initialized by this method. Classes
+   * that can not be found or that are not annotated with {@link MessageResource} are ignored.
+   *
+   * @param pClassLoader Class loader that should be used. The parameter must not be null.
+   * @return {@link Set} Names of all message resources in the order in which they are configured. The method never
+   * returns null.
+   * @throws IOException if one of the files can not be read.
+   */
+  public static Set<String> resolveConfiguredResources( ClassLoader pClassLoader ) throws IOException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pClassLoader, "pClassLoader");
+
+    Set<String> lMessageResources = new LinkedHashSet<>();
+    Enumeration<URL> lFiles = pClassLoader.getResources(MESSAGE_RESOURCES_FILE);
+    while (lFiles.hasMoreElements()) {
+      URL lNextFile = lFiles.nextElement();
+      try (BufferedReader lReader =
+          new BufferedReader(new InputStreamReader(lNextFile.openStream(), StandardCharsets.UTF_8))) {
+        String lLine;
+        while ((lLine = lReader.readLine()) != null) {
+          String lClassName = lLine.trim();
+          if (lClassName.isEmpty() == false && lClassName.startsWith(COMMENT_PREFIX) == false) {
+            String lMessageResource = MessageResourceLoader.getMessageResource(lClassName, pClassLoader);
+            if (lMessageResource != null) {
+              lMessageResources.add(lMessageResource);
+            }
+          }
+        }
+      }
+    }
+    return Collections.unmodifiableSet(lMessageResources);
+  }
+
+  /**
+   * Method returns the name of the message resource that is defined by the class with the passed name.
+   *
+   * @param pClassName Name of the class. The parameter must not be null.
+   * @param pClassLoader Class loader that should be used to load the class. The parameter must not be null.
+   * @return {@link String} Name of the message resource or null if the class can not be loaded or is not annotated
+   * with {@link MessageResource}.
+   */
+  private static String getMessageResource( String pClassName, ClassLoader pClassLoader ) {
+    String lMessageResource;
+    try {
+      // Class must not be initialized as this would load the message resource immediately.
+      Class<?> lClass = Class.forName(pClassName, false, pClassLoader);
+      MessageResource lAnnotation = lClass.getAnnotation(MessageResource.class);
+      if (lAnnotation != null) {
+        lMessageResource = lAnnotation.path();
+      }
+      else {
+        lMessageResource = null;
+      }
+    }
+    // Invalid configurations are reported when the classes are resolved through the X-Fun configuration.
+    catch (ClassNotFoundException | LinkageError e) {
+      lMessageResource = null;
+    }
+    return lMessageResource;
+  }
+
+  /**
+   * Method converts the passed DOM elements into message entries.
+   *
+   * @param pMessageElements Collection with all message elements that should be converted. The parameter must not be
+   * null.
+   * @return {@link List} List with message entries in the same order as the passed elements. The method never returns
+   * null.
+   */
+  public static List<MessageEntry> toMessageEntries( Collection<Element> pMessageElements ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pMessageElements, "pMessageElements");
+
+    List<MessageEntry> lMessageEntries = new ArrayList<>(pMessageElements.size());
+    for (Element lNextElement : pMessageElements) {
+      lMessageEntries.add(MessageEntry.fromElement(lNextElement));
+    }
+    return lMessageEntries;
+  }
+}
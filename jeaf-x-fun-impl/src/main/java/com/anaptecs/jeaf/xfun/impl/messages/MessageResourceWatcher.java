@@ -0,0 +1,266 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+
+/**
+ * Class watches the files of message resources for changes and reloads them into the message repository (see
+ * {@link MessageRepositoryImpl#reloadResource(String, Path)}). Only message resources that are available as files can
+ * be watched. This is the case for exploded deployments or if a directory with message resources is configured (see
+ * {@link MessageRepositoryConfiguration#RELOAD_DIRECTORY}).
+ *
+ * Changes are detected and processed by a single daemon thread. As editors often write a file in several steps, events
+ * are collected for a short time before a resource is reloaded.
+ *
+ * @author JEAF Development Team
+ */
+final class MessageResourceWatcher implements Runnable {
+  /**
+   * Time in milliseconds for which changes are collected before message resources are reloaded.
+   */
+  private static final long SETTLE_TIME = 200;
+
+  /**
+   * Name of the thread that watches the message resources.
+   */
+  private static final String THREAD_NAME = "JEAF X-Fun Message Resource Watcher";
+
+  /**
+   * Repository into which changed resources are reloaded.
+   */
+  private final MessageRepositoryImpl repository;
+
+  /**
+   * Directory that contains the message resources. The attribute is null if resources are resolved from the
+   * classpath.
+   */
+  private final File directory;
+
+  /**
+   * Watch service that is used to detect changes.
+   */
+  private final WatchService watchService;
+
+  /**
+   * Names of all watched message resources by their file.
+   */
+  private final Map<Path, String> watchedFiles = new ConcurrentHashMap<>();
+
+  /**
+   * Watched directories by their watch key.
+   */
+  private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+  /**
+   * Thread that processes the changes. The attribute is null if the watcher was not started or is already stopped.
+   */
+  private Thread watcherThread;
+
+  /**
+   * Shutdown hook that stops the watcher when the JVM shuts down. The attribute is null if the watcher is not running.
+   */
+  private Thread shutdownHook;
+
+  /**
+   * Initialize object.
+   *
+   * @param pRepository Repository into which changed resources are reloaded. The parameter must not be null.
+   * @param pDirectory Directory that contains the message resources. The parameter may be null. In this case the
+   * resources are resolved from the classpath.
+   * @throws IOException if the watch service can not be created.
+   */
+  MessageResourceWatcher( MessageRepositoryImpl pRepository, File pDirectory ) throws IOException {
+    // Check parameter.
+    Assert.assertNotNull(pRepository, "pRepository");
+
+    repository = pRepository;
+    directory = pDirectory;
+    watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  /**
+   * Method starts watching for changes.
+   */
+  synchronized void start( ) {
+    if (watcherThread == null) {
+      watcherThread = new Thread(this, THREAD_NAME);
+      watcherThread.setDaemon(true);
+      watcherThread.start();
+
+      // Watch service has to be closed when the JVM shuts down.
+      shutdownHook = new Thread(this::stop, THREAD_NAME + " Shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+  }
+
+  /**
+   * Method stops watching for changes. The watch service is closed and the thread that processes the changes is
+   * interrupted. A stopped watcher can not be started again.
+   */
+  void stop( ) {
+    Thread lThread;
+    Thread lShutdownHook;
+    synchronized (this) {
+      lThread = watcherThread;
+      lShutdownHook = shutdownHook;
+      watcherThread = null;
+      shutdownHook = null;
+    }
+    try {
+      watchService.close();
+    }
+    catch (IOException e) {
+      XFun.getTrace().warn("Unable to close watch service for message resources. " + e.getMessage());
+    }
+    if (lThread != null) {
+      lThread.interrupt();
+    }
+
+    // Shutdown hook is no longer needed unless the watcher is stopped by it.
+    if (lShutdownHook != null && lShutdownHook != Thread.currentThread()) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(lShutdownHook);
+      }
+      catch (IllegalStateException e) {
+        // JVM is already shutting down.
+      }
+    }
+    watchedFiles.clear();
+    watchedDirectories.clear();
+  }
+
+  /**
+   * Method starts watching the message resource with the passed name. If the resource is not available as file then it
+   * can not be watched and the call will be ignored.
+   *
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   */
+  void watch( String pMessageResource ) {
+    Path lFile = this.resolveFile(pMessageResource);
+    if (lFile != null && watchedFiles.containsKey(lFile) == false) {
+      try {
+        Path lDirectory = lFile.getParent();
+        WatchKey lKey = lDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirectories.put(lKey, lDirectory);
+        watchedFiles.put(lFile, pMessageResource);
+        XFun.getTrace().debug("Watching message resource " + pMessageResource + " at " + lFile);
+      }
+      catch (IOException | ClosedWatchServiceException e) {
+        XFun.getTrace().error("Unable to watch message resource " + pMessageResource, e);
+      }
+    }
+  }
+
+  /**
+   * Method resolves the file of the passed message resource.
+   *
+   * @param pMessageResource Name of the message resource. The parameter must not be null.
+   * @return {@link Path} File of the message resource or null if the resource is not available as file.
+   */
+  private Path resolveFile( String pMessageResource ) {
+    Path lFile = null;
+
+    // Configured directory has precedence over the classpath.
+    if (directory != null) {
+      Path lCandidate = directory.toPath().resolve(pMessageResource);
+      if (Files.isRegularFile(lCandidate) == true) {
+        lFile = lCandidate;
+      }
+    }
+    if (lFile == null) {
+      URL lURL = MessageResourceWatcher.class.getClassLoader().getResource(pMessageResource);
+      if (lURL != null && "file".equals(lURL.getProtocol()) == true) {
+        try {
+          lFile = Paths.get(lURL.toURI());
+        }
+        catch (URISyntaxException | IllegalArgumentException e) {
+          lFile = null;
+        }
+      }
+    }
+    if (lFile != null) {
+      lFile = lFile.toAbsolutePath().normalize();
+    }
+    return lFile;
+  }
+
+  /**
+   * Method processes changes of watched files until the watcher is stopped.
+   */
+  @Override
+  public void run( ) {
+    try {
+      while (true) {
+        // Wait for first change and then collect further changes until things settle down.
+        Map<Path, String> lChangedFiles = new LinkedHashMap<>();
+        WatchKey lKey = watchService.take();
+        while (lKey != null) {
+          this.collectChanges(lKey, lChangedFiles);
+          lKey = watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+        }
+
+        // Reload all changed resources.
+        for (Entry<Path, String> lNextEntry : lChangedFiles.entrySet()) {
+          try {
+            repository.reloadResource(lNextEntry.getValue(), lNextEntry.getKey());
+          }
+          // Errors are already traced by the repository. The old messages remain available.
+          catch (RuntimeException e) {
+            XFun.getTrace().warn("Message resource " + lNextEntry.getValue() + " was not reloaded.");
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ClosedWatchServiceException e) {
+      // Watch service was closed.
+    }
+  }
+
+  /**
+   * Method collects all changed message resources that are reported by the passed watch key.
+   *
+   * @param pKey Watch key whose events should be processed. The parameter must not be null.
+   * @param pChangedFiles Map to which all changed message resources are added. The parameter must not be null.
+   */
+  private void collectChanges( WatchKey pKey, Map<Path, String> pChangedFiles ) {
+    Path lDirectory = watchedDirectories.get(pKey);
+    for (WatchEvent<?> lNextEvent : pKey.pollEvents()) {
+      if (lDirectory != null && lNextEvent.context() instanceof Path) {
+        Path lFile = lDirectory.resolve((Path) lNextEvent.context()).toAbsolutePath().normalize();
+        String lMessageResource = watchedFiles.get(lFile);
+        if (lMessageResource != null) {
+          pChangedFiles.put(lFile, lMessageResource);
+        }
+      }
+    }
+    pKey.reset();
+  }
+}
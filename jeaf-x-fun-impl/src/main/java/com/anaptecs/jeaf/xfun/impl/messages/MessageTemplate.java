@@ -0,0 +1,1125 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ChoiceFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.anaptecs.jeaf.xfun.api.checks.Assert;
+
+/**
+ * Class represents a precompiled message pattern. A message template consists of literal segments and argument slots.
+ * In contrast to {@link MessageFormat} message templates are immutable and thus can be shared across threads without
+ * any synchronization. Messages can be rendered directly into a caller supplied {@link StringBuilder}.
+ *
+ * Message templates produce exactly the same result as {@link MessageFormat#format(Object)}. Format types and styles
+ * (e.g. <code>{0,number,#.##}</code>) are supported. As {@link Format} objects are not thread-safe, rendering of
+ * arguments with an explicit format type is synchronized on the format object. Arguments without explicit format type,
+ * which is the common case for messages, are rendered without any locking.
+ *
+ * Templates can also be created lazily (see {@link #createLazy(String)}). In this case the pattern is only compiled
+ * when the template is used for the first time.
+ *
+ * Besides that templates can render typed arguments for an arbitrary locale (see
+ * {@link #renderLocalized(StringBuilder, Locale, Object...)}). In this case formats are taken from a per-thread cache
+ * (see {@link FormatCache}) and java.time values are supported as well.
+ *
+ * Templates whose pattern is stored off-heap (see {@link MessagePatternPool}) do not keep their literal segments on the
+ * heap. Their compiled structure only consists of the positions of the literal segments within the off-heap storage
+ * and the argument indexes. Literals are decoded directly from the off-heap storage when the template is rendered.
+ * Off-heap templates with explicit format types can not be represented this way. Their compiled structures are cached
+ * per thread for the most recently used templates.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageTemplate {
+  /**
+   * Constant for an empty array of formats.
+   */
+  private static final Format[] NO_FORMATS = new Format[0];
+
+  /**
+   * Date that is used to render {@link LocalTime} values.
+   */
+  private static final LocalDate TIME_BASE_DATE = LocalDate.of(1970, 1, 1);
+
+  /**
+   * Maximum number of compiled structures of off-heap templates with explicit format types that are cached per thread.
+   */
+  private static final int MAX_CACHED_STRUCTURES = 256;
+
+  /**
+   * Compiled structures of the most recently used off-heap templates with explicit format types of the current thread.
+   * Templates are compared by identity.
+   */
+  private static final ThreadLocal<Map<MessageTemplate, Structure>> STRUCTURE_CACHE =
+      ThreadLocal.withInitial(( ) -> new LinkedHashMap<MessageTemplate, Structure>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<MessageTemplate, Structure> pEldest ) {
+          return this.size() > MAX_CACHED_STRUCTURES;
+        }
+      });
+
+  /**
+   * Pattern from which the template was created. In case of pooled templates (see {@link MessagePatternPool}) the
+   * attribute is null and the pattern is stored in a shared byte array.
+   */
+  private final String pattern;
+
+  /**
+   * Shared UTF-8 encoded storage that contains the pattern of a pooled template. The attribute is null for all other
+   * templates.
+   */
+  private final byte[] patternData;
+
+  /**
+   * Direct storage outside of the Java heap that contains the UTF-8 encoded pattern of an off-heap template. The
+   * attribute is null for all other templates. The position of the buffer is never changed.
+   */
+  private final ByteBuffer patternBuffer;
+
+  /**
+   * Offset of the pattern of a pooled template within {@link #patternData} or {@link #patternBuffer}.
+   */
+  private final int patternOffset;
+
+  /**
+   * Length in bytes of the pattern of a pooled template.
+   */
+  private final int patternLength;
+
+  /**
+   * Locale that is used to format arguments. As it is the case for {@link MessageFormat} this is the default locale
+   * for formatting at the time when the template is created.
+   */
+  private final Locale locale;
+
+  /**
+   * Compiled structure of the template. In case of lazily created templates the structure is created on first use.
+   * Concurrent compilation of the same template is harmless as the result is always the same.
+   */
+  private volatile Structure structure;
+
+  /**
+   * Initialize object.
+   *
+   * @param pPattern Message pattern as it is also used by {@link MessageFormat}. The parameter must not be null.
+   * @throws IllegalArgumentException if the passed pattern is invalid.
+   */
+  public MessageTemplate( String pPattern ) {
+    // Check parameter.
+    Assert.assertNotNull(pPattern, "pPattern");
+
+    // Message format object is only required to compile the pattern. It does not need to be kept as it can be created
+    // again from the pattern at any time.
+    MessageFormat lMessageFormat = new MessageFormat(pPattern);
+    structure = new Structure(lMessageFormat, false);
+    pattern = pPattern;
+    patternData = null;
+    patternBuffer = null;
+    patternOffset = 0;
+    patternLength = 0;
+    locale = lMessageFormat.getLocale();
+  }
+
+  /**
+   * Initialize object.
+   *
+   * @param pMessageFormat Message format object from which the template should be created. The parameter must not be
+   * null. The passed object will not be modified and is not referenced by the template.
+   */
+  public MessageTemplate( MessageFormat pMessageFormat ) {
+    // Check parameter.
+    Assert.assertNotNull(pMessageFormat, "pMessageFormat");
+
+    // Formats of the passed object might have been changed in a way that can not be expressed by a pattern. Therefore
+    // a copy of the message format object is kept.
+    structure = new Structure(pMessageFormat, true);
+    pattern = structure.messageFormat.toPattern();
+    patternData = null;
+    patternBuffer = null;
+    patternOffset = 0;
+    patternLength = 0;
+    locale = structure.messageFormat.getLocale();
+  }
+
+  /**
+   * Initialize object without compiling the passed pattern.
+   *
+   * @param pPattern Message pattern. The parameter must not be null.
+   * @param pLocale Locale that is used to format arguments. The parameter must not be null.
+   */
+  private MessageTemplate( String pPattern, Locale pLocale ) {
+    pattern = pPattern;
+    patternData = null;
+    patternBuffer = null;
+    patternOffset = 0;
+    patternLength = 0;
+    locale = pLocale;
+  }
+
+  /**
+   * Initialize object without compiling its pattern. The pattern is stored in the passed shared byte array.
+   *
+   * @param pPatternData Shared UTF-8 encoded storage that contains the pattern. The parameter must not be null.
+   * @param pPatternOffset Offset of the pattern within the passed storage.
+   * @param pPatternLength Length of the pattern in bytes.
+   * @param pLocale Locale that is used to format arguments. The parameter must not be null.
+   */
+  MessageTemplate( byte[] pPatternData, int pPatternOffset, int pPatternLength, Locale pLocale ) {
+    // Check parameters.
+    Assert.assertNotNull(pPatternData, "pPatternData");
+    Assert.assertNotNull(pLocale, "pLocale");
+
+    pattern = null;
+    patternData = pPatternData;
+    patternBuffer = null;
+    patternOffset = pPatternOffset;
+    patternLength = pPatternLength;
+    locale = pLocale;
+  }
+
+  /**
+   * Initialize object without compiling its pattern. The pattern is stored in the passed off-heap buffer.
+   *
+   * @param pPatternBuffer Direct storage that contains the UTF-8 encoded pattern. The parameter must not be null.
+   * @param pPatternOffset Offset of the pattern within the passed storage.
+   * @param pPatternLength Length of the pattern in bytes.
+   * @param pLocale Locale that is used to format arguments. The parameter must not be null.
+   */
+  MessageTemplate( ByteBuffer pPatternBuffer, int pPatternOffset, int pPatternLength, Locale pLocale ) {
+    // Check parameters.
+    Assert.assertNotNull(pPatternBuffer, "pPatternBuffer");
+    Assert.assertNotNull(pLocale, "pLocale");
+
+    pattern = null;
+    patternData = null;
+    patternBuffer = pPatternBuffer;
+    patternOffset = pPatternOffset;
+    patternLength = pPatternLength;
+    locale = pLocale;
+  }
+
+  /**
+   * Method creates a template whose pattern will only be compiled when the template is used for the first time. Lazy
+   * templates only keep the raw pattern until then. This reduces startup time and memory consumption for messages that
+   * are never rendered.
+   *
+   * @param pPattern Message pattern as it is also used by {@link MessageFormat}. The parameter must not be null.
+   * @return {@link MessageTemplate} Lazy template. The method never returns null. If the pattern is invalid then an
+   * {@link IllegalArgumentException} will be thrown on first use of the template.
+   */
+  public static MessageTemplate createLazy( String pPattern ) {
+    // Check parameter.
+    Assert.assertNotNull(pPattern, "pPattern");
+
+    // As it is the case for MessageFormat the current default locale for formatting is used.
+    return new MessageTemplate(pPattern, Locale.getDefault(Locale.Category.FORMAT));
+  }
+
+  /**
+   * Method creates a template that renders the passed text exactly as it is. Characters that have a special meaning in
+   * message patterns are quoted and arguments are ignored.
+   *
+   * @param pText Text that should be rendered by the template. The parameter must not be null.
+   * @return {@link MessageTemplate} Template for the passed text. The method never returns null.
+   */
+  public static MessageTemplate createLiteral( String pText ) {
+    // Check parameter.
+    Assert.assertNotNull(pText, "pText");
+
+    // Braces are quoted and single quotes are doubled. Quoted sections are only closed before other characters, as a
+    // closing quote that is directly followed by a doubled single quote would be misinterpreted.
+    StringBuilder lPattern = new StringBuilder(pText.length() + 8);
+    boolean lQuoted = false;
+    for (int i = 0; i < pText.length(); i++) {
+      char lNextChar = pText.charAt(i);
+      if (lNextChar == '{' || lNextChar == '}') {
+        if (lQuoted == false) {
+          lPattern.append('\'');
+          lQuoted = true;
+        }
+        lPattern.append(lNextChar);
+      }
+      else if (lNextChar == '\'') {
+        lPattern.append("''");
+      }
+      else {
+        if (lQuoted == true) {
+          lPattern.append('\'');
+          lQuoted = false;
+        }
+        lPattern.append(lNextChar);
+      }
+    }
+    if (lQuoted == true) {
+      lPattern.append('\'');
+    }
+    return new MessageTemplate(lPattern.toString());
+  }
+
+  /**
+   * Method checks if the pattern of this template is already compiled. Off-heap templates with explicit format types
+   * never keep their compiled structure.
+   *
+   * @return boolean Method returns true if the template is compiled and false otherwise.
+   */
+  public boolean isCompiled( ) {
+    return structure != null;
+  }
+
+  /**
+   * Method ensures that the pattern of this template is compiled.
+   *
+   * @return {@link MessageTemplate} This template. The method never returns null.
+   * @throws IllegalArgumentException if the pattern of the template is invalid.
+   */
+  public MessageTemplate compile( ) {
+    this.getStructure();
+    return this;
+  }
+
+  /**
+   * Method returns the compiled structure of this template. If the template is not compiled yet this will be done now.
+   *
+   * @return {@link Structure} Compiled structure. The method never returns null.
+   */
+  private Structure getStructure( ) {
+    Structure lStructure = structure;
+    if (lStructure == null) {
+      if (patternBuffer != null) {
+        lStructure = STRUCTURE_CACHE.get().get(this);
+        if (lStructure == null) {
+          lStructure = this.compileOffHeap();
+        }
+      }
+      else {
+        lStructure = new Structure(new MessageFormat(this.getPattern(), locale), false);
+        structure = lStructure;
+      }
+    }
+    return lStructure;
+  }
+
+  /**
+   * Method compiles the pattern of this off-heap template. If the pattern does not use any explicit format type then
+   * the resulting structure only references the literal segments within the off-heap storage and is kept by the
+   * template. Otherwise the structure contains format objects and literals. It is only cached per thread so that it
+   * does not stay on the heap forever.
+   *
+   * @return {@link Structure} Compiled structure. The method never returns null.
+   */
+  private Structure compileOffHeap( ) {
+    // Read pattern through a duplicate as the buffer is shared by many templates and threads.
+    byte[] lBytes = new byte[patternLength];
+    ByteBuffer lBuffer = patternBuffer.duplicate();
+    lBuffer.position(patternOffset);
+    lBuffer.get(lBytes);
+
+    // Pattern is always validated by message format.
+    MessageFormat lMessageFormat = new MessageFormat(new String(lBytes, StandardCharsets.UTF_8), locale);
+    boolean lFormatsDefined = false;
+    for (Format lNextFormat : lMessageFormat.getFormats()) {
+      if (lNextFormat != null) {
+        lFormatsDefined = true;
+      }
+    }
+    Structure lStructure;
+    if (lFormatsDefined == false) {
+      lStructure = new Structure(patternBuffer, patternOffset, lBytes);
+      structure = lStructure;
+    }
+    else {
+      lStructure = new Structure(lMessageFormat, false);
+      STRUCTURE_CACHE.get().put(this, lStructure);
+    }
+    return lStructure;
+  }
+
+  /**
+   * Method splits the passed UTF-8 encoded pattern into the byte ranges of its literal segments and argument indexes.
+   * The method follows the same rules as {@link #parse(String, List, List)}. As all characters with a special meaning
+   * are ASCII characters the pattern does not have to be decoded. Quotes are not part of any range, so that every
+   * literal segment consists of one or more ranges whose decoded content has to be concatenated.
+   *
+   * @param pPattern UTF-8 encoded pattern that should be parsed. The parameter must not be null.
+   * @param pRanges List to which offset and length of all ranges will be added. The parameter must not be null.
+   * @param pLiteralRanges List to which the index of the first range of every literal segment will be added. The
+   * parameter must not be null.
+   * @param pArgumentIndexes List to which the argument indexes will be added. The parameter must not be null.
+   */
+  private static void parse( byte[] pPattern, List<Integer> pRanges, List<Integer> pLiteralRanges,
+      List<Integer> pArgumentIndexes ) {
+    int lRangeStart = -1;
+    int lRangeEnd = -1;
+    int lIndex = 0;
+    boolean lInArgument = false;
+    boolean lInIndex = false;
+    boolean lInQuote = false;
+    int lBraceStack = 0;
+    pLiteralRanges.add(0);
+    for (int i = 0; i < pPattern.length; i++) {
+      byte lByte = pPattern[i];
+      if (lInArgument == false) {
+        boolean lLiteral;
+        if (lByte == '\'') {
+          // Two single quotes represent one single quote. Only the first one is part of the literal.
+          lLiteral = i + 1 < pPattern.length && pPattern[i + 1] == '\'';
+          if (lLiteral == false) {
+            lInQuote = !lInQuote;
+          }
+        }
+        else if (lByte == '{' && lInQuote == false) {
+          lInArgument = true;
+          lInIndex = true;
+          MessageTemplate.addRange(pRanges, lRangeStart, lRangeEnd);
+          lRangeStart = -1;
+          lRangeEnd = -1;
+          pLiteralRanges.add(pRanges.size() / 2);
+          lLiteral = false;
+        }
+        else {
+          lLiteral = true;
+        }
+
+        // Extend current range or start a new one if the previous byte was not part of the literal.
+        if (lLiteral == true) {
+          if (lRangeEnd != i) {
+            MessageTemplate.addRange(pRanges, lRangeStart, lRangeEnd);
+            lRangeStart = i;
+          }
+          lRangeEnd = i + 1;
+          if (lByte == '\'') {
+            i++;
+          }
+        }
+      }
+      // Quoted text inside format type or style.
+      else if (lInQuote == true) {
+        if (lByte == '\'') {
+          lInQuote = false;
+        }
+      }
+      else {
+        switch (lByte) {
+          case ',':
+            lInIndex = false;
+            break;
+          case '{':
+            lBraceStack++;
+            break;
+          case '}':
+            if (lBraceStack == 0) {
+              pArgumentIndexes.add(lIndex);
+              lIndex = 0;
+              lInArgument = false;
+              lInIndex = false;
+            }
+            else {
+              lBraceStack--;
+            }
+            break;
+          case '\'':
+            lInQuote = true;
+            break;
+          default:
+            if (lInIndex == true && lByte >= '0' && lByte <= '9') {
+              lIndex = lIndex * 10 + (lByte - '0');
+            }
+            break;
+        }
+      }
+    }
+    MessageTemplate.addRange(pRanges, lRangeStart, lRangeEnd);
+    pLiteralRanges.add(pRanges.size() / 2);
+  }
+
+  /**
+   * Method adds the passed byte range to the passed list if it is not empty.
+   *
+   * @param pRanges List with offset and length of all ranges. The parameter must not be null.
+   * @param pStart Start of the range.
+   * @param pEnd End of the range (exclusive).
+   */
+  private static void addRange( List<Integer> pRanges, int pStart, int pEnd ) {
+    if (pEnd > pStart) {
+      pRanges.add(pStart);
+      pRanges.add(pEnd - pStart);
+    }
+  }
+
+  /**
+   * Method splits the passed pattern into literal segments and argument indexes. The method follows the same rules as
+   * {@link MessageFormat#applyPattern(String)}. As the pattern has already been validated by {@link MessageFormat} no
+   * further checks are performed.
+   *
+   * @param pPattern Pattern that should be parsed. The parameter must not be null.
+   * @param pLiterals List to which the literal segments will be added. The parameter must not be null.
+   * @param pArgumentIndexes List to which the argument indexes will be added. The parameter must not be null.
+   */
+  private static void parse( String pPattern, List<String> pLiterals, List<Integer> pArgumentIndexes ) {
+    StringBuilder lLiteral = new StringBuilder(pPattern.length());
+    StringBuilder lIndex = new StringBuilder(4);
+    boolean lInArgument = false;
+    boolean lInIndex = false;
+    boolean lInQuote = false;
+    int lBraceStack = 0;
+    int lLength = pPattern.length();
+    for (int i = 0; i < lLength; i++) {
+      char lChar = pPattern.charAt(i);
+      if (lInArgument == false) {
+        if (lChar == '\'') {
+          // Two single quotes represent one single quote.
+          if (i + 1 < lLength && pPattern.charAt(i + 1) == '\'') {
+            lLiteral.append(lChar);
+            i++;
+          }
+          else {
+            lInQuote = !lInQuote;
+          }
+        }
+        else if (lChar == '{' && lInQuote == false) {
+          lInArgument = true;
+          lInIndex = true;
+          pLiterals.add(lLiteral.toString());
+          lLiteral.setLength(0);
+        }
+        else {
+          lLiteral.append(lChar);
+        }
+      }
+      // Quoted text inside format type or style.
+      else if (lInQuote == true) {
+        if (lChar == '\'') {
+          lInQuote = false;
+        }
+      }
+      else {
+        switch (lChar) {
+          case ',':
+            lInIndex = false;
+            break;
+          case '{':
+            lBraceStack++;
+            break;
+          case '}':
+            if (lBraceStack == 0) {
+              pArgumentIndexes.add(Integer.parseInt(lIndex.toString()));
+              lIndex.setLength(0);
+              lInArgument = false;
+              lInIndex = false;
+            }
+            else {
+              lBraceStack--;
+            }
+            break;
+          case '\'':
+            lInQuote = true;
+            break;
+          default:
+            if (lInIndex == true) {
+              lIndex.append(lChar);
+            }
+            break;
+        }
+      }
+    }
+    pLiterals.add(lLiteral.toString());
+  }
+
+  /**
+   * Method returns the pattern from which the template was created.
+   *
+   * @return {@link String} Pattern of the template. The method never returns null.
+   */
+  public String getPattern( ) {
+    String lPattern;
+    if (pattern != null) {
+      lPattern = pattern;
+    }
+    else if (patternData != null) {
+      lPattern = new String(patternData, patternOffset, patternLength, StandardCharsets.UTF_8);
+    }
+    else {
+      // Read through a duplicate as the buffer is shared by many templates and threads.
+      byte[] lBytes = new byte[patternLength];
+      ByteBuffer lBuffer = patternBuffer.duplicate();
+      lBuffer.position(patternOffset);
+      lBuffer.get(lBytes);
+      lPattern = new String(lBytes, StandardCharsets.UTF_8);
+    }
+    return lPattern;
+  }
+
+  /**
+   * Method checks if the pattern of this template is stored in shared pattern storage.
+   *
+   * @return boolean Method returns true if this template is a pooled template and false otherwise.
+   */
+  boolean isPooled( ) {
+    return patternData != null || patternBuffer != null;
+  }
+
+  /**
+   * Method checks if the pattern of this template is stored outside of the Java heap.
+   *
+   * @return boolean Method returns true if this template is an off-heap template and false otherwise.
+   */
+  boolean isOffHeap( ) {
+    return patternBuffer != null;
+  }
+
+  /**
+   * Method returns the estimated number of bytes that are retained by this template. Shared pattern storage is not
+   * included.
+   *
+   * @return long Estimated size of this template in bytes.
+   */
+  long estimateSize( ) {
+    // Object header and fields.
+    long lSize = 40;
+    if (pattern != null) {
+      lSize = lSize + MessageTemplate.estimateSize(pattern);
+    }
+    Structure lStructure = structure;
+    if (lStructure != null) {
+      lSize = lSize + lStructure.estimateSize();
+    }
+    return lSize;
+  }
+
+  /**
+   * Method returns the estimated number of bytes that are retained by the passed string. The estimation assumes
+   * compact strings with one byte per character.
+   *
+   * @param pString String whose size should be estimated. The parameter must not be null.
+   * @return long Estimated size of the string in bytes.
+   */
+  static long estimateSize( String pString ) {
+    return 40 + pString.length();
+  }
+
+  /**
+   * Method returns the locale that is used to format arguments.
+   *
+   * @return {@link Locale} Locale of the template. The method never returns null.
+   */
+  public Locale getLocale( ) {
+    return locale;
+  }
+
+  /**
+   * Method returns a new {@link MessageFormat} object that represents this template.
+   *
+   * @return {@link MessageFormat} Message format object for this template. As message format objects are not
+   * thread-safe, every call returns a new instance. The method never returns null.
+   */
+  public MessageFormat toMessageFormat( ) {
+    MessageFormat lMessageFormat = this.getStructure().messageFormat;
+    if (lMessageFormat != null) {
+      lMessageFormat = (MessageFormat) lMessageFormat.clone();
+    }
+    else {
+      lMessageFormat = new MessageFormat(this.getPattern(), locale);
+    }
+    return lMessageFormat;
+  }
+
+  /**
+   * Method renders the message with the passed arguments.
+   *
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @return {@link String} Rendered message. The method never returns null.
+   */
+  public String format( Object... pArguments ) {
+    StringBuilder lBuilder = new StringBuilder(this.getStructure().estimatedLength);
+    this.render(lBuilder, pArguments);
+    return lBuilder.toString();
+  }
+
+  /**
+   * Method renders the message with the passed typed arguments for the passed locale.
+   *
+   * @param pLocale Locale that should be used to format arguments. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @return {@link String} Rendered message. The method never returns null.
+   * @see #renderLocalized(StringBuilder, Locale, Object...)
+   */
+  public String formatLocalized( Locale pLocale, Object... pArguments ) {
+    StringBuilder lBuilder = new StringBuilder(this.getStructure().estimatedLength);
+    this.renderLocalized(lBuilder, pLocale, pArguments);
+    return lBuilder.toString();
+  }
+
+  /**
+   * Method renders the message with the passed arguments into the passed string builder.
+   *
+   * @param pBuilder String builder to which the message will be appended. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null. Argument slots whose argument is not
+   * available are rendered as <code>{index}</code> as it is done by {@link MessageFormat}.
+   */
+  public void render( StringBuilder pBuilder, Object... pArguments ) {
+    this.render(pBuilder, locale, pArguments, false);
+  }
+
+  /**
+   * Method renders the message with the passed typed arguments for the passed locale into the passed string builder.
+   * Numbers and dates are formatted for the passed locale exactly as {@link MessageFormat} would do it with a message
+   * format object for this locale. In addition java.time values ({@link Instant}, {@link ZonedDateTime},
+   * {@link OffsetDateTime}, {@link LocalDateTime}, {@link LocalDate} and {@link LocalTime}) are rendered like the
+   * corresponding {@link Date}. Zoned values are rendered with their own local date and time. All required formats are
+   * cached per thread, so rendering neither requires any locking nor creates new format objects.
+   *
+   * @param pBuilder String builder to which the message will be appended. The parameter must not be null.
+   * @param pLocale Locale that should be used to format arguments. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   */
+  public void renderLocalized( StringBuilder pBuilder, Locale pLocale, Object... pArguments ) {
+    // Check parameter.
+    Assert.assertNotNull(pLocale, "pLocale");
+
+    this.render(pBuilder, pLocale, pArguments, true);
+  }
+
+  /**
+   * Method renders the message with the passed arguments into the passed string builder.
+   *
+   * @param pBuilder String builder to which the message will be appended. The parameter must not be null.
+   * @param pLocale Locale that should be used to format arguments. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @param pTyped Defines whether java.time values should be rendered like dates.
+   */
+  private void render( StringBuilder pBuilder, Locale pLocale, Object[] pArguments, boolean pTyped ) {
+    Structure lStructure = this.getStructure();
+    int[] lArgumentIndexes = lStructure.argumentIndexes;
+
+    // Formats of the template itself are shared and thus have to be synchronized. Formats for other locales are taken
+    // from the cache of the current thread.
+    Format[] lFormats = lStructure.formats;
+    boolean lSharedFormats = true;
+    if (lFormats.length > 0 && pLocale.equals(locale) == false) {
+      lFormats = FormatCache.getInstance().getFormats(this, pLocale);
+      lSharedFormats = false;
+    }
+    for (int i = 0; i < lArgumentIndexes.length; i++) {
+      lStructure.appendLiteral(pBuilder, i);
+      pBuilder.append(
+          this.toArgumentString(i, lArgumentIndexes[i], lFormats, lSharedFormats, pLocale, pArguments, pTyped));
+    }
+    lStructure.appendLiteral(pBuilder, lArgumentIndexes.length);
+  }
+
+  /**
+   * Method renders the message with the passed arguments into the passed appendable. The message is written through
+   * to the appendable without creating an intermediate string of the whole message.
+   *
+   * @param pAppendable Appendable to which the message will be appended. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @throws IOException if the message can not be appended.
+   * @see #render(StringBuilder, Object...)
+   */
+  public void render( Appendable pAppendable, Object... pArguments ) throws IOException {
+    // String builders are rendered directly.
+    if (pAppendable instanceof StringBuilder) {
+      this.render((StringBuilder) pAppendable, locale, pArguments, false);
+    }
+    else {
+      // Literals and arguments are appended directly to the appendable.
+      Structure lStructure = this.getStructure();
+      int[] lArgumentIndexes = lStructure.argumentIndexes;
+      for (int i = 0; i < lArgumentIndexes.length; i++) {
+        lStructure.appendLiteral(pAppendable, i);
+        pAppendable.append(
+            this.toArgumentString(i, lArgumentIndexes[i], lStructure.formats, true, locale, pArguments, false));
+      }
+      lStructure.appendLiteral(pAppendable, lArgumentIndexes.length);
+    }
+  }
+
+  /**
+   * Method converts a single argument of the message into its string representation.
+   *
+   * @param pSlot Position of the argument slot within the template.
+   * @param pArgumentIndex Index of the argument that is referenced by the slot.
+   * @param pFormats Formats of the argument slots. The parameter must not be null.
+   * @param pSharedFormats Defines whether the passed formats are shared between threads.
+   * @param pLocale Locale that should be used to format arguments. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @param pTyped Defines whether java.time values should be rendered like dates.
+   * @return {@link String} String representation of the argument. The method never returns null.
+   */
+  private String toArgumentString( int pSlot, int pArgumentIndex, Format[] pFormats, boolean pSharedFormats,
+      Locale pLocale, Object[] pArguments, boolean pTyped ) {
+    String lResult;
+    if (pArguments == null || pArgumentIndex >= pArguments.length) {
+      lResult = "{" + pArgumentIndex + "}";
+    }
+    else {
+      Object lArgument = pArguments[pArgumentIndex];
+      if (pTyped == true) {
+        lArgument = MessageTemplate.toDate(lArgument);
+      }
+      if (lArgument == null) {
+        lResult = "null";
+      }
+      else if (pFormats.length > 0 && pFormats[pSlot] != null) {
+        lResult = this.formatArgument(pFormats[pSlot], pSharedFormats, lArgument, pArguments, pLocale);
+      }
+      else if (lArgument instanceof String) {
+        lResult = (String) lArgument;
+      }
+      else if (lArgument instanceof Number) {
+        lResult = FormatCache.getInstance().getNumberFormat(pLocale).format(lArgument);
+      }
+      else if (lArgument instanceof Date) {
+        lResult = FormatCache.getInstance().getDateTimeFormat(pLocale).format(lArgument);
+      }
+      else {
+        lResult = lArgument.toString();
+        if (lResult == null) {
+          lResult = "null";
+        }
+      }
+    }
+    return lResult;
+  }
+
+  /**
+   * Method converts java.time values into a {@link Date} so that they can be formatted like dates. All other objects
+   * are returned unchanged.
+   *
+   * @param pArgument Argument that should be converted. The parameter may be null.
+   * @return {@link Object} Converted argument.
+   */
+  private static Object toDate( Object pArgument ) {
+    Object lResult;
+    if (pArgument instanceof Instant) {
+      lResult = Date.from((Instant) pArgument);
+    }
+    else if (pArgument instanceof ZonedDateTime) {
+      lResult = MessageTemplate.toDate(((ZonedDateTime) pArgument).toLocalDateTime());
+    }
+    else if (pArgument instanceof OffsetDateTime) {
+      lResult = MessageTemplate.toDate(((OffsetDateTime) pArgument).toLocalDateTime());
+    }
+    else if (pArgument instanceof LocalDateTime) {
+      lResult = Date.from(((LocalDateTime) pArgument).atZone(ZoneId.systemDefault()).toInstant());
+    }
+    else if (pArgument instanceof LocalDate) {
+      lResult = Date.from(((LocalDate) pArgument).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    else if (pArgument instanceof LocalTime) {
+      lResult = MessageTemplate.toDate(((LocalTime) pArgument).atDate(TIME_BASE_DATE));
+    }
+    else {
+      lResult = pArgument;
+    }
+    return lResult;
+  }
+
+  /**
+   * Method formats the passed argument using the passed format. The method implements the same behavior as
+   * {@link MessageFormat} including recursive formatting of choice format results that contain argument references.
+   *
+   * @param pFormat Format that should be used. The parameter must not be null.
+   * @param pShared Defines whether the passed format is shared between threads and thus has to be synchronized.
+   * @param pArgument Argument that should be formatted. The parameter must not be null.
+   * @param pArguments All arguments of the message. The parameter must not be null.
+   * @param pLocale Locale that is used to format arguments. The parameter must not be null.
+   * @return {@link String} Formatted argument. The method never returns null.
+   */
+  private String formatArgument( Format pFormat, boolean pShared, Object pArgument, Object[] pArguments,
+      Locale pLocale ) {
+    String lResult;
+    if (pShared == true) {
+      synchronized (pFormat) {
+        lResult = pFormat.format(pArgument);
+      }
+    }
+    else {
+      lResult = pFormat.format(pArgument);
+    }
+    if (pFormat instanceof ChoiceFormat && lResult.indexOf('{') >= 0) {
+      lResult = new MessageFormat(lResult, pLocale).format(pArguments);
+    }
+    return lResult;
+  }
+
+  /**
+   * Method returns the pattern of this template.
+   *
+   * @return {@link String} Pattern of the template. The method never returns null.
+   */
+  @Override
+  public String toString( ) {
+    return this.getPattern();
+  }
+
+  /**
+   * Class represents the compiled structure of a message template. Instances are immutable.
+   */
+  private static final class Structure {
+    /**
+     * Literal segments of the message. The array contains one more element than {@link #argumentIndexes}. Literal
+     * segment <code>i</code> is rendered before argument slot <code>i</code>. For structures of off-heap templates the
+     * attribute is null and literals are decoded from {@link #buffer}.
+     */
+    private final String[] literals;
+
+    /**
+     * Off-heap storage that contains the literal segments. The attribute is null unless the structure belongs to an
+     * off-heap template. The buffer is only accessed with absolute positions, so it can be shared between threads.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Absolute offset and length of all byte ranges within {@link #buffer} that form the literal segments. The
+     * attribute is null unless the structure belongs to an off-heap template.
+     */
+    private final int[] ranges;
+
+    /**
+     * Index of the first range of every literal segment. Literal segment <code>i</code> consists of the ranges
+     * <code>literalRanges[i]</code> up to but excluding <code>literalRanges[i + 1]</code>. The attribute is null unless
+     * the structure belongs to an off-heap template.
+     */
+    private final int[] literalRanges;
+
+    /**
+     * Indexes of the arguments that are rendered into the argument slots.
+     */
+    private final int[] argumentIndexes;
+
+    /**
+     * Formats of the argument slots. Elements are null for argument slots without explicit format type. If no argument
+     * slot has an explicit format type then the array is empty.
+     */
+    private final Format[] formats;
+
+    /**
+     * Prototype of a message format object that represents the template. The prototype is never used for formatting
+     * but only to create copies for clients that require a {@link MessageFormat} object. It is only kept for templates
+     * that were created from a message format object. In all other cases the attribute is null.
+     */
+    private final MessageFormat messageFormat;
+
+    /**
+     * Estimated length of a rendered message.
+     */
+    private final int estimatedLength;
+
+    /**
+     * Initialize object.
+     *
+     * @param pMessageFormat Message format object from which the structure should be created. The parameter must not
+     * be null. If no copy is kept then the passed object must not be used by the caller afterwards.
+     * @param pKeepMessageFormat Defines whether a copy of the passed message format object should be kept as prototype.
+     */
+    Structure( MessageFormat pMessageFormat, boolean pKeepMessageFormat ) {
+      // Create own copy of message format if it should be kept as it might be changed by its creator. Otherwise the
+      // message format object is owned by the caller and only used to compile the structure.
+      MessageFormat lMessageFormat;
+      if (pKeepMessageFormat == true) {
+        lMessageFormat = (MessageFormat) pMessageFormat.clone();
+        messageFormat = lMessageFormat;
+      }
+      else {
+        lMessageFormat = pMessageFormat;
+        messageFormat = null;
+      }
+      buffer = null;
+      ranges = null;
+      literalRanges = null;
+
+      // Split pattern into literal segments and argument slots.
+      List<String> lLiterals = new ArrayList<>();
+      List<Integer> lArgumentIndexes = new ArrayList<>();
+      MessageTemplate.parse(lMessageFormat.toPattern(), lLiterals, lArgumentIndexes);
+      literals = lLiterals.toArray(new String[lLiterals.size()]);
+      argumentIndexes = new int[lArgumentIndexes.size()];
+      int lLength = 0;
+      for (int i = 0; i < argumentIndexes.length; i++) {
+        argumentIndexes[i] = lArgumentIndexes.get(i);
+      }
+      for (String lNextLiteral : literals) {
+        lLength = lLength + lNextLiteral.length();
+      }
+      estimatedLength = lLength + argumentIndexes.length * 16;
+
+      // Resolve formats of argument slots. Message format returns them in the same order as they appear in the
+      // pattern.
+      Format[] lFormats = lMessageFormat.getFormats();
+      boolean lFormatsDefined = false;
+      for (Format lNextFormat : lFormats) {
+        if (lNextFormat != null) {
+          lFormatsDefined = true;
+        }
+      }
+      if (lFormatsDefined == true) {
+        formats = lFormats;
+      }
+      else {
+        formats = NO_FORMATS;
+      }
+    }
+
+    /**
+     * Initialize structure of an off-heap template whose pattern does not use any explicit format type. Only the
+     * positions of the literal segments are kept on the heap.
+     *
+     * @param pBuffer Off-heap storage that contains the pattern. The parameter must not be null.
+     * @param pOffset Offset of the pattern within the storage.
+     * @param pPattern UTF-8 encoded pattern as it is stored in the off-heap storage. The parameter must not be null.
+     */
+    Structure( ByteBuffer pBuffer, int pOffset, byte[] pPattern ) {
+      List<Integer> lRanges = new ArrayList<>();
+      List<Integer> lLiteralRanges = new ArrayList<>();
+      List<Integer> lArgumentIndexes = new ArrayList<>();
+      MessageTemplate.parse(pPattern, lRanges, lLiteralRanges, lArgumentIndexes);
+      literals = null;
+      buffer = pBuffer;
+      ranges = new int[lRanges.size()];
+      int lLength = 0;
+      for (int i = 0; i < ranges.length; i = i + 2) {
+        ranges[i] = pOffset + lRanges.get(i);
+        ranges[i + 1] = lRanges.get(i + 1);
+        lLength = lLength + ranges[i + 1];
+      }
+      literalRanges = new int[lLiteralRanges.size()];
+      for (int i = 0; i < literalRanges.length; i++) {
+        literalRanges[i] = lLiteralRanges.get(i);
+      }
+      argumentIndexes = new int[lArgumentIndexes.size()];
+      for (int i = 0; i < argumentIndexes.length; i++) {
+        argumentIndexes[i] = lArgumentIndexes.get(i);
+      }
+      estimatedLength = lLength + argumentIndexes.length * 16;
+      formats = NO_FORMATS;
+      messageFormat = null;
+    }
+
+    /**
+     * Method appends the literal segment with the passed index to the passed string builder. Literals of off-heap
+     * templates are decoded directly from the off-heap storage. ASCII characters are appended without any
+     * intermediate objects.
+     *
+     * @param pBuilder String builder to which the literal will be appended. The parameter must not be null.
+     * @param pLiteral Index of the literal segment.
+     */
+    void appendLiteral( StringBuilder pBuilder, int pLiteral ) {
+      if (literals != null) {
+        pBuilder.append(literals[pLiteral]);
+      }
+      else {
+        for (int lRange = literalRanges[pLiteral]; lRange < literalRanges[pLiteral + 1]; lRange++) {
+          int lOffset = ranges[lRange * 2];
+          int lEnd = lOffset + ranges[lRange * 2 + 1];
+          int lPosition = lOffset;
+          while (lPosition < lEnd && buffer.get(lPosition) >= 0) {
+            pBuilder.append((char) buffer.get(lPosition));
+            lPosition++;
+          }
+          // Rest of the range contains multi-byte characters.
+          if (lPosition < lEnd) {
+            pBuilder.append(this.decode(lPosition, lEnd));
+          }
+        }
+      }
+    }
+
+    /**
+     * Method appends the literal segment with the passed index directly to the passed appendable. Literals of off-heap
+     * templates are decoded directly from the off-heap storage.
+     *
+     * @param pAppendable Appendable to which the literal will be appended. The parameter must not be null.
+     * @param pLiteral Index of the literal segment.
+     * @throws IOException if the literal can not be appended.
+     */
+    void appendLiteral( Appendable pAppendable, int pLiteral ) throws IOException {
+      if (literals != null) {
+        pAppendable.append(literals[pLiteral]);
+      }
+      else {
+        for (int lRange = literalRanges[pLiteral]; lRange < literalRanges[pLiteral + 1]; lRange++) {
+          int lOffset = ranges[lRange * 2];
+          int lEnd = lOffset + ranges[lRange * 2 + 1];
+          int lPosition = lOffset;
+          while (lPosition < lEnd && buffer.get(lPosition) >= 0) {
+            pAppendable.append((char) buffer.get(lPosition));
+            lPosition++;
+          }
+          // Rest of the range contains multi-byte characters.
+          if (lPosition < lEnd) {
+            pAppendable.append(this.decode(lPosition, lEnd));
+          }
+        }
+      }
+    }
+
+    /**
+     * Method decodes the UTF-8 encoded bytes between the passed positions of the off-heap storage.
+     *
+     * @param pStart Position of the first byte that should be decoded.
+     * @param pEnd Position after the last byte that should be decoded.
+     * @return {@link String} Decoded string. The method never returns null.
+     */
+    private String decode( int pStart, int pEnd ) {
+      byte[] lBytes = new byte[pEnd - pStart];
+      for (int i = 0; i < lBytes.length; i++) {
+        lBytes[i] = buffer.get(pStart + i);
+      }
+      return new String(lBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method returns the estimated number of bytes that are retained by this structure.
+     *
+     * @return long Estimated size of the structure in bytes.
+     */
+    long estimateSize( ) {
+      // Object header, fields and arrays.
+      long lSize = 48 + 16 + argumentIndexes.length * 4 + 16 + formats.length * 4;
+      if (literals != null) {
+        lSize = lSize + 16 + literals.length * 4;
+        for (String lNextLiteral : literals) {
+          lSize = lSize + MessageTemplate.estimateSize(lNextLiteral);
+        }
+      }
+      else {
+        lSize = lSize + 16 + ranges.length * 4 + 16 + literalRanges.length * 4;
+      }
+      // Formats and message format prototype are complex object graphs. We use a rough estimation.
+      for (Format lNextFormat : formats) {
+        if (lNextFormat != null) {
+          lSize = lSize + 200;
+        }
+      }
+      if (messageFormat != null) {
+        lSize = lSize + 400;
+      }
+      return lSize;
+    }
+  }
+}
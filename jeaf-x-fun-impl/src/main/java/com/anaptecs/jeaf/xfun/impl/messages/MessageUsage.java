@@ -0,0 +1,106 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+/**
+ * Class describes how often a single message of the message repository was used.
+ *
+ * @author JEAF Development Team
+ */
+public final class MessageUsage {
+  /**
+   * Localization ID of the message.
+   */
+  private final int localizationID;
+
+  /**
+   * Number of times the message was rendered.
+   */
+  private final long messageCount;
+
+  /**
+   * Number of times the message was rendered as trace message.
+   */
+  private final long traceCount;
+
+  /**
+   * Number of times the default message was used as the message was not available for the requested locale.
+   */
+  private final long fallbackCount;
+
+  /**
+   * Initialize object.
+   *
+   * @param pLocalizationID Localization ID of the message.
+   * @param pMessageCount Number of times the message was rendered.
+   * @param pTraceCount Number of times the message was rendered as trace message.
+   * @param pFallbackCount Number of times the default message was used.
+   */
+  MessageUsage( int pLocalizationID, long pMessageCount, long pTraceCount, long pFallbackCount ) {
+    localizationID = pLocalizationID;
+    messageCount = pMessageCount;
+    traceCount = pTraceCount;
+    fallbackCount = pFallbackCount;
+  }
+
+  /**
+   * Method returns the localization ID of the message.
+   *
+   * @return int Localization ID of the message.
+   */
+  public int getLocalizationID( ) {
+    return localizationID;
+  }
+
+  /**
+   * Method returns how often the message was rendered. Messages that were rendered as trace messages are not included
+   * (see {@link #getTraceCount()}).
+   *
+   * @return long Number of times the message was rendered.
+   */
+  public long getMessageCount( ) {
+    return messageCount;
+  }
+
+  /**
+   * Method returns how often the message was rendered as trace message.
+   *
+   * @return long Number of times the message was rendered as trace message.
+   */
+  public long getTraceCount( ) {
+    return traceCount;
+  }
+
+  /**
+   * Method returns how often the message was rendered either as message or as trace message.
+   *
+   * @return long Number of times the message was used.
+   */
+  public long getUsageCount( ) {
+    return messageCount + traceCount;
+  }
+
+  /**
+   * Method returns how often the message was requested for a locale for which neither the locale itself nor a more
+   * general locale has a localization. In this case the default message was used.
+   *
+   * @return long Number of fallbacks.
+   */
+  public long getFallbackCount( ) {
+    return fallbackCount;
+  }
+
+  /**
+   * Method returns a string representation of this object.
+   *
+   * @return {@link String} String representation of this object.
+   */
+  @Override
+  public String toString( ) {
+    return "ID " + localizationID + ": messages=" + messageCount + ", traces=" + traceCount + ", fallbacks="
+        + fallbackCount;
+  }
+}
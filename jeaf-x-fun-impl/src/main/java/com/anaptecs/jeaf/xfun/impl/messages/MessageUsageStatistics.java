@@ -0,0 +1,197 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class collects usage statistics of the messages of the message repository. Counters are kept per slot of the
+ * {@link MessageCatalog} and per requested locale. All counters are {@link LongAdder}s so that concurrent updates do
+ * not contend and recording a usage is cheap enough to be always enabled.
+ *
+ * The table of counters is grown whenever a new snapshot of the catalog is published (see
+ * {@link #ensureCapacity(int)}). The counters of a slot are only created when its message is used the first time. This
+ * way messages that are never used do not occupy any counters.
+ *
+ * @author JEAF Development Team
+ */
+final class MessageUsageStatistics {
+  /**
+   * Maximum number of locales for which requests are counted. The limit protects against unbounded memory consumption
+   * if arbitrary locales are requested (e.g. taken from HTTP headers). Requests for further locales are not counted.
+   */
+  private static final int MAX_LOCALE_COUNTERS = 64;
+
+  /**
+   * Counters by slot. Entries are null until the message of the slot is used the first time.
+   */
+  private volatile SlotCounters[] counters = new SlotCounters[0];
+
+  /**
+   * Number of requests by locale.
+   */
+  private final Map<Locale, LongAdder> localeCounters = new ConcurrentHashMap<>();
+
+  /**
+   * Method ensures that the table of counters can hold the passed number of slots. Existing counters are kept.
+   *
+   * @param pSize Number of slots for which counters are required.
+   */
+  synchronized void ensureCapacity( int pSize ) {
+    SlotCounters[] lCounters = counters;
+    if (pSize > lCounters.length) {
+      counters = Arrays.copyOf(lCounters, pSize);
+    }
+  }
+
+  /**
+   * Method returns the counters of the passed slot. If the slot has no counters yet then they are created.
+   *
+   * @param pSlot Slot whose counters should be returned.
+   * @return {@link SlotCounters} Counters of the slot or null if the slot is unknown.
+   */
+  private SlotCounters getSlotCounters( int pSlot ) {
+    SlotCounters[] lCounters = counters;
+    SlotCounters lSlotCounters;
+    if (pSlot < lCounters.length) {
+      lSlotCounters = lCounters[pSlot];
+      if (lSlotCounters == null) {
+        lSlotCounters = this.createSlotCounters(pSlot);
+      }
+    }
+    else {
+      lSlotCounters = null;
+    }
+    return lSlotCounters;
+  }
+
+  /**
+   * Method creates the counters of the passed slot unless another thread already did so.
+   *
+   * @param pSlot Slot whose counters should be created. The slot must be covered by the table of counters.
+   * @return {@link SlotCounters} Counters of the slot. The method never returns null.
+   */
+  private synchronized SlotCounters createSlotCounters( int pSlot ) {
+    SlotCounters[] lCounters = counters;
+    SlotCounters lSlotCounters = lCounters[pSlot];
+    if (lSlotCounters == null) {
+      lSlotCounters = new SlotCounters();
+      lCounters[pSlot] = lSlotCounters;
+    }
+    return lSlotCounters;
+  }
+
+  /**
+   * Method records that the message of the passed slot was rendered.
+   *
+   * @param pSlot Slot of the message.
+   * @param pLocale Requested locale. The parameter must not be null.
+   * @param pFallback Defines whether the message is not available for the requested locale or any of its reductions and
+   * the default message was used.
+   */
+  void recordMessage( int pSlot, Locale pLocale, boolean pFallback ) {
+    SlotCounters lSlotCounters = this.getSlotCounters(pSlot);
+    if (lSlotCounters != null) {
+      lSlotCounters.messages.increment();
+      if (pFallback == true) {
+        lSlotCounters.fallbacks.increment();
+      }
+    }
+    LongAdder lLocaleCounter = localeCounters.get(pLocale);
+    if (lLocaleCounter == null && localeCounters.size() < MAX_LOCALE_COUNTERS) {
+      lLocaleCounter = localeCounters.computeIfAbsent(pLocale, pKey -> new LongAdder());
+    }
+    if (lLocaleCounter != null) {
+      lLocaleCounter.increment();
+    }
+  }
+
+  /**
+   * Method records that the message of the passed slot was rendered as trace message.
+   *
+   * @param pSlot Slot of the message.
+   */
+  void recordTrace( int pSlot ) {
+    SlotCounters lSlotCounters = this.getSlotCounters(pSlot);
+    if (lSlotCounters != null) {
+      lSlotCounters.traces.increment();
+    }
+  }
+
+  /**
+   * Method returns the usage of the message with the passed slot.
+   *
+   * @param pSlot Slot of the message.
+   * @param pLocalizationID Localization ID of the message.
+   * @return {@link MessageUsage} Usage of the message. The method never returns null.
+   */
+  MessageUsage getUsage( int pSlot, int pLocalizationID ) {
+    SlotCounters[] lCounters = counters;
+    MessageUsage lUsage;
+    if (pSlot < lCounters.length && lCounters[pSlot] != null) {
+      SlotCounters lSlotCounters = lCounters[pSlot];
+      lUsage = new MessageUsage(pLocalizationID, lSlotCounters.messages.sum(), lSlotCounters.traces.sum(),
+          lSlotCounters.fallbacks.sum());
+    }
+    else {
+      lUsage = new MessageUsage(pLocalizationID, 0, 0, 0);
+    }
+    return lUsage;
+  }
+
+  /**
+   * Method returns the number of requests per locale.
+   *
+   * @return {@link Map} Number of requests by locale. The method never returns null.
+   */
+  Map<Locale, Long> getLocaleUsage( ) {
+    Map<Locale, Long> lLocaleUsage = new HashMap<>();
+    for (Entry<Locale, LongAdder> lNextEntry : localeCounters.entrySet()) {
+      lLocaleUsage.put(lNextEntry.getKey(), lNextEntry.getValue().sum());
+    }
+    return lLocaleUsage;
+  }
+
+  /**
+   * Method resets all counters.
+   */
+  void reset( ) {
+    for (SlotCounters lNextCounters : counters) {
+      if (lNextCounters != null) {
+        lNextCounters.messages.reset();
+        lNextCounters.traces.reset();
+        lNextCounters.fallbacks.reset();
+      }
+    }
+    localeCounters.clear();
+  }
+
+  /**
+   * Class contains all counters of a single slot.
+   */
+  private static final class SlotCounters {
+    /**
+     * Number of times the message was rendered.
+     */
+    private final LongAdder messages = new LongAdder();
+
+    /**
+     * Number of times the message was rendered as trace message.
+     */
+    private final LongAdder traces = new LongAdder();
+
+    /**
+     * Number of times the default message was used as the message was not available for the requested locale.
+     */
+    private final LongAdder fallbacks = new LongAdder();
+  }
+}
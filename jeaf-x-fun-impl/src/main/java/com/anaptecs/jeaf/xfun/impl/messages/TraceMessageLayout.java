@@ -0,0 +1,510 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.messages;
+
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Locale.Category;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+/**
+ * Class implements the layout of trace messages as it is defined by the trace message format of JEAF X-Fun (e.g.
+ * <code>"[%1$5d] %3$-20s %2$s"</code>). The format is compiled once so that rendering of a trace message does not
+ * require to parse the format again as it is done by {@link String#format(String, Object...)}.
+ *
+ * The arguments of a trace message are always the localization ID (index 1), the message (index 2) and the current
+ * user (index 3). Compiled layouts support conversions <code>%s</code> and <code>%d</code> with optional argument
+ * index, width and flag <code>-</code> as well as <code>%%</code> and <code>%n</code>. For all other formats and for
+ * locales that do not use ASCII digits the layout falls back to {@link Formatter}. In any case the result is exactly
+ * the same as the one of {@link String#format(String, Object...)}.
+ *
+ * @author JEAF Development Team
+ */
+public final class TraceMessageLayout {
+  /**
+   * Argument index of the localization ID.
+   */
+  private static final int LOCALIZATION_ID = 1;
+
+  /**
+   * Argument index of the message.
+   */
+  private static final int MESSAGE = 2;
+
+  /**
+   * Argument index of the current user.
+   */
+  private static final int USER = 3;
+
+  /**
+   * Argument index that is used for literal segments.
+   */
+  private static final int LITERAL = 0;
+
+  /**
+   * Format as it was passed to the layout.
+   */
+  private final String format;
+
+  /**
+   * Locale that was the default format locale when the layout was compiled. If the default locale is changed later
+   * then the layout falls back to {@link Formatter}.
+   */
+  private final Locale locale;
+
+  /**
+   * Segments of the compiled format. The array is null if the format could not be compiled.
+   */
+  private final Segment[] segments;
+
+  /**
+   * Initialize object and compile the passed format.
+   *
+   * @param pFormat Trace message format as it would be used with {@link String#format(String, Object...)}. The
+   * parameter must not be null.
+   */
+  public TraceMessageLayout( String pFormat ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pFormat, "pFormat");
+
+    format = pFormat;
+    locale = Locale.getDefault(Category.FORMAT);
+
+    // Compile format. If it uses features that are not supported we will use a Formatter for rendering.
+    List<Segment> lSegments = TraceMessageLayout.compile(pFormat, locale);
+    if (lSegments != null) {
+      segments = lSegments.toArray(new Segment[lSegments.size()]);
+    }
+    else {
+      segments = null;
+    }
+  }
+
+  /**
+   * Method returns the format of this layout.
+   *
+   * @return {@link String} Format of the layout. The method never returns null.
+   */
+  public String getFormat( ) {
+    return format;
+  }
+
+  /**
+   * Method checks if the format of this layout could be compiled.
+   *
+   * @return boolean Method returns true if the format is rendered by this layout and false if rendering is delegated
+   * to {@link Formatter}.
+   */
+  public boolean isCompiled( ) {
+    return segments != null;
+  }
+
+  /**
+   * Method renders a trace message into the passed string builder.
+   *
+   * @param pBuilder String builder to which the trace message will be appended. The parameter must not be null.
+   * @param pLocalizationID Localization ID of the message.
+   * @param pMessage Message that should be traced. The parameter may be null.
+   * @param pUser Name of the current user. The parameter may be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  public StringBuilder render( StringBuilder pBuilder, int pLocalizationID, String pMessage, String pUser ) {
+    Segment[] lSegments = segments;
+    if (lSegments != null && locale.equals(Locale.getDefault(Category.FORMAT)) == true) {
+      for (Segment lNextSegment : lSegments) {
+        String lValue;
+        switch (lNextSegment.argument) {
+          case LITERAL:
+            lValue = lNextSegment.literal;
+            break;
+
+          case LOCALIZATION_ID:
+            lValue = Integer.toString(pLocalizationID);
+            break;
+
+          case MESSAGE:
+            lValue = String.valueOf(pMessage);
+            break;
+
+          default:
+            lValue = String.valueOf(pUser);
+        }
+        TraceMessageLayout.append(pBuilder, lValue, lNextSegment.width, lNextSegment.leftJustified);
+      }
+    }
+    // Format could not be compiled or default locale was changed.
+    else {
+      new Formatter(pBuilder).format(format, pLocalizationID, pMessage, pUser);
+    }
+    return pBuilder;
+  }
+
+  /**
+   * Method renders a trace message into the passed string builder. In contrast to
+   * {@link #render(StringBuilder, int, String, String)} the message is rendered from the passed template directly at
+   * the position of the message within the layout, so no intermediate string of the message is created.
+   *
+   * @param pBuilder String builder to which the trace message will be appended. The parameter must not be null.
+   * @param pLocalizationID Localization ID of the message.
+   * @param pTemplate Template of the message that should be traced. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @param pUser Name of the current user. The parameter may be null.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  public StringBuilder render( StringBuilder pBuilder, int pLocalizationID, MessageTemplate pTemplate,
+      Object[] pArguments, String pUser ) {
+    Segment[] lSegments = segments;
+    if (lSegments != null && locale.equals(Locale.getDefault(Category.FORMAT)) == true) {
+      for (Segment lNextSegment : lSegments) {
+        switch (lNextSegment.argument) {
+          case LITERAL:
+            pBuilder.append(lNextSegment.literal);
+            break;
+
+          case LOCALIZATION_ID:
+            TraceMessageLayout.append(pBuilder, Integer.toString(pLocalizationID), lNextSegment.width,
+                lNextSegment.leftJustified);
+            break;
+
+          case MESSAGE:
+            int lStart = pBuilder.length();
+            pTemplate.render(pBuilder, pArguments);
+            int lPadding = lNextSegment.width - (pBuilder.length() - lStart);
+            if (lPadding > 0) {
+              if (lNextSegment.leftJustified == true) {
+                TraceMessageLayout.appendBlanks(pBuilder, lPadding);
+              }
+              else {
+                pBuilder.insert(lStart, TraceMessageLayout.getBlanks(lPadding));
+              }
+            }
+            break;
+
+          default:
+            TraceMessageLayout.append(pBuilder, String.valueOf(pUser), lNextSegment.width, lNextSegment.leftJustified);
+        }
+      }
+    }
+    // Format could not be compiled or default locale was changed.
+    else {
+      new Formatter(pBuilder).format(format, pLocalizationID, pTemplate.format(pArguments), pUser);
+    }
+    return pBuilder;
+  }
+
+  /**
+   * Method renders a trace message into the passed appendable. The trace message is written through to the appendable
+   * without creating an intermediate string of the whole trace message.
+   *
+   * @param pAppendable Appendable to which the trace message will be appended. The parameter must not be null.
+   * @param pLocalizationID Localization ID of the message.
+   * @param pTemplate Template of the message that should be traced. The parameter must not be null.
+   * @param pArguments Arguments of the message. The parameter may be null.
+   * @param pUser Name of the current user. The parameter may be null.
+   * @return {@link Appendable} Passed appendable. The method never returns null.
+   * @throws IOException if the trace message can not be appended.
+   */
+  public <T extends Appendable> T render( T pAppendable, int pLocalizationID, MessageTemplate pTemplate,
+      Object[] pArguments, String pUser ) throws IOException {
+    Segment[] lSegments = segments;
+    if (pAppendable instanceof StringBuilder) {
+      this.render((StringBuilder) pAppendable, pLocalizationID, pTemplate, pArguments, pUser);
+    }
+    else if (lSegments != null && locale.equals(Locale.getDefault(Category.FORMAT)) == true) {
+      for (Segment lNextSegment : lSegments) {
+        switch (lNextSegment.argument) {
+          case LITERAL:
+            pAppendable.append(lNextSegment.literal);
+            break;
+
+          case LOCALIZATION_ID:
+            TraceMessageLayout.append(pAppendable, Integer.toString(pLocalizationID), lNextSegment.width,
+                lNextSegment.leftJustified);
+            break;
+
+          case MESSAGE:
+            // Without padding the message can be written through. Otherwise its length has to be known in advance.
+            if (lNextSegment.width == 0) {
+              pTemplate.render(pAppendable, pArguments);
+            }
+            else {
+              TraceMessageLayout.append(pAppendable, pTemplate.format(pArguments), lNextSegment.width,
+                  lNextSegment.leftJustified);
+            }
+            break;
+
+          default:
+            TraceMessageLayout.append(pAppendable, String.valueOf(pUser), lNextSegment.width,
+                lNextSegment.leftJustified);
+        }
+      }
+    }
+    // Format could not be compiled or default locale was changed.
+    else {
+      new Formatter(pAppendable).format(format, pLocalizationID, pTemplate.format(pArguments), pUser);
+    }
+    return pAppendable;
+  }
+
+  /**
+   * Method appends the passed value with the passed minimum width to the passed appendable.
+   *
+   * @param pAppendable Appendable to which the value will be appended. The parameter must not be null.
+   * @param pValue Value that should be appended. The parameter must not be null.
+   * @param pWidth Minimum width. If the value is shorter then it will be padded with blanks.
+   * @param pLeftJustified Defines whether the value is left-justified or right-justified.
+   * @throws IOException if the value can not be appended.
+   */
+  private static void append( Appendable pAppendable, String pValue, int pWidth, boolean pLeftJustified )
+    throws IOException {
+    int lPadding = pWidth - pValue.length();
+    if (lPadding <= 0) {
+      pAppendable.append(pValue);
+    }
+    else if (pLeftJustified == true) {
+      pAppendable.append(pValue).append(TraceMessageLayout.getBlanks(lPadding));
+    }
+    else {
+      pAppendable.append(TraceMessageLayout.getBlanks(lPadding)).append(pValue);
+    }
+  }
+
+  /**
+   * Method returns a string that consists of the passed number of blanks.
+   *
+   * @param pCount Number of blanks.
+   * @return {@link String} String with the passed number of blanks. The method never returns null.
+   */
+  private static String getBlanks( int pCount ) {
+    StringBuilder lBlanks = new StringBuilder(pCount);
+    TraceMessageLayout.appendBlanks(lBlanks, pCount);
+    return lBlanks.toString();
+  }
+
+  /**
+   * Method appends the passed value with the passed minimum width to the passed builder.
+   *
+   * @param pBuilder String builder to which the value will be appended. The parameter must not be null.
+   * @param pValue Value that should be appended. The parameter must not be null.
+   * @param pWidth Minimum width. If the value is shorter then it will be padded with blanks.
+   * @param pLeftJustified Defines whether the value is left-justified or right-justified.
+   */
+  private static void append( StringBuilder pBuilder, String pValue, int pWidth, boolean pLeftJustified ) {
+    int lPadding = pWidth - pValue.length();
+    if (lPadding <= 0) {
+      pBuilder.append(pValue);
+    }
+    else if (pLeftJustified == true) {
+      pBuilder.append(pValue);
+      TraceMessageLayout.appendBlanks(pBuilder, lPadding);
+    }
+    else {
+      TraceMessageLayout.appendBlanks(pBuilder, lPadding);
+      pBuilder.append(pValue);
+    }
+  }
+
+  /**
+   * Method appends the passed number of blanks to the passed builder.
+   *
+   * @param pBuilder String builder to which the blanks will be appended. The parameter must not be null.
+   * @param pCount Number of blanks.
+   */
+  private static void appendBlanks( StringBuilder pBuilder, int pCount ) {
+    for (int i = 0; i < pCount; i++) {
+      pBuilder.append(' ');
+    }
+  }
+
+  /**
+   * Method compiles the passed format into segments.
+   *
+   * @param pFormat Format that should be compiled. The parameter must not be null.
+   * @param pLocale Locale that is used to render the format. The parameter must not be null.
+   * @return {@link List} Compiled segments or null if the format uses features that are not supported.
+   */
+  private static List<Segment> compile( String pFormat, Locale pLocale ) {
+    // Integers are only rendered directly if the locale uses ASCII digits.
+    boolean lASCIIDigits = DecimalFormatSymbols.getInstance(pLocale).getZeroDigit() == '0';
+
+    List<Segment> lSegments = new ArrayList<>();
+    StringBuilder lLiteral = new StringBuilder();
+    int lOrdinaryIndex = 0;
+    int lLength = pFormat.length();
+    int i = 0;
+    while (i < lLength) {
+      char lNext = pFormat.charAt(i++);
+      if (lNext != '%') {
+        lLiteral.append(lNext);
+        continue;
+      }
+      if (i >= lLength) {
+        return null;
+      }
+
+      // Parse argument index or width.
+      int lStart = i;
+      int lNumber = -1;
+      i = TraceMessageLayout.skipDigits(pFormat, i);
+      if (i > lStart) {
+        lNumber = TraceMessageLayout.parseNumber(pFormat, lStart, i);
+      }
+      if (lNumber == Integer.MAX_VALUE) {
+        return null;
+      }
+      int lArgumentIndex = -1;
+      if (i < lLength && pFormat.charAt(i) == '$' && lNumber > 0) {
+        lArgumentIndex = lNumber;
+        lNumber = -1;
+        i++;
+      }
+      // A width that starts with 0 would be the flag '0'.
+      else if (lNumber != -1 && pFormat.charAt(lStart) == '0') {
+        return null;
+      }
+
+      // Parse flag and width.
+      boolean lLeftJustified = false;
+      if (lNumber == -1) {
+        if (i < lLength && pFormat.charAt(i) == '-') {
+          lLeftJustified = true;
+          i++;
+        }
+        lStart = i;
+        i = TraceMessageLayout.skipDigits(pFormat, i);
+        if (i > lStart) {
+          if (pFormat.charAt(lStart) == '0') {
+            return null;
+          }
+          lNumber = TraceMessageLayout.parseNumber(pFormat, lStart, i);
+        }
+      }
+      int lWidth = Math.max(lNumber, 0);
+      if (i >= lLength || lWidth == Integer.MAX_VALUE || (lLeftJustified == true && lWidth == 0)) {
+        return null;
+      }
+
+      // Parse conversion.
+      char lConversion = pFormat.charAt(i++);
+      if (lConversion == '%' || lConversion == 'n') {
+        if (lArgumentIndex != -1 || lLeftJustified == true || lWidth != 0) {
+          return null;
+        }
+        lLiteral.append(lConversion == '%' ? "%" : System.lineSeparator());
+        continue;
+      }
+      if (lConversion != 's' && lConversion != 'd') {
+        return null;
+      }
+      if (lArgumentIndex == -1) {
+        lArgumentIndex = ++lOrdinaryIndex;
+      }
+      if (lArgumentIndex > USER) {
+        return null;
+      }
+      if (lConversion == 'd' && (lArgumentIndex != LOCALIZATION_ID || lASCIIDigits == false)) {
+        return null;
+      }
+
+      // Add segments.
+      if (lLiteral.length() > 0) {
+        lSegments.add(new Segment(LITERAL, lLiteral.toString(), 0, false));
+        lLiteral.setLength(0);
+      }
+      lSegments.add(new Segment(lArgumentIndex, null, lWidth, lLeftJustified));
+    }
+    if (lLiteral.length() > 0) {
+      lSegments.add(new Segment(LITERAL, lLiteral.toString(), 0, false));
+    }
+    return lSegments;
+  }
+
+  /**
+   * Method returns the position of the first character at or after the passed position that is not an ASCII digit.
+   *
+   * @param pFormat Format that is parsed. The parameter must not be null.
+   * @param pPosition Position at which parsing starts.
+   * @return int Position of the first character that is not a digit.
+   */
+  private static int skipDigits( String pFormat, int pPosition ) {
+    int lPosition = pPosition;
+    while (lPosition < pFormat.length() && pFormat.charAt(lPosition) >= '0' && pFormat.charAt(lPosition) <= '9') {
+      lPosition++;
+    }
+    return lPosition;
+  }
+
+  /**
+   * Method parses the number between the passed positions.
+   *
+   * @param pFormat Format that is parsed. The parameter must not be null.
+   * @param pStart Position of the first digit.
+   * @param pEnd Position after the last digit.
+   * @return int Parsed number or {@link Integer#MAX_VALUE} if the number is too large.
+   */
+  private static int parseNumber( String pFormat, int pStart, int pEnd ) {
+    long lNumber = 0;
+    for (int i = pStart; i < pEnd && lNumber < Integer.MAX_VALUE; i++) {
+      lNumber = lNumber * 10 + (pFormat.charAt(i) - '0');
+    }
+    return (int) Math.min(lNumber, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Method returns the format of this layout.
+   *
+   * @return {@link String} Format of the layout.
+   */
+  @Override
+  public String toString( ) {
+    return format;
+  }
+
+  /**
+   * Class represents a single segment of a compiled layout. A segment is either a literal or an argument.
+   */
+  private static final class Segment {
+    /**
+     * Argument index of the segment or {@link TraceMessageLayout#LITERAL} for literal segments.
+     */
+    private final int argument;
+
+    /**
+     * Text of a literal segment. For argument segments the attribute is null.
+     */
+    private final String literal;
+
+    /**
+     * Minimum width of an argument segment or 0 if no width is defined.
+     */
+    private final int width;
+
+    /**
+     * Defines whether an argument segment is left-justified.
+     */
+    private final boolean leftJustified;
+
+    /**
+     * Initialize object.
+     *
+     * @param pArgument Argument index of the segment or {@link TraceMessageLayout#LITERAL} for literal segments.
+     * @param pLiteral Text of a literal segment. The parameter may be null.
+     * @param pWidth Minimum width of an argument segment or 0 if no width is defined.
+     * @param pLeftJustified Defines whether an argument segment is left-justified.
+     */
+    Segment( int pArgument, String pLiteral, int pWidth, boolean pLeftJustified ) {
+      argument = pArgument;
+      literal = pLiteral;
+      width = pWidth;
+      leftJustified = pLeftJustified;
+    }
+  }
+}
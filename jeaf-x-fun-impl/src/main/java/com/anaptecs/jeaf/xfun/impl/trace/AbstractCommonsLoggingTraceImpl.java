@@ -6,21 +6,21 @@
 package com.anaptecs.jeaf.xfun.impl.trace;
 
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
 
-import com.anaptecs.jeaf.xfun.api.errorhandling.ExceptionInfoProvider;
 import com.anaptecs.jeaf.xfun.api.trace.AbstractTraceImpl;
 import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
-import com.anaptecs.jeaf.xfun.bootstrap.Assert;
 import com.anaptecs.jeaf.xfun.bootstrap.Check;
 
 /**
  * Class provides tracing in combination with Apache Commons Logging and can be used as base class for trace
- * implementations.
+ * implementations. Alternatively traces can also be written directly to Log4J2 (see {@link TraceBackendType}).
  * 
  * @author JEAF Development Team
  * @version 1.0
@@ -32,6 +32,28 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
   private static final TraceLevel[] TRACE_LEVELS = new TraceLevel[] { TraceLevel.FATAL, TraceLevel.ERROR,
     TraceLevel.WARN, TraceLevel.INFO, TraceLevel.DEBUG, TraceLevel.TRACE };
 
+  /**
+   * Value of the cached effective level if tracing is disabled completely.
+   */
+  private static final int LEVEL_DISABLED = -1;
+
+  /**
+   * Values of the cached effective level that are less than or equal to this constant mark the cache as invalid.
+   */
+  private static final int LEVEL_INVALID = -2;
+
+  /**
+   * Counter is used to create a unique marker for every invalidation of the cached level. This way a level that was
+   * determined before the configuration changed can not overwrite an invalidation that happened in the meantime.
+   */
+  private static final AtomicInteger INVALIDATION_COUNTER = new AtomicInteger();
+
+  /**
+   * Updater is used to store a freshly determined level only if the cache was not invalidated meanwhile.
+   */
+  private static final AtomicIntegerFieldUpdater<AbstractCommonsLoggingTraceImpl> EFFECTIVE_LEVEL_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(AbstractCommonsLoggingTraceImpl.class, "effectiveLevel");
+
   /**
    * Array contains all Log4J2 configuration files in the order as it is checked by Log4J2 at startup.
    */
@@ -52,9 +74,23 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
   private final String name;
 
   /**
-   * Reference to the used Log implementation. The reference is never null since it is set in the class' constructor.
+   * Logging API through which traces are written. The reference is never null since it is set in the class'
+   * constructor.
+   */
+  private final TraceBackend backend;
+
+  /**
+   * Dispatcher that writes the traces of this instance asynchronously. The attribute is null if traces are written
+   * synchronously.
+   */
+  private final AsyncTraceDispatcher dispatcher;
+
+  /**
+   * Cached effective level of this instance. The value is the index of the most detailed enabled level within
+   * {@link #TRACE_LEVELS} or {@link #LEVEL_DISABLED}. Other values mark the cache as invalid. The cache is invalidated
+   * by {@link TraceLevelListener} whenever the Log4J2 configuration changes.
    */
-  private final Log logger;
+  private volatile int effectiveLevel = LEVEL_INVALID;
 
   /**
    * Static field says if Log4J configuration was already checked and may be fixed.
@@ -68,15 +104,35 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
    * null.
    */
   AbstractCommonsLoggingTraceImpl( String pLoggerName ) {
-    // Check parameter.
+    this(pLoggerName, AsyncTraceDispatcher.getDefaultDispatcher(),
+        TraceBackendConfiguration.getInstance().getBackendType());
+  }
+
+  /**
+   * Initialize a new Trace-Object for the passed component.
+   * 
+   * @param pLoggerName Name of the logger for which the new Trace instance will be created. The parameter must not be
+   * null.
+   * @param pDispatcher Dispatcher that should be used to write traces asynchronously. The parameter may be null. In
+   * this case traces are written synchronously.
+   * @param pBackendType Logging API through which traces should be written. The parameter must not be null.
+   */
+  AbstractCommonsLoggingTraceImpl( String pLoggerName, AsyncTraceDispatcher pDispatcher,
+      TraceBackendType pBackendType ) {
+    // Check parameters.
     Check.checkInvalidParameterNull(pLoggerName, "pLoggerName");
+    Check.checkInvalidParameterNull(pBackendType, "pBackendType");
 
     // In order to avoid problems with Log4J due to missing Log4J configuration we try to fix it if needed.
     AbstractCommonsLoggingTraceImpl.checkAndFixLog4JConfiguration();
 
     // Get logger implementation.
     name = pLoggerName;
-    logger = LogFactory.getLog(name);
+    backend = TraceBackend.create(name, pBackendType);
+    dispatcher = pDispatcher;
+
+    // Cached level has to be invalidated whenever Log4J2 is reconfigured.
+    TraceLevelListener.register(this);
   }
 
   /**
@@ -137,92 +193,95 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
       pTraceLevel = TraceLevel.ERROR;
     }
 
-    this.internalLog(logger, pTraceLevel, pMessage, pThrowable);
+    this.logMessage(pTraceLevel, pMessage, pThrowable);
   }
 
   /**
-   * Method writes an so called emergency trace. Emergency traces are needed in case that we run into fatal problems
-   * during initialization. Thus this method should be implemented in a way that it requires no environment be be set
-   * up.
+   * Method writes the passed trace either directly or through the dispatcher in case of asynchronous tracing.
    * 
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
    * @param pMessage Message that should be written. The parameter may be null.
    * @param pThrowable Exception that occurred. The parameter may be null.
-   * @param pTraceLevel Level with which the message should be traced. The parameter may be null. In this case
-   * {@link TraceLevel#FATAL} will be used.
    */
-  @Override
-  public void writeEmergencyTrace( String pMessage, Throwable pThrowable, TraceLevel pTraceLevel ) {
-    Log lLogger = LogFactory.getLog("JEAF_EMERGENCY");
-
-    if (pTraceLevel == null) {
-      pTraceLevel = TraceLevel.FATAL;
+  private void logMessage( TraceLevel pTraceLevel, String pMessage, Throwable pThrowable ) {
+    // Disabled traces are discarded based on the cached level. In asynchronous mode they must also not occupy space in
+    // the buffer.
+    if (this.isLevelEnabled(pTraceLevel) == true) {
+      if (dispatcher == null) {
+        backend.log(pTraceLevel, pMessage, pThrowable);
+      }
+      else {
+        dispatcher.publish(this, pTraceLevel, pMessage, null, pThrowable);
+      }
     }
+  }
 
-    this.internalLog(lLogger, pTraceLevel, pMessage, pThrowable);
-
+  /**
+   * Method writes the passed trace directly to the logging framework. The method is used by
+   * {@link AsyncTraceDispatcher} to write buffered traces.
+   * 
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message that should be written. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   */
+  void logSynchronously( TraceLevel pTraceLevel, String pMessage, Throwable pThrowable ) {
+    backend.log(pTraceLevel, pMessage, pThrowable);
   }
 
-  private void internalLog( Log pLogger, TraceLevel pTraceLevel, String pMessage, Throwable pThrowable ) {
-    String lTechnicalDetails;
-    if (pThrowable instanceof ExceptionInfoProvider) {
-      lTechnicalDetails = ((ExceptionInfoProvider) pThrowable).getTechnicalDetails();
+  /**
+   * Method writes the passed trace message directly to the logging framework. If the backend supports trace messages
+   * then the message is passed as it is. Otherwise it is rendered as string by the current thread.
+   * 
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Trace message that should be written. The parameter must not be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   */
+  void logSynchronously( TraceLevel pTraceLevel, TraceMessage pMessage, Throwable pThrowable ) {
+    if (backend.supportsTraceMessages() == true) {
+      backend.log(pTraceLevel, pMessage, pThrowable);
     }
     else {
-      lTechnicalDetails = null;
+      backend.log(pTraceLevel, pMessage.getFormattedMessage(), pThrowable);
     }
+  }
 
-    if (lTechnicalDetails == null) {
-      switch (pTraceLevel) {
-        case TRACE:
-          pLogger.trace(pMessage, pThrowable);
-          break;
-        case DEBUG:
-          pLogger.debug(pMessage, pThrowable);
-          break;
-        case INFO:
-          pLogger.info(pMessage, pThrowable);
-          break;
-        case WARN:
-          pLogger.warn(pMessage, pThrowable);
-          break;
-        case ERROR:
-          pLogger.error(pMessage, pThrowable);
-          break;
-        // FATAL is also our default case.
-        default:
-          pLogger.fatal(pMessage, pThrowable);
-      }
+  /**
+   * Method writes the passed trace message either directly or through the dispatcher in case of asynchronous tracing.
+   * The caller has to ensure that the trace level is enabled. In case of asynchronous tracing the message is passed
+   * unrendered to the dispatcher together with the indentation and the current user of the current thread. It is then
+   * rendered by the dispatcher thread.
+   * 
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Trace message that should be written. The parameter must not be null. The message still belongs to
+   * the caller and may be released as soon as the method returns.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   */
+  void logMessage( TraceLevel pTraceLevel, TraceMessage pMessage, Throwable pThrowable ) {
+    pMessage.captureIndentationLevel();
+    if (dispatcher == null) {
+      this.logSynchronously(pTraceLevel, pMessage, pThrowable);
     }
     else {
-      switch (pTraceLevel) {
-        case TRACE:
-          pLogger.trace(pMessage);
-          pLogger.trace(lTechnicalDetails, pThrowable);
-          break;
-        case DEBUG:
-          pLogger.debug(pMessage);
-          pLogger.debug(lTechnicalDetails, pThrowable);
-          break;
-        case INFO:
-          pLogger.info(pMessage);
-          pLogger.info(lTechnicalDetails, pThrowable);
-          break;
-        case WARN:
-          pLogger.warn(pMessage);
-          pLogger.warn(lTechnicalDetails, pThrowable);
-          break;
-        case ERROR:
-          pLogger.error(pMessage);
-          pLogger.error(lTechnicalDetails, pThrowable);
-          break;
-        // FATAL is also our default case.
-        default:
-          pLogger.fatal(pMessage);
-          pLogger.fatal(lTechnicalDetails, pThrowable);
-      }
+      pMessage.captureCurrentUser();
+      dispatcher.publish(this, pTraceLevel, null, pMessage, pThrowable);
     }
   }
 
+  /**
+   * Method writes an so called emergency trace. Emergency traces are needed in case that we run into fatal problems
+   * during initialization. Thus this method should be implemented in a way that it requires no environment be be set
+   * up.
+   * 
+   * @param pMessage Message that should be written. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pTraceLevel Level with which the message should be traced. The parameter may be null. In this case
+   * {@link TraceLevel#FATAL} will be used.
+   */
+  @Override
+  public void writeEmergencyTrace( String pMessage, Throwable pThrowable, TraceLevel pTraceLevel ) {
+    TraceBackend.writeEmergencyTrace(pMessage, pThrowable, pTraceLevel);
+  }
+
   /**
    * Method check if the passed trace level is enabled on this trace object.
    * 
@@ -234,38 +293,78 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
   public boolean isLevelEnabled( TraceLevel pTraceLevel ) {
     // Check parameter.
     Check.checkInvalidParameterNull(pTraceLevel, "pTraceLevel");
-    boolean lTraceEnabled = false;
 
+    int lEffectiveLevel = effectiveLevel;
+    if (lEffectiveLevel < LEVEL_DISABLED) {
+      lEffectiveLevel = this.refreshLevel(lEffectiveLevel);
+    }
+    return AbstractCommonsLoggingTraceImpl.getLevelIndex(pTraceLevel) <= lEffectiveLevel;
+  }
+
+  /**
+   * Method determines the effective level of this instance from the logging framework and caches it.
+   * 
+   * @param pInvalidationMarker Invalidation marker that was read from the cache before. The determined level is only
+   * cached if the cache still contains this marker.
+   * @return int Index of the most detailed enabled level within {@link #TRACE_LEVELS} or {@link #LEVEL_DISABLED}.
+   */
+  private int refreshLevel( int pInvalidationMarker ) {
+    int lEffectiveLevel = LEVEL_DISABLED;
+    for (int i = 0; i < TRACE_LEVELS.length; i++) {
+      if (backend.isLevelEnabled(TRACE_LEVELS[i]) == true) {
+        lEffectiveLevel = i;
+      }
+    }
+    EFFECTIVE_LEVEL_UPDATER.compareAndSet(this, pInvalidationMarker, lEffectiveLevel);
+    return lEffectiveLevel;
+  }
+
+  /**
+   * Method invalidates the cached effective level of this instance. The level will be determined again with the next
+   * level check.
+   */
+  void invalidateLevel( ) {
+    effectiveLevel = LEVEL_INVALID - (INVALIDATION_COUNTER.getAndIncrement() & 0x3FFFFFFF);
+  }
+
+  /**
+   * Method returns the index of the passed trace level within {@link #TRACE_LEVELS}.
+   * 
+   * @param pTraceLevel Trace level whose index should be returned. The parameter must not be null.
+   * @return int Index of the passed trace level.
+   */
+  private static int getLevelIndex( TraceLevel pTraceLevel ) {
+    int lIndex;
     switch (pTraceLevel) {
-      case TRACE:
-        lTraceEnabled = logger.isTraceEnabled();
+      case FATAL:
+        lIndex = 0;
         break;
 
-      case DEBUG:
-        lTraceEnabled = logger.isDebugEnabled();
+      case ERROR:
+        lIndex = 1;
         break;
 
-      case INFO:
-        lTraceEnabled = logger.isInfoEnabled();
+      case WARN:
+        lIndex = 2;
         break;
 
-      case WARN:
-        lTraceEnabled = logger.isWarnEnabled();
+      case INFO:
+        lIndex = 3;
         break;
 
-      case ERROR:
-        lTraceEnabled = logger.isErrorEnabled();
+      case DEBUG:
+        lIndex = 4;
         break;
 
-      case FATAL:
-        lTraceEnabled = logger.isFatalEnabled();
+      case TRACE:
+        lIndex = 5;
         break;
 
       default:
-        Assert.unexpectedEnumLiteral(pTraceLevel);
-        break;
+        com.anaptecs.jeaf.xfun.api.checks.Assert.unexpectedEnumLiteral(pTraceLevel);
+        lIndex = TRACE_LEVELS.length;
     }
-    return lTraceEnabled;
+    return lIndex;
   }
 
   /**
@@ -276,15 +375,19 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
    */
   @Override
   public TraceLevel getLevel( ) {
-    // Test all trace levels until we find one that is enabled.
-    TraceLevel lCurrentLevel = null;
-    for (TraceLevel lNext : TRACE_LEVELS) {
-      if (this.isLevelEnabled(lNext) == true) {
-        lCurrentLevel = lNext;
-      }
+    int lEffectiveLevel = effectiveLevel;
+    if (lEffectiveLevel < LEVEL_DISABLED) {
+      lEffectiveLevel = this.refreshLevel(lEffectiveLevel);
     }
 
     // Method returns null if tracing is disabled completely.
+    TraceLevel lCurrentLevel;
+    if (lEffectiveLevel != LEVEL_DISABLED) {
+      lCurrentLevel = TRACE_LEVELS[lEffectiveLevel];
+    }
+    else {
+      lCurrentLevel = null;
+    }
     return lCurrentLevel;
   }
 
@@ -295,6 +398,9 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
    */
   private void setLevel( TraceLevel pLevel ) {
     Configurator.setLevel(name, this.toLevel(pLevel));
+
+    // Changed level is also inherited by child loggers.
+    TraceLevelListener.invalidateAll();
   }
 
   /**
@@ -336,6 +442,9 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
    */
   public void resetTraceLevel( ) {
     Configurator.setLevel(name, (Level) null);
+
+    // Changed level is also inherited by child loggers.
+    TraceLevelListener.invalidateAll();
   }
 
   /**
@@ -346,42 +455,12 @@ abstract class AbstractCommonsLoggingTraceImpl extends AbstractTraceImpl {
    * @return {@link Level} Trace level representation of Apache Commons Logging. The method never returns null.
    */
   public Level toLevel( TraceLevel pTraceLevel ) {
-    Level lLevel;
     if (pTraceLevel == null) {
       pTraceLevel = TraceLevel.FATAL;
     }
 
     // Convert X-Fun TraceLevel into Apache Commons Logging representation.
-    switch (pTraceLevel) {
-      case TRACE:
-        lLevel = Level.TRACE;
-        break;
-
-      case DEBUG:
-        lLevel = Level.DEBUG;
-        break;
-
-      case INFO:
-        lLevel = Level.INFO;
-        break;
-
-      case WARN:
-        lLevel = Level.WARN;
-        break;
-
-      case ERROR:
-        lLevel = Level.ERROR;
-        break;
-
-      case FATAL:
-        lLevel = Level.FATAL;
-        break;
-
-      default:
-        com.anaptecs.jeaf.xfun.api.checks.Assert.unexpectedEnumLiteral(pTraceLevel);
-        lLevel = null;
-    }
-    return lLevel;
+    return Log4j2TraceBackend.toLevel(pTraceLevel);
   }
 
 }
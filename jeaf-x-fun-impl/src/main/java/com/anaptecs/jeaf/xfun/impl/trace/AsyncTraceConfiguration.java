@@ -0,0 +1,216 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.io.File;
+import java.util.Locale;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+
+/**
+ * Class provides access to the configuration of asynchronous tracing. As tracing is set up before any other part of
+ * JEAF X-Fun, asynchronous tracing is configured using system properties. The system properties are only read once when
+ * the configuration is loaded. Invalid values are reported as emergency trace and replaced by their defaults.
+ *
+ * @author JEAF Development Team
+ */
+public final class AsyncTraceConfiguration {
+  /**
+   * Name of the system property that enables asynchronous tracing. In asynchronous mode traces are passed to a bounded
+   * buffer and a dedicated thread calls the logging framework. This way slow appenders do not stall the calling
+   * threads. By default traces are written synchronously.
+   */
+  public static final String ASYNC_TRACE = "jeaf.xfun.trace.async";
+
+  /**
+   * Name of the system property that defines the number of traces that can be buffered in asynchronous mode. The value
+   * is rounded up to the next power of two. By default 8192 traces are buffered.
+   */
+  public static final String ASYNC_TRACE_BUFFER_SIZE = "jeaf.xfun.trace.asyncBufferSize";
+
+  /**
+   * Name of the system property that defines the back-pressure policy that is used if the trace buffer is full. The
+   * value has to match one of the literals of {@link BackPressurePolicy}. By default {@link BackPressurePolicy#BLOCK}
+   * is used.
+   */
+  public static final String ASYNC_TRACE_BACK_PRESSURE = "jeaf.xfun.trace.asyncBackPressure";
+
+  /**
+   * Name of the system property that defines the highest trace level that is discarded with back-pressure policy
+   * {@link BackPressurePolicy#DROP}. The value has to match one of the literals of {@link TraceLevel}. By default
+   * traces up to level {@link TraceLevel#INFO} are discarded.
+   */
+  public static final String ASYNC_TRACE_DROP_LEVEL = "jeaf.xfun.trace.asyncDropLevel";
+
+  /**
+   * Name of the system property that defines the file to which traces are written with back-pressure policy
+   * {@link BackPressurePolicy#SPILL}. By default file "jeaf-trace-spill.log" in the temp directory is used.
+   */
+  public static final String ASYNC_TRACE_SPILL_FILE = "jeaf.xfun.trace.asyncSpillFile";
+
+  /**
+   * Default size of the trace buffer.
+   */
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * Name of the default spill file.
+   */
+  private static final String DEFAULT_SPILL_FILE = "jeaf-trace-spill.log";
+
+  /**
+   * Only instance of this class.
+   */
+  private static final AsyncTraceConfiguration INSTANCE = new AsyncTraceConfiguration();
+
+  /**
+   * Attribute indicates whether asynchronous tracing is enabled.
+   */
+  private final boolean asyncTraceEnabled;
+
+  /**
+   * Number of traces that can be buffered in asynchronous mode.
+   */
+  private final int bufferSize;
+
+  /**
+   * Back-pressure policy that is used if the trace buffer is full.
+   */
+  private final BackPressurePolicy backPressurePolicy;
+
+  /**
+   * Highest trace level that is discarded with back-pressure policy {@link BackPressurePolicy#DROP}.
+   */
+  private final TraceLevel dropLevel;
+
+  /**
+   * File to which traces are written with back-pressure policy {@link BackPressurePolicy#SPILL}.
+   */
+  private final File spillFile;
+
+  /**
+   * Initialize object. The configuration is read from the system properties.
+   */
+  private AsyncTraceConfiguration( ) {
+    asyncTraceEnabled = Boolean.getBoolean(ASYNC_TRACE);
+    bufferSize = Math.max(1, Integer.getInteger(ASYNC_TRACE_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
+    backPressurePolicy = AsyncTraceConfiguration.readBackPressurePolicy();
+    dropLevel = AsyncTraceConfiguration.readDropLevel();
+    spillFile = AsyncTraceConfiguration.readSpillFile();
+  }
+
+  /**
+   * Method returns the configuration of asynchronous tracing.
+   *
+   * @return {@link AsyncTraceConfiguration} Configuration of asynchronous tracing. The method never returns null.
+   */
+  public static AsyncTraceConfiguration getInstance( ) {
+    return INSTANCE;
+  }
+
+  /**
+   * Method reads the back-pressure policy from the system properties.
+   *
+   * @return {@link BackPressurePolicy} Configured back-pressure policy or {@link BackPressurePolicy#BLOCK} if the
+   * configured value is invalid. The method never returns null.
+   */
+  private static BackPressurePolicy readBackPressurePolicy( ) {
+    String lPolicy = System.getProperty(ASYNC_TRACE_BACK_PRESSURE, BackPressurePolicy.BLOCK.name());
+    BackPressurePolicy lBackPressurePolicy;
+    try {
+      lBackPressurePolicy = BackPressurePolicy.valueOf(lPolicy.trim().toUpperCase(Locale.ROOT));
+    }
+    catch (IllegalArgumentException e) {
+      TraceBackend.writeEmergencyTrace("Invalid value '" + lPolicy + "' of system property " + ASYNC_TRACE_BACK_PRESSURE
+          + ". Using " + BackPressurePolicy.BLOCK.name() + " instead.", null, TraceLevel.WARN);
+      lBackPressurePolicy = BackPressurePolicy.BLOCK;
+    }
+    return lBackPressurePolicy;
+  }
+
+  /**
+   * Method reads the drop level from the system properties.
+   *
+   * @return {@link TraceLevel} Configured drop level or {@link TraceLevel#INFO} if the configured value is invalid. The
+   * method never returns null.
+   */
+  private static TraceLevel readDropLevel( ) {
+    String lLevel = System.getProperty(ASYNC_TRACE_DROP_LEVEL, TraceLevel.INFO.name());
+    TraceLevel lDropLevel;
+    try {
+      lDropLevel = TraceLevel.valueOf(lLevel.trim().toUpperCase(Locale.ROOT));
+    }
+    catch (IllegalArgumentException e) {
+      TraceBackend.writeEmergencyTrace("Invalid value '" + lLevel + "' of system property " + ASYNC_TRACE_DROP_LEVEL
+          + ". Using " + TraceLevel.INFO.name() + " instead.", null, TraceLevel.WARN);
+      lDropLevel = TraceLevel.INFO;
+    }
+    return lDropLevel;
+  }
+
+  /**
+   * Method reads the spill file from the system properties.
+   *
+   * @return {@link File} Spill file. The method never returns null.
+   */
+  private static File readSpillFile( ) {
+    String lSpillFile = System.getProperty(ASYNC_TRACE_SPILL_FILE);
+    File lFile;
+    if (lSpillFile != null && lSpillFile.trim().length() > 0) {
+      lFile = new File(lSpillFile.trim());
+    }
+    else {
+      lFile = new File(System.getProperty("java.io.tmpdir"), DEFAULT_SPILL_FILE);
+    }
+    return lFile;
+  }
+
+  /**
+   * Method checks if asynchronous tracing is enabled.
+   *
+   * @return boolean Method returns true if asynchronous tracing is enabled and false otherwise. By default asynchronous
+   * tracing is disabled.
+   */
+  public boolean isAsyncTraceEnabled( ) {
+    return asyncTraceEnabled;
+  }
+
+  /**
+   * Method returns the number of traces that can be buffered in asynchronous mode.
+   *
+   * @return int Size of the trace buffer. The method always returns a value greater than zero.
+   */
+  public int getBufferSize( ) {
+    return bufferSize;
+  }
+
+  /**
+   * Method returns the back-pressure policy that is used if the trace buffer is full.
+   *
+   * @return {@link BackPressurePolicy} Configured back-pressure policy. The method never returns null.
+   */
+  public BackPressurePolicy getBackPressurePolicy( ) {
+    return backPressurePolicy;
+  }
+
+  /**
+   * Method returns the highest trace level that is discarded with back-pressure policy {@link BackPressurePolicy#DROP}.
+   *
+   * @return {@link TraceLevel} Highest trace level that may be discarded. The method never returns null.
+   */
+  public TraceLevel getDropLevel( ) {
+    return dropLevel;
+  }
+
+  /**
+   * Method returns the file to which traces are written with back-pressure policy {@link BackPressurePolicy#SPILL}.
+   *
+   * @return {@link File} Spill file. The method never returns null.
+   */
+  public File getSpillFile( ) {
+    return spillFile;
+  }
+}
@@ -0,0 +1,626 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.bootstrap.Check;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.ThreadContext.ContextStack;
+
+/**
+ * Class writes traces asynchronously. Calling threads publish their traces into a bounded buffer and a single daemon
+ * thread passes them to the logging framework. This way slow appenders do not stall the calling threads.
+ *
+ * The buffer is a lock-free ring of pre-allocated {@link TraceEvent}s. Every slot has a sequence number that tells
+ * whether the slot is free for the producer of a specific position or contains an event for the dispatcher thread.
+ * Publishing a trace therefore only requires one compare-and-set operation and does not allocate any memory except for
+ * the Log4J thread context snapshot if the thread context is used. Trace messages that are identified by a message ID
+ * are copied into the event unrendered and are rendered by the dispatcher thread. The dispatcher thread sleeps while
+ * the buffer is empty and is woken up by the first trace that is published afterwards.
+ *
+ * What happens if the buffer is full is defined by the {@link BackPressurePolicy} of the dispatcher. Please be aware
+ * that in asynchronous mode the time stamp and thread name that are shown by appenders are the ones of the dispatcher
+ * thread. The Log4J thread context of the calling thread however is passed to the appenders.
+ *
+ * @author JEAF Development Team
+ */
+public final class AsyncTraceDispatcher {
+  /**
+   * Name of the thread that writes the traces.
+   */
+  private static final String THREAD_NAME = "JEAF X-Fun Trace Dispatcher";
+
+  /**
+   * Time in nanoseconds a calling thread pauses if it has to wait for free space in the buffer.
+   */
+  private static final long BLOCK_PARK_TIME = TimeUnit.MICROSECONDS.toNanos(10);
+
+  /**
+   * Maximum time in milliseconds the dispatcher thread gets to write buffered traces when the JVM shuts down.
+   */
+  private static final long SHUTDOWN_TIMEOUT = 5000;
+
+  /**
+   * Trace levels ordered by their severity.
+   */
+  private static final TraceLevel[] LEVELS_BY_SEVERITY = new TraceLevel[] { TraceLevel.TRACE, TraceLevel.DEBUG,
+    TraceLevel.INFO, TraceLevel.WARN, TraceLevel.ERROR, TraceLevel.FATAL };
+
+  /**
+   * Pre-allocated events of the ring buffer.
+   */
+  private final TraceEvent[] events;
+
+  /**
+   * Sequence numbers of the slots of the ring buffer. A slot with sequence number n is free for the producer of
+   * position n. A slot with sequence number n + 1 contains the event of position n.
+   */
+  private final AtomicLongArray sequences;
+
+  /**
+   * Mask that is used to calculate the slot of a position.
+   */
+  private final int mask;
+
+  /**
+   * Next position that will be claimed by a calling thread.
+   */
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Next position that will be written by the dispatcher thread. The attribute is only changed by the dispatcher
+   * thread.
+   */
+  private volatile long head;
+
+  /**
+   * Policy that is used if the buffer is full.
+   */
+  private final BackPressurePolicy backPressurePolicy;
+
+  /**
+   * Array contains for every trace level whether traces of this level may be discarded with policy
+   * {@link BackPressurePolicy#DROP}. The array is indexed by the ordinal of the trace level.
+   */
+  private final boolean[] droppableLevels;
+
+  /**
+   * File to which traces are written with policy {@link BackPressurePolicy#SPILL}.
+   */
+  private final File spillFile;
+
+  /**
+   * Writer of the spill file. The writer is created when the first trace is spilled. Access is guarded by the
+   * dispatcher instance.
+   */
+  private Writer spillWriter;
+
+  /**
+   * Number of traces that were discarded as the buffer was full.
+   */
+  private final AtomicLong droppedEvents = new AtomicLong();
+
+  /**
+   * Number of discarded traces that were already reported by the dispatcher thread.
+   */
+  private long reportedDroppedEvents;
+
+  /**
+   * Number of traces that were written to the spill file.
+   */
+  private final AtomicLong spilledEvents = new AtomicLong();
+
+  /**
+   * Signal flag that is set by the dispatcher thread before it sleeps as the buffer is empty. The first calling thread
+   * that publishes a trace afterwards resets the flag and wakes up the dispatcher thread. This way the dispatcher
+   * thread is only woken up once.
+   */
+  private final AtomicBoolean waiting = new AtomicBoolean();
+
+  /**
+   * Thread that writes the traces. The attribute is null as long as the dispatcher was not started.
+   */
+  private volatile Thread dispatcherThread;
+
+  /**
+   * Attribute indicates whether the dispatcher thread is running.
+   */
+  private volatile boolean running;
+
+  /**
+   * Attribute indicates whether the dispatcher was stopped.
+   */
+  private volatile boolean stopped;
+
+  /**
+   * Method returns the dispatcher that is used by all trace instances if asynchronous tracing is enabled (see
+   * {@link AsyncTraceConfiguration#ASYNC_TRACE}). The dispatcher is created and started on first access.
+   *
+   * @return {@link AsyncTraceDispatcher} Dispatcher for asynchronous tracing or null if traces are written
+   * synchronously.
+   */
+  public static AsyncTraceDispatcher getDefaultDispatcher( ) {
+    return DefaultDispatcherHolder.DISPATCHER;
+  }
+
+  /**
+   * Initialize object. The dispatcher thread has to be started using {@link #start()}.
+   *
+   * @param pBufferSize Number of traces that can be buffered. The value is rounded up to the next power of two and has
+   * to be greater than zero.
+   * @param pBackPressurePolicy Policy that is used if the buffer is full. The parameter must not be null.
+   * @param pDropLevel Highest trace level that is discarded with policy {@link BackPressurePolicy#DROP}. The parameter
+   * must not be null.
+   * @param pSpillFile File to which traces are written with policy {@link BackPressurePolicy#SPILL}. The parameter must
+   * not be null if policy {@link BackPressurePolicy#SPILL} is used.
+   */
+  public AsyncTraceDispatcher( int pBufferSize, BackPressurePolicy pBackPressurePolicy, TraceLevel pDropLevel,
+      File pSpillFile ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pBackPressurePolicy, "pBackPressurePolicy");
+    Check.checkInvalidParameterNull(pDropLevel, "pDropLevel");
+    if (pBufferSize <= 0 || pBufferSize > 1 << 30) {
+      throw new IllegalArgumentException("Invalid trace buffer size " + pBufferSize);
+    }
+    if (pBackPressurePolicy == BackPressurePolicy.SPILL) {
+      Check.checkInvalidParameterNull(pSpillFile, "pSpillFile");
+    }
+
+    // Create ring buffer.
+    int lCapacity = Integer.highestOneBit(pBufferSize);
+    if (lCapacity < pBufferSize) {
+      lCapacity = lCapacity << 1;
+    }
+    events = new TraceEvent[lCapacity];
+    sequences = new AtomicLongArray(lCapacity);
+    for (int i = 0; i < lCapacity; i++) {
+      events[i] = new TraceEvent();
+      sequences.set(i, i);
+    }
+    mask = lCapacity - 1;
+
+    // Resolve trace levels that may be discarded.
+    backPressurePolicy = pBackPressurePolicy;
+    droppableLevels = new boolean[TraceLevel.values().length];
+    for (TraceLevel lNextLevel : LEVELS_BY_SEVERITY) {
+      droppableLevels[lNextLevel.ordinal()] = true;
+      if (lNextLevel == pDropLevel) {
+        break;
+      }
+    }
+    spillFile = pSpillFile;
+  }
+
+  /**
+   * Method starts the dispatcher thread. Calling the method on a running dispatcher has no effect.
+   */
+  public synchronized void start( ) {
+    if (dispatcherThread == null) {
+      Thread lThread = new Thread(this::dispatch, THREAD_NAME);
+      lThread.setDaemon(true);
+      running = true;
+      dispatcherThread = lThread;
+      lThread.start();
+    }
+  }
+
+  /**
+   * Method stops the dispatcher thread. All traces that are already buffered will be written before the thread ends.
+   * Traces that are published after the dispatcher was stopped are written synchronously. Traces that were published
+   * concurrently to the shutdown and were not picked up by the dispatcher thread any longer are written by this
+   * method.
+   *
+   * @param pTimeout Maximum time in milliseconds to wait for the dispatcher thread to write all buffered traces.
+   * @return boolean Method returns true if all buffered traces were written and false otherwise.
+   */
+  public boolean shutdown( long pTimeout ) {
+    Thread lThread;
+    synchronized (this) {
+      lThread = dispatcherThread;
+      running = false;
+      stopped = true;
+    }
+    if (lThread != null) {
+      LockSupport.unpark(lThread);
+      try {
+        lThread.join(Math.max(1, pTimeout));
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    // Buffer must only be drained if the dispatcher thread does not write any traces any longer.
+    boolean lTerminated;
+    if (lThread == null || lThread.isAlive() == false) {
+      this.drain();
+      lTerminated = true;
+    }
+    else {
+      lTerminated = false;
+    }
+    this.closeSpillFile();
+    return lTerminated;
+  }
+
+  /**
+   * Method waits until all traces that were published before this call are written.
+   *
+   * @param pTimeout Maximum time in milliseconds to wait.
+   * @return boolean Method returns true if all traces were written and false if the timeout elapsed or the dispatcher
+   * is not running.
+   */
+  public boolean flush( long pTimeout ) {
+    long lTarget = tail.get();
+    long lDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pTimeout);
+    while (head < lTarget) {
+      if (running == false || System.nanoTime() - lDeadline >= 0) {
+        return false;
+      }
+      LockSupport.parkNanos(BLOCK_PARK_TIME);
+    }
+    return true;
+  }
+
+  /**
+   * Method returns the policy that is used if the buffer is full.
+   *
+   * @return {@link BackPressurePolicy} Back-pressure policy of this dispatcher. The method never returns null.
+   */
+  public BackPressurePolicy getBackPressurePolicy( ) {
+    return backPressurePolicy;
+  }
+
+  /**
+   * Method returns the number of traces that can be buffered.
+   *
+   * @return int Capacity of the buffer.
+   */
+  public int getCapacity( ) {
+    return events.length;
+  }
+
+  /**
+   * Method returns the number of traces that are currently buffered.
+   *
+   * @return int Number of buffered traces.
+   */
+  public int getBufferedEvents( ) {
+    return (int) Math.max(0, tail.get() - head);
+  }
+
+  /**
+   * Method returns the number of traces that were discarded as the buffer was full.
+   *
+   * @return long Number of discarded traces.
+   */
+  public long getDroppedEvents( ) {
+    return droppedEvents.get();
+  }
+
+  /**
+   * Method returns the number of traces that were written to the spill file as the buffer was full.
+   *
+   * @return long Number of spilled traces.
+   */
+  public long getSpilledEvents( ) {
+    return spilledEvents.get();
+  }
+
+  /**
+   * Method publishes the passed trace into the buffer. If the buffer is full then the back-pressure policy of the
+   * dispatcher is applied.
+   *
+   * @param pTrace Trace instance through which the trace has to be written. The parameter must not be null.
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message of the trace. The parameter may be null.
+   * @param pTraceMessage Unrendered trace message that is written instead of pMessage. The message is copied into the
+   * buffer and rendered by the dispatcher thread. Thus it may be released as soon as the method returns. The parameter
+   * may be null.
+   * @param pThrowable Exception that should be traced. The parameter may be null.
+   */
+  void publish( AbstractCommonsLoggingTraceImpl pTrace, TraceLevel pTraceLevel, String pMessage,
+      TraceMessage pTraceMessage, Throwable pThrowable ) {
+    // Once the dispatcher is stopped nobody would write buffered traces.
+    if (stopped == true) {
+      this.writeSynchronously(pTrace, pTraceLevel, pMessage, pTraceMessage, pThrowable);
+      return;
+    }
+
+    Map<String, String> lContext = ThreadContext.getImmutableContext();
+    ContextStack lContextStack = ThreadContext.getImmutableStack();
+    while (true) {
+      long lPosition = tail.get();
+      int lSlot = (int) lPosition & mask;
+      long lDifference = sequences.get(lSlot) - lPosition;
+
+      // Slot is free, so let's try to claim it.
+      if (lDifference == 0) {
+        if (tail.compareAndSet(lPosition, lPosition + 1)) {
+          events[lSlot].set(pTrace, pTraceLevel, pMessage, pTraceMessage, pThrowable, lContext, lContextStack);
+          sequences.set(lSlot, lPosition + 1);
+
+          // Dispatcher thread only has to be woken up if it is waiting for the buffer to become non-empty.
+          if (waiting.get() == true && waiting.compareAndSet(true, false) == true) {
+            LockSupport.unpark(dispatcherThread);
+          }
+          // Dispatcher might have been stopped while the slot was claimed. In this case the trace must not get lost.
+          if (stopped == true) {
+            this.drainAfterShutdown();
+          }
+          return;
+        }
+      }
+      // Buffer is full.
+      else if (lDifference < 0) {
+        if (backPressurePolicy == BackPressurePolicy.SPILL) {
+          String lMessage = pTraceMessage != null ? pTraceMessage.getFormattedMessage() : pMessage;
+          this.spill(pTrace, pTraceLevel, lMessage, pThrowable);
+          return;
+        }
+        else if (backPressurePolicy == BackPressurePolicy.DROP && droppableLevels[pTraceLevel.ordinal()] == true) {
+          droppedEvents.incrementAndGet();
+          return;
+        }
+        // Dispatcher thread is not running or traces itself, so nobody would free space in the buffer.
+        else if (running == false || Thread.currentThread() == dispatcherThread) {
+          this.writeSynchronously(pTrace, pTraceLevel, pMessage, pTraceMessage, pThrowable);
+          return;
+        }
+        else {
+          LockSupport.parkNanos(BLOCK_PARK_TIME);
+        }
+      }
+      // Otherwise another thread claimed the slot in the meantime and we just try again.
+    }
+  }
+
+  /**
+   * Method is executed by the dispatcher thread and writes all buffered traces until the dispatcher is stopped.
+   */
+  private void dispatch( ) {
+    boolean lRunning = true;
+    while (lRunning == true) {
+      if (this.writeNextEvent() == false) {
+        lRunning = running;
+        if (lRunning == true) {
+          this.reportDroppedEvents();
+
+          // Signal flag has to be set before the buffer is checked again. Otherwise a trace that is published in the
+          // meantime would not wake up the dispatcher thread.
+          waiting.set(true);
+          if (this.isEmpty() == true && running == true) {
+            LockSupport.park(this);
+          }
+          waiting.set(false);
+        }
+      }
+    }
+    this.reportDroppedEvents();
+  }
+
+  /**
+   * Method writes the next buffered trace if there is one.
+   *
+   * @return boolean Method returns true if a trace was written and false if the buffer is empty.
+   */
+  private boolean writeNextEvent( ) {
+    long lPosition = head;
+    int lSlot = (int) lPosition & mask;
+    boolean lWritten;
+    if (sequences.get(lSlot) == lPosition + 1) {
+      TraceEvent lEvent = events[lSlot];
+      this.write(lEvent);
+      lEvent.clear();
+      sequences.set(lSlot, lPosition + events.length);
+      head = lPosition + 1;
+      lWritten = true;
+    }
+    else {
+      lWritten = false;
+    }
+    return lWritten;
+  }
+
+  /**
+   * Method checks if the next position of the buffer does not contain a trace yet.
+   *
+   * @return boolean Method returns true if the buffer is empty and false otherwise.
+   */
+  private boolean isEmpty( ) {
+    long lPosition = head;
+    return sequences.get((int) lPosition & mask) != lPosition + 1;
+  }
+
+  /**
+   * Method writes all buffered traces on the current thread. The method must only be called if the dispatcher thread
+   * is not running any longer.
+   */
+  private synchronized void drain( ) {
+    while (this.writeNextEvent() == true) {
+      // Nothing else to do.
+    }
+    this.reportDroppedEvents();
+  }
+
+  /**
+   * Method writes all buffered traces on the current thread if the dispatcher thread already ended. Otherwise the
+   * remaining traces are either written by the dispatcher thread or by {@link #shutdown(long)}.
+   */
+  private void drainAfterShutdown( ) {
+    Thread lThread = dispatcherThread;
+    if (lThread == null || lThread.isAlive() == false) {
+      this.drain();
+    }
+  }
+
+  /**
+   * Method writes the passed trace directly through the passed trace instance.
+   *
+   * @param pTrace Trace instance through which the trace has to be written. The parameter must not be null.
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message of the trace. The parameter may be null.
+   * @param pTraceMessage Unrendered trace message that is written instead of pMessage. The parameter may be null.
+   * @param pThrowable Exception that should be traced. The parameter may be null.
+   */
+  private void writeSynchronously( AbstractCommonsLoggingTraceImpl pTrace, TraceLevel pTraceLevel, String pMessage,
+      TraceMessage pTraceMessage, Throwable pThrowable ) {
+    if (pTraceMessage != null) {
+      pTrace.logSynchronously(pTraceLevel, pTraceMessage, pThrowable);
+    }
+    else {
+      pTrace.logSynchronously(pTraceLevel, pMessage, pThrowable);
+    }
+  }
+
+  /**
+   * Method writes the passed event through its trace instance. The Log4J thread context of the calling thread is
+   * restored while the trace is written. Unrendered trace messages are rendered by the current thread.
+   *
+   * @param pEvent Event that should be written. The parameter must not be null.
+   */
+  private void write( TraceEvent pEvent ) {
+    boolean lHasContext = pEvent.context.isEmpty() == false;
+    boolean lHasContextStack = pEvent.contextStack.getDepth() > 0;
+    try {
+      if (lHasContext == true) {
+        ThreadContext.putAll(pEvent.context);
+      }
+      if (lHasContextStack == true) {
+        ThreadContext.setStack(pEvent.contextStack.asList());
+      }
+      this.writeSynchronously(pEvent.trace, pEvent.level, pEvent.message, pEvent.traceMessage, pEvent.throwable);
+    }
+    // The dispatcher thread must never die due to a failing appender.
+    catch (RuntimeException e) {
+      pEvent.trace.writeEmergencyTrace("Unable to write trace. " + e.getMessage(), e, TraceLevel.ERROR);
+    }
+    finally {
+      if (lHasContext == true) {
+        ThreadContext.clearMap();
+      }
+      if (lHasContextStack == true) {
+        ThreadContext.clearStack();
+      }
+    }
+  }
+
+  /**
+   * Method reports the number of traces that were discarded since the last report.
+   */
+  private void reportDroppedEvents( ) {
+    long lDroppedEvents = droppedEvents.get();
+    if (lDroppedEvents > reportedDroppedEvents) {
+      Log lLogger = LogFactory.getLog(AsyncTraceDispatcher.class);
+      lLogger.warn((lDroppedEvents - reportedDroppedEvents) + " traces were discarded as the trace buffer was full.");
+      reportedDroppedEvents = lDroppedEvents;
+    }
+  }
+
+  /**
+   * Method writes the passed trace to the spill file.
+   *
+   * @param pTrace Trace instance through which the trace should have been written. The parameter must not be null.
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message of the trace. The parameter may be null.
+   * @param pThrowable Exception that should be traced. The parameter may be null.
+   */
+  private synchronized void spill( AbstractCommonsLoggingTraceImpl pTrace, TraceLevel pTraceLevel, String pMessage,
+      Throwable pThrowable ) {
+    try {
+      if (spillWriter == null) {
+        spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile, true),
+            StandardCharsets.UTF_8));
+      }
+      StringBuilder lBuilder = new StringBuilder(128);
+      lBuilder.append(Instant.now()).append(' ');
+      lBuilder.append('[').append(Thread.currentThread().getName()).append("] ");
+      lBuilder.append(pTraceLevel.name()).append(' ');
+      lBuilder.append(pTrace.getName()).append(" - ");
+      lBuilder.append(pMessage).append(System.lineSeparator());
+      spillWriter.write(lBuilder.toString());
+      if (pThrowable != null) {
+        PrintWriter lPrintWriter = new PrintWriter(spillWriter);
+        pThrowable.printStackTrace(lPrintWriter);
+        lPrintWriter.flush();
+      }
+      spillWriter.flush();
+      spilledEvents.incrementAndGet();
+    }
+    catch (IOException e) {
+      droppedEvents.incrementAndGet();
+      pTrace.writeEmergencyTrace("Unable to write trace to spill file " + spillFile + ". " + e.getMessage(), e,
+          TraceLevel.ERROR);
+    }
+  }
+
+  /**
+   * Method closes the spill file if it was opened.
+   */
+  private synchronized void closeSpillFile( ) {
+    if (spillWriter != null) {
+      try {
+        spillWriter.close();
+      }
+      catch (IOException e) {
+        // Nothing we can do about it.
+      }
+      spillWriter = null;
+    }
+  }
+
+  /**
+   * Class holds the default dispatcher. This way the dispatcher is only created if asynchronous tracing is used.
+   */
+  private static final class DefaultDispatcherHolder {
+    /**
+     * Default dispatcher or null if asynchronous tracing is disabled.
+     */
+    static final AsyncTraceDispatcher DISPATCHER = createDefaultDispatcher(AsyncTraceConfiguration.getInstance());
+
+    /**
+     * Method creates and starts the default dispatcher as it is defined by the passed configuration.
+     *
+     * @param pConfiguration Configuration of asynchronous tracing. The parameter must not be null.
+     * @return {@link AsyncTraceDispatcher} Started dispatcher or null if asynchronous tracing is disabled.
+     */
+    private static AsyncTraceDispatcher createDefaultDispatcher( AsyncTraceConfiguration pConfiguration ) {
+      AsyncTraceDispatcher lDispatcher;
+      if (pConfiguration.isAsyncTraceEnabled() == true) {
+        lDispatcher = new AsyncTraceDispatcher(pConfiguration.getBufferSize(), pConfiguration.getBackPressurePolicy(),
+            pConfiguration.getDropLevel(), pConfiguration.getSpillFile());
+        lDispatcher.start();
+
+        // Buffered traces must not get lost when the JVM shuts down.
+        AsyncTraceDispatcher lShutdownDispatcher = lDispatcher;
+        Runtime.getRuntime().addShutdownHook(new Thread(( ) -> lShutdownDispatcher.shutdown(SHUTDOWN_TIMEOUT),
+            THREAD_NAME + " Shutdown"));
+      }
+      else {
+        lDispatcher = null;
+      }
+      return lDispatcher;
+    }
+  }
+}
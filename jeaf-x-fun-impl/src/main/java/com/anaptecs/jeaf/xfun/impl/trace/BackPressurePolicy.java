@@ -0,0 +1,32 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+/**
+ * Enumeration defines how asynchronous tracing behaves if the trace buffer is full (see {@link AsyncTraceDispatcher}).
+ *
+ * @author JEAF Development Team
+ */
+public enum BackPressurePolicy {
+  /**
+   * Callers wait until the dispatcher thread freed space in the trace buffer. No traces get lost but a slow appender
+   * may stall callers as soon as the buffer is full.
+   */
+  BLOCK,
+
+  /**
+   * Traces with a level up to the configured drop level (see {@link AsyncTraceConfiguration#ASYNC_TRACE_DROP_LEVEL})
+   * are discarded. Traces with a higher level wait as with {@link #BLOCK}. The number of discarded traces is reported
+   * as warning by the dispatcher thread.
+   */
+  DROP,
+
+  /**
+   * Traces are written to a spill file (see {@link AsyncTraceConfiguration#ASYNC_TRACE_SPILL_FILE}) instead of being
+   * passed to the logging framework. Callers never wait for the dispatcher thread.
+   */
+  SPILL;
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.bootstrap.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Class writes traces through Apache Commons Logging.
+ *
+ * @author JEAF Development Team
+ */
+final class CommonsLoggingTraceBackend extends TraceBackend {
+  /**
+   * Reference to the used Log implementation.
+   */
+  private final Log logger;
+
+  /**
+   * Initialize object.
+   *
+   * @param pLoggerName Name of the logger. The parameter must not be null.
+   */
+  CommonsLoggingTraceBackend( String pLoggerName ) {
+    logger = LogFactory.getLog(pLoggerName);
+  }
+
+  @Override
+  boolean isLevelEnabled( TraceLevel pTraceLevel ) {
+    boolean lTraceEnabled = false;
+    switch (pTraceLevel) {
+      case TRACE:
+        lTraceEnabled = logger.isTraceEnabled();
+        break;
+
+      case DEBUG:
+        lTraceEnabled = logger.isDebugEnabled();
+        break;
+
+      case INFO:
+        lTraceEnabled = logger.isInfoEnabled();
+        break;
+
+      case WARN:
+        lTraceEnabled = logger.isWarnEnabled();
+        break;
+
+      case ERROR:
+        lTraceEnabled = logger.isErrorEnabled();
+        break;
+
+      case FATAL:
+        lTraceEnabled = logger.isFatalEnabled();
+        break;
+
+      default:
+        Assert.unexpectedEnumLiteral(pTraceLevel);
+        break;
+    }
+    return lTraceEnabled;
+  }
+
+  @Override
+  boolean supportsTraceMessages( ) {
+    return false;
+  }
+
+  @Override
+  void write( TraceLevel pTraceLevel, Object pMessage, Throwable pThrowable ) {
+    switch (pTraceLevel) {
+      case TRACE:
+        logger.trace(pMessage, pThrowable);
+        break;
+      case DEBUG:
+        logger.debug(pMessage, pThrowable);
+        break;
+      case INFO:
+        logger.info(pMessage, pThrowable);
+        break;
+      case WARN:
+        logger.warn(pMessage, pThrowable);
+        break;
+      case ERROR:
+        logger.error(pMessage, pThrowable);
+        break;
+      // FATAL is also our default case.
+      default:
+        logger.fatal(pMessage, pThrowable);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+/**
+ * Class decorates an existing {@link ExecutorService} so that the context stack of the thread that submits a task is
+ * propagated to the thread that executes it. The context stack is captured as {@link TraceContextSnapshot} when the
+ * task is submitted. As the class is an {@link java.util.concurrent.Executor} it can also be passed to the asynchronous
+ * methods of {@link java.util.concurrent.CompletableFuture}.
+ *
+ * Decorating the {@link java.util.concurrent.ThreadFactory} of a pool would not be sufficient as pooled threads are
+ * reused for tasks of many different callers.
+ *
+ * @author JEAF Development Team
+ */
+public class ContextPropagatingExecutorService implements ExecutorService {
+  /**
+   * Executor service that executes the tasks.
+   */
+  private final ExecutorService delegate;
+
+  /**
+   * Initialize object.
+   *
+   * @param pDelegate Executor service that executes the tasks. The parameter must not be null.
+   */
+  public ContextPropagatingExecutorService( ExecutorService pDelegate ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pDelegate, "pDelegate");
+
+    delegate = pDelegate;
+  }
+
+  /**
+   * Method wraps all passed tasks using the same snapshot of the context stack of the current thread.
+   *
+   * @param pTasks Tasks that should be wrapped. The parameter must not be null.
+   * @return {@link List} Wrapped tasks. The method never returns null.
+   */
+  private static <T> List<Callable<T>> wrapAll( Collection<? extends Callable<T>> pTasks ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTasks, "pTasks");
+
+    TraceContextSnapshot lSnapshot = TraceContextSnapshot.capture();
+    List<Callable<T>> lWrappedTasks = new ArrayList<>(pTasks.size());
+    for (Callable<T> lNext : pTasks) {
+      lWrappedTasks.add(lSnapshot.wrap(lNext));
+    }
+    return lWrappedTasks;
+  }
+
+  @Override
+  public void execute( Runnable pCommand ) {
+    delegate.execute(TraceContextSnapshot.capture().wrap(pCommand));
+  }
+
+  @Override
+  public <T> Future<T> submit( Callable<T> pTask ) {
+    return delegate.submit(TraceContextSnapshot.capture().wrap(pTask));
+  }
+
+  @Override
+  public <T> Future<T> submit( Runnable pTask, T pResult ) {
+    return delegate.submit(TraceContextSnapshot.capture().wrap(pTask), pResult);
+  }
+
+  @Override
+  public Future<?> submit( Runnable pTask ) {
+    return delegate.submit(TraceContextSnapshot.capture().wrap(pTask));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll( Collection<? extends Callable<T>> pTasks ) throws InterruptedException {
+    return delegate.invokeAll(wrapAll(pTasks));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll( Collection<? extends Callable<T>> pTasks, long pTimeout, TimeUnit pUnit )
+    throws InterruptedException {
+    return delegate.invokeAll(wrapAll(pTasks), pTimeout, pUnit);
+  }
+
+  @Override
+  public <T> T invokeAny( Collection<? extends Callable<T>> pTasks )
+    throws InterruptedException, ExecutionException {
+    return delegate.invokeAny(wrapAll(pTasks));
+  }
+
+  @Override
+  public <T> T invokeAny( Collection<? extends Callable<T>> pTasks, long pTimeout, TimeUnit pUnit )
+    throws InterruptedException, ExecutionException, TimeoutException {
+    return delegate.invokeAny(wrapAll(pTasks), pTimeout, pUnit);
+  }
+
+  @Override
+  public void shutdown( ) {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow( ) {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown( ) {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated( ) {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination( long pTimeout, TimeUnit pUnit ) throws InterruptedException {
+    return delegate.awaitTermination(pTimeout, pUnit);
+  }
+}
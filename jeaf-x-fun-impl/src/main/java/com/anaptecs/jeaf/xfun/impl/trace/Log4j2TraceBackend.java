@@ -0,0 +1,102 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.bootstrap.Assert;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.Message;
+
+/**
+ * Class writes traces directly through the Log4J 2 API. Compared to {@link CommonsLoggingTraceBackend} this saves the
+ * dispatch through Apache Commons Logging and its Log4J adapter. {@link TraceMessage}s are passed as they are, so that
+ * they are only rendered if an appender actually writes them.
+ *
+ * @author JEAF Development Team
+ */
+final class Log4j2TraceBackend extends TraceBackend {
+  /**
+   * Log4J logger that is used to write the traces.
+   */
+  private final Logger logger;
+
+  /**
+   * Initialize object.
+   *
+   * @param pLoggerName Name of the logger. The parameter must not be null.
+   */
+  Log4j2TraceBackend( String pLoggerName ) {
+    logger = LogManager.getLogger(pLoggerName);
+  }
+
+  /**
+   * Method converts the passed trace level into the matching Log4J level. The mapping is also used by
+   * {@link AbstractCommonsLoggingTraceImpl#toLevel(TraceLevel)}.
+   *
+   * @param pTraceLevel Trace level that should be converted. The parameter must not be null.
+   * @return {@link Level} Matching Log4J level. The method never returns null.
+   */
+  static Level toLevel( TraceLevel pTraceLevel ) {
+    Level lLevel;
+    switch (pTraceLevel) {
+      case TRACE:
+        lLevel = Level.TRACE;
+        break;
+
+      case DEBUG:
+        lLevel = Level.DEBUG;
+        break;
+
+      case INFO:
+        lLevel = Level.INFO;
+        break;
+
+      case WARN:
+        lLevel = Level.WARN;
+        break;
+
+      case ERROR:
+        lLevel = Level.ERROR;
+        break;
+
+      case FATAL:
+        lLevel = Level.FATAL;
+        break;
+
+      default:
+        Assert.unexpectedEnumLiteral(pTraceLevel);
+        lLevel = Level.FATAL;
+    }
+    return lLevel;
+  }
+
+  @Override
+  boolean isLevelEnabled( TraceLevel pTraceLevel ) {
+    return logger.isEnabled(toLevel(pTraceLevel));
+  }
+
+  @Override
+  boolean supportsTraceMessages( ) {
+    return true;
+  }
+
+  @Override
+  void write( TraceLevel pTraceLevel, Object pMessage, Throwable pThrowable ) {
+    Level lLevel = toLevel(pTraceLevel);
+    if (pMessage instanceof Message) {
+      logger.log(lLevel, (Message) pMessage, pThrowable);
+    }
+    else if (pMessage != null) {
+      logger.log(lLevel, pMessage.toString(), pThrowable);
+    }
+    // Null messages are skipped. Only a passed exception is still written.
+    else if (pThrowable != null) {
+      logger.log(lLevel, "", pThrowable);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import com.anaptecs.jeaf.xfun.api.errorhandling.ExceptionInfoProvider;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+
+/**
+ * Class is the base class for all logging APIs through which traces can be written (see {@link TraceBackendType}).
+ *
+ * @author JEAF Development Team
+ */
+abstract class TraceBackend {
+  /**
+   * Method creates a new backend for the passed logger.
+   *
+   * @param pLoggerName Name of the logger. The parameter must not be null.
+   * @param pBackendType Logging API that should be used. The parameter must not be null.
+   * @return {@link TraceBackend} Created backend. The method never returns null.
+   */
+  static TraceBackend create( String pLoggerName, TraceBackendType pBackendType ) {
+    TraceBackend lBackend;
+    if (pBackendType == TraceBackendType.LOG4J2) {
+      lBackend = new Log4j2TraceBackend(pLoggerName);
+    }
+    else {
+      lBackend = new CommonsLoggingTraceBackend(pLoggerName);
+    }
+    return lBackend;
+  }
+
+  /**
+   * Method writes an emergency trace through Apache Commons Logging. Emergency traces are needed in case that we run
+   * into problems while tracing itself is set up. Thus the method does not require any trace instance.
+   *
+   * @param pMessage Message that should be written. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pTraceLevel Level with which the message should be traced. The parameter may be null. In this case
+   * {@link TraceLevel#FATAL} will be used.
+   */
+  static void writeEmergencyTrace( String pMessage, Throwable pThrowable, TraceLevel pTraceLevel ) {
+    TraceLevel lTraceLevel;
+    if (pTraceLevel != null) {
+      lTraceLevel = pTraceLevel;
+    }
+    else {
+      lTraceLevel = TraceLevel.FATAL;
+    }
+    TraceBackend.create("JEAF_EMERGENCY", TraceBackendType.COMMONS_LOGGING).log(lTraceLevel, pMessage, pThrowable);
+  }
+
+  /**
+   * Method checks if the passed trace level is enabled.
+   *
+   * @param pTraceLevel Trace level that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the passed trace level is enabled and false otherwise.
+   */
+  abstract boolean isLevelEnabled( TraceLevel pTraceLevel );
+
+  /**
+   * Method checks if the backend is able to write {@link TraceMessage}s that are only rendered if they are actually
+   * written.
+   *
+   * @return boolean Method returns true if trace messages are supported and false if messages have to be passed as
+   * strings.
+   */
+  abstract boolean supportsTraceMessages( );
+
+  /**
+   * Method writes the passed message to the logging framework.
+   *
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message that should be written. The parameter may be null. Instances of {@link TraceMessage} must
+   * only be passed if they are supported by the backend.
+   * @param pThrowable Exception that should be written. The parameter may be null.
+   */
+  abstract void write( TraceLevel pTraceLevel, Object pMessage, Throwable pThrowable );
+
+  /**
+   * Method writes the passed message. If the passed exception provides technical details then they are written as a
+   * separate trace together with the exception.
+   *
+   * @param pTraceLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message that should be written. The parameter may be null.
+   * @param pThrowable Exception that should be written. The parameter may be null.
+   */
+  final void log( TraceLevel pTraceLevel, Object pMessage, Throwable pThrowable ) {
+    String lTechnicalDetails;
+    if (pThrowable instanceof ExceptionInfoProvider) {
+      lTechnicalDetails = ((ExceptionInfoProvider) pThrowable).getTechnicalDetails();
+    }
+    else {
+      lTechnicalDetails = null;
+    }
+
+    if (lTechnicalDetails == null) {
+      this.write(pTraceLevel, pMessage, pThrowable);
+    }
+    else {
+      this.write(pTraceLevel, pMessage, null);
+      this.write(pTraceLevel, lTechnicalDetails, pThrowable);
+    }
+  }
+}
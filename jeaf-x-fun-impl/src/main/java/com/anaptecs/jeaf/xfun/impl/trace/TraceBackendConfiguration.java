@@ -0,0 +1,71 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.Locale;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+
+/**
+ * Class provides access to the configuration of the logging API that is used to write traces. As tracing is set up
+ * before any other part of JEAF X-Fun, the backend is configured using system properties. The system property is only
+ * read once when the configuration is loaded. An invalid value is reported as emergency trace and replaced by the
+ * default.
+ *
+ * @author JEAF Development Team
+ */
+public final class TraceBackendConfiguration {
+  /**
+   * Name of the system property that defines the logging API through which traces are written. The value has to match
+   * one of the literals of {@link TraceBackendType}. By default {@link TraceBackendType#COMMONS_LOGGING} is used.
+   */
+  public static final String TRACE_BACKEND = "jeaf.xfun.trace.backend";
+
+  /**
+   * Only instance of this class.
+   */
+  private static final TraceBackendConfiguration INSTANCE = new TraceBackendConfiguration();
+
+  /**
+   * Logging API through which traces are written.
+   */
+  private final TraceBackendType backendType;
+
+  /**
+   * Initialize object. The configuration is read from the system properties.
+   */
+  private TraceBackendConfiguration( ) {
+    String lBackend = System.getProperty(TRACE_BACKEND, TraceBackendType.COMMONS_LOGGING.name());
+    TraceBackendType lBackendType;
+    try {
+      lBackendType = TraceBackendType.valueOf(lBackend.trim().toUpperCase(Locale.ROOT));
+    }
+    catch (IllegalArgumentException e) {
+      TraceBackend.writeEmergencyTrace("Invalid value '" + lBackend + "' of system property " + TRACE_BACKEND
+          + ". Using " + TraceBackendType.COMMONS_LOGGING.name() + " instead.", null, TraceLevel.WARN);
+      lBackendType = TraceBackendType.COMMONS_LOGGING;
+    }
+    backendType = lBackendType;
+  }
+
+  /**
+   * Method returns the configuration of the logging API that is used to write traces.
+   *
+   * @return {@link TraceBackendConfiguration} Configuration of the trace backend. The method never returns null.
+   */
+  public static TraceBackendConfiguration getInstance( ) {
+    return INSTANCE;
+  }
+
+  /**
+   * Method returns the logging API through which traces are written.
+   *
+   * @return {@link TraceBackendType} Configured trace backend. The method never returns null.
+   */
+  public TraceBackendType getBackendType( ) {
+    return backendType;
+  }
+}
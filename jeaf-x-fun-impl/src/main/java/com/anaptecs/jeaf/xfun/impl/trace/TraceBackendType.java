@@ -0,0 +1,26 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+/**
+ * Enumeration defines the logging APIs through which traces can be written (see
+ * {@link TraceBackendConfiguration#TRACE_BACKEND}).
+ *
+ * @author JEAF Development Team
+ */
+public enum TraceBackendType {
+  /**
+   * Traces are written through Apache Commons Logging. This is the default and works with every logging framework that
+   * is supported by Apache Commons Logging.
+   */
+  COMMONS_LOGGING,
+
+  /**
+   * Traces are written directly through the Log4J 2 API. Messages that are identified by a message ID are passed as
+   * message objects that are only rendered if an appender actually writes them.
+   */
+  LOG4J2;
+}
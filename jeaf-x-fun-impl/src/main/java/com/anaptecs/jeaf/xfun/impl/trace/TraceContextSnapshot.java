@@ -0,0 +1,184 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.anaptecs.jeaf.xfun.api.trace.ContextStackElement;
+
+/**
+ * Class represents an immutable snapshot of the context stack of a thread. Snapshots are used to propagate the context
+ * stack to tasks that are executed by other threads, e.g. through an {@link java.util.concurrent.ExecutorService} or
+ * {@link java.util.concurrent.CompletableFuture}. While a task is executed the context stack of the executing thread
+ * is replaced with the snapshot. Afterwards the previous context stack of the executing thread is restored. This way
+ * traces that are written by the task are written to the trace of the right component and are indented as if they
+ * were written by the thread that created the task.
+ *
+ * <pre>
+ * TraceContextSnapshot lSnapshot = TraceContextSnapshot.capture();
+ * CompletableFuture.supplyAsync(lSnapshot.wrapSupplier(( ) -&gt; this.loadData()), lExecutor);
+ * </pre>
+ *
+ * @author JEAF Development Team
+ * @see ContextPropagatingExecutorService
+ */
+public final class TraceContextSnapshot {
+  /**
+   * Elements of the context stack starting with the bottom element. The array is shared with the context stack from
+   * which the snapshot was taken and must never be modified.
+   */
+  private final ContextStackElement[] elements;
+
+  /**
+   * Initialize object.
+   *
+   * @param pElements Elements of the context stack. The parameter must not be null.
+   */
+  private TraceContextSnapshot( ContextStackElement[] pElements ) {
+    elements = pElements;
+  }
+
+  /**
+   * Method captures the context stack of the current thread. As long as the context stack of the current thread is not
+   * changed all snapshots share the same elements, so capturing the context stack is cheap.
+   *
+   * @return {@link TraceContextSnapshot} Snapshot of the context stack of the current thread. The method never returns
+   * null.
+   */
+  public static TraceContextSnapshot capture( ) {
+    return new TraceContextSnapshot(TraceContextStack.getCurrent().snapshot());
+  }
+
+  /**
+   * Method returns the depth of the captured context stack.
+   *
+   * @return int Depth of the captured context stack.
+   */
+  public int getDepth( ) {
+    return elements.length;
+  }
+
+  /**
+   * Method returns the top element of the captured context stack.
+   *
+   * @return {@link ContextStackElement} Top element of the captured context stack or null if the stack was empty.
+   */
+  public ContextStackElement getCurrentContextStackElement( ) {
+    ContextStackElement lElement;
+    if (elements.length > 0) {
+      lElement = elements[elements.length - 1];
+    }
+    else {
+      lElement = null;
+    }
+    return lElement;
+  }
+
+  /**
+   * Method executes the passed task with the captured context stack on the current thread.
+   *
+   * @param pTask Task that should be executed. The parameter must not be null.
+   */
+  public void run( Runnable pTask ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTask, "pTask");
+
+    TraceContextStack lContextStack = TraceContextStack.getCurrent();
+    ContextStackElement[] lPrevious = lContextStack.snapshot();
+    lContextStack.restore(elements);
+    try {
+      pTask.run();
+    }
+    finally {
+      lContextStack.restore(lPrevious);
+    }
+  }
+
+  /**
+   * Method executes the passed task with the captured context stack on the current thread.
+   *
+   * @param pTask Task that should be executed. The parameter must not be null.
+   * @return T Result of the task.
+   * @throws Exception if the task fails.
+   */
+  public <T> T call( Callable<T> pTask ) throws Exception {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTask, "pTask");
+
+    TraceContextStack lContextStack = TraceContextStack.getCurrent();
+    ContextStackElement[] lPrevious = lContextStack.snapshot();
+    lContextStack.restore(elements);
+    try {
+      return pTask.call();
+    }
+    finally {
+      lContextStack.restore(lPrevious);
+    }
+  }
+
+  /**
+   * Method executes the passed supplier with the captured context stack on the current thread.
+   *
+   * @param pSupplier Supplier that should be executed. The parameter must not be null.
+   * @return T Result of the supplier.
+   */
+  public <T> T get( Supplier<T> pSupplier ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pSupplier, "pSupplier");
+
+    TraceContextStack lContextStack = TraceContextStack.getCurrent();
+    ContextStackElement[] lPrevious = lContextStack.snapshot();
+    lContextStack.restore(elements);
+    try {
+      return pSupplier.get();
+    }
+    finally {
+      lContextStack.restore(lPrevious);
+    }
+  }
+
+  /**
+   * Method wraps the passed task so that it is executed with the captured context stack.
+   *
+   * @param pTask Task that should be wrapped. The parameter must not be null.
+   * @return {@link Runnable} Wrapped task. The method never returns null.
+   */
+  public Runnable wrap( Runnable pTask ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTask, "pTask");
+
+    return ( ) -> this.run(pTask);
+  }
+
+  /**
+   * Method wraps the passed task so that it is executed with the captured context stack.
+   *
+   * @param pTask Task that should be wrapped. The parameter must not be null.
+   * @return {@link Callable} Wrapped task. The method never returns null.
+   */
+  public <T> Callable<T> wrap( Callable<T> pTask ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTask, "pTask");
+
+    return ( ) -> this.call(pTask);
+  }
+
+  /**
+   * Method wraps the passed supplier so that it is executed with the captured context stack. Suppliers are e.g. used
+   * by {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, java.util.concurrent.Executor)}.
+   *
+   * @param pSupplier Supplier that should be wrapped. The parameter must not be null.
+   * @return {@link Supplier} Wrapped supplier. The method never returns null.
+   */
+  public <T> Supplier<T> wrapSupplier( Supplier<T> pSupplier ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pSupplier, "pSupplier");
+
+    return ( ) -> this.get(pSupplier);
+  }
+}
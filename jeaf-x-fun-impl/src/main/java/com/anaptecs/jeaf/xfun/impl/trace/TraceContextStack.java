@@ -0,0 +1,171 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.Arrays;
+
+import com.anaptecs.jeaf.xfun.api.trace.ContextStackElement;
+
+/**
+ * Class implements the context stack of a thread. As every thread has its own instance the class is not synchronized.
+ * Elements are kept in an array that only grows if the stack gets deeper than ever before on the current thread. Apart
+ * from that push, pop and peek do not allocate any memory.
+ *
+ * In order to propagate the context stack to other threads immutable snapshots of the stack can be taken and restored
+ * (see {@link TraceContextSnapshot}). A snapshot is only created once per state of the stack, so that fan out of work
+ * to many tasks does not copy the stack again and again.
+ *
+ * @author JEAF Development Team
+ */
+final class TraceContextStack {
+  /**
+   * Initial capacity of the stack.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Snapshot of an empty stack.
+   */
+  private static final ContextStackElement[] EMPTY_SNAPSHOT = new ContextStackElement[0];
+
+  /**
+   * Context stack of the current thread.
+   */
+  private static final ThreadLocal<TraceContextStack> CONTEXT_STACK = ThreadLocal.withInitial(TraceContextStack::new);
+
+  /**
+   * Elements of the stack. Only the first {@link #size} elements are in use.
+   */
+  private ContextStackElement[] elements = new ContextStackElement[INITIAL_CAPACITY];
+
+  /**
+   * Current number of elements on the stack.
+   */
+  private int size;
+
+  /**
+   * Snapshot of the current state of the stack. The attribute is null if no snapshot was taken since the stack was
+   * modified the last time. Snapshots are never modified.
+   */
+  private ContextStackElement[] snapshot = EMPTY_SNAPSHOT;
+
+  /**
+   * Initialize object.
+   */
+  private TraceContextStack( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method returns the context stack of the current thread.
+   *
+   * @return {@link TraceContextStack} Context stack of the current thread. The method never returns null.
+   */
+  static TraceContextStack getCurrent( ) {
+    return CONTEXT_STACK.get();
+  }
+
+  /**
+   * Method pushes the passed element to the stack.
+   *
+   * @param pElement Element that should be pushed. The parameter must not be null.
+   */
+  void push( ContextStackElement pElement ) {
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    elements[size++] = pElement;
+    snapshot = null;
+  }
+
+  /**
+   * Method removes the top element from the stack.
+   *
+   * @return {@link ContextStackElement} Former top element or null if the stack is empty.
+   */
+  ContextStackElement pop( ) {
+    ContextStackElement lElement;
+    if (size > 0) {
+      size--;
+      lElement = elements[size];
+      // Release reference so that the element can be garbage collected.
+      elements[size] = null;
+      snapshot = null;
+    }
+    else {
+      lElement = null;
+    }
+    return lElement;
+  }
+
+  /**
+   * Method returns the top element of the stack without removing it.
+   *
+   * @return {@link ContextStackElement} Top element or null if the stack is empty.
+   */
+  ContextStackElement peek( ) {
+    ContextStackElement lElement;
+    if (size > 0) {
+      lElement = elements[size - 1];
+    }
+    else {
+      lElement = null;
+    }
+    return lElement;
+  }
+
+  /**
+   * Method removes all elements from the stack.
+   */
+  void clear( ) {
+    Arrays.fill(elements, 0, size, null);
+    size = 0;
+    snapshot = EMPTY_SNAPSHOT;
+  }
+
+  /**
+   * Method returns an immutable snapshot of the current state of the stack.
+   *
+   * @return {@link ContextStackElement} Elements of the stack starting with the bottom element. The method never
+   * returns null. The returned array must not be modified.
+   */
+  ContextStackElement[] snapshot( ) {
+    ContextStackElement[] lSnapshot = snapshot;
+    if (lSnapshot == null) {
+      lSnapshot = Arrays.copyOf(elements, size);
+      snapshot = lSnapshot;
+    }
+    return lSnapshot;
+  }
+
+  /**
+   * Method replaces the content of the stack with the passed snapshot.
+   *
+   * @param pSnapshot Snapshot that was taken using {@link #snapshot()}. The parameter must not be null.
+   */
+  void restore( ContextStackElement[] pSnapshot ) {
+    if (pSnapshot != snapshot) {
+      if (pSnapshot.length > elements.length) {
+        elements = new ContextStackElement[Math.max(pSnapshot.length, elements.length * 2)];
+      }
+      else if (pSnapshot.length < size) {
+        Arrays.fill(elements, pSnapshot.length, size, null);
+      }
+      System.arraycopy(pSnapshot, 0, elements, 0, pSnapshot.length);
+      size = pSnapshot.length;
+      snapshot = pSnapshot;
+    }
+  }
+
+  /**
+   * Method returns the current number of elements on the stack.
+   *
+   * @return int Depth of the stack.
+   */
+  int size( ) {
+    return size;
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.Map;
+
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import org.apache.logging.log4j.ThreadContext.ContextStack;
+
+/**
+ * Class represents a trace that is buffered by {@link AsyncTraceDispatcher}. Events are pre-allocated by the dispatcher
+ * and reused for all traces that pass the same slot of its buffer. Every event also owns a trace message into which
+ * unrendered trace messages are copied, so that they can be rendered by the dispatcher thread.
+ *
+ * @author JEAF Development Team
+ */
+final class TraceEvent {
+  /**
+   * Trace instance through which the event has to be written.
+   */
+  AbstractCommonsLoggingTraceImpl trace;
+
+  /**
+   * Level of the trace.
+   */
+  TraceLevel level;
+
+  /**
+   * Message of the trace.
+   */
+  String message;
+
+  /**
+   * Unrendered trace message that is written instead of {@link #message}. The attribute is either null or refers to
+   * {@link #reusableMessage}.
+   */
+  TraceMessage traceMessage;
+
+  /**
+   * Trace message of this event into which the trace messages of calling threads are copied.
+   */
+  private final TraceMessage reusableMessage = new TraceMessage();
+
+  /**
+   * Exception that should be traced. The attribute may be null.
+   */
+  Throwable throwable;
+
+  /**
+   * Snapshot of the Log4J thread context map of the calling thread.
+   */
+  Map<String, String> context;
+
+  /**
+   * Snapshot of the Log4J thread context stack of the calling thread.
+   */
+  ContextStack contextStack;
+
+  /**
+   * Method sets the data of the event.
+   *
+   * @param pTrace Trace instance through which the event has to be written. The parameter must not be null.
+   * @param pLevel Level of the trace. The parameter must not be null.
+   * @param pMessage Message of the trace. The parameter may be null.
+   * @param pTraceMessage Unrendered trace message that is written instead of pMessage. The message is copied into the
+   * event. The parameter may be null.
+   * @param pThrowable Exception that should be traced. The parameter may be null.
+   * @param pContext Snapshot of the thread context map. The parameter must not be null.
+   * @param pContextStack Snapshot of the thread context stack. The parameter must not be null.
+   */
+  void set( AbstractCommonsLoggingTraceImpl pTrace, TraceLevel pLevel, String pMessage, TraceMessage pTraceMessage,
+      Throwable pThrowable, Map<String, String> pContext, ContextStack pContextStack ) {
+    trace = pTrace;
+    level = pLevel;
+    message = pMessage;
+    if (pTraceMessage != null) {
+      reusableMessage.copyFrom(pTraceMessage);
+      traceMessage = reusableMessage;
+    }
+    else {
+      traceMessage = null;
+    }
+    throwable = pThrowable;
+    context = pContext;
+    contextStack = pContextStack;
+  }
+
+  /**
+   * Method releases all references of the event so that they can be garbage collected while the event is not in use.
+   */
+  void clear( ) {
+    trace = null;
+    level = null;
+    message = null;
+    if (traceMessage != null) {
+      traceMessage.release();
+      traceMessage = null;
+    }
+    throwable = null;
+    context = null;
+    contextStack = null;
+  }
+}
@@ -5,14 +5,14 @@
  */
 package com.anaptecs.jeaf.xfun.impl.trace;
 
-import java.util.Stack;
-
 import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
 import com.anaptecs.jeaf.xfun.api.messages.MessageID;
 import com.anaptecs.jeaf.xfun.api.messages.MessageRepository;
 import com.anaptecs.jeaf.xfun.api.trace.ContextStackElement;
 import com.anaptecs.jeaf.xfun.api.trace.TraceConfiguration;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
 
 /**
  * Class provides the the JEAF X-Fun standard implementation for tracing. It uses Apache Commons Logging and uses JEAF's
@@ -28,33 +28,39 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
   private static final String EMPTY_STRING = "";
 
   /**
-   * Context stack is kept static thread local as it is shared among multiple trace instances.
+   * Number of indentation levels for which the indentation is precomputed. Deeper levels are assembled from the
+   * precomputed ones.
    */
-  private static ThreadLocal<Stack<ContextStackElement>> contextStackHolder = new ThreadLocal<>();
+  private static final int PRECOMPUTED_INDENTATION_LEVELS = 32;
 
   /**
-   * Attribute defines whether trace output should be indented.
+   * Initial capacity of the buffer that is used to assemble trace messages.
    */
-  private boolean indentTrace;
+  private static final int INITIAL_BUFFER_CAPACITY = 256;
 
   /**
-   * String contains the indentation that should be used for every level.
+   * Maximum capacity of a buffer that will be kept for reuse. Buffers that grew larger e.g. due to a very long message
+   * are replaced to avoid that every thread keeps large amounts of memory.
    */
-  private String indentSize;
+  private static final int MAX_BUFFER_CAPACITY = 8192;
 
   /**
-   * Method returns the current context stack. If none exists yet then it will be created.
-   * 
-   * @return {@link Stack} Current Context stack. The method never returns null.
+   * Buffer that is used to assemble trace messages. The buffer is kept per thread and is shared among all trace
+   * instances as the message is already converted into a string before it is passed to the logging framework.
    */
-  private static Stack<ContextStackElement> getContextStack( ) {
-    Stack<ContextStackElement> lContextStack = contextStackHolder.get();
-    if (lContextStack == null) {
-      lContextStack = new Stack<>();
-      contextStackHolder.set(lContextStack);
-    }
-    return lContextStack;
-  }
+  private static ThreadLocal<StringBuilder> bufferHolder =
+      ThreadLocal.withInitial(( ) -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+
+  /**
+   * Attribute defines whether trace output should be indented.
+   */
+  private boolean indentTrace;
+
+  /**
+   * Table contains the indentation for every level. The indentation of a level is found at the index of the level. The
+   * table is never null since it is set in the class' constructor.
+   */
+  private String[] indentations = new String[] { EMPTY_STRING };
 
   /**
    * Method returns the current context stack element or null if the stack is empty.
@@ -62,15 +68,7 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
    * @return {@link ContextStackElement} Current context stack element or null.
    */
   static ContextStackElement getCurrentContextStackElement( ) {
-    Stack<ContextStackElement> lContextStack = TraceImpl.getContextStack();
-    ContextStackElement lElement;
-    if (lContextStack.isEmpty() == false) {
-      lElement = lContextStack.peek();
-    }
-    else {
-      lElement = null;
-    }
-    return lElement;
+    return TraceContextStack.getCurrent().peek();
   }
 
   /**
@@ -92,7 +90,37 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
    * null.
    */
   public TraceImpl( String pLoggerName, TraceConfiguration pTraceConfiguration ) {
-    super(pLoggerName);
+    this(pLoggerName, pTraceConfiguration, AsyncTraceDispatcher.getDefaultDispatcher());
+  }
+
+  /**
+   * Initialize a new Trace object for the passed logger.
+   * 
+   * @param pLoggerName Name of the logger for which the new Trace instance will be created. The parameter must not be
+   * null.
+   * @param pTraceConfiguration Trace configuration that should be used to configure tracing. The parameter must not be
+   * null.
+   * @param pDispatcher Dispatcher that should be used to write traces asynchronously. The parameter may be null. In
+   * this case traces are written synchronously.
+   */
+  public TraceImpl( String pLoggerName, TraceConfiguration pTraceConfiguration, AsyncTraceDispatcher pDispatcher ) {
+    this(pLoggerName, pTraceConfiguration, pDispatcher, TraceBackendConfiguration.getInstance().getBackendType());
+  }
+
+  /**
+   * Initialize a new Trace object for the passed logger.
+   * 
+   * @param pLoggerName Name of the logger for which the new Trace instance will be created. The parameter must not be
+   * null.
+   * @param pTraceConfiguration Trace configuration that should be used to configure tracing. The parameter must not be
+   * null.
+   * @param pDispatcher Dispatcher that should be used to write traces asynchronously. The parameter may be null. In
+   * this case traces are written synchronously.
+   * @param pBackendType Logging backend to which traces are written. The parameter must not be null.
+   */
+  public TraceImpl( String pLoggerName, TraceConfiguration pTraceConfiguration, AsyncTraceDispatcher pDispatcher,
+      TraceBackendType pBackendType ) {
+    super(pLoggerName, pDispatcher, pBackendType);
 
     // Configure indentation
     this.configureIndentation(pTraceConfiguration);
@@ -112,7 +140,20 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
     String lMessage;
     if (pMessageID != null) {
       MessageRepository lMessageRepository = XFun.getMessageRepository();
-      lMessage = this.getCurrentIndentation() + lMessageRepository.getTraceMessage(pMessageID, pMessageParameters);
+      if (lMessageRepository instanceof MessageRepositoryImpl) {
+        TraceMessage lTraceMessage =
+            TraceMessage.prepare((MessageRepositoryImpl) lMessageRepository, pMessageID, pMessageParameters, this);
+        try {
+          lTraceMessage.captureIndentationLevel();
+          lMessage = this.assembleMessage(lTraceMessage);
+        }
+        finally {
+          lTraceMessage.release();
+        }
+      }
+      else {
+        lMessage = this.getCurrentIndentation() + lMessageRepository.getTraceMessage(pMessageID, pMessageParameters);
+      }
     }
     else {
       lMessage = null;
@@ -121,6 +162,243 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
     return lMessage;
   }
 
+  /**
+   * Method traces the passed message with level TRACE. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void trace( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.TRACE, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level TRACE. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void trace( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.TRACE, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with level DEBUG. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void debug( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.DEBUG, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level DEBUG. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void debug( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.DEBUG, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with level INFO. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void info( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.INFO, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level INFO. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void info( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.INFO, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with level WARN. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void warn( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.WARN, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level WARN. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void warn( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.WARN, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with level ERROR. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void error( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.ERROR, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level ERROR. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void error( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.ERROR, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with level FATAL. The message is only created if the level is enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void fatal( MessageID pMessageID, String... pMessageParameters ) {
+    this.log(TraceLevel.FATAL, pMessageID, pMessageParameters, null);
+  }
+
+  /**
+   * Method traces the passed message and exception with level FATAL. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void fatal( MessageID pMessageID, Throwable pThrowable, String... pMessageParameters ) {
+    this.log(TraceLevel.FATAL, pMessageID, pMessageParameters, pThrowable);
+  }
+
+  /**
+   * Method traces the passed message with the trace level of the message. The message is only created if the level is
+   * enabled.
+   * 
+   * @param pMessageID Id of the message that should be traced. The parameter may be null.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   */
+  @Override
+  public void write( MessageID pMessageID, String... pMessageParameters ) {
+    if (pMessageID != null) {
+      this.log(pMessageID.getTraceLevel(), pMessageID, pMessageParameters, null);
+    }
+    else {
+      super.write(pMessageID, pMessageParameters);
+    }
+  }
+
+  /**
+   * Method writes a trace for the passed message ID. The level is checked before the message repository is accessed at
+   * all. This way neither the message is rendered nor the current user, the indentation or the message repository are
+   * looked up for traces that are discarded anyway. If the message is written then it is passed unrendered to the
+   * logging framework or the dispatcher and rendered only when it is actually written.
+   * 
+   * @param pTraceLevel Level of the trace. The parameter may be null. In this case {@link TraceLevel#ERROR} is used.
+   * @param pMessageID Id of the message that should be traced. The parameter may be null. In this case "null" is
+   * traced.
+   * @param pMessageParameters Values that are used to parameterize the trace message. The parameter may be null.
+   * @param pThrowable Exception that occurred. The parameter may be null.
+   */
+  void log( TraceLevel pTraceLevel, MessageID pMessageID, String[] pMessageParameters, Throwable pThrowable ) {
+    TraceLevel lTraceLevel;
+    if (pTraceLevel != null) {
+      lTraceLevel = pTraceLevel;
+    }
+    else {
+      lTraceLevel = TraceLevel.ERROR;
+    }
+
+    // Disabled traces are discarded before anything else happens.
+    if (this.isLevelEnabled(lTraceLevel) == true) {
+      MessageRepository lMessageRepository;
+      if (pMessageID != null) {
+        lMessageRepository = XFun.getMessageRepository();
+      }
+      else {
+        lMessageRepository = null;
+      }
+      if (lMessageRepository instanceof MessageRepositoryImpl) {
+        TraceMessage lTraceMessage =
+            TraceMessage.prepare((MessageRepositoryImpl) lMessageRepository, pMessageID, pMessageParameters, this);
+        try {
+          this.logMessage(lTraceLevel, lTraceMessage, pThrowable);
+        }
+        finally {
+          lTraceMessage.release();
+        }
+      }
+      // Other message repositories and missing message IDs are handled as plain messages.
+      else {
+        this.log(lTraceLevel, this.getMessage(pMessageID, pMessageParameters), pThrowable);
+      }
+    }
+  }
+
+  /**
+   * Method assembles the trace message including its indentation in the buffer of the current thread. This way only
+   * the resulting string is created for a trace message.
+   * 
+   * @param pMessage Prepared message that should be assembled. The parameter must not be null.
+   * @return String Created message. The method never returns null.
+   */
+  String assembleMessage( TraceMessage pMessage ) {
+    // If the buffer is not empty then it is already in use further up the call stack (e.g. a trace is written while a
+    // message is rendered). In this case we have to use a separate buffer.
+    StringBuilder lBuffer = bufferHolder.get();
+    if (lBuffer.length() > 0) {
+      lBuffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+    }
+    try {
+      pMessage.formatTo(lBuffer);
+      return lBuffer.toString();
+    }
+    finally {
+      // Prepare buffer for next usage.
+      if (lBuffer.capacity() <= MAX_BUFFER_CAPACITY) {
+        lBuffer.setLength(0);
+      }
+      else {
+        bufferHolder.set(new StringBuilder(INITIAL_BUFFER_CAPACITY));
+      }
+    }
+  }
+
   /**
    * Method configures indentation settings as defined for this logger.
    */
@@ -128,12 +406,17 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
     // Get indentation settings.
     if (pTraceConfig != null) {
       indentTrace = pTraceConfig.isTraceIndentationEnabled();
+
+      // Precompute indentation for every level so that no strings have to be built while tracing.
       int lIndentSize = pTraceConfig.getIndentSize();
-      StringBuilder lIndentBuffer = new StringBuilder(lIndentSize);
-      for (int i = 0; i < lIndentSize; i++) {
-        lIndentBuffer.append(' ');
+      StringBuilder lIndentBuffer = new StringBuilder(lIndentSize * PRECOMPUTED_INDENTATION_LEVELS);
+      indentations = new String[PRECOMPUTED_INDENTATION_LEVELS];
+      for (int lLevel = 0; lLevel < PRECOMPUTED_INDENTATION_LEVELS; lLevel++) {
+        indentations[lLevel] = lIndentBuffer.toString();
+        for (int i = 0; i < lIndentSize; i++) {
+          lIndentBuffer.append(' ');
+        }
       }
-      indentSize = lIndentBuffer.toString();
     }
   }
 
@@ -144,27 +427,55 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
    * @return String String containing as many blank as should be used as indentation. The method never returns null.
    */
   private String getCurrentIndentation( ) {
-    // Check if indentation should be used.
+    // Use precomputed indentation if possible. Level is always 0 if indentation is disabled.
     String lCurrentIndentation;
-    if (indentTrace == true) {
-      // Get current context to calculate the indentation size.
-      // Create new indentation string depending on the current stack size.
-      int lCurrentLevel = this.getIndentationLevel();
-      StringBuilder lIndent = new StringBuilder(lCurrentLevel * indentSize.length());
-      for (int i = 0; i < lCurrentLevel; i++) {
-        lIndent.append(indentSize);
-      }
-      lCurrentIndentation = lIndent.toString();
+    int lLevel = this.getIndentationLevel();
+    if (lLevel < indentations.length) {
+      lCurrentIndentation = indentations[lLevel];
     }
     else {
-      lCurrentIndentation = EMPTY_STRING;
+      lCurrentIndentation = this.appendIndentation(new StringBuilder(), lLevel).toString();
     }
     // Return calculated indentation.
     return lCurrentIndentation;
   }
 
-  private Integer getIndentationLevel( ) {
-    return TraceImpl.getContextStack().size();
+  /**
+   * Method appends the indentation for the passed level to the passed string builder.
+   * 
+   * @param pBuilder String builder to which the indentation should be appended. The parameter must not be null.
+   * @param pLevel Indentation level, which is the depth of the context stack at the time the trace was written.
+   * @return {@link StringBuilder} Passed string builder. The method never returns null.
+   */
+  StringBuilder appendIndentation( StringBuilder pBuilder, int pLevel ) {
+    if (indentTrace == true) {
+      // Levels that are deeper than the precomputed ones are assembled from the deepest precomputed level.
+      int lMaxLevel = indentations.length - 1;
+      int lLevel = pLevel;
+      while (lLevel > lMaxLevel) {
+        pBuilder.append(indentations[lMaxLevel]);
+        lLevel = lLevel - lMaxLevel;
+      }
+      pBuilder.append(indentations[lLevel]);
+    }
+    return pBuilder;
+  }
+
+  /**
+   * Method returns the current indentation level, which is the depth of the context stack of the current thread.
+   * 
+   * @return int Current indentation level. If indentation is disabled then the method always returns 0 without looking
+   * at the context stack.
+   */
+  int getIndentationLevel( ) {
+    int lLevel;
+    if (indentTrace == true) {
+      lLevel = TraceContextStack.getCurrent().size();
+    }
+    else {
+      lLevel = 0;
+    }
+    return lLevel;
   }
 
   /**
@@ -181,7 +492,7 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
     Check.checkInvalidParameterNull(pContextStackElement, "pContextStackElement");
 
     // Lookup context stack and just empty it. This will lead to the same result.
-    Stack<ContextStackElement> lContextStack = TraceImpl.getContextStack();
+    TraceContextStack lContextStack = TraceContextStack.getCurrent();
     lContextStack.clear();
 
     // Push passed new element to context stack.
@@ -202,8 +513,7 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
     Check.checkInvalidParameterNull(pContextStackElement, "pContextStackElement");
 
     // Lookup context stack and push new element
-    Stack<ContextStackElement> lContextStack = TraceImpl.getContextStack();
-    lContextStack.push(pContextStackElement);
+    TraceContextStack.getCurrent().push(pContextStackElement);
   }
 
   /**
@@ -217,17 +527,7 @@ public class TraceImpl extends AbstractCommonsLoggingTraceImpl {
    */
   @Override
   public ContextStackElement popContextStackElement( ) {
-    // Lookup context stack
-    Stack<ContextStackElement> lContextStack = TraceImpl.getContextStack();
-
-    // Pop latest element from stack, if the stack is not already empty.
-    ContextStackElement lElement;
-    if (lContextStack.isEmpty() == false) {
-      lElement = lContextStack.pop();
-    }
-    else {
-      lElement = null;
-    }
-    return lElement;
+    // Pop latest element from stack. The method returns null if the stack is already empty.
+    return TraceContextStack.getCurrent().pop();
   }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+
+/**
+ * Class keeps track of all trace instances whose effective trace level is cached. Whenever Log4J2 is reconfigured or
+ * the level of a logger is changed, the cached levels of all trace instances are invalidated. As levels are inherited
+ * by child loggers it is not sufficient to only invalidate the trace instance whose level was changed.
+ *
+ * @author JEAF Development Team
+ */
+final class TraceLevelListener implements PropertyChangeListener {
+  /**
+   * Only instance of this class.
+   */
+  private static final TraceLevelListener INSTANCE = new TraceLevelListener();
+
+  /**
+   * Trace instances whose cached level has to be invalidated. Trace instances are only weakly referenced.
+   */
+  private final Set<AbstractCommonsLoggingTraceImpl> traces =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  /**
+   * Listener is registered when the class is loaded.
+   */
+  static {
+    INSTANCE.registerListener();
+  }
+
+  /**
+   * Initialize object.
+   */
+  private TraceLevelListener( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method registers the passed trace instance so that its cached level will be invalidated when the Log4J2
+   * configuration changes.
+   *
+   * @param pTrace Trace instance that should be registered. The parameter must not be null.
+   */
+  static void register( AbstractCommonsLoggingTraceImpl pTrace ) {
+    INSTANCE.traces.add(pTrace);
+  }
+
+  /**
+   * Method invalidates the cached level of all registered trace instances.
+   */
+  static void invalidateAll( ) {
+    List<AbstractCommonsLoggingTraceImpl> lTraces;
+    synchronized (INSTANCE.traces) {
+      lTraces = new ArrayList<>(INSTANCE.traces);
+    }
+    for (AbstractCommonsLoggingTraceImpl lNext : lTraces) {
+      lNext.invalidateLevel();
+    }
+  }
+
+  /**
+   * Method registers this listener at the current Log4J2 logger context. Log4J2 informs its listeners after a new
+   * configuration was activated as well as after loggers were updated e.g. due to a call of
+   * {@link org.apache.logging.log4j.core.config.Configurator#setLevel(String, org.apache.logging.log4j.Level)}.
+   */
+  private void registerListener( ) {
+    org.apache.logging.log4j.spi.LoggerContext lContext = LogManager.getContext(false);
+    if (lContext instanceof LoggerContext) {
+      ((LoggerContext) lContext).addPropertyChangeListener(this);
+    }
+  }
+
+  /**
+   * Method is called by Log4J2 whenever its configuration changed.
+   *
+   * @param pEvent Event describing the change. The parameter must not be null.
+   */
+  @Override
+  public void propertyChange( PropertyChangeEvent pEvent ) {
+    if (LoggerContext.PROPERTY_CONFIG.equals(pEvent.getPropertyName()) == true) {
+      TraceLevelListener.invalidateAll();
+    }
+  }
+}
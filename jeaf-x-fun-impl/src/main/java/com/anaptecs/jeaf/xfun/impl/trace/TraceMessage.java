@@ -0,0 +1,233 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.trace;
+
+import java.util.Arrays;
+
+import com.anaptecs.jeaf.xfun.api.messages.MessageID;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+/**
+ * Class represents a trace message that is identified by a message ID. The message is only rendered if the level of the
+ * trace is enabled and, in case of Log4J2, if it is actually written by an appender. Its text is then appended directly
+ * to the buffer of the appender.
+ *
+ * Instances are reused per thread. A message is prepared by
+ * {@link TraceImpl#log(com.anaptecs.jeaf.xfun.api.trace.TraceLevel, MessageID, String[], Throwable)} once it is clear
+ * that the trace level is enabled and released again before the method returns. As the message is reusable Log4J
+ * copies it if it has to keep the message beyond the call of the logger (e.g. in case of asynchronous loggers).
+ *
+ * @author JEAF Development Team
+ */
+final class TraceMessage implements ReusableMessage {
+  /**
+   * Default serial version uid.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Reusable message of the current thread.
+   */
+  private static final ThreadLocal<TraceMessage> HOLDER = ThreadLocal.withInitial(TraceMessage::new);
+
+  /**
+   * Message repository that is used to render the message.
+   */
+  private transient MessageRepositoryImpl repository;
+
+  /**
+   * ID of the message.
+   */
+  private transient MessageID messageID;
+
+  /**
+   * Parameters of the message. The attribute may be null.
+   */
+  private transient String[] parameters;
+
+  /**
+   * Trace instance that defines the indentation of the message.
+   */
+  private transient TraceImpl trace;
+
+  /**
+   * Indentation level of the message.
+   */
+  private transient int indentationLevel;
+
+  /**
+   * Name of the current user as it was captured by the thread that wrote the trace. The attribute is null if the
+   * current user is determined when the message is rendered.
+   */
+  private transient String currentUser;
+
+  /**
+   * Rendered message. The attribute is null until the message was rendered as string.
+   */
+  private transient String formattedMessage;
+
+  /**
+   * Attribute indicates whether the message is currently in use.
+   */
+  private transient boolean inUse;
+
+  /**
+   * Method prepares a trace message for the current thread. If the reusable message of the current thread is still in
+   * use (e.g. a trace is written while another one is rendered) then a new message is created.
+   *
+   * @param pRepository Message repository that is used to render the message. The parameter must not be null.
+   * @param pMessageID ID of the message. The parameter must not be null.
+   * @param pParameters Parameters of the message. The parameter may be null.
+   * @param pTrace Trace instance that defines the indentation of the message. The parameter must not be null.
+   * @return {@link TraceMessage} Prepared message. The message has to be released using {@link #release()} after it
+   * was written. The method never returns null.
+   */
+  static TraceMessage prepare( MessageRepositoryImpl pRepository, MessageID pMessageID, String[] pParameters,
+      TraceImpl pTrace ) {
+    TraceMessage lMessage = HOLDER.get();
+    if (lMessage.inUse == true) {
+      lMessage = new TraceMessage();
+    }
+    lMessage.inUse = true;
+    lMessage.repository = pRepository;
+    lMessage.messageID = pMessageID;
+    lMessage.parameters = pParameters;
+    lMessage.trace = pTrace;
+    lMessage.indentationLevel = 0;
+    lMessage.currentUser = null;
+    lMessage.formattedMessage = null;
+    return lMessage;
+  }
+
+  /**
+   * Method captures the indentation level of the message. The method has to be called by the thread that writes the
+   * trace.
+   */
+  void captureIndentationLevel( ) {
+    indentationLevel = trace.getIndentationLevel();
+  }
+
+  /**
+   * Method captures the current user of the thread that writes the trace. The method has to be called if the message
+   * is rendered by another thread.
+   */
+  void captureCurrentUser( ) {
+    currentUser = repository.getCurrentUserForTrace();
+  }
+
+  /**
+   * Method copies the passed message into this message. This way the passed message can be released before this
+   * message is rendered.
+   *
+   * @param pMessage Message that should be copied. The parameter must not be null.
+   */
+  void copyFrom( TraceMessage pMessage ) {
+    inUse = true;
+    repository = pMessage.repository;
+    messageID = pMessage.messageID;
+    parameters = pMessage.parameters;
+    trace = pMessage.trace;
+    indentationLevel = pMessage.indentationLevel;
+    currentUser = pMessage.currentUser;
+    formattedMessage = pMessage.formattedMessage;
+  }
+
+  /**
+   * Method releases the message so that it can be reused.
+   */
+  void release( ) {
+    repository = null;
+    messageID = null;
+    parameters = null;
+    trace = null;
+    currentUser = null;
+    formattedMessage = null;
+    inUse = false;
+  }
+
+  @Override
+  public void formatTo( StringBuilder pBuffer ) {
+    if (formattedMessage != null) {
+      pBuffer.append(formattedMessage);
+    }
+    else {
+      trace.appendIndentation(pBuffer, indentationLevel);
+      if (currentUser != null) {
+        repository.appendTraceMessageForUser(pBuffer, currentUser, messageID, parameters);
+      }
+      else {
+        repository.appendTraceMessage(pBuffer, messageID, parameters);
+      }
+    }
+  }
+
+  @Override
+  public String getFormattedMessage( ) {
+    if (formattedMessage == null) {
+      formattedMessage = trace.assembleMessage(this);
+    }
+    return formattedMessage;
+  }
+
+  @Override
+  public String getFormat( ) {
+    return String.valueOf(messageID);
+  }
+
+  @Override
+  public Object[] getParameters( ) {
+    return parameters;
+  }
+
+  @Override
+  public Throwable getThrowable( ) {
+    return null;
+  }
+
+  @Override
+  public Object[] swapParameters( Object[] pEmptyReplacement ) {
+    // Parameters belong to the caller, so they are always copied.
+    Object[] lParameters;
+    if (parameters == null) {
+      lParameters = pEmptyReplacement;
+    }
+    else if (pEmptyReplacement != null && pEmptyReplacement.length >= parameters.length) {
+      System.arraycopy(parameters, 0, pEmptyReplacement, 0, parameters.length);
+      lParameters = pEmptyReplacement;
+    }
+    else {
+      lParameters = Arrays.copyOf(parameters, parameters.length, Object[].class);
+    }
+    return lParameters;
+  }
+
+  @Override
+  public short getParameterCount( ) {
+    return (short) (parameters != null ? parameters.length : 0);
+  }
+
+  @Override
+  public Message memento( ) {
+    return new SimpleMessage(this.getFormattedMessage());
+  }
+
+  /**
+   * Method replaces the message by an immutable copy during serialization.
+   *
+   * @return Object Immutable copy of this message.
+   */
+  private Object writeReplace( ) {
+    return this.memento();
+  }
+
+  @Override
+  public String toString( ) {
+    return this.getFormattedMessage();
+  }
+}
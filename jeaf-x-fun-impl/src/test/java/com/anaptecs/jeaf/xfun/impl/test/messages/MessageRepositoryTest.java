@@ -8,20 +8,37 @@ package com.anaptecs.jeaf.xfun.impl.test.messages;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.ObjectName;
 import javax.xml.parsers.ParserConfigurationException;
 
+import com.anaptecs.jeaf.junit.tools.CatalogTestMessages;
 import com.anaptecs.jeaf.junit.tools.MessageConstantTest;
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.xfun.api.XFun;
@@ -37,7 +54,17 @@ import com.anaptecs.jeaf.xfun.api.messages.MessageDefinition;
 import com.anaptecs.jeaf.xfun.api.messages.MessageID;
 import com.anaptecs.jeaf.xfun.api.messages.MessageRepository;
 import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.impl.messages.BinaryMessageCatalog;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageCatalogCompiler;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageCatalogExport;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageEntry;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryConfiguration;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryFootprint;
 import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryManagement;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRequest;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageResourceLoader;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageUsage;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
@@ -60,6 +87,11 @@ public class MessageRepositoryTest {
    */
   private static final String BROKEN_MESSAGE_RESOURCE = "BrokenTestMessageData.xml";
 
+  /**
+   * String constant defines a message resource that is compiled into a binary message catalog by the build.
+   */
+  private static final String CATALOG_MESSAGE_RESOURCE = "CatalogTestMessageData.xml";
+
   /**
    * Test of method getInstance() of message repository.
    */
@@ -384,4 +416,909 @@ public class MessageRepositoryTest {
         lRepository.getTraceMessage(lFakeErrorCode));
 
   }
+
+  /**
+   * Method tests compilation of message resources into binary message catalogs and reading them again.
+   *
+   * @throws Exception if the test case fails.
+   */
+  @Test
+  public void testBinaryMessageCatalog( ) throws Exception {
+    // Read messages from XML resource.
+    List<MessageEntry> lEntries;
+    ClassLoader lClassLoader = this.getClass().getClassLoader();
+    try (InputStream lInputStream = lClassLoader.getResourceAsStream(MESSAGE_RESOURCE)) {
+      lEntries = MessageCatalogCompiler.readMessageEntries(lInputStream, MESSAGE_RESOURCE);
+    }
+    assertFalse(lEntries.isEmpty());
+
+    // Write binary catalog and read it again.
+    ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+    BinaryMessageCatalog.write(lEntries, lOutputStream);
+    List<MessageEntry> lReadEntries = BinaryMessageCatalog.read(ByteBuffer.wrap(lOutputStream.toByteArray()));
+    this.assertMessageEntries(lEntries, lReadEntries);
+
+    // Buffers that do not contain a catalog must be rejected.
+    try {
+      BinaryMessageCatalog.read(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6 }));
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      // Expected
+    }
+    assertEquals("messages/Test.jmc", BinaryMessageCatalog.getCatalogResourceName("messages/Test.xml"));
+
+    // Corrupt counts must be rejected before any memory is allocated for them. Header consists of magic number, version
+    // and checksum and is followed by the size of the string pool.
+    ByteBuffer lCorruptCatalog = ByteBuffer.wrap(lOutputStream.toByteArray());
+    lCorruptCatalog.putInt(14, Integer.MAX_VALUE);
+    try {
+      BinaryMessageCatalog.read(lCorruptCatalog);
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      assertTrue(e.getMessage().contains("Count " + Integer.MAX_VALUE), e.getMessage());
+    }
+    lCorruptCatalog.putInt(14, -1);
+    try {
+      BinaryMessageCatalog.read(lCorruptCatalog);
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      assertTrue(e.getMessage().contains("Negative count"), e.getMessage());
+    }
+
+    // Compile message resources into a directory. Duplicate localization IDs across resources must be detected.
+    File lSourceDirectory = new File(lClassLoader.getResource(MESSAGE_RESOURCE).toURI()).getParentFile();
+    File lOutputDirectory = Files.createTempDirectory("jeaf-message-catalogs").toFile();
+    MessageCatalogCompiler lCompiler = new MessageCatalogCompiler(lSourceDirectory, lOutputDirectory);
+    File lCatalogFile = lCompiler.compile(MESSAGE_RESOURCE);
+    assertTrue(lCatalogFile.isFile());
+    ByteBuffer lMappedCatalog = BinaryMessageCatalog.open(lCatalogFile.toURI().toURL());
+    List<MessageEntry> lMappedEntries = BinaryMessageCatalog.read(lMappedCatalog);
+    assertEquals(lEntries.size(), lMappedEntries.size());
+    try {
+      lCompiler.compile("DuplicateTestMessageData.xml");
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      // Expected
+    }
+    try {
+      new MessageCatalogCompiler(lSourceDirectory, lOutputDirectory).compile("InvalidDefaultMessageFormat.xml");
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Method tests that message resources are loaded from the binary message catalogs that are compiled by the build
+   * (see exec-maven-plugin in pom.xml) instead of the XML files.
+   *
+   * @throws Exception if the test case fails.
+   */
+  @Test
+  public void testCatalogBackedLoading( ) throws Exception {
+    // Catalog is compiled by the build into the same directory as the XML resource.
+    ClassLoader lClassLoader = this.getClass().getClassLoader();
+    String lCatalogName = BinaryMessageCatalog.getCatalogResourceName(CATALOG_MESSAGE_RESOURCE);
+    assertNotNull(lClassLoader.getResource(lCatalogName), "Catalog was not compiled by the build: " + lCatalogName);
+
+    // Hide XML resource so that messages can only be loaded from the catalog.
+    ClassLoader lCatalogOnlyClassLoader = new ClassLoader(lClassLoader) {
+      @Override
+      public URL getResource( String pName ) {
+        URL lResource;
+        if (CATALOG_MESSAGE_RESOURCE.equals(pName) == true) {
+          lResource = null;
+        }
+        else {
+          lResource = super.getResource(pName);
+        }
+        return lResource;
+      }
+    };
+    List<MessageEntry> lCatalogEntries =
+        MessageResourceLoader.loadResource(CATALOG_MESSAGE_RESOURCE, lCatalogOnlyClassLoader);
+
+    // Catalog must contain the same messages as the XML resource.
+    List<MessageEntry> lXMLEntries;
+    try (InputStream lInputStream = lClassLoader.getResourceAsStream(CATALOG_MESSAGE_RESOURCE)) {
+      lXMLEntries = MessageCatalogCompiler.readMessageEntries(lInputStream, CATALOG_MESSAGE_RESOURCE);
+    }
+    this.assertMessageEntries(lXMLEntries, lCatalogEntries);
+
+    // Catalog of the build was compiled from the XML resource on the classpath.
+    byte[] lXMLContent;
+    try (InputStream lInputStream = lClassLoader.getResourceAsStream(CATALOG_MESSAGE_RESOURCE)) {
+      lXMLContent = lInputStream.readAllBytes();
+    }
+    assertEquals(BinaryMessageCatalog.checksum(lXMLContent),
+        BinaryMessageCatalog.readSourceChecksum(BinaryMessageCatalog.open(lClassLoader.getResource(lCatalogName))));
+
+    // Outdated catalogs must be ignored if the XML resource is available.
+    File lOutdatedCatalog =
+        Files.createTempFile("jeaf-outdated-catalog", BinaryMessageCatalog.CATALOG_EXTENSION).toFile();
+    lOutdatedCatalog.deleteOnExit();
+    try (OutputStream lOutputStream = new FileOutputStream(lOutdatedCatalog)) {
+      BinaryMessageCatalog.write(lXMLEntries.subList(0, 1), BinaryMessageCatalog.checksum(new byte[] { 1 }),
+          lOutputStream);
+    }
+    URL lOutdatedCatalogURL = lOutdatedCatalog.toURI().toURL();
+    ClassLoader lOutdatedCatalogClassLoader = new ClassLoader(lClassLoader) {
+      @Override
+      public URL getResource( String pName ) {
+        URL lResource;
+        if (lCatalogName.equals(pName) == true) {
+          lResource = lOutdatedCatalogURL;
+        }
+        else {
+          lResource = super.getResource(pName);
+        }
+        return lResource;
+      }
+    };
+    this.assertMessageEntries(lXMLEntries,
+        MessageResourceLoader.loadResource(CATALOG_MESSAGE_RESOURCE, lOutdatedCatalogClassLoader));
+
+    // Load catalog into the repository and access its messages.
+    MessageRepository lRepository = XFun.getMessageRepository();
+    lRepository.loadResource(CATALOG_MESSAGE_RESOURCE);
+    ErrorCode lErrorCode = lRepository.getErrorCode(30001);
+    assertEquals("Catalog error 'X' (de)", lRepository.getMessage(lErrorCode, Locale.GERMAN, "X"));
+    assertEquals("Catalog error 'X' (default)", lRepository.getMessage(lErrorCode, Locale.FRENCH, "X"));
+    MessageID lMessageID = lRepository.getMessageID(30002);
+    assertEquals(TraceLevel.INFO, lMessageID.getTraceLevel());
+    assertEquals("Catalog info (default)", lRepository.getMessage(lMessageID, Locale.GERMAN));
+    LocalizedString lText = lRepository.getLocalizedString(30003);
+    assertEquals("Catalog text (de_DE)", lRepository.getMessage(lText, Locale.GERMANY));
+
+    // Constants that were generated by the build are bound to the same objects.
+    assertSame(lErrorCode, CatalogTestMessages.CATALOG_ERROR);
+    assertSame(lMessageID, CatalogTestMessages.CATALOG_INFO);
+    assertSame(lText, CatalogTestMessages.CATALOG_TEXT);
+  }
+
+  /**
+   * Method checks that the passed lists contain the same message entries. The order of the entries and of their
+   * localized texts is not relevant.
+   *
+   * @param pExpected Expected message entries. The parameter must not be null.
+   * @param pActual Actual message entries. The parameter must not be null.
+   */
+  private void assertMessageEntries( List<MessageEntry> pExpected, List<MessageEntry> pActual ) {
+    assertEquals(pExpected.size(), pActual.size());
+    Map<Integer, MessageEntry> lActualEntriesByID = new HashMap<>();
+    for (MessageEntry lNextEntry : pActual) {
+      lActualEntriesByID.put(lNextEntry.getLocalizationID(), lNextEntry);
+    }
+    for (MessageEntry lExpected : pExpected) {
+      MessageEntry lActual = lActualEntriesByID.get(lExpected.getLocalizationID());
+      assertNotNull(lActual);
+      assertEquals(lExpected.getType(), lActual.getType());
+      assertEquals(lExpected.getTraceLevel(), lActual.getTraceLevel());
+      assertEquals(lExpected.getDefaultText(), lActual.getDefaultText());
+      assertEquals(new HashSet<>(lExpected.getLocales()), new HashSet<>(lActual.getLocales()));
+      for (int i = 0; i < lExpected.getLocales().size(); i++) {
+        int lIndex = lActual.getLocales().indexOf(lExpected.getLocales().get(i));
+        assertEquals(lExpected.getLocalizedTexts().get(i), lActual.getLocalizedTexts().get(lIndex));
+      }
+    }
+  }
+
+  /**
+   * Method tests generation of message constant classes and the resolution of their catalog index.
+   *
+   * @throws Exception if the test case fails.
+   */
+  @Test
+  public void testGeneratedMessageConstants( ) throws Exception {
+    // Generate constant class together with the binary catalog.
+    ClassLoader lClassLoader = this.getClass().getClassLoader();
+    File lSourceDirectory = new File(lClassLoader.getResource(MESSAGE_RESOURCE).toURI()).getParentFile();
+    File lOutputDirectory = Files.createTempDirectory("jeaf-message-catalogs").toFile();
+    File lConstantsDirectory = Files.createTempDirectory("jeaf-message-constants").toFile();
+    MessageCatalogCompiler lCompiler =
+        new MessageCatalogCompiler(lSourceDirectory, lOutputDirectory, lConstantsDirectory);
+    lCompiler.compile(MESSAGE_RESOURCE);
+    File lSourceFile = new File(lConstantsDirectory, "com/anaptecs/jeaf/junit/tools/MessageConstantTest.java");
+    assertTrue(lSourceFile.isFile());
+    String lSource = new String(Files.readAllBytes(lSourceFile.toPath()), "UTF-8");
+    assertTrue(lSource.contains("@MessageResource(path = \"" + MESSAGE_RESOURCE + "\")"), lSource);
+    assertTrue(lSource.contains("MessageRepository lRepository = XFun.getMessageRepository();"), lSource);
+    assertTrue(lSource.contains("lRepository.loadResource(MESSAGE_RESOURCE);"), lSource);
+    assertTrue(lSource.contains("lRepository.getErrorCode(20011);"), lSource);
+    assertFalse(lSource.contains("MessageRepositoryImpl"), lSource);
+
+    // Every resource generates its own constant class.
+    lCompiler.compile("RepoMergeTestData.xml");
+    assertTrue(new File(lConstantsDirectory, "com/anaptecs/jeaf/junit/tools/TestMessageConstants2.java").isFile());
+
+    // Catalog index is resolved to the same objects as single lookups.
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    LocalizedObject[] lObjects = lRepository.resolveCatalogIndex(new int[] { 20011, 1212 });
+    assertEquals(2, lObjects.length);
+    assertTrue(lObjects[0] == lRepository.getErrorCode(20011));
+    assertTrue(lObjects[1] == lRepository.getErrorCode(1212));
+    try {
+      lRepository.resolveCatalogIndex(new int[] { 1212, 4712471 });
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Method tests that messages can be read while resources are loaded concurrently.
+   *
+   * @throws Exception if the test case fails.
+   */
+  @Test
+  public void testConcurrentLoadAndRead( ) throws Exception {
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    AtomicBoolean lFinished = new AtomicBoolean(false);
+    AtomicReference<Throwable> lFailure = new AtomicReference<>();
+
+    // Start readers that access the repository while it is changed.
+    List<Thread> lReaders = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread lReader = new Thread(( ) -> {
+        try {
+          while (lFinished.get() == false) {
+            if (lRepository.existsMessage(1213) == true) {
+              LocalizedObject lLocalizedObject = lRepository.getLocalizedObject(1213);
+              assertNotNull(lRepository.getMessage(lLocalizedObject, Locale.GERMAN));
+            }
+          }
+        }
+        catch (Throwable e) {
+          lFailure.compareAndSet(null, e);
+        }
+      });
+      lReader.start();
+      lReaders.add(lReader);
+    }
+
+    // Change repository.
+    lRepository.loadResource("RepoMergeTestData.xml");
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    lFinished.set(true);
+    for (Thread lNextReader : lReaders) {
+      lNextReader.join();
+    }
+    assertEquals(null, lFailure.get());
+    assertTrue(lRepository.existsMessage(1213));
+    assertTrue(lRepository.existsMessage(20015));
+
+    // Failed loads must not change the content of the repository.
+    try {
+      lRepository.loadResource("DuplicateLocaleMessageData.xml");
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(MessageRepositoryImpl.MESSAGE_ID_ALREADY_USED_TO_IDENTIFY_MESSAGE, e.getErrorCode());
+    }
+    assertFalse(lRepository.existsMessage(12120));
+  }
+
+  /**
+   * Method tests lazy compilation of message templates inside the message repository.
+   */
+  @Test
+  public void testLazyTemplateCompilation( ) {
+    MessageRepositoryConfiguration lConfiguration =
+        MessageRepositoryConfiguration.newBuilder().setLazyTemplateCompilation(true).build();
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0), lConfiguration);
+
+    // Messages are rendered as usual.
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    LocalizedObject lLocalizedObject = lRepository.getLocalizedObject(20012);
+    assertEquals("Parameter 'pObject' must not be null.", lRepository.getMessage(lLocalizedObject, "pObject"));
+
+    // Invalid patterns are detected when the message is rendered.
+    lRepository.loadResource("InvalidDefaultMessageFormat.xml");
+    try {
+      lRepository.getMessage(lRepository.getLocalizedObject(12120111), Locale.CHINESE);
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(MessageRepositoryImpl.INVALID_MESSAGE_FORMAT, e.getErrorCode());
+    }
+
+    // Traces never fail because of an invalid pattern. The raw pattern is traced instead.
+    lRepository.setTraceLocale(Locale.CHINESE);
+    String lTraceMessage = lRepository.getTraceMessage(lRepository.getLocalizedObject(12120111), "p");
+    assertTrue(lTraceMessage.contains("Error message {0"), lTraceMessage);
+  }
+
+  /**
+   * Method tests lookups of localized objects by their localization ID. This includes sparse and unknown IDs as well as
+   * IDs that are added by later resources and changes of the repository.
+   */
+  @Test
+  public void testLocalizationIDLookup( ) {
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lRepository.loadResource(MESSAGE_RESOURCE);
+
+    // All IDs of the resource can be found, including very large ones, and always resolve to the same object.
+    int[] lKnownIDs = new int[] { 20011, 20012, 20013, 1212, 1213, 1234567890 };
+    Map<Integer, LocalizedObject> lKnownObjects = new HashMap<>();
+    for (int lNextID : lKnownIDs) {
+      assertTrue(lRepository.existsMessage(lNextID), Integer.toString(lNextID));
+      LocalizedObject lLocalizedObject = lRepository.getLocalizedObject(lNextID);
+      assertEquals(lNextID, lLocalizedObject.getLocalizationID());
+      assertSame(lLocalizedObject, lRepository.getLocalizedObject(lNextID));
+      lKnownObjects.put(lNextID, lLocalizedObject);
+    }
+
+    // Unknown IDs are reported as unknown message code.
+    int[] lUnknownIDs = new int[] { 0, -1, 20014, 20015, 1234567891, Integer.MAX_VALUE, Integer.MIN_VALUE };
+    for (int lNextID : lUnknownIDs) {
+      assertFalse(lRepository.existsMessage(lNextID), Integer.toString(lNextID));
+      try {
+        lRepository.getLocalizedObject(lNextID);
+        fail("Exception expected.");
+      }
+      catch (JEAFSystemException e) {
+        assertEquals(MessageRepositoryImpl.UNKNOWN_MESSAGE_CODE, e.getErrorCode());
+      }
+    }
+
+    // IDs of later resources can be found afterwards. Existing IDs are not affected.
+    lRepository.loadResource("RepoMergeTestData.xml");
+    assertTrue(lRepository.existsMessage(20015));
+    assertEquals("Info message for ID 20015 (de_CH)", lRepository.getMessage(lRepository.getMessageID(20015),
+        new Locale("de", "CH")));
+    for (int lNextID : lKnownIDs) {
+      assertSame(lKnownObjects.get(lNextID), lRepository.getLocalizedObject(lNextID));
+    }
+
+    // Adding many sparse IDs grows the index without losing any of the existing IDs.
+    List<MessageDefinition> lMessageDefinitions = new ArrayList<>();
+    for (int i = 1; i <= 2000; i++) {
+      LocalizedObject lLocalizedObject = new ErrorCode(i * 1000003, TraceLevel.WARN);
+      lMessageDefinitions.add(new MessageDefinition(lLocalizedObject, new MessageFormat("Message " + i),
+          new HashMap<Locale, MessageFormat>()));
+    }
+    lRepository.addAllMessages(lMessageDefinitions);
+    for (int i = 1; i <= 2000; i++) {
+      LocalizedObject lLocalizedObject = lRepository.getLocalizedObject(i * 1000003);
+      assertEquals("Message " + i, lRepository.getMessage(lLocalizedObject, Locale.GERMAN));
+    }
+    for (int lNextID : lKnownIDs) {
+      assertSame(lKnownObjects.get(lNextID), lRepository.getLocalizedObject(lNextID));
+    }
+    assertTrue(lRepository.existsMessage(20015));
+    for (int lNextID : lUnknownIDs) {
+      assertEquals(lNextID == 20015, lRepository.existsMessage(lNextID), Integer.toString(lNextID));
+    }
+  }
+
+  /**
+   * Method tests the resolved message tables per locale. This includes the fallback chain of locales, the limited
+   * number of cached tables and taking over tables when the repository is changed.
+   */
+  @Test
+  public void testResolvedTables( ) {
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    ErrorCode lErrorCode = lRepository.getErrorCode(1212);
+
+    // Locales are reduced step by step (variant, country, language) before the default message is used.
+    assertEquals("Error message for ID 1212 (de_DE_JEAF)", lRepository.getMessage(lErrorCode, new Locale("de", "DE",
+        "JEAF")));
+    assertEquals("Error message for ID 1212 (de_DE)", lRepository.getMessage(lErrorCode, new Locale("de", "DE",
+        "OTHER")));
+    assertEquals("Error message for ID 1212 (de)", lRepository.getMessage(lErrorCode, new Locale("de", "AT")));
+    assertEquals("Error message for ID 1212 (en)", lRepository.getMessage(lErrorCode, new Locale("en", "GB", "X")));
+    assertEquals("Error message for ID 1212 (default)", lRepository.getMessage(lErrorCode, Locale.CHINA));
+
+    // Number of cached tables is limited. Messages for locales whose tables were evicted are still resolved correctly.
+    for (int i = 0; i < 200; i++) {
+      Locale lNextLocale = new Locale("de", "CH", "V" + i);
+      assertEquals("Error message for ID 1212 (de_CH)", lRepository.getMessage(lErrorCode, lNextLocale));
+      assertEquals("Error message for ID 1212 (de_DE)", lRepository.getMessage(lErrorCode, Locale.GERMANY));
+    }
+    assertEquals(64, lRepository.getFootprint().getResolvedTables());
+    assertEquals("Error message for ID 1212 (de_CH)", lRepository.getMessage(lErrorCode, new Locale("de", "CH",
+        "V0")));
+    assertEquals("Error message for ID 1212 (default)", lRepository.getMessage(lErrorCode, Locale.CHINA));
+    assertEquals(64, lRepository.getFootprint().getResolvedTables());
+
+    // Tables are taken over when messages are changed or added. Only the changed messages are resolved again.
+    Locale lChangedLocale = new Locale("de", "CH", "V199");
+    Map<Locale, MessageFormat> lLocalizedMessages = new HashMap<>();
+    lLocalizedMessages.put(lChangedLocale, new MessageFormat("Changed"));
+    MessageDefinition lChangedMessage = new MessageDefinition(lErrorCode, new MessageFormat(
+        "Error message for ID 1212 (default)"), lLocalizedMessages);
+    lLocalizedMessages = new HashMap<>();
+    lLocalizedMessages.put(Locale.GERMAN, new MessageFormat("Hallo"));
+    ErrorCode lNewCode = new ErrorCode(123456789, TraceLevel.WARN);
+    MessageDefinition lNewMessage = new MessageDefinition(lNewCode, new MessageFormat("Hello"), lLocalizedMessages);
+    lRepository.addAllMessages(Arrays.asList(lChangedMessage, lNewMessage));
+    assertEquals(64, lRepository.getFootprint().getResolvedTables());
+    assertEquals("Changed", lRepository.getMessage(lErrorCode, lChangedLocale));
+    assertEquals("Error message for ID 1212 (de_CH)", lRepository.getMessage(lErrorCode, new Locale("de", "CH",
+        "V198")));
+    assertEquals("Hallo", lRepository.getMessage(lNewCode, lChangedLocale));
+    assertEquals("Hello", lRepository.getMessage(lNewCode, Locale.CHINA));
+  }
+
+  /**
+   * Test parallel loading of message resources as it is used during the bootstrap of the repository.
+   */
+  @Test
+  public void testParallelResourceLoading( ) throws IOException {
+    ClassLoader lClassLoader = this.getClass().getClassLoader();
+    List<String> lResources = Arrays.asList(MESSAGE_RESOURCE, "JUnitMessages.xml", "RepoMergeTestData.xml",
+        BROKEN_MESSAGE_RESOURCE, MESSAGE_RESOURCE + "unknown");
+    Map<String, List<MessageEntry>> lLoadedResources =
+        MessageResourceLoader.loadResources(lResources, lClassLoader, 4);
+
+    // Resources that can not be loaded are not part of the result.
+    assertEquals(3, lLoadedResources.size());
+    assertFalse(lLoadedResources.containsKey(BROKEN_MESSAGE_RESOURCE));
+    assertFalse(lLoadedResources.containsKey(MESSAGE_RESOURCE + "unknown"));
+
+    // Result of parallel loading must be the same as with sequential loading.
+    for (String lNextResource : lLoadedResources.keySet()) {
+      List<MessageEntry> lExpected = MessageResourceLoader.loadResource(lNextResource, lClassLoader);
+      List<MessageEntry> lActual = lLoadedResources.get(lNextResource);
+      assertEquals(lExpected.size(), lActual.size());
+      for (int i = 0; i < lExpected.size(); i++) {
+        assertEquals(lExpected.get(i).getLocalizationID(), lActual.get(i).getLocalizationID());
+        assertEquals(lExpected.get(i).getDefaultText(), lActual.get(i).getDefaultText());
+      }
+    }
+
+    // Configured resources are resolved without initializing the resource classes.
+    assertNotNull(MessageResourceLoader.resolveConfiguredResources(lClassLoader));
+    assertTrue(MessageRepositoryConfiguration.getInstance().getBootstrapParallelism() > 0);
+  }
+
+  /**
+   * Test state of the bootstrap of the repository.
+   */
+  @Test
+  public void testBootstrap( ) {
+    // By default the repository is loaded synchronously.
+    assertFalse(MessageRepositoryConfiguration.getInstance().isAsyncBootstrapEnabled());
+    assertTrue(MessageRepositoryConfiguration.getInstance().getAsyncBootstrapTimeout() > 0);
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    assertTrue(lRepository.isBootstrapCompleted());
+    assertTrue(lRepository.awaitBootstrap());
+
+    // Unknown messages are reported immediately.
+    assertFalse(lRepository.existsMessage(4712471));
+    try {
+      lRepository.getErrorCode(4712471);
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(MessageRepositoryImpl.UNKNOWN_MESSAGE_CODE, e.getErrorCode());
+    }
+    assertTrue(lRepository.existsMessage(MessageRepositoryImpl.UNKNOWN_MESSAGE_CODE.getLocalizationID()));
+  }
+
+  /**
+   * Test asynchronous bootstrap of a repository. Message resources must be merged in the passed order no matter which
+   * messages are requested while the bootstrap is running.
+   */
+  @Test
+  public void testAsyncBootstrap( ) {
+    MessageRepositoryConfiguration lConfiguration =
+        MessageRepositoryConfiguration.newBuilder().setAsyncBootstrap(true, 10000).setBootstrapParallelism(2).build();
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0), lConfiguration);
+    assertTrue(lRepository.isBootstrapCompleted());
+
+    // Second resource uses a localization ID of the first one and thus must be rejected by the bootstrap thread.
+    lRepository.loadResources(Arrays.asList(MESSAGE_RESOURCE, "DuplicateTestMessageData.xml"));
+
+    // Callers wait until the requested message was merged by the bootstrap thread.
+    ErrorCode lErrorCode = lRepository.getErrorCode(20011);
+    assertEquals("Test 1", lRepository.getMessage(lErrorCode, Locale.GERMAN));
+    assertTrue(lRepository.awaitBootstrap());
+    assertTrue(lRepository.isBootstrapCompleted());
+
+    // All messages of the first resource must be available.
+    assertTrue(lRepository.existsMessage(1212));
+    assertEquals("Error message for ID 1212 (de_DE)", lRepository.getMessage(lRepository.getErrorCode(1212),
+        Locale.GERMANY));
+
+    // Without asynchronous bootstrap resources are loaded by the calling thread.
+    MessageRepositoryImpl lSyncRepository = new MessageRepositoryImpl(new ArrayList<Element>(0),
+        MessageRepositoryConfiguration.newBuilder().setAsyncBootstrap(false, 10000).build());
+    try {
+      lSyncRepository.loadResources(Arrays.asList(MESSAGE_RESOURCE, "DuplicateTestMessageData.xml"));
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(MessageRepositoryImpl.LOCALIZATION_ID_ALREADY_IN_USE, e.getErrorCode());
+    }
+    assertTrue(lSyncRepository.existsMessage(1212));
+  }
+
+  /**
+   * Test rendering of messages into caller supplied buffers.
+   */
+  @Test
+  public void testAppendMessage( ) throws IOException {
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    ErrorCode lErrorCode = lRepository.getErrorCode(20012);
+    String[] lParams = new String[] { "pObject" };
+
+    // Messages must be appended to existing content.
+    StringBuilder lBuilder = new StringBuilder("prefix ");
+    lRepository.appendMessage(lBuilder, lErrorCode, Locale.GERMAN, lParams);
+    assertEquals("prefix " + lRepository.getMessage(lErrorCode, Locale.GERMAN, lParams), lBuilder.toString());
+
+    StringWriter lWriter = new StringWriter();
+    lRepository.appendMessage(lWriter, lErrorCode, Locale.ENGLISH, lParams);
+    assertEquals(lRepository.getMessage(lErrorCode, Locale.ENGLISH, lParams), lWriter.toString());
+
+    // Trace messages must be the same as returned by getTraceMessage(...).
+    lBuilder.setLength(0);
+    lRepository.appendTraceMessage(lBuilder, lErrorCode, lParams);
+    assertEquals(lRepository.getTraceMessage(lErrorCode, lParams), lBuilder.toString());
+
+    lWriter = new StringWriter();
+    lRepository.appendTraceMessage(lWriter, lErrorCode);
+    assertEquals(lRepository.getTraceMessage(lErrorCode), lWriter.toString());
+
+    // Unknown messages
+    lBuilder.setLength(0);
+    lRepository.appendMessage(lBuilder, new ErrorCode(4712471, TraceLevel.INFO), Locale.GERMAN);
+    assertEquals("[ID-4712471] Unable to return real message. ID is unknown", lBuilder.toString());
+  }
+
+  /**
+   * Test messages with typed parameters.
+   */
+  @Test
+  public void testFormatMessage( ) {
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    ErrorCode lErrorCode = lRepository.getErrorCode(20012);
+
+    // Typed parameters are formatted for the requested locale.
+    assertEquals(lRepository.getMessage(lErrorCode, Locale.GERMAN, "pObject"),
+        lRepository.formatMessage(lErrorCode, Locale.GERMAN, "pObject"));
+    assertEquals(lRepository.getMessage(lErrorCode, Locale.GERMANY, "1.234,5"),
+        lRepository.formatMessage(lErrorCode, Locale.GERMANY, 1234.5));
+    assertEquals(lRepository.getMessage(lErrorCode, Locale.US, "1,234.5"),
+        lRepository.formatMessage(lErrorCode, Locale.US, 1234.5));
+    assertEquals(lRepository.getMessage(lErrorCode, "null"), lRepository.formatMessage(lErrorCode, (Object) null));
+
+    // Unknown messages
+    assertEquals("[ID-4712471] Unable to return real message. ID is unknown",
+        lRepository.formatMessage(new ErrorCode(4712471, TraceLevel.INFO), Locale.GERMAN, 1));
+  }
+
+  /**
+   * Test rendering of batches of messages.
+   */
+  @Test
+  public void testBatchMessages( ) {
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    ErrorCode lErrorCode1212 = lRepository.getErrorCode(1212);
+    ErrorCode lErrorCode20012 = lRepository.getErrorCode(20012);
+    ErrorCode lUnknownErrorCode = new ErrorCode(4712471, TraceLevel.INFO);
+
+    // Create batch that is large enough to be rendered in parallel.
+    List<MessageRequest> lRequests = new ArrayList<>();
+    for (int i = 0; i < MessageRepositoryImpl.PARALLEL_BATCH_THRESHOLD; i++) {
+      lRequests.add(new MessageRequest(lErrorCode1212));
+      lRequests.add(new MessageRequest(lErrorCode20012, "Param " + i));
+    }
+    lRequests.add(new MessageRequest(lUnknownErrorCode));
+
+    // Batch results must be the same as the ones of single calls.
+    for (Locale lNextLocale : new Locale[] { Locale.GERMANY, Locale.GERMAN, Locale.ENGLISH, Locale.CHINA }) {
+      List<String> lExpected = new ArrayList<>(lRequests.size());
+      for (MessageRequest lNextRequest : lRequests) {
+        lExpected.add(lRepository.getMessage(lNextRequest.getLocalizedObject(), lNextLocale,
+            lNextRequest.getMessageParameters()));
+      }
+      assertEquals(lExpected, lRepository.getMessages(lNextLocale, lRequests, false));
+      assertEquals(lExpected, lRepository.getMessages(lNextLocale, lRequests, true));
+      StringBuilder lBuilder = new StringBuilder();
+      lRepository.appendMessages(lBuilder, lNextLocale, lRequests, "\n");
+      assertEquals(String.join("\n", lExpected), lBuilder.toString());
+    }
+    assertEquals(0, lRepository.getMessages(Locale.GERMAN, new ArrayList<MessageRequest>(0), true).size());
+    assertEquals("", lRepository.appendMessages(new StringBuilder(), Locale.GERMAN,
+        new ArrayList<MessageRequest>(0), "\n").toString());
+  }
+
+  /**
+   * Test reloading of message resources.
+   */
+  @Test
+  public void testReloadResource( ) throws IOException {
+    MessageRepositoryImpl lRepository = MessageRepositoryImpl.getInstance();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    ErrorCode lErrorCode = lRepository.getErrorCode(20011);
+    assertEquals("Test 1", lRepository.getMessage(lErrorCode, Locale.GERMAN));
+
+    // Create changed copy of the message resource.
+    String lContent;
+    try (InputStream lInputStream = this.getClass().getClassLoader().getResourceAsStream(MESSAGE_RESOURCE)) {
+      lContent = new String(lInputStream.readAllBytes(), "ISO-8859-1");
+    }
+    File lOriginalFile = File.createTempFile("TestMessageData", ".xml");
+    File lChangedFile = File.createTempFile("TestMessageData", ".xml");
+    File lDuplicateFile = File.createTempFile("DuplicateTestMessageData", ".xml");
+    try {
+      Files.write(lOriginalFile.toPath(), lContent.getBytes("ISO-8859-1"));
+      String lChangedContent = lContent.replace("defaultText=\"Test 1\"", "defaultText=\"Test 1 reloaded\"")
+          .replace("(de_DE)", "(de_DE reloaded)");
+      Files.write(lChangedFile.toPath(), lChangedContent.getBytes("ISO-8859-1"));
+
+      // Reload changed resource. Existing localized objects must remain the same.
+      lRepository.reloadResource(MESSAGE_RESOURCE, lChangedFile.toPath());
+      assertTrue(lErrorCode == lRepository.getErrorCode(20011));
+      assertEquals("Test 1 reloaded", lRepository.getMessage(lErrorCode, Locale.GERMAN));
+      ErrorCode lErrorCode1212 = lRepository.getErrorCode(1212);
+      String lMessage = lRepository.getMessage(lErrorCode1212, Locale.GERMANY);
+      assertEquals("Error message for ID 1212 (de_DE reloaded)", lMessage);
+      assertEquals("Error message for ID 1212 (de)", lRepository.getMessage(lErrorCode1212, Locale.GERMAN));
+
+      // Resources that use IDs of other resources must be rejected without any change of the repository.
+      try (InputStream lInputStream =
+          this.getClass().getClassLoader().getResourceAsStream("DuplicateTestMessageData.xml")) {
+        Files.write(lDuplicateFile.toPath(), lInputStream.readAllBytes());
+      }
+      try {
+        lRepository.reloadResource("DuplicateTestMessageData.xml", lDuplicateFile.toPath());
+        fail("Exception expected.");
+      }
+      catch (JEAFSystemException e) {
+        assertEquals(MessageRepositoryImpl.LOCALIZATION_ID_ALREADY_IN_USE, e.getErrorCode());
+      }
+      assertEquals("Test 1 reloaded", lRepository.getMessage(lErrorCode, Locale.GERMAN));
+    }
+    finally {
+      // Restore original messages.
+      lRepository.reloadResource(MESSAGE_RESOURCE, lOriginalFile.toPath());
+      assertEquals("Test 1", lRepository.getMessage(lErrorCode, Locale.GERMAN));
+      lOriginalFile.delete();
+      lChangedFile.delete();
+      lDuplicateFile.delete();
+    }
+  }
+
+  /**
+   * Test compact storage of message templates.
+   */
+  @Test
+  public void testCompactStorage( ) {
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    lRepository.loadResource("JUnitMessages.xml");
+    MessageRepositoryConfiguration lConfiguration =
+        MessageRepositoryConfiguration.newBuilder().setCompactStorage(true).build();
+    MessageRepositoryImpl lCompactRepository = new MessageRepositoryImpl(new ArrayList<Element>(0), lConfiguration);
+    lCompactRepository.loadResource(MESSAGE_RESOURCE);
+    lCompactRepository.loadResource("JUnitMessages.xml");
+
+    // Invalid patterns must still be detected when a resource is loaded.
+    try {
+      lCompactRepository.loadResource("InvalidDefaultMessageFormat.xml");
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(MessageRepositoryImpl.INVALID_MESSAGE_FORMAT, e.getErrorCode());
+    }
+    MessageRepositoryFootprint lFootprint = lRepository.getFootprint();
+    MessageRepositoryFootprint lCompactFootprint = lCompactRepository.getFootprint();
+    assertEquals(lFootprint.getMessages(), lCompactFootprint.getMessages());
+    assertEquals(lFootprint.getTemplateReferences(), lCompactFootprint.getTemplateReferences());
+    assertTrue(lCompactFootprint.getDistinctTemplates() <= lFootprint.getDistinctTemplates());
+    assertEquals(0, lFootprint.getPooledPatternBytes());
+    assertTrue(lCompactFootprint.getPooledPatternBytes() > 0);
+    assertEquals(0, lCompactFootprint.getCompiledTemplates());
+    assertNotNull(lCompactFootprint.toString());
+
+    // Compact storage must not change any lookup result.
+    String[] lParams = new String[] { "A", "B", "C" };
+    for (MessageDefinition lNextMessage : lRepository.getAllMessages()) {
+      LocalizedObject lLocalizedObject = lNextMessage.getLocalizedObject();
+      for (Locale lNextLocale : new Locale[] { Locale.GERMAN, Locale.GERMANY, Locale.ENGLISH, Locale.US }) {
+        String lExpected = lRepository.getMessage(lLocalizedObject, lNextLocale, lParams);
+        assertEquals(lExpected, lCompactRepository.getMessage(lLocalizedObject, lNextLocale, lParams));
+      }
+    }
+    assertTrue(lCompactRepository.getFootprint().getCompiledTemplates() > 0);
+  }
+
+  /**
+   * Test off-heap storage of message patterns.
+   */
+  @Test
+  public void testOffHeapStorage( ) {
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    lRepository.loadResource("JUnitMessages.xml");
+    MessageRepositoryConfiguration lConfiguration =
+        MessageRepositoryConfiguration.newBuilder().setOffHeapStorage(true).build();
+    MessageRepositoryImpl lOffHeapRepository = new MessageRepositoryImpl(new ArrayList<Element>(0), lConfiguration);
+    lOffHeapRepository.loadResource(MESSAGE_RESOURCE);
+    lOffHeapRepository.loadResource("JUnitMessages.xml");
+    MessageRepositoryFootprint lFootprint = lRepository.getFootprint();
+    MessageRepositoryFootprint lOffHeapFootprint = lOffHeapRepository.getFootprint();
+    assertEquals(lFootprint.getMessages(), lOffHeapFootprint.getMessages());
+    assertEquals(0, lFootprint.getOffHeapBytes());
+    assertTrue(lOffHeapFootprint.getOffHeapBytes() >= lOffHeapFootprint.getPooledPatternBytes());
+    assertTrue(lOffHeapFootprint.getPooledPatternBytes() > 0);
+
+    // Off-heap storage must not change any lookup result.
+    String[] lParams = new String[] { "A", "B", "C" };
+    for (MessageDefinition lNextMessage : lRepository.getAllMessages()) {
+      LocalizedObject lLocalizedObject = lNextMessage.getLocalizedObject();
+      for (Locale lNextLocale : new Locale[] { Locale.GERMAN, Locale.GERMANY, Locale.ENGLISH, Locale.US }) {
+        String lExpected = lRepository.getMessage(lLocalizedObject, lNextLocale, lParams);
+        assertEquals(lExpected, lOffHeapRepository.getMessage(lLocalizedObject, lNextLocale, lParams));
+      }
+    }
+
+    // Compiled structures of off-heap templates do not stay on the heap.
+    assertEquals(0, lOffHeapRepository.getFootprint().getCompiledTemplates());
+  }
+
+  /**
+   * Test usage statistics of messages and their access via JMX.
+   */
+  @Test
+  public void testUsageStatistics( ) throws Exception {
+    // Usage statistics of the only instance are available via JMX.
+    MessageRepositoryImpl.getInstance();
+    ObjectName lObjectName = new ObjectName(MessageRepositoryImpl.MBEAN_NAME);
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(lObjectName));
+
+    MessageRepositoryImpl lRepository = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    lRepository.setTraceLocale(Locale.ENGLISH);
+    assertTrue(lRepository.isUsageStatisticsEnabled());
+    assertEquals(0, lRepository.getTopMessages(10).size());
+    ErrorCode lErrorCode1212 = lRepository.getErrorCode(1212);
+    ErrorCode lErrorCode20011 = lRepository.getErrorCode(20011);
+    for (int i = 0; i < 3; i++) {
+      lRepository.getMessage(lErrorCode1212, Locale.GERMANY);
+    }
+    lRepository.getMessage(lErrorCode1212, Locale.CHINA);
+    lRepository.getTraceMessage(lErrorCode1212);
+    lRepository.appendMessage(new StringBuilder(), lErrorCode20011, Locale.GERMANY);
+
+    // Check counters.
+    List<MessageUsage> lTopMessages = lRepository.getTopMessages(1);
+    assertEquals(1, lTopMessages.size());
+    MessageUsage lUsage = lTopMessages.get(0);
+    assertEquals(1212, lUsage.getLocalizationID());
+    assertEquals(4, lUsage.getMessageCount());
+    assertEquals(1, lUsage.getTraceCount());
+    assertEquals(5, lUsage.getUsageCount());
+    assertEquals(1, lUsage.getFallbackCount());
+    assertEquals(2, lRepository.getTopMessages(10).size());
+    assertEquals(4, lRepository.getLocaleUsage().get(Locale.GERMANY).longValue());
+    assertEquals(1, lRepository.getLocaleUsage().get(Locale.CHINA).longValue());
+    List<Integer> lUnusedIDs = new ArrayList<>();
+    for (int lNextID : lRepository.getUnusedLocalizationIDs()) {
+      lUnusedIDs.add(lNextID);
+    }
+    assertFalse(lUnusedIDs.contains(1212));
+    assertFalse(lUnusedIDs.contains(20011));
+    assertEquals(lRepository.getAllMessageUsages().size() - 2, lUnusedIDs.size());
+
+    // Check MBean.
+    MessageRepositoryManagement lManagement = new MessageRepositoryManagement(lRepository);
+    assertEquals(lRepository.getAllMessages().size(), lManagement.getMessageCount());
+    String[] lTopMessageDescriptions = lManagement.getTopMessages(5);
+    assertEquals(2, lTopMessageDescriptions.length);
+    String lExpectedDescription = "ID 1212: messages=4, traces=1, fallbacks=1";
+    assertTrue(lTopMessageDescriptions[0].startsWith(lExpectedDescription), lTopMessageDescriptions[0]);
+    assertTrue(Arrays.asList(lManagement.getLocaleUsage()).contains(Locale.GERMANY + "=4"));
+    lManagement.resetUsageStatistics();
+    assertEquals(0, lManagement.getTopMessages(5).length);
+    assertEquals(0, lManagement.getLocaleUsage().length);
+
+    // Number of counted locales is limited.
+    for (int i = 0; i < 100; i++) {
+      lRepository.getMessage(lErrorCode1212, new Locale("x" + i));
+    }
+    assertEquals(64, lRepository.getLocaleUsage().size());
+    assertEquals(100, lRepository.getTopMessages(1).get(0).getMessageCount());
+    lRepository.resetUsageStatistics();
+
+    // Usage statistics can be disabled.
+    MessageRepositoryConfiguration lConfiguration =
+        MessageRepositoryConfiguration.newBuilder().setUsageStatistics(false).build();
+    MessageRepositoryImpl lPlainRepository = new MessageRepositoryImpl(new ArrayList<Element>(0), lConfiguration);
+    lPlainRepository.loadResource(MESSAGE_RESOURCE);
+    assertFalse(lPlainRepository.isUsageStatisticsEnabled());
+    lPlainRepository.getMessage(lErrorCode1212, Locale.GERMANY);
+    assertEquals(0, lPlainRepository.getTopMessages(10).size());
+    assertEquals(0, lPlainRepository.getLocaleUsage().size());
+  }
+
+  /**
+   * Test export of messages and their import into another repository.
+   */
+  @Test
+  public void testExportImport( ) throws IOException {
+    MessageRepositoryImpl lServer = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lServer.loadResource(MESSAGE_RESOURCE);
+
+    // Import full export into an empty repository.
+    ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+    long lVersion = lServer.exportMessages(lOutputStream, 0);
+    assertEquals(lServer.getCatalogVersion(), lVersion);
+    MessageRepositoryImpl lClient = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    assertTrue(lClient.importMessages(new ByteArrayInputStream(lOutputStream.toByteArray())));
+    assertEquals(lVersion, lClient.getImportedVersion());
+    for (int lNextID : new int[] { 1212, 20011, 20012 }) {
+      ErrorCode lServerCode = lServer.getErrorCode(lNextID);
+      ErrorCode lClientCode = lClient.getErrorCode(lNextID);
+      assertEquals(lServerCode.getTraceLevel(), lClientCode.getTraceLevel());
+      for (Locale lNextLocale : new Locale[] { Locale.GERMANY, Locale.GERMAN, Locale.ENGLISH, Locale.CHINA }) {
+        assertEquals(lServer.getMessage(lServerCode, lNextLocale, "p"), lClient.getMessage(lClientCode, lNextLocale,
+            "p"));
+      }
+    }
+    assertEquals(lServer.getAllMessages().size(), lClient.getAllMessages().size());
+
+    // Delta only contains changed messages.
+    assertEquals(0, lServer.exportMessages(lVersion).getEntries().size());
+    Map<Locale, MessageFormat> lLocalizedMessages = new HashMap<>();
+    lLocalizedMessages.put(Locale.ITALIAN, new MessageFormat("Ciao"));
+    ErrorCode lNewCode = new ErrorCode(123456790, TraceLevel.WARN);
+    List<MessageDefinition> lMessageDefinitions = new ArrayList<>();
+    lMessageDefinitions.add(new MessageDefinition(lNewCode, new MessageFormat("Hello"), lLocalizedMessages));
+    lServer.addAllMessages(lMessageDefinitions);
+    MessageCatalogExport lDelta = lServer.exportMessages(lVersion);
+    assertFalse(lDelta.isFullExport());
+    assertEquals(1, lDelta.getEntries().size());
+    ErrorCode lClientCode = lClient.getErrorCode(1212);
+    lOutputStream = new ByteArrayOutputStream();
+    lServer.exportMessages(lOutputStream, lVersion);
+    assertTrue(lClient.importMessages(new ByteArrayInputStream(lOutputStream.toByteArray())));
+    assertEquals(lServer.getCatalogVersion(), lClient.getImportedVersion());
+    assertEquals("Hello", lClient.getMessage(lClient.getErrorCode(123456790), Locale.ENGLISH));
+    assertEquals("Ciao", lClient.getMessage(lClient.getErrorCode(123456790), Locale.ITALIAN));
+    assertTrue(lClientCode == lClient.getErrorCode(1212));
+
+    // Deltas since versions that are no longer part of the change history of the catalog contain the same changes.
+    long lDeltaVersion = lServer.getCatalogVersion();
+    for (int i = 1; i <= 100; i++) {
+      lMessageDefinitions = new ArrayList<>();
+      lMessageDefinitions.add(new MessageDefinition(new ErrorCode(123456790 + i, TraceLevel.WARN), new MessageFormat(
+          "Hello " + i), new HashMap<Locale, MessageFormat>()));
+      lServer.addAllMessages(lMessageDefinitions);
+    }
+    assertEquals(100, lServer.exportMessages(lDeltaVersion).getEntries().size());
+    lDelta = lServer.exportMessages(lServer.getCatalogVersion() - 10);
+    assertEquals(10, lDelta.getEntries().size());
+    assertEquals(123456790 + 91, lDelta.getEntries().get(0).getLocalizationID());
+
+    // Deltas of other repositories do not fit and versions that are unknown result in a full export.
+    MessageRepositoryImpl lOtherServer = new MessageRepositoryImpl(new ArrayList<Element>(0));
+    lOtherServer.loadResource(MESSAGE_RESOURCE);
+    assertFalse(lClient.importMessages(lOtherServer.exportMessages(1)));
+    assertTrue(lOtherServer.exportMessages(Long.MAX_VALUE).isFullExport());
+    assertTrue(lClient.importMessages(lOtherServer.exportMessages(0)));
+
+    // Invalid data is rejected.
+    try {
+      lClient.importMessages(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 }));
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      // Expected
+    }
+  }
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.test.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Locale;
+
+import com.anaptecs.jeaf.xfun.impl.messages.MessageTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit test class for message templates.
+ *
+ * @author JEAF Development Team
+ */
+public class MessageTemplateTest {
+  /**
+   * Patterns that are used for testing.
+   */
+  private static final String[] PATTERNS = new String[] { "Hello", "", "Parameter ''{0}'' must not be null.",
+    "{1} and {0} '{2}' {2}", "a '{' b {0,number,#.##} c", "{0,choice,0#none|1#one {1}|1<many {1}}",
+    "x {0,date,short} {3}", "It''s '' quoted '' {0}", "{0}{0}{0}", "{0,number,'#'0}" };
+
+  /**
+   * Arguments that are used for testing.
+   */
+  private static final Object[][] ARGUMENTS = new Object[][] { null, new Object[0], new Object[] { "A" },
+    new Object[] { "A", "B", "C" }, new Object[] { 1.2345, "z" }, new Object[] { 2, "k" }, new Object[] { null, "x" },
+    new Object[] { new Date(0), 1L, 3 } };
+
+  /**
+   * Method ensures that message templates produce exactly the same results as java.text.MessageFormat.
+   */
+  @Test
+  public void testCompatibilityWithMessageFormat( ) {
+    for (String lNextPattern : PATTERNS) {
+      MessageTemplate lTemplate = new MessageTemplate(lNextPattern);
+      MessageTemplate lConvertedTemplate = new MessageTemplate(new MessageFormat(lNextPattern));
+      assertEquals(lNextPattern, lTemplate.getPattern());
+
+      for (Object[] lNextArguments : ARGUMENTS) {
+        // Arguments that do not match the format type of their slot have to be rejected as message format does.
+        String lExpected;
+        try {
+          lExpected = new MessageFormat(lNextPattern).format(lNextArguments);
+        }
+        catch (IllegalArgumentException e) {
+          assertThrows(IllegalArgumentException.class, ( ) -> lTemplate.format(lNextArguments), lNextPattern);
+          assertThrows(IllegalArgumentException.class, ( ) -> lConvertedTemplate.format(lNextArguments));
+          continue;
+        }
+        assertEquals(lExpected, lTemplate.format(lNextArguments), lNextPattern);
+        assertEquals(lExpected, lConvertedTemplate.format(lNextArguments), lNextPattern);
+        assertEquals(lExpected, lTemplate.toMessageFormat().format(lNextArguments), lNextPattern);
+
+        StringBuilder lBuilder = new StringBuilder("prefix ");
+        lTemplate.render(lBuilder, lNextArguments);
+        assertEquals("prefix " + lExpected, lBuilder.toString(), lNextPattern);
+      }
+    }
+
+    // Invalid patterns have to be rejected.
+    try {
+      new MessageTemplate("Unmatched {0");
+      fail("Exception expected.");
+    }
+    catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Method tests lazy compilation of message templates.
+   */
+  @Test
+  public void testLazyCompilation( ) {
+    MessageTemplate lTemplate = MessageTemplate.createLazy("Hello {0}");
+    assertFalse(lTemplate.isCompiled());
+    assertEquals("Hello {0}", lTemplate.getPattern());
+    assertEquals("Hello World", lTemplate.format("World"));
+    assertTrue(lTemplate.isCompiled());
+
+    // Invalid patterns are only detected on first use.
+    MessageTemplate lInvalidTemplate = MessageTemplate.createLazy("Unmatched {0");
+    assertFalse(lInvalidTemplate.isCompiled());
+    try {
+      lInvalidTemplate.format("World");
+      fail("Exception expected.");
+    }
+    catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Method tests templates that render a text exactly as it is.
+   */
+  @Test
+  public void testLiteralTemplates( ) {
+    String[] lTexts = new String[] { "", "Unmatched {0", "It's {0}", "'", "''", "{'{", "'{}'", "a}b{c" };
+    for (String lNextText : lTexts) {
+      assertEquals(lNextText, MessageTemplate.createLiteral(lNextText).format("World"), lNextText);
+    }
+  }
+
+  /**
+   * Method tests rendering of typed arguments for different locales.
+   */
+  @Test
+  public void testTypedArguments( ) {
+    Object[] lTypedArguments = new Object[] { 1234567.891, 42, new Date(0), -7L };
+    for (Locale lNextLocale : new Locale[] { Locale.GERMANY, Locale.US, Locale.FRANCE, Locale.JAPAN }) {
+      // Numbers and dates are formatted as message format does it for the same locale.
+      for (String lNextPattern : PATTERNS) {
+        MessageTemplate lTemplate = new MessageTemplate(lNextPattern);
+        String lExpected = new MessageFormat(lNextPattern, lNextLocale).format(lTypedArguments);
+        assertEquals(lExpected, lTemplate.formatLocalized(lNextLocale, lTypedArguments), lNextPattern);
+      }
+      String lPattern = "{0} {0,number,integer} {1,number,percent} {2} {2,date,long} {2,time,short} {3,number,#.#}";
+      MessageTemplate lTemplate = new MessageTemplate(lPattern);
+      String lExpected = new MessageFormat(lPattern, lNextLocale).format(lTypedArguments);
+      assertEquals(lExpected, lTemplate.formatLocalized(lNextLocale, lTypedArguments));
+      assertEquals(lExpected, lTemplate.formatLocalized(lNextLocale, lTypedArguments));
+
+      // java.time values are rendered like the corresponding date.
+      LocalDateTime lDateTime = LocalDateTime.of(2021, 3, 14, 15, 9, 26);
+      Date lDate = Date.from(lDateTime.atZone(ZoneId.systemDefault()).toInstant());
+      String lDatePattern = "{0} {0,date,medium} {0,time,medium}";
+      MessageTemplate lDateTemplate = new MessageTemplate(lDatePattern);
+      lExpected = new MessageFormat(lDatePattern, lNextLocale).format(new Object[] { lDate });
+      assertEquals(lExpected, lDateTemplate.formatLocalized(lNextLocale, lDateTime));
+      assertEquals(lExpected, lDateTemplate.formatLocalized(lNextLocale, lDate.toInstant()));
+      assertEquals(lExpected, lDateTemplate.formatLocalized(lNextLocale, lDateTime.atZone(ZoneId.systemDefault())));
+      assertEquals(lExpected, lDateTemplate.formatLocalized(lNextLocale, lDateTime.atOffset(ZoneOffset.UTC)));
+      assertEquals(lExpected, lDateTemplate.formatLocalized(lNextLocale, ZonedDateTime.of(lDateTime,
+          ZoneId.of("Asia/Tokyo"))));
+      Date lStartOfDay = Date.from(lDateTime.toLocalDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+      lExpected = new MessageFormat("{0,date,long}", lNextLocale).format(new Object[] { lStartOfDay });
+      assertEquals(lExpected, new MessageTemplate("{0,date,long}").formatLocalized(lNextLocale, LocalDate.of(2021, 3,
+          14)));
+      lExpected = new MessageFormat("{0,time,short}", lNextLocale).format(new Object[] { lDate });
+      LocalTime lTime = lDateTime.toLocalTime();
+      assertEquals(lExpected, new MessageTemplate("{0,time,short}").formatLocalized(lNextLocale, lTime));
+    }
+
+    // Untyped rendering keeps the behavior of message format.
+    Instant lInstant = Instant.ofEpochSecond(0);
+    assertEquals(new MessageFormat("{0}").format(new Object[] { lInstant }), new MessageTemplate("{0}").format(
+        lInstant));
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.test.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Locale.Category;
+
+import com.anaptecs.jeaf.xfun.impl.messages.TraceMessageLayout;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit test class for trace message layouts.
+ *
+ * @author JEAF Development Team
+ */
+public class TraceMessageLayoutTest {
+  /**
+   * Formats that are used for testing.
+   */
+  private static final String[] FORMATS = new String[] { "[%1$5d] %3$-20s %2$s", "%s %s %s", "%2$s", "%d: %s",
+    "%-5d|%3$10s|%%|%n|", "%05d", "%,d %s", "%1$+d", "%.3s", "%x", "%1$20s%2$-3s%3$3s", "No arguments" };
+
+  /**
+   * Localization IDs that are used for testing.
+   */
+  private static final int[] LOCALIZATION_IDS = new int[] { 0, 7, 12345, 123456, -42 };
+
+  /**
+   * Messages that are used for testing.
+   */
+  private static final String[] MESSAGES = new String[] { "Hello", "", null, "A message that is longer than 20" };
+
+  /**
+   * Method ensures that trace message layouts produce exactly the same results as String.format(...).
+   */
+  @Test
+  public void testCompatibilityWithStringFormat( ) {
+    Locale lDefaultLocale = Locale.getDefault(Category.FORMAT);
+    try {
+      for (Locale lNextLocale : new Locale[] { Locale.GERMANY, Locale.US, new Locale("ar", "EG") }) {
+        Locale.setDefault(Category.FORMAT, lNextLocale);
+        for (String lNextFormat : FORMATS) {
+          TraceMessageLayout lLayout = new TraceMessageLayout(lNextFormat);
+          assertEquals(lNextFormat, lLayout.getFormat());
+          for (int lNextID : LOCALIZATION_IDS) {
+            for (String lNextMessage : MESSAGES) {
+              String lExpected = String.format(lNextFormat, lNextID, lNextMessage, "user");
+              StringBuilder lBuilder = new StringBuilder("prefix ");
+              lLayout.render(lBuilder, lNextID, lNextMessage, "user");
+              assertEquals("prefix " + lExpected, lBuilder.toString(), lNextFormat);
+            }
+          }
+        }
+      }
+    }
+    finally {
+      Locale.setDefault(Category.FORMAT, lDefaultLocale);
+    }
+  }
+
+  /**
+   * Method checks which formats are compiled.
+   */
+  @Test
+  public void testCompilation( ) {
+    Locale lDefaultLocale = Locale.getDefault(Category.FORMAT);
+    try {
+      Locale.setDefault(Category.FORMAT, Locale.GERMANY);
+      assertTrue(new TraceMessageLayout("[%1$5d] %3$-20s %2$s").isCompiled());
+      assertTrue(new TraceMessageLayout("%s%n%%").isCompiled());
+      assertFalse(new TraceMessageLayout("%05d").isCompiled());
+      assertFalse(new TraceMessageLayout("%x").isCompiled());
+
+      // Layout must also be correct if the default locale is changed after compilation.
+      TraceMessageLayout lLayout = new TraceMessageLayout("[%1$5d] %2$s");
+      Locale.setDefault(Category.FORMAT, new Locale("ar", "EG"));
+      String lExpected = String.format("[%1$5d] %2$s", 4711, "Message");
+      assertEquals(lExpected, lLayout.render(new StringBuilder(), 4711, "Message", null).toString());
+    }
+    finally {
+      Locale.setDefault(Category.FORMAT, lDefaultLocale);
+    }
+  }
+}
@@ -6,6 +6,7 @@
 package com.anaptecs.jeaf.xfun.impl.test.principal;
 
 import java.security.Principal;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.anaptecs.jeaf.xfun.api.principal.PrincipalProvider;
 
@@ -22,6 +23,12 @@ public class TestPrincipalProvider implements PrincipalProvider {
    */
   private static final Principal DEFAULT_PRINCIPAL = new DummyPrincipal();
 
+  /**
+   * Number of lookups of the current principal. The counter is used by tests to ensure that the principal is only
+   * looked up when it is really required.
+   */
+  private static final AtomicInteger LOOKUP_COUNTER = new AtomicInteger();
+
   /**
    * Initialize object.
    */
@@ -36,6 +43,16 @@ public class TestPrincipalProvider implements PrincipalProvider {
    * @return {@link Principal} Current principal object. The method never returns null.
    */
   public Principal getCurrentPrincipal( ) {
+    LOOKUP_COUNTER.incrementAndGet();
     return DEFAULT_PRINCIPAL;
   }
+
+  /**
+   * Method returns how often the current principal was looked up.
+   * 
+   * @return int Number of lookups of the current principal.
+   */
+  public static int getLookupCount( ) {
+    return LOOKUP_COUNTER.get();
+  }
 }
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.test.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.anaptecs.jeaf.junit.JUnitMessages;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.trace.TraceConfiguration;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.impl.trace.AsyncTraceDispatcher;
+import com.anaptecs.jeaf.xfun.impl.trace.BackPressurePolicy;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceImpl;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit test class for asynchronous tracing.
+ *
+ * @author JEAF Development Team
+ */
+public class AsyncTraceDispatcherTest {
+  /**
+   * Name of the logger that is used for testing.
+   */
+  private static final String LOGGER_NAME = "ASYNC_TRACE_TEST";
+
+  /**
+   * Method tests that asynchronous traces are written by the dispatcher thread with back-pressure policy BLOCK.
+   */
+  @Test
+  public void testBlockingDispatcher( ) {
+    AsyncTraceDispatcher lDispatcher = new AsyncTraceDispatcher(5, BackPressurePolicy.BLOCK, TraceLevel.INFO, null);
+    assertEquals(8, lDispatcher.getCapacity());
+    TraceImpl lTrace = new TraceImpl(LOGGER_NAME, TraceConfiguration.getInstance(), lDispatcher);
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+    lDispatcher.start();
+    try {
+      // Much more traces than the buffer can hold have to be written.
+      for (int i = 0; i < 100; i++) {
+        lTrace.info("Async trace " + i);
+      }
+      assertTrue(lDispatcher.flush(5000));
+      assertEquals(100, lAppender.getMessageCounter());
+      assertTrue(lAppender.getLastMessage().toString().endsWith("Async trace 99"));
+      assertEquals(0, lDispatcher.getBufferedEvents());
+      assertEquals(0, lDispatcher.getDroppedEvents());
+
+      // Disabled traces are not buffered at all.
+      lTrace.debug("Disabled trace");
+      assertEquals(0, lDispatcher.getBufferedEvents());
+
+      // Trace messages are rendered by the dispatcher thread.
+      lTrace.info(JUnitMessages.CHECK_CONSTRAINTS_WARNING_1);
+      assertTrue(lDispatcher.flush(5000));
+      assertEquals(101, lAppender.getMessageCounter());
+      String lExpectedMessage = XFun.getMessageRepository().getTraceMessage(JUnitMessages.CHECK_CONSTRAINTS_WARNING_1);
+      assertEquals(lExpectedMessage, lAppender.getLastMessage().toString());
+    }
+    finally {
+      assertTrue(lDispatcher.shutdown(5000));
+    }
+
+    // After shutdown traces are written synchronously.
+    lTrace.info("Synchronous trace");
+    assertEquals(102, lAppender.getMessageCounter());
+  }
+
+  /**
+   * Method tests that traces of low levels are discarded with back-pressure policy DROP.
+   */
+  @Test
+  public void testDroppingDispatcher( ) {
+    AsyncTraceDispatcher lDispatcher = new AsyncTraceDispatcher(4, BackPressurePolicy.DROP, TraceLevel.INFO, null);
+    TraceImpl lTrace = new TraceImpl(LOGGER_NAME, TraceConfiguration.getInstance(), lDispatcher);
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+
+    // As the dispatcher is not started yet the buffer will be full after 4 traces.
+    for (int i = 0; i < 6; i++) {
+      lTrace.info("Dropped trace " + i);
+    }
+    assertEquals(4, lDispatcher.getBufferedEvents());
+    assertEquals(2, lDispatcher.getDroppedEvents());
+    assertEquals(0, lAppender.getMessageCounter());
+
+    // Errors must not be discarded.
+    lTrace.error("Error trace");
+    assertEquals(1, lAppender.getMessageCounter());
+    assertTrue(lAppender.getLastMessage().toString().endsWith("Error trace"));
+
+    lDispatcher.start();
+    try {
+      assertTrue(lDispatcher.flush(5000));
+      assertEquals(0, lDispatcher.getBufferedEvents());
+    }
+    finally {
+      assertTrue(lDispatcher.shutdown(5000));
+    }
+    // Dispatcher reports discarded traces through its own logger.
+    assertEquals(6, lAppender.getMessageCounter());
+  }
+
+  /**
+   * Method tests that traces are written to the spill file with back-pressure policy SPILL.
+   */
+  @Test
+  public void testSpillingDispatcher( ) throws IOException {
+    File lSpillFile = File.createTempFile("TraceSpill", ".log");
+    try {
+      AsyncTraceDispatcher lDispatcher =
+          new AsyncTraceDispatcher(2, BackPressurePolicy.SPILL, TraceLevel.INFO, lSpillFile);
+      TraceImpl lTrace = new TraceImpl(LOGGER_NAME, TraceConfiguration.getInstance(), lDispatcher);
+      TestAppender lAppender = TestAppender.getInstance();
+      lAppender.reset();
+
+      lTrace.warn("Spilled trace 0");
+      lTrace.warn("Spilled trace 1");
+      lTrace.error("Spilled trace 2", new IllegalStateException("Spilled exception"));
+      assertEquals(1, lDispatcher.getSpilledEvents());
+      assertEquals(0, lAppender.getMessageCounter());
+
+      lDispatcher.start();
+      assertTrue(lDispatcher.flush(5000));
+      assertTrue(lDispatcher.shutdown(5000));
+      assertEquals(2, lAppender.getMessageCounter());
+
+      String lContent = new String(Files.readAllBytes(lSpillFile.toPath()), StandardCharsets.UTF_8);
+      assertTrue(lContent.contains("ERROR " + LOGGER_NAME + " - "), lContent);
+      assertTrue(lContent.contains("Spilled trace 2"), lContent);
+      assertTrue(lContent.contains("java.lang.IllegalStateException: Spilled exception"), lContent);
+      assertFalse(lContent.contains("Spilled trace 1"), lContent);
+    }
+    finally {
+      lSpillFile.delete();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.test.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.Test;
+
+import com.anaptecs.jeaf.junit.JUnitMessages;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.messages.MessageID;
+import com.anaptecs.jeaf.xfun.api.messages.MessageRepository;
+import com.anaptecs.jeaf.xfun.api.trace.TraceConfiguration;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceBackendType;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceImpl;
+
+/**
+ * JUnit test class for tracing directly through Log4J2.
+ *
+ * @author JEAF Development Team
+ */
+public class Log4j2TraceBackendTest {
+  /**
+   * Name of the logger that is used for testing.
+   */
+  private static final String LOGGER_NAME = "LOG4J2_TRACE_TEST";
+
+  /**
+   * Method tests tracing of simple messages through Log4J2.
+   */
+  @Test
+  public void testSimpleTraces( ) {
+    TraceImpl lTrace = new TraceImpl(LOGGER_NAME, TraceConfiguration.getInstance(), null, TraceBackendType.LOG4J2);
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+    Configurator.setLevel(LogManager.getRootLogger().getName(), Level.INFO);
+
+    assertEquals(TraceLevel.INFO, lTrace.getLevel());
+    assertTrue(lTrace.isLevelEnabled(TraceLevel.WARN));
+    assertFalse(lTrace.isLevelEnabled(TraceLevel.DEBUG));
+
+    lTrace.info("Hello Log4J2!");
+    assertEquals("Hello Log4J2!", lAppender.getLastMessage());
+    assertEquals(Level.INFO, lAppender.getLastLevel());
+    lAppender.reset();
+
+    lTrace.debug("Disabled trace");
+    assertNull(lAppender.getLastMessage(), "Message was traced.");
+
+    IllegalStateException lException = new IllegalStateException("Log4J2 exception");
+    lTrace.error("Error trace", lException);
+    assertEquals("Error trace", lAppender.getLastMessage());
+    assertEquals(Level.ERROR, lAppender.getLastLevel());
+    assertEquals(lException, lAppender.getLastThrowable());
+    lAppender.reset();
+
+    // Log4J's level TRACE is supported directly.
+    Configurator.setLevel(LogManager.getRootLogger().getName(), Level.TRACE);
+    assertEquals(TraceLevel.TRACE, lTrace.getLevel());
+    lTrace.trace("Trace trace");
+    assertEquals(Level.TRACE, lAppender.getLastLevel());
+    Configurator.setLevel(LogManager.getRootLogger().getName(), Level.INFO);
+  }
+
+  /**
+   * Method tests that messages identified by a message ID are rendered correctly when they are written through Log4J2.
+   */
+  @Test
+  public void testParameterizableTraces( ) {
+    TraceImpl lTrace = new TraceImpl(LOGGER_NAME, TraceConfiguration.getInstance(), null, TraceBackendType.LOG4J2);
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+    Configurator.setLevel(LogManager.getRootLogger().getName(), Level.INFO);
+    MessageRepository lMessageRepository = XFun.getMessageRepository();
+
+    MessageID lMessageID = JUnitMessages.INFO_MESSAGE;
+    lTrace.info(lMessageID);
+    assertEquals(lMessageRepository.getTraceMessage(lMessageID), lAppender.getLastMessage());
+    lAppender.reset();
+
+    // Message must be the same when it is written a second time using the reused message object.
+    lTrace.info(lMessageID);
+    assertEquals(lMessageRepository.getTraceMessage(lMessageID), lAppender.getLastMessage());
+    assertEquals(1, lAppender.getMessageCounter());
+    lAppender.reset();
+
+    // Disabled messages must not be traced.
+    lTrace.debug(JUnitMessages.DEBUG_MESSAGE);
+    assertNull(lAppender.getLastMessage(), "Message was traced.");
+    assertEquals(0, lAppender.getMessageCounter());
+
+    // Plain messages written afterwards must not be affected by previous trace messages.
+    lTrace.info("Plain trace");
+    assertEquals("Plain trace", lAppender.getLastMessage());
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2004 - 2021 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.xfun.impl.test.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.Test;
+
+import com.anaptecs.jeaf.junit.JUnitMessages;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.common.ComponentID;
+import com.anaptecs.jeaf.xfun.api.trace.ContextStackElement;
+import com.anaptecs.jeaf.xfun.api.trace.Trace;
+import com.anaptecs.jeaf.xfun.impl.trace.ContextPropagatingExecutorService;
+import com.anaptecs.jeaf.xfun.impl.trace.TraceContextSnapshot;
+
+/**
+ * JUnit test class for the propagation of the context stack to other threads.
+ *
+ * @author JEAF Development Team
+ */
+public class TraceContextPropagationTest {
+  /**
+   * Method tests that tasks that are executed through a decorated executor service use the context stack of the thread
+   * that submitted them.
+   */
+  @Test
+  public void testExecutorServicePropagation( ) throws InterruptedException, ExecutionException {
+    Trace lDefaultTrace = XFun.getTrace();
+    ComponentID lComponent = new ComponentID("Component 1", "com.anaptecs.jeaf.component1");
+    Trace lComponentTrace = XFun.getTraceProvider().getTrace(lComponent);
+    ExecutorService lExecutor = new ContextPropagatingExecutorService(Executors.newFixedThreadPool(2));
+    Level lRootLevel = LogManager.getRootLogger().getLevel();
+    try {
+      lDefaultTrace.newContextStack(new ContextStackElement("1", lComponent));
+      lDefaultTrace.pushContextStackElement(new ContextStackElement("2", lComponent));
+      TraceContextSnapshot lSnapshot = TraceContextSnapshot.capture();
+      assertEquals(2, lSnapshot.getDepth());
+
+      // Task is attributed to the trace of the component.
+      Future<Trace> lFuture = lExecutor.submit(( ) -> XFun.getTrace());
+      assertSame(lComponentTrace, lFuture.get());
+
+      // Indentation is the same as on the submitting thread.
+      Configurator.setLevel(LogManager.getRootLogger().getName(), Level.INFO);
+      TestAppender lAppender = TestAppender.getInstance();
+      lAppender.reset();
+      lExecutor.submit(( ) -> XFun.getTrace().info(JUnitMessages.CHECK_CONSTRAINTS_WARNING_1)).get();
+      assertTrue(lAppender.getLastMessage().toString().startsWith("        [10002]"));
+
+      // Fan out using the same snapshot.
+      Callable<Integer> lDepthTask = ( ) -> TraceContextSnapshot.capture().getDepth();
+      List<Future<Integer>> lResults = lExecutor.invokeAll(Arrays.asList(lDepthTask, lDepthTask));
+      for (Future<Integer> lNext : lResults) {
+        assertEquals(2, lNext.get());
+      }
+
+      // CompletableFuture pipelines
+      Trace lTrace = CompletableFuture.supplyAsync(( ) -> XFun.getTrace(), lExecutor)
+          .thenApplyAsync(pTrace -> XFun.getTrace(), lExecutor).get();
+      assertSame(lComponentTrace, lTrace);
+
+      // Context stack is restored after the task was executed.
+      lComponentTrace.popContextStackElement();
+      lComponentTrace.popContextStackElement();
+      assertEquals(0, lExecutor.submit(( ) -> TraceContextSnapshot.capture().getDepth()).get());
+      assertSame(lDefaultTrace, lExecutor.submit(( ) -> XFun.getTrace()).get());
+    }
+    finally {
+      Configurator.setRootLevel(lRootLevel);
+      lExecutor.shutdown();
+      lDefaultTrace.popContextStackElement();
+      lDefaultTrace.popContextStackElement();
+    }
+  }
+
+  /**
+   * Method tests wrapping of single tasks with a snapshot of the context stack.
+   */
+  @Test
+  public void testSnapshotWrappers( ) throws Exception {
+    Trace lDefaultTrace = XFun.getTrace();
+    ComponentID lComponent = new ComponentID("Component 1", "com.anaptecs.jeaf.component1");
+    ContextStackElement lElement = new ContextStackElement("1", lComponent);
+    lDefaultTrace.newContextStack(lElement);
+    TraceContextSnapshot lSnapshot = TraceContextSnapshot.capture();
+    lDefaultTrace.popContextStackElement();
+    assertSame(lElement, lSnapshot.getCurrentContextStackElement());
+    assertNull(TraceContextSnapshot.capture().getCurrentContextStackElement());
+
+    // Snapshot is active while the task is executed and is removed afterwards.
+    assertEquals(1, (int) lSnapshot.wrap(( ) -> TraceContextSnapshot.capture().getDepth()).call());
+    assertEquals(1, (int) lSnapshot.wrapSupplier(( ) -> TraceContextSnapshot.capture().getDepth()).get());
+    lSnapshot.wrap(( ) -> assertEquals(1, TraceContextSnapshot.capture().getDepth())).run();
+    assertEquals(0, TraceContextSnapshot.capture().getDepth());
+
+    // Context stack is also restored in case of exceptions.
+    try {
+      lSnapshot.run(( ) -> {
+        throw new IllegalStateException();
+      });
+      fail("Exception expected.");
+    }
+    catch (IllegalStateException e) {
+      assertEquals(0, TraceContextSnapshot.capture().getDepth());
+    }
+  }
+}
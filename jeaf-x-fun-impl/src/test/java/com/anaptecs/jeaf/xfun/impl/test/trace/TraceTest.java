@@ -13,6 +13,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.management.Attribute;
 import javax.management.InstanceNotFoundException;
@@ -35,13 +37,17 @@ import com.anaptecs.jeaf.xfun.api.trace.Trace;
 import com.anaptecs.jeaf.xfun.api.trace.TraceConfiguration;
 import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
 import com.anaptecs.jeaf.xfun.api.trace.TraceProvider;
+import com.anaptecs.jeaf.xfun.impl.messages.MessageRepositoryImpl;
+import com.anaptecs.jeaf.xfun.impl.test.principal.TestPrincipalProvider;
 import com.anaptecs.jeaf.xfun.impl.trace.DefaultTrace;
 import com.anaptecs.jeaf.xfun.impl.trace.TraceImpl;
 import com.anaptecs.jeaf.xfun.impl.trace.TraceManagement;
 import com.anaptecs.jeaf.xfun.impl.trace.TraceProviderImpl;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -278,6 +284,45 @@ public class TraceTest {
     lAppender.reset();
   }
 
+  /**
+   * Method tests that traces with a message ID are neither rendered nor capture the current user if their level is
+   * disabled.
+   */
+  @Test
+  public void testDisabledParameterizableTraces( ) {
+    Trace lTrace = JUnitTrace.getInstance();
+    TestAppender lAppender = TestAppender.getInstance();
+    MessageRepositoryImpl lMessageRepository = MessageRepositoryImpl.getInstance();
+    boolean lShowCurrentUser = lMessageRepository.showCurrentUserInTraces();
+    Level lRootLevel = LogManager.getRootLogger().getLevel();
+    try {
+      lMessageRepository.setShowCurrentUserInTraces(true);
+      Configurator.setRootLevel(Level.WARN);
+      lAppender.reset();
+
+      // Disabled traces must not look up the current user.
+      int lLookupCount = TestPrincipalProvider.getLookupCount();
+      lTrace.trace(JUnitMessages.TRACE_MESSAGE);
+      lTrace.debug(JUnitMessages.DEBUG_MESSAGE, "Debug");
+      lTrace.info(JUnitMessages.INFO_MESSAGE, new IllegalStateException("Info"));
+      lTrace.write(JUnitMessages.INFO_MESSAGE);
+      assertEquals(lLookupCount, TestPrincipalProvider.getLookupCount(), "Current user was looked up.");
+      assertNull(lAppender.getLastMessage(), "Message was traced.");
+      assertEquals(0, lAppender.getMessageCounter());
+
+      // Enabled traces are rendered with the current user.
+      lTrace.warn(JUnitMessages.WARN_MESSAGE);
+      assertTrue(TestPrincipalProvider.getLookupCount() > lLookupCount, "Current user was not looked up.");
+      assertEquals(lMessageRepository.getTraceMessage(JUnitMessages.WARN_MESSAGE), lAppender.getLastMessage());
+      assertEquals(1, lAppender.getMessageCounter());
+    }
+    finally {
+      Configurator.setRootLevel(lRootLevel);
+      lMessageRepository.setShowCurrentUserInTraces(lShowCurrentUser);
+      lAppender.reset();
+    }
+  }
+
   @Test
   public void testInternalLogMethod( ) {
     // Create simple exception and trace it.
@@ -642,6 +687,60 @@ public class TraceTest {
     assertEquals(lDefaultTrace, XFun.getTrace());
   }
 
+  /**
+   * Method tests indentation of traces whose context stack is deeper than the precomputed indentation levels.
+   */
+  @Test
+  public void testDeepIndentation( ) {
+    Trace lDefaultTrace = XFun.getTrace();
+    ComponentID lComponent1 = new ComponentID("Component 1", "com.anaptecs.jeaf.component1");
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+    try {
+      lDefaultTrace.newContextStack(new ContextStackElement("1", lComponent1));
+      for (int lLevel = 2; lLevel <= 70; lLevel++) {
+        lDefaultTrace.pushContextStackElement(new ContextStackElement(Integer.toString(lLevel), lComponent1));
+
+        // Every level is indented by 4 blanks, also beyond the 32 precomputed levels.
+        lDefaultTrace.info(JUnitMessages.CHECK_CONSTRAINTS_WARNING_1);
+        String lLastMessage = lAppender.getLastMessage().toString();
+        assertTrue(lLastMessage.startsWith(" ".repeat(lLevel * 4) + "[10002]"), lLastMessage);
+      }
+    }
+    finally {
+      while (lDefaultTrace.popContextStackElement() != null) {
+        // Nothing to do.
+      }
+    }
+  }
+
+  /**
+   * Method tests that traces are not indented at all if indentation is disabled.
+   */
+  @Test
+  public void testDisabledIndentation( ) {
+    TraceConfiguration lTraceConfiguration = new TraceConfiguration("test_trace_config", null, true);
+    assertEquals(false, lTraceConfiguration.isTraceIndentationEnabled());
+    TraceImpl lTraceImpl = new TraceImpl(TraceTest.class.getName(), lTraceConfiguration);
+    ComponentID lComponent1 = new ComponentID("Component 1", "com.anaptecs.jeaf.component1");
+    TestAppender lAppender = TestAppender.getInstance();
+    lAppender.reset();
+    try {
+      for (int lLevel = 1; lLevel <= 40; lLevel++) {
+        lTraceImpl.pushContextStackElement(new ContextStackElement(Integer.toString(lLevel), lComponent1));
+      }
+      lTraceImpl.info(JUnitMessages.CHECK_CONSTRAINTS_WARNING_1);
+      assertTrue(lAppender.getLastMessage().toString().startsWith("[10002]"));
+      lTraceImpl.info("Hello");
+      assertEquals("Hello", lAppender.getLastMessage());
+    }
+    finally {
+      while (lTraceImpl.popContextStackElement() != null) {
+        // Nothing to do.
+      }
+    }
+  }
+
   @Test
   public void testTraceConfigurationUsage( ) {
     TraceConfiguration lTraceConfiguration = new TraceConfiguration("test_trace_config", null, true);
@@ -928,6 +1027,53 @@ public class TraceTest {
 
   }
 
+  /**
+   * Method tests that the cached trace level follows changes of the Log4J2 configuration.
+   */
+  @Test
+  public void testCachedTraceLevel( ) {
+    // Levels of all loggers have to be restored as other tests depend on them.
+    LoggerContext lLoggerContext = (LoggerContext) LogManager.getContext(false);
+    Map<String, Level> lLevels = new HashMap<>();
+    for (LoggerConfig lNextLoggerConfig : lLoggerContext.getConfiguration().getLoggers().values()) {
+      lLevels.put(lNextLoggerConfig.getName(), lNextLoggerConfig.getLevel());
+    }
+    try {
+      TraceImpl lParentTrace = new TraceImpl("com.anaptecs.cached");
+      TraceImpl lChildTrace = new TraceImpl("com.anaptecs.cached.child");
+      Configurator.setLevel(LogManager.getRootLogger().getName(), Level.INFO);
+      assertEquals(TraceLevel.INFO, lParentTrace.getLevel());
+      assertEquals(TraceLevel.INFO, lChildTrace.getLevel());
+
+      // Level changes through Log4J2 have to be recognized.
+      Configurator.setLevel("com.anaptecs.cached", Level.DEBUG);
+      assertEquals(TraceLevel.DEBUG, lParentTrace.getLevel());
+      assertEquals(TraceLevel.DEBUG, lChildTrace.getLevel());
+      assertTrue(lChildTrace.isLevelEnabled(TraceLevel.DEBUG));
+
+      // Level changes through JMX also affect child loggers.
+      TraceManagement lTraceManagement = new TraceManagement(lParentTrace);
+      lTraceManagement.setTraceLevel(TraceLevel.ERROR.name());
+      assertEquals(TraceLevel.ERROR, lParentTrace.getLevel());
+      assertEquals(TraceLevel.ERROR, lChildTrace.getLevel());
+      assertEquals(false, lChildTrace.isLevelEnabled(TraceLevel.WARN));
+      lTraceManagement.resetTraceLevel();
+      assertEquals(TraceLevel.INFO, lParentTrace.getLevel());
+      assertEquals(TraceLevel.INFO, lChildTrace.getLevel());
+
+      // Reconfiguration of Log4J2 discards all levels that were set programmatically.
+      Configurator.setLevel("com.anaptecs.cached", Level.OFF);
+      assertNull(lChildTrace.getLevel());
+      assertEquals(false, lChildTrace.isLevelEnabled(TraceLevel.FATAL));
+      lLoggerContext.reconfigure();
+      assertEquals(TraceLevel.INFO, lChildTrace.getLevel());
+    }
+    finally {
+      Configurator.setLevel("com.anaptecs.cached", (Level) null);
+      Configurator.setLevel(lLevels);
+    }
+  }
+
   @Test
   public void testXFunTraceAccess( ) {
     XFun.getTrace().info("Hello JEAF X-Fun");